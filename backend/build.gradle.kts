@@ -4,6 +4,7 @@ plugins {
     java
     id("org.springframework.boot") version "4.0.1"
     id("io.spring.dependency-management") version "1.1.7"
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "com.sweng"
@@ -22,6 +23,10 @@ dependencies {
     implementation("org.springframework.boot:spring-boot-starter-actuator")
     implementation("org.springframework.boot:spring-boot-starter-data-jpa")
     implementation("org.springframework.boot:spring-boot-starter-json")
+    implementation("org.springframework.boot:spring-boot-starter-flyway")
+    implementation("org.flywaydb:flyway-database-postgresql")
+    implementation("org.hibernate.orm:hibernate-micrometer")
+    runtimeOnly("io.micrometer:micrometer-registry-prometheus")
 
     implementation("io.jsonwebtoken:jjwt-api:0.11.5")
     runtimeOnly("io.jsonwebtoken:jjwt-impl:0.11.5")
@@ -39,12 +44,41 @@ dependencies {
     testImplementation("org.springframework.security:spring-security-test")
     testImplementation("com.h2database:h2") // <-- important
 
-    runtimeOnly("org.postgresql:postgresql")
+    implementation("org.postgresql:postgresql")
     implementation("me.paulschwarz:spring-dotenv:4.0.0")
 }
 
 tasks.withType<Test> { useJUnitPlatform() }
 
+tasks.named<Test>("test") { useJUnitPlatform { excludeTags("load") } }
+
+// Concurrency load tests (tagged "load"), run once on platform threads and once on virtual threads
+tasks.register<Test>("loadTest") {
+    description = "Runs the concurrency load tests."
+    group = "verification"
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    useJUnitPlatform { includeTags("load") }
+    testLogging { showStandardStreams = true }
+    shouldRunAfter(tasks.named("test"))
+}
+
+// Microbenchmarks live in src/jmh/java; run with `gradle jmh`, optionally narrowed with
+// -PjmhIncludes=<regex>. Results go to build/results/jmh/results.json for run-over-run comparison.
+jmh {
+    jmhVersion = "1.37"
+    providers.gradleProperty("jmhIncludes").orNull?.let { includes = listOf(it) }
+    fork = 1
+    warmupIterations = 3
+    warmup = "1s"
+    iterations = 5
+    timeOnIteration = "1s"
+    benchmarkMode = listOf("avgt")
+    timeUnit = "ns"
+    resultFormat = "JSON"
+    resultsFile = layout.buildDirectory.file("results/jmh/results.json")
+}
+
 tasks.withType<Javadoc> {
     options.encoding = "UTF-8"
     setFailOnError(true)
@@ -0,0 +1,96 @@
+package com.sweng.backend.auth;
+
+import java.util.List;
+import java.util.UUID;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Benchmarks for JWT issuing and verification. */
+@State(Scope.Benchmark)
+public class JwtBenchmark {
+
+  private static final String SECRET = "benchmarkSecretKeyForJmhOnly1234567890abcdef";
+  private static final long EXPIRATION = 86_400_000L;
+
+  private final UUID uid = UUID.randomUUID();
+  private final List<String> roles = List.of("CUSTOMER");
+
+  private JwtUtil cached;
+  private JwtUtil uncached;
+  private String token;
+
+  private JwtUtil full;
+  private String[] distinct;
+  private int next;
+
+  /** Builds the utilities and a token to verify. */
+  @Setup
+  public void setup() {
+    cached = new JwtUtil(SECRET, EXPIRATION, 10_000);
+    uncached = new JwtUtil(SECRET, EXPIRATION, 0);
+    token = cached.generateToken("customer", uid, roles);
+    cached.verify(token);
+
+    // Twice as many tokens as the cache holds, so most verifications evict
+    full = new JwtUtil(SECRET, EXPIRATION, 10_000);
+    distinct = new String[20_000];
+    for (int i = 0; i < distinct.length; i++) {
+      distinct[i] = full.generateToken("customer-" + i, UUID.randomUUID(), roles);
+      full.verify(distinct[i]);
+    }
+  }
+
+  /**
+   * Issues a token, as on login.
+   *
+   * @return the token
+   */
+  @Benchmark
+  public String generateToken() {
+    return cached.generateToken("customer", uid, roles);
+  }
+
+  /**
+   * Fully parses and checks a token.
+   *
+   * @return whether the token is valid
+   */
+  @Benchmark
+  public boolean validateToken() {
+    return cached.validateToken(token);
+  }
+
+  /**
+   * Verifies a token with the verified-token cache disabled.
+   *
+   * @return the principal
+   */
+  @Benchmark
+  public AuthenticatedUser verifyUncached() {
+    return uncached.verify(token);
+  }
+
+  /**
+   * Verifies a token that is already in the verified-token cache.
+   *
+   * @return the principal
+   */
+  @Benchmark
+  public AuthenticatedUser verifyCached() {
+    return cached.verify(token);
+  }
+
+  /**
+   * Verifies tokens from a set larger than the verified-token cache, which stays full.
+   *
+   * @return the principal
+   */
+  @Benchmark
+  public AuthenticatedUser verifyWithFullCache() {
+    String t = distinct[next];
+    next = (next + 1) % distinct.length;
+    return full.verify(t);
+  }
+}
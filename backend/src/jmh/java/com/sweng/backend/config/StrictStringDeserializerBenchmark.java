@@ -0,0 +1,63 @@
+package com.sweng.backend.config;
+
+import com.sweng.backend.auth.RegisterRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Benchmarks for {@link StrictStringDeserializer}, against the same payload bound with Jackson's
+ * default string handling.
+ */
+@State(Scope.Benchmark)
+public class StrictStringDeserializerBenchmark {
+
+  private static final String BODY =
+      "{\"username\":\"customer\",\"email\":\"customer@example.com\",\"password\":\"secret123\","
+          + "\"firstName\":\"Jane\",\"lastName\":\"Customer\"}";
+
+  private final ObjectMapper mapper = JsonMapper.builder().build();
+
+  /**
+   * Binds a register request, whose fields all use the strict deserializer.
+   *
+   * @return the request
+   */
+  @Benchmark
+  public RegisterRequest strict() {
+    return mapper.readValue(BODY, RegisterRequest.class);
+  }
+
+  /**
+   * Binds the same payload to fields using the default string deserializer.
+   *
+   * @return the request
+   */
+  @Benchmark
+  public PlainRegisterRequest baseline() {
+    return mapper.readValue(BODY, PlainRegisterRequest.class);
+  }
+
+  /** Register request shape without the strict deserializer. */
+  public static class PlainRegisterRequest {
+    /** The username. */
+    public String username;
+
+    /** The email. */
+    public String email;
+
+    /** The password. */
+    public String password;
+
+    /** The first name. */
+    public String firstName;
+
+    /** The last name. */
+    public String lastName;
+
+    /** Default constructor for deserialization. */
+    public PlainRegisterRequest() {}
+  }
+}
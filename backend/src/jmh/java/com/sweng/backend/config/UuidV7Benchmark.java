@@ -0,0 +1,43 @@
+package com.sweng.backend.config;
+
+import java.util.UUID;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/** Benchmarks for id generation. */
+@State(Scope.Benchmark)
+public class UuidV7Benchmark {
+
+  /**
+   * Generates a time-ordered id.
+   *
+   * @return the id
+   */
+  @Benchmark
+  public UUID uuidV7() {
+    return UuidV7.generate();
+  }
+
+  /**
+   * Generates a time-ordered id with four threads contending on the shared counter.
+   *
+   * @return the id
+   */
+  @Benchmark
+  @Threads(4)
+  public UUID uuidV7Contended() {
+    return UuidV7.generate();
+  }
+
+  /**
+   * Generates a random id, the previous scheme.
+   *
+   * @return the id
+   */
+  @Benchmark
+  public UUID randomUuid() {
+    return UUID.randomUUID();
+  }
+}
@@ -0,0 +1,116 @@
+package com.sweng.backend.order;
+
+import com.sweng.backend.order.dto.OrderDto;
+import com.sweng.backend.order.dto.OrderPageDto;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+/** Benchmarks for order mapping, serialization and total computation. */
+@State(Scope.Benchmark)
+public class OrderBenchmark {
+
+  /** Number of items per order. */
+  @Param({"1", "10"})
+  public int itemsPerOrder;
+
+  /** Number of orders per page, matching the default and maximum page limits. */
+  @Param({"50", "100"})
+  public int pageSize;
+
+  private final ObjectMapper mapper = JsonMapper.builder().build();
+
+  private OrderEntity order;
+  private List<OrderDto> page;
+  private BigDecimal[] unitPrices;
+
+  /** Builds the fixture orders. */
+  @Setup
+  public void setup() {
+    order = order(itemsPerOrder);
+
+    page = new ArrayList<>(pageSize);
+    for (int i = 0; i < pageSize; i++) {
+      page.add(OrderController.toDto(order(itemsPerOrder)));
+    }
+
+    unitPrices = new BigDecimal[itemsPerOrder];
+    for (int i = 0; i < itemsPerOrder; i++) {
+      unitPrices[i] = new BigDecimal("4.95").add(BigDecimal.valueOf(i));
+    }
+  }
+
+  /**
+   * Maps one order entity to its DTO.
+   *
+   * @return the DTO
+   */
+  @Benchmark
+  public OrderDto toDto() {
+    return OrderController.toDto(order);
+  }
+
+  /**
+   * Serializes a full page of orders as returned by {@code GET /api/orders}.
+   *
+   * @return the JSON bytes
+   */
+  @Benchmark
+  public byte[] serializePage() {
+    return mapper.writeValueAsBytes(new OrderPageDto(page, "cursor"));
+  }
+
+  /**
+   * Computes subtotals and the total for freshly mapped items, as {@code createOrder} does.
+   *
+   * @return the total
+   */
+  @Benchmark
+  public BigDecimal computeTotal() {
+    List<OrderItem> items = new ArrayList<>(unitPrices.length);
+    for (int i = 0; i < unitPrices.length; i++) {
+      OrderItem item = new OrderItem();
+      item.setItemId("item-" + i);
+      item.setQuantity(i + 1);
+      item.setUnitPrice(unitPrices[i]);
+      items.add(item);
+    }
+    return OrderController.computeTotal(items);
+  }
+
+  private static OrderEntity order(int itemCount) {
+    List<OrderItem> items = new ArrayList<>(itemCount);
+    for (int i = 0; i < itemCount; i++) {
+      OrderItem item = new OrderItem();
+      item.setItemId("item-" + i);
+      item.setName("Item " + i);
+      item.setQuantity(i + 1);
+      item.setUnitPrice(new BigDecimal("4.95"));
+      item.setSubtotal(new BigDecimal("4.95").multiply(BigDecimal.valueOf(i + 1)));
+      items.add(item);
+    }
+
+    OrderEntity e = new OrderEntity();
+    e.setId(UUID.randomUUID());
+    e.setRestaurantId(UUID.randomUUID());
+    e.setCustomerId(UUID.randomUUID());
+    e.setCustomerName("Jane Customer");
+    e.setCustomerEmail("jane@example.com");
+    e.setStatus(OrderStatus.pending);
+    e.setSpecialInstructions("No onions");
+    e.setItems(items);
+    e.setTotalAmount(OrderController.computeTotal(items));
+    e.setCreatedAt(Instant.now());
+    e.setUpdatedAt(Instant.now());
+    return e;
+  }
+}
@@ -0,0 +1,173 @@
+package com.sweng.backend.order;
+
+import com.sweng.backend.config.UuidV7;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.postgresql.ds.PGSimpleDataSource;
+
+/**
+ * Insert throughput and index size of an orders-shaped table by primary key scheme.
+ *
+ * <p>Needs a PostgreSQL server: {@code JMH_JDBC_URL}, {@code JMH_JDBC_USER} and {@code
+ * JMH_JDBC_PASSWORD} default to the local database from {@code application.yaml}. Each invocation
+ * inserts one batch of {@value #BATCH} rows into a table that keeps growing across the run, so the
+ * later iterations show how each key scheme behaves once its indexes no longer fit in shared
+ * buffers. Table and index sizes are printed when the run ends.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@Warmup(iterations = 0)
+@Measurement(iterations = 300)
+@Fork(1)
+public class OrderKeyInsertBenchmark {
+
+  private static final int BATCH = 10_000;
+
+  /** Key scheme: the previous varchar(36) random ids, native random uuids, or native UUIDv7. */
+  @Param({"varchar_random", "uuid_random", "uuid_v7"})
+  public String keys;
+
+  private Connection connection;
+  private PreparedStatement insert;
+  private String table;
+  private UUID[] restaurants;
+
+  /**
+   * Creates an empty table for the key scheme.
+   *
+   * @throws SQLException if the database is unavailable
+   */
+  @Setup(Level.Trial)
+  public void setup() throws SQLException {
+    PGSimpleDataSource dataSource = new PGSimpleDataSource();
+    dataSource.setURL(env("JMH_JDBC_URL", "jdbc:postgresql://localhost:5432/sweng"));
+    dataSource.setUser(env("JMH_JDBC_USER", "postgres"));
+    dataSource.setPassword(env("JMH_JDBC_PASSWORD", "postgres"));
+    dataSource.setReWriteBatchedInserts(true);
+    connection = dataSource.getConnection();
+    connection.setAutoCommit(false);
+
+    table = "bench_orders_" + keys;
+    String keyType = keys.startsWith("varchar") ? "varchar(36)" : "uuid";
+    try (Statement st = connection.createStatement()) {
+      st.execute("DROP TABLE IF EXISTS " + table);
+      st.execute(
+          "CREATE TABLE "
+              + table
+              + " (id "
+              + keyType
+              + " PRIMARY KEY, restaurant_id "
+              + keyType
+              + " NOT NULL, customer_id "
+              + keyType
+              + ", status varchar(20) NOT NULL, total_amount numeric(12, 2) NOT NULL,"
+              + " created_at timestamptz NOT NULL)");
+      st.execute("CREATE INDEX ON " + table + " (restaurant_id, status, created_at DESC, id DESC)");
+      st.execute("CREATE INDEX ON " + table + " (customer_id, created_at DESC, id DESC)");
+    }
+    connection.commit();
+
+    insert =
+        connection.prepareStatement(
+            "INSERT INTO "
+                + table
+                + " (id, restaurant_id, customer_id, status, total_amount, created_at)"
+                + " VALUES (?, ?, ?, 'pending', 12.50, ?)");
+
+    restaurants = new UUID[200];
+    for (int i = 0; i < restaurants.length; i++) {
+      restaurants[i] = newKey();
+    }
+  }
+
+  /**
+   * Inserts and commits one batch of orders.
+   *
+   * @throws SQLException if the insert fails
+   */
+  @Benchmark
+  public void insertBatch() throws SQLException {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    Timestamp now = Timestamp.from(Instant.now());
+    for (int i = 0; i < BATCH; i++) {
+      bind(1, newKey());
+      bind(2, restaurants[random.nextInt(restaurants.length)]);
+      bind(3, newKey());
+      insert.setTimestamp(4, now);
+      insert.addBatch();
+    }
+    insert.executeBatch();
+    connection.commit();
+  }
+
+  /**
+   * Prints table and index sizes and drops the table.
+   *
+   * @throws SQLException if the database is unavailable
+   */
+  @TearDown(Level.Trial)
+  public void report() throws SQLException {
+    // VACUUM cannot run inside a transaction block
+    connection.setAutoCommit(true);
+    try (Statement st = connection.createStatement()) {
+      st.execute("VACUUM ANALYZE " + table);
+    }
+    try (Statement st = connection.createStatement();
+        ResultSet rs =
+            st.executeQuery(
+                "SELECT c.relname, pg_relation_size(c.oid), s.n_live_tup"
+                    + " FROM pg_class c LEFT JOIN pg_stat_user_tables s ON s.relid = c.oid"
+                    + " WHERE c.relname LIKE '"
+                    + table
+                    + "%' ORDER BY c.relname")) {
+      while (rs.next()) {
+        System.out.printf(
+            "%n%s: %d MiB%s",
+            rs.getString(1),
+            rs.getLong(2) / (1024 * 1024),
+            rs.getLong(3) > 0 ? " (" + rs.getLong(3) + " rows)" : "");
+      }
+      System.out.println();
+    }
+    try (Statement st = connection.createStatement()) {
+      st.execute("DROP TABLE " + table);
+    }
+    connection.close();
+  }
+
+  private UUID newKey() {
+    return keys.equals("uuid_v7") ? UuidV7.generate() : UUID.randomUUID();
+  }
+
+  private void bind(int index, UUID value) throws SQLException {
+    if (keys.startsWith("varchar")) {
+      insert.setString(index, value.toString());
+    } else {
+      insert.setObject(index, value);
+    }
+  }
+
+  private static String env(String name, String fallback) {
+    String value = System.getenv(name);
+    return value != null ? value : fallback;
+  }
+}
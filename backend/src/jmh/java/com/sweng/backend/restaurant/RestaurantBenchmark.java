@@ -0,0 +1,78 @@
+package com.sweng.backend.restaurant;
+
+import com.sweng.backend.restaurant.dto.RestaurantDto;
+import com.sweng.backend.restaurant.dto.RestaurantPageDto;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+/** Benchmarks for restaurant mapping and page serialization. */
+@State(Scope.Benchmark)
+public class RestaurantBenchmark {
+
+  /** Number of restaurants per page. */
+  @Param({"20", "100"})
+  public int pageSize;
+
+  private final ObjectMapper mapper = JsonMapper.builder().build();
+
+  private RestaurantEntity restaurant;
+  private List<RestaurantDto> page;
+
+  /** Builds the fixture restaurants. */
+  @Setup
+  public void setup() {
+    restaurant = restaurant();
+
+    page = new ArrayList<>(pageSize);
+    for (int i = 0; i < pageSize; i++) {
+      page.add(RestaurantController.toDto(restaurant()));
+    }
+  }
+
+  /**
+   * Maps one restaurant entity to its DTO.
+   *
+   * @return the DTO
+   */
+  @Benchmark
+  public RestaurantDto toDto() {
+    return RestaurantController.toDto(restaurant);
+  }
+
+  /**
+   * Serializes a full page of restaurants as returned by {@code GET /api/restaurants}.
+   *
+   * @return the JSON bytes
+   */
+  @Benchmark
+  public byte[] serializePage() {
+    return mapper.writeValueAsBytes(
+        new RestaurantPageDto(page, 1000L, 1000 / pageSize, 0, pageSize, "cursor"));
+  }
+
+  private static RestaurantEntity restaurant() {
+    RestaurantEntity e = new RestaurantEntity();
+    e.setId(UUID.randomUUID());
+    e.setName("Test Resto");
+    e.setDescription("Wood-fired pizza and small plates");
+    e.setAddress("1 Test Street, Dublin");
+    e.setPhone("+353 1 555 0100");
+    e.setEmail("hello@example.com");
+    e.setCuisineType("Italian");
+    e.setOpeningHours("Mon-Sun 12:00-22:00");
+    e.setOwnerId(UUID.randomUUID());
+    e.setActive(true);
+    e.setCreatedAt(Instant.now());
+    e.setUpdatedAt(Instant.now());
+    return e;
+  }
+}
@@ -92,8 +92,12 @@ public class AuthController {
       authenticationManager.authenticate(
           new UsernamePasswordAuthenticationToken(username, loginRequest.getPassword()));
 
-      String jwt = jwtUtil.generateToken(username);
       User user = userService.findByUsername(username);
+      String jwt =
+          jwtUtil.generateToken(
+              user.getUsername(),
+              user.getUid(),
+              user.getRoles().stream().map(r -> r.name()).toList());
       LoginResponse.UserDto userDto =
           new LoginResponse.UserDto(user.getUid().toString(), user.getUsername(), user.getEmail());
       LoginResponse response = new LoginResponse(jwt, 86400, userDto);
@@ -0,0 +1,76 @@
+package com.sweng.backend.auth;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.security.core.AuthenticatedPrincipal;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+/**
+ * Principal built directly from the claims of a verified JWT.
+ *
+ * <p>Carries everything the controllers need about the caller (username, UUID and authorities) so
+ * that authenticating a request does not require a {@code users} lookup.
+ */
+public final class AuthenticatedUser implements AuthenticatedPrincipal {
+
+  private final String username;
+  private final UUID uid;
+  private final List<GrantedAuthority> authorities;
+
+  /**
+   * Constructs an authenticated user.
+   *
+   * @param username the username (JWT subject)
+   * @param uid the user's UUID, or null if the token predates the uid claim
+   * @param authorities the granted authorities derived from the roles claim
+   */
+  public AuthenticatedUser(
+      String username, UUID uid, Collection<? extends GrantedAuthority> authorities) {
+    this.username = username;
+    this.uid = uid;
+    this.authorities = List.copyOf(authorities);
+  }
+
+  /**
+   * Returns the UUID carried by the principal of the given authentication.
+   *
+   * @param authentication the current authentication
+   * @return the user's UUID, or null if the principal does not carry one
+   */
+  public static UUID uidOf(Authentication authentication) {
+    if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser u) {
+      return u.getUid();
+    }
+    return null;
+  }
+
+  @Override
+  public String getName() {
+    return username;
+  }
+
+  /**
+   * Gets the user's UUID.
+   *
+   * @return the UUID, or null if the token predates the uid claim
+   */
+  public UUID getUid() {
+    return uid;
+  }
+
+  /**
+   * Gets the granted authorities.
+   *
+   * @return the authorities
+   */
+  public List<GrantedAuthority> getAuthorities() {
+    return authorities;
+  }
+
+  @Override
+  public String toString() {
+    return username;
+  }
+}
@@ -2,57 +2,116 @@ package com.sweng.backend.auth;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
+import java.util.UUID;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
-/** Utility class for JWT token generation and validation. */
+/**
+ * Utility class for JWT token generation and validation.
+ *
+ * <p>Tokens carry the user's UUID and roles as claims so that requests can be authenticated from
+ * the token alone. The signing key and parser are built once and shared, and recently verified
+ * tokens are remembered so that repeat requests skip the HMAC check and JSON parse.
+ */
 @Component
 public class JwtUtil {
 
-  /** Constructs a JwtUtil with default settings. */
-  public JwtUtil() {}
+  /** Claim holding the user's UUID. */
+  static final String UID_CLAIM = "uid";
 
-  @Value("${jwt.secret}")
-  private String secret;
+  /** Claim holding the user's role names (without the {@code ROLE_} prefix). */
+  static final String ROLES_CLAIM = "roles";
 
-  @Value("${jwt.expiration:86400000}")
-  private Long expiration;
+  private final long expiration;
+  private final Key signingKey;
+  private final JwtParser parser;
+  private final VerifiedTokenCache verified;
 
-  private Key getSigningKey() {
-    return Keys.hmacShaKeyFor(secret.getBytes());
+  /**
+   * Constructs a JwtUtil.
+   *
+   * @param secret the HMAC signing secret
+   * @param expiration token lifetime in milliseconds
+   * @param cacheSize maximum number of verified tokens to remember; zero disables the cache
+   */
+  public JwtUtil(
+      @Value("${jwt.secret}") String secret,
+      @Value("${jwt.expiration:86400000}") long expiration,
+      @Value("${jwt.cache-size:10000}") int cacheSize) {
+    this.expiration = expiration;
+    this.signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    // JwtParser is immutable and thread-safe once built
+    this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+    this.verified = new VerifiedTokenCache(cacheSize);
   }
 
   /**
-   * Generates a JWT token for the given username.
+   * Generates a JWT token for the given user.
    *
    * @param username the username
+   * @param uid the user's UUID
+   * @param roles the user's role names (without the {@code ROLE_} prefix)
    * @return the generated JWT token
    */
-  public String generateToken(String username) {
+  public String generateToken(String username, UUID uid, Collection<String> roles) {
     Date now = new Date();
     Date expiryDate = new Date(now.getTime() + expiration);
 
     return Jwts.builder()
         .setSubject(username)
+        .claim(UID_CLAIM, uid.toString())
+        .claim(ROLES_CLAIM, List.copyOf(roles))
         .setIssuedAt(now)
         .setExpiration(expiryDate)
-        .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+        .signWith(signingKey, SignatureAlgorithm.HS256)
         .compact();
   }
 
   /**
-   * Extracts the username from a JWT token.
+   * Verifies a JWT token and builds the principal described by its claims.
+   *
+   * <p>The token is parsed at most once; recently verified tokens are served from a bounded cache
+   * until their {@code exp}.
    *
    * @param token the JWT token
-   * @return the username
+   * @return the principal (its UUID is null if the token carries no uid claim), or null if the
+   *     token is invalid or expired
    */
-  public String getUsernameFromToken(String token) {
-    Claims claims =
-        Jwts.parserBuilder().setSigningKey(getSigningKey()).build().parseClaimsJws(token).getBody();
+  public AuthenticatedUser verify(String token) {
+    long now = System.currentTimeMillis();
+    AuthenticatedUser cached = verified.get(token, now);
+    if (cached != null) {
+      return cached;
+    }
+
+    Claims claims = parseClaims(token);
+    if (claims == null) {
+      return null;
+    }
 
-    return claims.getSubject();
+    AuthenticatedUser principal = toPrincipal(claims);
+    if (claims.getExpiration() != null) {
+      verified.put(token, principal, claims.getExpiration().getTime(), now);
+    }
+    return principal;
+  }
+
+  private static AuthenticatedUser toPrincipal(Claims claims) {
+    String uid = claims.get(UID_CLAIM, String.class);
+    List<?> roles = claims.get(ROLES_CLAIM, List.class);
+    List<SimpleGrantedAuthority> authorities =
+        roles == null
+            ? List.of()
+            : roles.stream().map(role -> new SimpleGrantedAuthority("ROLE_" + role)).toList();
+
+    return new AuthenticatedUser(
+        claims.getSubject(), uid != null ? UUID.fromString(uid) : null, authorities);
   }
 
   /**
@@ -62,11 +121,14 @@ public class JwtUtil {
    * @return true if valid, false otherwise
    */
   public boolean validateToken(String token) {
+    return parseClaims(token) != null;
+  }
+
+  private Claims parseClaims(String token) {
     try {
-      Jwts.parserBuilder().setSigningKey(getSigningKey()).build().parseClaimsJws(token);
-      return true;
+      return parser.parseClaimsJws(token).getBody();
     } catch (JwtException | IllegalArgumentException e) {
-      return false;
+      return null;
     }
   }
 }
@@ -0,0 +1,123 @@
+package com.sweng.backend.auth;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded cache of recently verified JWTs.
+ *
+ * <p>Entries are keyed by the SHA-256 of the token, so raw bearer tokens are never held in memory,
+ * and carry the token's {@code exp}: a hit past expiry is treated as a miss and dropped. When the
+ * cache is full, expired entries are purged first and then arbitrary entries until it is down to
+ * 90% of its bound, so the scan is paid once per tenth of the cache rather than on every put.
+ * Tokens verified while another thread evicts are not cached.
+ */
+final class VerifiedTokenCache {
+
+  private final int maxEntries;
+  private final int evictTo;
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  private final ReentrantLock evicting = new ReentrantLock();
+
+  /**
+   * Constructs a cache.
+   *
+   * @param maxEntries maximum number of tokens to hold; zero disables caching
+   */
+  VerifiedTokenCache(int maxEntries) {
+    this.maxEntries = maxEntries;
+    this.evictTo = maxEntries - Math.max(1, maxEntries / 10);
+  }
+
+  /**
+   * Looks up the principal for a previously verified token.
+   *
+   * @param token the raw JWT
+   * @param nowMillis current time in epoch milliseconds
+   * @return the cached principal, or null on a miss or if the token has since expired
+   */
+  AuthenticatedUser get(String token, long nowMillis) {
+    if (maxEntries == 0) {
+      return null;
+    }
+    String key = hash(token);
+    Entry e = entries.get(key);
+    if (e == null) {
+      return null;
+    }
+    if (e.expiresAtMillis <= nowMillis) {
+      entries.remove(key, e);
+      return null;
+    }
+    return e.principal;
+  }
+
+  /**
+   * Records a freshly verified token.
+   *
+   * @param token the raw JWT
+   * @param principal the principal built from its claims
+   * @param expiresAtMillis the token's {@code exp} in epoch milliseconds
+   * @param nowMillis current time in epoch milliseconds
+   */
+  void put(String token, AuthenticatedUser principal, long expiresAtMillis, long nowMillis) {
+    if (maxEntries == 0) {
+      return;
+    }
+    if (entries.size() >= maxEntries) {
+      if (!evicting.tryLock()) {
+        return;
+      }
+      try {
+        evict(nowMillis);
+      } finally {
+        evicting.unlock();
+      }
+    }
+    entries.put(hash(token), new Entry(principal, expiresAtMillis));
+  }
+
+  /**
+   * Gets the number of cached tokens.
+   *
+   * @return the number of entries
+   */
+  int size() {
+    return entries.size();
+  }
+
+  private void evict(long nowMillis) {
+    entries.values().removeIf(e -> e.expiresAtMillis <= nowMillis);
+    Iterator<String> it = entries.keySet().iterator();
+    while (entries.size() > evictTo && it.hasNext()) {
+      it.next();
+      it.remove();
+    }
+  }
+
+  private static String hash(String token) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return Base64.getEncoder()
+          .encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException("SHA-256 not available", ex);
+    }
+  }
+
+  private static final class Entry {
+    private final AuthenticatedUser principal;
+    private final long expiresAtMillis;
+
+    private Entry(AuthenticatedUser principal, long expiresAtMillis) {
+      this.principal = principal;
+      this.expiresAtMillis = expiresAtMillis;
+    }
+  }
+}
@@ -0,0 +1,117 @@
+package com.sweng.backend.config;
+
+import jakarta.servlet.http.HttpServletResponse;
+import java.sql.SQLException;
+import java.util.regex.Pattern;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Read-your-writes across the read replica.
+ *
+ * <p>When a replica is configured, every request that commits a read-write transaction gets a
+ * {@value #HEADER} response header holding the primary's WAL position after the commit, in the
+ * {@code pg_lsn} text form. A client sending it back on a later GET has that read served by the
+ * replica only once the replica has replayed past it, so it sees its own writes; the wait is
+ * bounded and falls back to the primary (see {@link ReplicaRoutingDataSource}). Tokens are only
+ * compared against the replica's position, so any token a client was given by any node works on
+ * every node.
+ *
+ * <p>Commits made off the request thread, such as batched order inserts, are not seen here; the
+ * request waiting for them calls {@link #issue} itself.
+ */
+@Component
+public class ConsistencyTokens implements TransactionExecutionListener {
+
+  /** Response header carrying the token, and request header sending it back. */
+  public static final String HEADER = "Consistency-Token";
+
+  private static final Logger log = LoggerFactory.getLogger(ConsistencyTokens.class);
+  private static final Pattern TOKEN = Pattern.compile("[0-9A-Fa-f]{1,8}/[0-9A-Fa-f]{1,8}");
+
+  private final DataSource dataSource;
+  private final ReplicaRoutingDataSource routing;
+
+  /**
+   * Constructs the token issuer.
+   *
+   * @param dataSource the application data source, issuing tokens if it routes reads to a replica
+   */
+  public ConsistencyTokens(DataSource dataSource) {
+    this.dataSource = dataSource;
+    this.routing = routing(dataSource);
+  }
+
+  private static ReplicaRoutingDataSource routing(DataSource dataSource) {
+    try {
+      return dataSource.isWrapperFor(ReplicaRoutingDataSource.class)
+          ? dataSource.unwrap(ReplicaRoutingDataSource.class)
+          : null;
+    } catch (SQLException ex) {
+      return null;
+    }
+  }
+
+  @Override
+  public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+    if (commitFailure == null && !transaction.isReadOnly()) {
+      issue();
+    }
+  }
+
+  /**
+   * Puts a token covering everything committed so far on the current response.
+   *
+   * <p>Does nothing without a replica, outside a request, or once the response is committed. If the
+   * primary cannot be asked for its position, no token is sent and the client's next reads may not
+   * see this request's writes yet, exactly as without tokens.
+   */
+  public void issue() {
+    if (routing == null
+        || !(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes web)) {
+      return;
+    }
+    HttpServletResponse response = web.getResponse();
+    if (response == null || response.isCommitted()) {
+      return;
+    }
+    try {
+      response.setHeader(HEADER, format(routing.primaryLsn(dataSource)));
+    } catch (SQLException | RuntimeException ex) {
+      log.warn("Could not issue a consistency token: {}", ex.getMessage());
+    }
+  }
+
+  /**
+   * Formats a WAL position as PostgreSQL prints a {@code pg_lsn}.
+   *
+   * @param lsn the position in bytes
+   * @return the token
+   */
+  static String format(long lsn) {
+    return Long.toHexString(lsn >>> 32).toUpperCase()
+        + "/"
+        + Long.toHexString(lsn & 0xFFFFFFFFL).toUpperCase();
+  }
+
+  /**
+   * Parses a token.
+   *
+   * @param token the token sent by the client
+   * @return the WAL position in bytes, or a negative number if the token is malformed
+   */
+  static long parse(String token) {
+    if (!TOKEN.matcher(token).matches()) {
+      return -1;
+    }
+    int slash = token.indexOf('/');
+    return Long.parseLong(token, 0, slash, 16) << 32
+        | Long.parseLong(token, slash + 1, token.length(), 16);
+  }
+}
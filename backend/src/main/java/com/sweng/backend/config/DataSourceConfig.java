@@ -0,0 +1,157 @@
+package com.sweng.backend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.Connection;
+import java.time.Duration;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.DestructionAwareBeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Puts the {@link ReplicaRoutingDataSource}, when a replica is configured, and the {@link
+ * JdbcAdmissionGate} in front of the application data source.
+ */
+@Configuration
+public class DataSourceConfig {
+
+  /** Default constructor. */
+  public DataSourceConfig() {}
+
+  /**
+   * Routes reads of the {@code dataSource} bean to the replica at {@code db.replica.url}, if set.
+   *
+   * <p>The replica gets its own pool of the same size as the primary's. Runs before the admission
+   * gate is put in front, so the gate bounds connections to both databases together, which is what
+   * the primary has to serve once reads fail over to it.
+   *
+   * @param environment the environment holding the {@code db.replica.*} settings
+   * @param registry the meter registry, resolved when the data source is wrapped
+   * @return the post processor
+   */
+  @Bean
+  public static BeanPostProcessor replicaRoutingPostProcessor(
+      Environment environment, ObjectProvider<MeterRegistry> registry) {
+    return new ReplicaRoutingPostProcessor(environment, registry);
+  }
+
+  /**
+   * Wraps the {@code dataSource} bean in an admission gate once it is initialized.
+   *
+   * <p>Permits default to the Hikari pool size, so the gate admits exactly as many callers as there
+   * are connections and everyone else queues at the gate instead of inside the pool.
+   *
+   * @param environment the environment holding the {@code db.admission.*} settings
+   * @param registry the meter registry, resolved when the data source is wrapped
+   * @return the post processor
+   */
+  @Bean
+  @ConditionalOnProperty(name = "db.admission.enabled", matchIfMissing = true)
+  public static BeanPostProcessor jdbcAdmissionGatePostProcessor(
+      Environment environment, ObjectProvider<MeterRegistry> registry) {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource ds)
+            || bean instanceof JdbcAdmissionGate
+            || !"dataSource".equals(beanName)) {
+          return bean;
+        }
+        int poolSize =
+            environment.getProperty(
+                "spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+        int permits = environment.getProperty("db.admission.permits", Integer.class, poolSize);
+        Duration timeout =
+            environment.getProperty("db.admission.timeout", Duration.class, Duration.ofSeconds(30));
+        return new JdbcAdmissionGate(ds, permits, timeout, registry.getObject());
+      }
+    };
+  }
+
+  private static final class ReplicaRoutingPostProcessor
+      implements DestructionAwareBeanPostProcessor, Ordered {
+    private final Environment environment;
+    private final ObjectProvider<MeterRegistry> registry;
+    private ReplicaRoutingDataSource routing;
+    private HikariDataSource replica;
+
+    private ReplicaRoutingPostProcessor(
+        Environment environment, ObjectProvider<MeterRegistry> registry) {
+      this.environment = environment;
+      this.registry = registry;
+    }
+
+    @Override
+    public int getOrder() {
+      return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+      String url = environment.getProperty("db.replica.url", "");
+      if (url.isBlank()
+          || !(bean instanceof DataSource primary)
+          || !"dataSource".equals(beanName)) {
+        return bean;
+      }
+      MeterRegistry meters = registry.getObject();
+
+      replica = new HikariDataSource();
+      replica.setPoolName("replica");
+      replica.setJdbcUrl(url);
+      replica.setUsername(
+          environment.getProperty(
+              "db.replica.username", environment.getProperty("spring.datasource.username")));
+      replica.setPassword(
+          environment.getProperty(
+              "db.replica.password", environment.getProperty("spring.datasource.password")));
+      replica.setMaximumPoolSize(
+          environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10));
+      replica.setReadOnly(true);
+      replica.setConnectionTimeout(
+          environment
+              .getProperty("db.replica.connection-timeout", Duration.class, Duration.ofSeconds(1))
+              .toMillis());
+      // Start without the replica; reads use the primary until it is reachable
+      replica.setInitializationFailTimeout(-1);
+      replica.setMetricRegistry(meters);
+
+      routing =
+          new ReplicaRoutingDataSource(
+              primary,
+              replica,
+              ReplicaRoutingDataSource.POSTGRES_PRIMARY_LSN,
+              ReplicaRoutingDataSource.POSTGRES_REPLICA_LSN,
+              environment.getProperty("db.replica.max-lag", Duration.class, Duration.ofSeconds(1)),
+              environment.getProperty(
+                  "db.replica.check-interval", Duration.class, Duration.ofMillis(250)),
+              environment.getProperty(
+                  "db.replica.token-wait", Duration.class, Duration.ofMillis(50)),
+              meters);
+      routing.start();
+
+      // Defer picking a database until the transaction is known to be read-only
+      LazyConnectionDataSourceProxy lazy = new LazyConnectionDataSourceProxy();
+      lazy.setTargetDataSource(routing);
+      lazy.setDefaultAutoCommit(true);
+      lazy.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+      lazy.afterPropertiesSet();
+      return lazy;
+    }
+
+    @Override
+    public void postProcessBeforeDestruction(Object bean, String beanName) {
+      if (routing != null && "dataSource".equals(beanName)) {
+        routing.stop();
+        replica.close();
+      }
+    }
+  }
+}
@@ -0,0 +1,43 @@
+package com.sweng.backend.config;
+
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * An error answer of another region to a forwarded request, relayed to the client as given: same
+ * status, relayed headers such as {@code ETag} or {@code Retry-After}, and the same body.
+ */
+public class ForwardedErrorException extends RuntimeException {
+
+  private final transient ResponseEntity<byte[]> answer;
+
+  /**
+   * Constructs the exception.
+   *
+   * @param answer the answer to relay
+   * @param reason the message of the answer, if it has one
+   */
+  public ForwardedErrorException(ResponseEntity<byte[]> answer, String reason) {
+    super(reason);
+    this.answer = answer;
+  }
+
+  /**
+   * Gets the answer to relay.
+   *
+   * @return the status, relayed headers and body of the other region's answer
+   */
+  public ResponseEntity<byte[]> getAnswer() {
+    return answer;
+  }
+
+  /**
+   * Gets the status of the answer.
+   *
+   * @return the status code, which need not be one {@link org.springframework.http.HttpStatus}
+   *     knows
+   */
+  public HttpStatusCode getStatusCode() {
+    return answer.getStatusCode();
+  }
+}
@@ -76,4 +76,15 @@ public class GlobalExceptionHandler {
         .headers(headers)
         .body("Method " + ex.getMethod() + " not allowed");
   }
+
+  /**
+   * Relays an error answer of the region a request was forwarded to.
+   *
+   * @param ex the exception
+   * @return the other region's answer
+   */
+  @ExceptionHandler(ForwardedErrorException.class)
+  public ResponseEntity<byte[]> handleForwardedError(ForwardedErrorException ex) {
+    return ex.getAnswer();
+  }
 }
@@ -0,0 +1,106 @@
+package com.sweng.backend.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hybrid logical clock of this node.
+ *
+ * <p>A timestamp packs wall-clock milliseconds into the high 48 bits and a logical counter into the
+ * low 16, so timestamps compare as plain longs and read as an approximate time. Every timestamp
+ * this node hands out is greater than every one it handed out or {@linkplain #update observed}
+ * before, even if the wall clock steps back, while staying within the clock skew of real time.
+ * Writes stamped in different regions are therefore ordered consistently with what each region had
+ * seen when it wrote.
+ *
+ * <p>Remote timestamps more than {@code region.max-clock-offset} ahead of the wall clock are not
+ * adopted, so one node with a bad clock cannot drag every other clock forward with it; they are
+ * counted in {@code hlc.remote.rejected}.
+ */
+@Component
+public class HybridLogicalClock {
+
+  private static final int LOGICAL_BITS = 16;
+
+  private static final Logger log = LoggerFactory.getLogger(HybridLogicalClock.class);
+
+  private final LongSupplier wallMillis;
+  private final long maxOffsetMillis;
+  private final Counter rejected;
+  private final AtomicLong last = new AtomicLong();
+
+  /**
+   * Constructs the clock on the system wall clock.
+   *
+   * @param maxOffset how far ahead of the wall clock a remote timestamp may be and still be adopted
+   * @param registry the registry for clock metrics
+   */
+  @Autowired
+  public HybridLogicalClock(
+      @Value("${region.max-clock-offset:500ms}") Duration maxOffset, MeterRegistry registry) {
+    this(System::currentTimeMillis, maxOffset, registry);
+  }
+
+  HybridLogicalClock(LongSupplier wallMillis, Duration maxOffset, MeterRegistry registry) {
+    this.wallMillis = wallMillis;
+    this.maxOffsetMillis = maxOffset.toMillis();
+    this.rejected =
+        Counter.builder("hlc.remote.rejected")
+            .description("Remote timestamps too far ahead of the wall clock to be adopted")
+            .register(registry);
+  }
+
+  /**
+   * Gets a timestamp for a write made here.
+   *
+   * @return a timestamp greater than any this clock returned or observed before
+   */
+  public long now() {
+    long wall = wallMillis.getAsLong() << LOGICAL_BITS;
+    return last.updateAndGet(previous -> Math.max(previous + 1, wall));
+  }
+
+  /**
+   * Observes a timestamp made by another node, so that later local timestamps follow it.
+   *
+   * @param remote the remote timestamp
+   * @return a timestamp greater than both {@code remote} and any this clock returned before, or
+   *     just greater than the latter if {@code remote} was rejected
+   */
+  public long update(long remote) {
+    long wall = wallMillis.getAsLong();
+    if (physicalMillis(remote) - wall > maxOffsetMillis) {
+      rejected.increment();
+      log.warn(
+          "Ignoring remote clock {} ahead of the wall clock by {}ms",
+          toInstant(remote),
+          physicalMillis(remote) - wall);
+      return now();
+    }
+    return last.updateAndGet(
+        previous -> Math.max(Math.max(previous, remote) + 1, wall << LOGICAL_BITS));
+  }
+
+  /**
+   * Gets the wall-clock time a timestamp approximates.
+   *
+   * @param timestamp the timestamp
+   * @return its physical part, to the millisecond
+   */
+  public static Instant toInstant(long timestamp) {
+    return Instant.ofEpochMilli(physicalMillis(timestamp));
+  }
+
+  private static long physicalMillis(long timestamp) {
+    return timestamp >>> LOGICAL_BITS;
+  }
+}
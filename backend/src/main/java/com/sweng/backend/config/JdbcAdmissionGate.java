@@ -0,0 +1,146 @@
+package com.sweng.backend.config;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Admission gate in front of the connection pool.
+ *
+ * <p>With virtual threads a burst of requests can put thousands of threads in front of a pool of a
+ * handful of connections. Each {@code getConnection} here first takes a permit from a fair
+ * semaphore sized to the pool, so callers queue in FIFO order where the wait is measured and
+ * bounded, and the pool itself only ever sees as many borrowers as it has connections. The permit
+ * is returned when the connection is closed.
+ *
+ * <p>Publishes {@code db.admission.wait} (time spent queueing for a permit), {@code
+ * db.admission.rejected} (callers that timed out), and the {@code db.admission.in.use} and {@code
+ * db.admission.waiting} gauges.
+ */
+public class JdbcAdmissionGate extends DelegatingDataSource {
+
+  private final Semaphore permits;
+  private final int maxPermits;
+  private final long timeoutNanos;
+  private final Timer waitTimer;
+  private final Counter rejected;
+
+  /**
+   * Wraps a data source.
+   *
+   * @param target the pooled data source
+   * @param maxPermits maximum number of connections handed out at once
+   * @param timeout how long a caller may wait for a permit
+   * @param registry the registry for gate metrics
+   */
+  public JdbcAdmissionGate(
+      DataSource target, int maxPermits, Duration timeout, MeterRegistry registry) {
+    super(target);
+    this.permits = new Semaphore(maxPermits, true);
+    this.maxPermits = maxPermits;
+    this.timeoutNanos = timeout.toNanos();
+    this.waitTimer =
+        Timer.builder("db.admission.wait")
+            .description("Time spent waiting for a database admission permit")
+            .register(registry);
+    this.rejected =
+        Counter.builder("db.admission.rejected")
+            .description("Callers that timed out waiting for a database admission permit")
+            .register(registry);
+    Gauge.builder("db.admission.in.use", this, g -> g.maxPermits - g.permits.availablePermits())
+        .description("Database admission permits currently held")
+        .register(registry);
+    Gauge.builder("db.admission.waiting", permits, Semaphore::getQueueLength)
+        .description("Callers queued for a database admission permit")
+        .register(registry);
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    admit();
+    try {
+      return releasing(super.getConnection());
+    } catch (SQLException | RuntimeException ex) {
+      permits.release();
+      throw ex;
+    }
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    admit();
+    try {
+      return releasing(super.getConnection(username, password));
+    } catch (SQLException | RuntimeException ex) {
+      permits.release();
+      throw ex;
+    }
+  }
+
+  private void admit() throws SQLException {
+    long start = System.nanoTime();
+    boolean admitted;
+    try {
+      admitted = permits.tryAcquire(timeoutNanos, NANOSECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new SQLTransientConnectionException("Interrupted waiting for a database permit", ex);
+    } finally {
+      waitTimer.record(System.nanoTime() - start, NANOSECONDS);
+    }
+    if (!admitted) {
+      rejected.increment();
+      throw new SQLTransientConnectionException(
+          "Timed out after " + Duration.ofNanos(timeoutNanos) + " waiting for a database permit");
+    }
+  }
+
+  private Connection releasing(Connection connection) {
+    return (Connection)
+        Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[] {Connection.class},
+            new ReleaseOnClose(connection));
+  }
+
+  private final class ReleaseOnClose implements InvocationHandler {
+    private final Connection target;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private ReleaseOnClose(Connection target) {
+      this.target = target;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      if ("close".equals(method.getName()) && released.compareAndSet(false, true)) {
+        try {
+          target.close();
+        } finally {
+          permits.release();
+        }
+        return null;
+      }
+      try {
+        return method.invoke(target, args);
+      } catch (InvocationTargetException ex) {
+        throw ex.getTargetException();
+      }
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package com.sweng.backend.config;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Opaque keyset cursor for list endpoints ordered by {@code (createdAt DESC, id DESC)}.
+ *
+ * <p>Encodes the {@code (createdAt, id)} of the last row on a page. The next page seeks strictly
+ * past that position instead of using an OFFSET, so every page costs the same regardless of depth
+ * and no count is needed to page through a table.
+ */
+public final class KeysetCursor {
+
+  private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+  private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+  private final Instant createdAt;
+  private final UUID id;
+
+  private KeysetCursor(Instant createdAt, UUID id) {
+    this.createdAt = createdAt;
+    this.id = id;
+  }
+
+  /**
+   * Builds the cursor pointing just past the given row.
+   *
+   * @param createdAt creation timestamp of the last row on the current page
+   * @param id ID of the last row on the current page
+   * @return the cursor
+   */
+  public static KeysetCursor after(Instant createdAt, UUID id) {
+    return new KeysetCursor(createdAt, id);
+  }
+
+  /**
+   * Decodes a cursor previously produced by {@link #encode()}.
+   *
+   * @param raw the opaque cursor string
+   * @return the cursor
+   * @throws IllegalArgumentException if the cursor is malformed
+   */
+  public static KeysetCursor decode(String raw) {
+    try {
+      String plain = new String(DECODER.decode(raw), StandardCharsets.UTF_8);
+      int sep = plain.indexOf('|');
+      if (sep < 0) {
+        throw new IllegalArgumentException("Malformed cursor");
+      }
+      return new KeysetCursor(
+          Instant.parse(plain.substring(0, sep)), UUID.fromString(plain.substring(sep + 1)));
+    } catch (DateTimeParseException ex) {
+      throw new IllegalArgumentException("Malformed cursor", ex);
+    }
+  }
+
+  /**
+   * Encodes this cursor as an opaque URL-safe string.
+   *
+   * @return the encoded cursor
+   */
+  public String encode() {
+    String plain = createdAt.toString() + "|" + id;
+    return ENCODER.encodeToString(plain.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Gets the createdAt of the last row seen.
+   *
+   * @return the createdAt position
+   */
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  /**
+   * Gets the ID of the last row seen.
+   *
+   * @return the id position
+   */
+  public UUID getId() {
+    return id;
+  }
+}
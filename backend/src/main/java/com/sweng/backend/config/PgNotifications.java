@@ -0,0 +1,209 @@
+package com.sweng.backend.config;
+
+import jakarta.annotation.PreDestroy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import javax.sql.DataSource;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Shared PostgreSQL LISTEN/NOTIFY connection for messages between backend nodes.
+ *
+ * <p>Components register a handler per channel while the context starts; once the application is
+ * ready, one daemon thread listens on all registered channels over a single dedicated connection.
+ * That connection is opened straight from the driver rather than taken from the application pool:
+ * it is held for as long as the node runs, so it must not count against the pool or the admission
+ * gate, and it must never be handed to another caller while still listening. If that connection
+ * drops, notifications may have been missed, so each channel's gap handler runs whenever listening
+ * (re)starts. On other databases (the H2 test profile) nothing is listened to and {@link #publish}
+ * reports that the message was not sent, so callers deliver locally instead.
+ */
+@Component
+public class PgNotifications {
+
+  private static final Logger log = LoggerFactory.getLogger(PgNotifications.class);
+  private static final int POLL_MILLIS = 5_000;
+  private static final long RETRY_MILLIS = 2_000;
+
+  private final DataSource dataSource;
+  private final String url;
+  private final String username;
+  private final String password;
+  private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+
+  private volatile boolean postgres;
+  private volatile boolean running;
+  private Thread listener;
+
+  /**
+   * Constructs the notification bus.
+   *
+   * @param dataSource the application data source, which notifications are sent through
+   * @param url JDBC URL of the database the listening connection is opened to
+   * @param username user of the listening connection
+   * @param password password of the listening connection
+   */
+  public PgNotifications(
+      DataSource dataSource,
+      @Value("${spring.datasource.url}") String url,
+      @Value("${spring.datasource.username:}") String username,
+      @Value("${spring.datasource.password:}") String password) {
+    this.dataSource = dataSource;
+    this.url = url;
+    this.username = username;
+    this.password = password;
+  }
+
+  /**
+   * Registers the handler for a channel. Must be called before the application is ready.
+   *
+   * @param channel the channel name, a plain SQL identifier
+   * @param onNotification receives the payload of every notification, including this node's own
+   * @param onGap called whenever listening (re)starts, since notifications may have been missed
+   */
+  public void listen(String channel, Consumer<String> onNotification, Runnable onGap) {
+    if (!channel.matches("[a-z_][a-z0-9_]*")) {
+      throw new IllegalArgumentException("Invalid channel name: " + channel);
+    }
+    channels.put(channel, new Channel(onNotification, onGap));
+  }
+
+  /**
+   * Tells whether notifications reach other nodes.
+   *
+   * @return true once the application is ready on PostgreSQL
+   */
+  public boolean isAvailable() {
+    return postgres;
+  }
+
+  /**
+   * Sends a notification to every node listening on the channel, including this one.
+   *
+   * @param channel the channel name
+   * @param payload the payload, under 8000 bytes
+   * @return true if the notification was sent, false if notifications are unavailable or failed
+   */
+  public boolean publish(String channel, String payload) {
+    if (!postgres) {
+      return false;
+    }
+    try (Connection c = dataSource.getConnection();
+        PreparedStatement ps = c.prepareStatement("SELECT pg_notify(?, ?)")) {
+      ps.setString(1, channel);
+      ps.setString(2, payload);
+      ps.execute();
+      return true;
+    } catch (SQLException ex) {
+      log.warn("Could not notify {}: {}", channel, ex.getMessage());
+      return false;
+    }
+  }
+
+  /** Detects PostgreSQL and starts listening once the application is ready. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    try (Connection c = dataSource.getConnection()) {
+      postgres = c.isWrapperFor(PGConnection.class);
+    } catch (SQLException ex) {
+      log.warn("Could not inspect data source, notifications stay node-local", ex);
+      return;
+    }
+    if (!postgres || channels.isEmpty()) {
+      return;
+    }
+    running = true;
+    listener = Thread.ofPlatform().name("pg-notification-listener").daemon().start(this::run);
+  }
+
+  /**
+   * Stops listening.
+   *
+   * @throws InterruptedException if interrupted while waiting for the listener to exit
+   */
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    running = false;
+    if (listener != null) {
+      listener.interrupt();
+      listener.join(POLL_MILLIS);
+    }
+  }
+
+  private void run() {
+    while (running) {
+      try (Connection c = DriverManager.getConnection(url, username, password)) {
+        PGConnection pg = c.unwrap(PGConnection.class);
+        try (Statement st = c.createStatement()) {
+          for (String channel : channels.keySet()) {
+            st.execute("LISTEN " + channel);
+          }
+        }
+        channels.values().forEach(Channel::gap);
+
+        while (running) {
+          PGNotification[] notifications = pg.getNotifications(POLL_MILLIS);
+          if (notifications == null) {
+            continue;
+          }
+          for (PGNotification n : notifications) {
+            Channel channel = channels.get(n.getName());
+            if (channel != null) {
+              channel.deliver(n.getParameter());
+            }
+          }
+        }
+      } catch (SQLException ex) {
+        if (!running) {
+          return;
+        }
+        log.warn("Notification listener lost its connection: {}", ex.getMessage());
+        channels.values().forEach(Channel::gap);
+        try {
+          Thread.sleep(RETRY_MILLIS);
+        } catch (InterruptedException ie) {
+          return;
+        }
+      }
+    }
+  }
+
+  private static final class Channel {
+    private final Consumer<String> onNotification;
+    private final Runnable onGap;
+
+    private Channel(Consumer<String> onNotification, Runnable onGap) {
+      this.onNotification = onNotification;
+      this.onGap = onGap;
+    }
+
+    void deliver(String payload) {
+      try {
+        onNotification.accept(payload);
+      } catch (RuntimeException ex) {
+        log.warn("Notification handler failed", ex);
+      }
+    }
+
+    void gap() {
+      try {
+        onGap.run();
+      } catch (RuntimeException ex) {
+        log.warn("Notification gap handler failed", ex);
+      }
+    }
+  }
+}
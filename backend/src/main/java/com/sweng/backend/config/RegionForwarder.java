@@ -0,0 +1,313 @@
+package com.sweng.backend.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.server.ResponseStatusException;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * This node's region, and the backends of the other regions that writes are forwarded to.
+ *
+ * <p>Data with a home region, such as a restaurant's orders, is written by a backend in that
+ * region, into that region's database. A backend receiving such a write for another region forwards
+ * the request to the peer configured for it in {@code region.peers}, over the mesh, and relays the
+ * answer. The client's own credentials go along, so the peer authorizes the request as if it had
+ * received it directly. Forwarded requests carry {@value #FORWARDED_HEADER} and are always handled
+ * where they arrive, so two nodes disagreeing about a home region cannot bounce a request between
+ * them. Regions without a peer, and every region on a node without peers, are handled locally.
+ * Writes to data this node has no copy of, and so cannot tell the home region of, are sent to every
+ * peer in turn (see {@link #forwardToAll}).
+ *
+ * <p>Publishes {@code region.forwards} tagged {@code home} and {@code outcome=relayed|unavailable}.
+ */
+@Component
+public class RegionForwarder {
+
+  /** Request header marking a request forwarded by another region, naming that region. */
+  public static final String FORWARDED_HEADER = "Forwarded-From-Region";
+
+  /** Request headers passed on to the home region. */
+  private static final List<String> REQUEST_HEADERS =
+      List.of(
+          HttpHeaders.AUTHORIZATION, HttpHeaders.ACCEPT, HttpHeaders.IF_MATCH, "Idempotency-Key");
+
+  /**
+   * Response headers passed back to the client. Consistency tokens are left out: they are positions
+   * in the home region's WAL, which mean nothing to this region's replica.
+   */
+  private static final List<String> RESPONSE_HEADERS =
+      List.of(
+          HttpHeaders.ETAG, HttpHeaders.LOCATION, HttpHeaders.RETRY_AFTER, "Idempotent-Replayed");
+
+  private static final Logger log = LoggerFactory.getLogger(RegionForwarder.class);
+
+  private final String region;
+  private final Map<String, URI> peers;
+  private final Duration timeout;
+  private final ObjectMapper objectMapper;
+  private final MeterRegistry registry;
+  private final HttpClient http;
+
+  /**
+   * Constructs the forwarder.
+   *
+   * @param region the region this node runs in
+   * @param peers backends of other regions as comma-separated {@code region=url} pairs
+   * @param timeout how long a forwarded request may take
+   * @param objectMapper serializes forwarded bodies and reads the answers
+   * @param registry the registry for forwarding metrics
+   */
+  public RegionForwarder(
+      @Value("${region.name:local}") String region,
+      @Value("${region.peers:}") String peers,
+      @Value("${region.forward-timeout:10s}") Duration timeout,
+      ObjectMapper objectMapper,
+      MeterRegistry registry) {
+    this.region = region;
+    this.peers = parsePeers(peers, region);
+    this.timeout = timeout;
+    this.objectMapper = objectMapper;
+    this.registry = registry;
+    this.http = HttpClient.newBuilder().connectTimeout(timeout).build();
+  }
+
+  private static Map<String, URI> parsePeers(String spec, String self) {
+    Map<String, URI> peers = new LinkedHashMap<>();
+    for (String entry : spec.split(",")) {
+      if (entry.isBlank()) {
+        continue;
+      }
+      int eq = entry.indexOf('=');
+      if (eq < 1) {
+        throw new IllegalArgumentException("region.peers entry is not region=url: " + entry);
+      }
+      String name = entry.substring(0, eq).trim();
+      if (!name.equals(self)) {
+        peers.put(name, URI.create(entry.substring(eq + 1).trim()));
+      }
+    }
+    return Map.copyOf(peers);
+  }
+
+  /**
+   * Gets the region this node runs in.
+   *
+   * @return the region name
+   */
+  public String region() {
+    return region;
+  }
+
+  /**
+   * Checks whether a region may be named as a home region here.
+   *
+   * @param name the region name
+   * @return true for this node's region and the regions of its peers
+   */
+  public boolean isKnown(String name) {
+    return region.equals(name) || peers.containsKey(name);
+  }
+
+  /**
+   * Checks whether the current request could be forwarded at all, before looking up any home
+   * region.
+   *
+   * @return true if this node has peers and the request did not come from one
+   */
+  public boolean forwards() {
+    return !peers.isEmpty() && !isForwarded(currentRequest());
+  }
+
+  /**
+   * Checks whether the current request must be forwarded to another region.
+   *
+   * @param home the home region of the data it writes, or null if it has none
+   * @return true if {@code home} is another region with a peer and the request did not come from
+   *     one
+   */
+  public boolean isForeign(String home) {
+    return home != null && peers.containsKey(home) && !isForwarded(currentRequest());
+  }
+
+  /**
+   * Sends the current request to a backend in another region and returns its answer.
+   *
+   * <p>The method, path and query of the current request are kept; the body is the one given,
+   * serialized as JSON. An error answer is raised as a {@link ForwardedErrorException} carrying the
+   * answer as it was given, so the client sees what the home region decided.
+   *
+   * @param home the region to send the request to
+   * @param body the request body, or null for none
+   * @param responseType the type of the answer's body; {@code Void} to ignore it
+   * @param <T> the body type
+   * @return the answer's status, relayed headers and body
+   * @throws ForwardedErrorException if the region answered with an error
+   * @throws ResponseStatusException with 503 if the region cannot be reached
+   */
+  public <T> ResponseEntity<T> forward(String home, Object body, Class<T> responseType) {
+    HttpServletRequest request = currentRequest();
+    URI peer = peers.get(home);
+    if (request == null || peer == null) {
+      throw new IllegalStateException("Cannot forward to region " + home);
+    }
+    String target = request.getRequestURI();
+    if (request.getQueryString() != null) {
+      target += "?" + request.getQueryString();
+    }
+
+    HttpRequest.Builder forwarded =
+        HttpRequest.newBuilder(peer.resolve(target))
+            .timeout(timeout)
+            .header(FORWARDED_HEADER, region)
+            .method(
+                request.getMethod(),
+                body == null
+                    ? HttpRequest.BodyPublishers.noBody()
+                    : HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+    if (body != null) {
+      forwarded.header(HttpHeaders.CONTENT_TYPE, "application/json");
+    }
+    for (String name : REQUEST_HEADERS) {
+      String value = request.getHeader(name);
+      if (value != null) {
+        forwarded.header(name, value);
+      }
+    }
+
+    long start = System.nanoTime();
+    HttpResponse<byte[]> answer;
+    try {
+      answer = http.send(forwarded.build(), HttpResponse.BodyHandlers.ofByteArray());
+    } catch (IOException ex) {
+      record(home, "unavailable", start);
+      log.warn(
+          "Could not forward {} {} to region {}: {}",
+          request.getMethod(),
+          target,
+          home,
+          ex.toString());
+      throw new ResponseStatusException(
+          HttpStatus.SERVICE_UNAVAILABLE, "Home region " + home + " is unavailable");
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      record(home, "unavailable", start);
+      throw new ResponseStatusException(
+          HttpStatus.SERVICE_UNAVAILABLE, "Home region " + home + " is unavailable");
+    }
+    record(home, "relayed", start);
+
+    HttpStatusCode status = HttpStatusCode.valueOf(answer.statusCode());
+    ResponseEntity.BodyBuilder response = ResponseEntity.status(status);
+    for (String name : RESPONSE_HEADERS) {
+      answer.headers().firstValue(name).ifPresent(value -> response.header(name, value));
+    }
+    if (status.isError()) {
+      answer
+          .headers()
+          .firstValue(HttpHeaders.CONTENT_TYPE)
+          .ifPresent(value -> response.header(HttpHeaders.CONTENT_TYPE, value));
+      throw new ForwardedErrorException(response.body(answer.body()), reason(answer));
+    }
+    if (responseType == Void.class || answer.body().length == 0) {
+      return response.build();
+    }
+    return response.body(objectMapper.readValue(answer.body(), responseType));
+  }
+
+  /**
+   * Sends the current request to the backends of every other region in turn, until one of them has
+   * what it writes to, and returns that answer.
+   *
+   * <p>For writes to data whose home region cannot be told without reading it, such as an order
+   * this region has no copy of yet. A peer that does not have the data answers 404 and the next one
+   * is asked.
+   *
+   * @param body the request body, or null for none
+   * @param responseType the type of the answer's body; {@code Void} to ignore it
+   * @param <T> the body type
+   * @return the first answer other than 404
+   * @throws ForwardedErrorException if a region answered with an error other than 404, or every
+   *     region answered 404
+   * @throws ResponseStatusException with 503 if no region had the data but some could not be
+   *     reached
+   */
+  public <T> ResponseEntity<T> forwardToAll(Object body, Class<T> responseType) {
+    ForwardedErrorException notFound = null;
+    ResponseStatusException unavailable = null;
+    for (String home : peers.keySet()) {
+      try {
+        return forward(home, body, responseType);
+      } catch (ForwardedErrorException ex) {
+        if (ex.getStatusCode().value() != HttpStatus.NOT_FOUND.value()) {
+          throw ex;
+        }
+        notFound = ex;
+      } catch (ResponseStatusException ex) {
+        unavailable = ex;
+      }
+    }
+    if (unavailable != null) {
+      throw unavailable;
+    }
+    if (notFound == null) {
+      throw new IllegalStateException("No regions to forward to");
+    }
+    throw notFound;
+  }
+
+  /** Gets the message of an error answer, which is plain text or Spring's JSON error body. */
+  private String reason(HttpResponse<byte[]> answer) {
+    String text = new String(answer.body(), StandardCharsets.UTF_8).strip();
+    if (!answer.headers().firstValue(HttpHeaders.CONTENT_TYPE).orElse("").contains("json")) {
+      return text.isEmpty() ? null : text;
+    }
+    try {
+      JsonNode message = objectMapper.readTree(text).get("message");
+      return message != null && message.isString() ? message.asString() : null;
+    } catch (JacksonException ex) {
+      return null;
+    }
+  }
+
+  private void record(String home, String outcome, long startNanos) {
+    Timer.builder("region.forwards")
+        .description("Requests forwarded to the backend of their home region")
+        .tag("home", home)
+        .tag("outcome", outcome)
+        .register(registry)
+        .record(Duration.ofNanos(System.nanoTime() - startNanos));
+  }
+
+  private static HttpServletRequest currentRequest() {
+    return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes web
+        ? web.getRequest()
+        : null;
+  }
+
+  private static boolean isForwarded(HttpServletRequest request) {
+    return request != null && request.getHeader(FORWARDED_HEADER) != null;
+  }
+}
@@ -0,0 +1,384 @@
+package com.sweng.backend.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Sends the read-only transactions of GET and HEAD requests to a read replica.
+ *
+ * <p>Everything else uses the primary: writes, every transaction of a request that changes state,
+ * whose reads may decide what it writes, and background work. Code filling caches that outlive the
+ * request reads through {@link #onPrimary}, so a lagging replica cannot leave a stale entry behind.
+ *
+ * <p>A checker thread compares the WAL position of both databases every {@code check-interval}. The
+ * replica's lag is the time since the primary was last seen at a position the replica has already
+ * replayed, so an idle primary does not count as lag and a replica that stopped receiving WAL does.
+ * While the replica lags by more than {@code max-lag} or cannot be reached, its reads go to the
+ * primary; a connection that cannot be opened also fails over at once.
+ *
+ * <p>A GET carrying a {@link ConsistencyTokens#HEADER} needs a replica that has replayed past the
+ * token's WAL position. If the checker has not already seen it there, the read polls the replica
+ * for up to {@code token-wait} and then goes to the primary.
+ *
+ * <p>The target is chosen when a connection is first used, after the transaction has started, so
+ * this data source must sit behind a {@link
+ * org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, and Hibernate must release
+ * connections after each transaction rather than hold one for the whole request.
+ *
+ * <p>Publishes {@code db.replica.reads} tagged {@code target=replica|primary} (read-only
+ * transactions that could use the replica, and where they went), {@code db.replica.token.waits}
+ * tagged {@code outcome=replica|primary} (reads that had to wait for the replica to reach their
+ * token), and the {@code db.replica.lag} and {@code db.replica.available} gauges.
+ */
+public class ReplicaRoutingDataSource extends DelegatingDataSource {
+
+  /**
+   * Current WAL position of the primary, in bytes; with {@code synchronous_commit} on, the default,
+   * past every commit that has returned.
+   */
+  public static final String POSTGRES_PRIMARY_LSN = "select pg_current_wal_lsn() - '0/0'::pg_lsn";
+
+  /** WAL position the replica has replayed up to, in bytes; a non-standby reports its own. */
+  public static final String POSTGRES_REPLICA_LSN =
+      """
+      select case when pg_is_in_recovery() then pg_last_wal_replay_lsn()
+        else pg_current_wal_lsn() end - '0/0'::pg_lsn
+      """;
+
+  private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+  private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+  private static final int MAX_SAMPLES = 10_000;
+  private static final long TOKEN_POLL_NANOS = 2_000_000;
+  private static final int LSN = 0;
+  private static final int FIRST_SEEN = 1;
+  private static final int LAST_SEEN = 2;
+
+  private final DataSource replica;
+  private final String primaryLsnQuery;
+  private final String replicaLsnQuery;
+  private final long maxLagNanos;
+  private final long checkNanos;
+  private final long tokenWaitNanos;
+  private final Counter replicaReads;
+  private final Counter primaryReads;
+  private final Timer tokenWaitsReplica;
+  private final Timer tokenWaitsPrimary;
+
+  /** Primary positions seen by the checker, oldest first, as {lsn, first seen, last seen}. */
+  private final Deque<long[]> samples = new ArrayDeque<>();
+
+  /** Highest position the replica is known to have replayed. */
+  private final AtomicLong replayedLsn = new AtomicLong();
+
+  private volatile boolean available;
+  private volatile double lagSeconds = Double.NaN;
+  private volatile boolean running;
+  private Thread checker;
+
+  /**
+   * Wraps a primary and its replica.
+   *
+   * @param primary the primary data source
+   * @param replica the replica data source
+   * @param primaryLsnQuery query returning the primary's WAL position as a number
+   * @param replicaLsnQuery query returning the replica's replayed WAL position as a number
+   * @param maxLag the lag above which reads go to the primary
+   * @param checkInterval how often the lag is measured
+   * @param tokenWait how long a read waits for the replica to reach its consistency token
+   * @param registry the registry for routing metrics
+   */
+  public ReplicaRoutingDataSource(
+      DataSource primary,
+      DataSource replica,
+      String primaryLsnQuery,
+      String replicaLsnQuery,
+      Duration maxLag,
+      Duration checkInterval,
+      Duration tokenWait,
+      MeterRegistry registry) {
+    super(primary);
+    this.replica = replica;
+    this.primaryLsnQuery = primaryLsnQuery;
+    this.replicaLsnQuery = replicaLsnQuery;
+    this.maxLagNanos = maxLag.toNanos();
+    this.checkNanos = checkInterval.toNanos();
+    this.tokenWaitNanos = tokenWait.toNanos();
+    this.replicaReads = reads(registry, "replica");
+    this.primaryReads = reads(registry, "primary");
+    this.tokenWaitsReplica = tokenWaits(registry, "replica");
+    this.tokenWaitsPrimary = tokenWaits(registry, "primary");
+    Gauge.builder("db.replica.lag", this, r -> r.lagSeconds)
+        .description("How far the read replica is behind the primary")
+        .baseUnit("seconds")
+        .register(registry);
+    Gauge.builder("db.replica.available", this, r -> r.available ? 1 : 0)
+        .description("Whether reads are sent to the read replica")
+        .register(registry);
+  }
+
+  private static Counter reads(MeterRegistry registry, String target) {
+    return Counter.builder("db.replica.reads")
+        .description("Read-only transactions that could use the read replica")
+        .tag("target", target)
+        .register(registry);
+  }
+
+  private static Timer tokenWaits(MeterRegistry registry, String outcome) {
+    return Timer.builder("db.replica.token.waits")
+        .description("Waits for the read replica to replay past a consistency token")
+        .tag("outcome", outcome)
+        .register(registry);
+  }
+
+  /**
+   * Runs reads on the primary even where they would go to the replica.
+   *
+   * <p>Only affects transactions started inside {@code reads}; one already running keeps its
+   * connection.
+   *
+   * @param reads the reads
+   * @param <T> the result type
+   * @return the result of {@code reads}
+   */
+  public static <T> T onPrimary(Supplier<T> reads) {
+    Boolean previous = PRIMARY_ONLY.get();
+    PRIMARY_ONLY.set(Boolean.TRUE);
+    try {
+      return reads.get();
+    } finally {
+      if (previous == null) {
+        PRIMARY_ONLY.remove();
+      }
+    }
+  }
+
+  /** Measures the lag once and then keeps measuring it on a daemon thread. */
+  public void start() {
+    if (running) {
+      return;
+    }
+    running = true;
+    check();
+    checker = Thread.ofPlatform().name("db-replica-check").daemon().start(this::run);
+  }
+
+  /** Stops measuring the lag. */
+  public void stop() {
+    running = false;
+    if (checker != null) {
+      LockSupport.unpark(checker);
+    }
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    HttpServletRequest request = replicaReadRequest();
+    if (request == null) {
+      return super.getConnection();
+    }
+    String token = request.getHeader(ConsistencyTokens.HEADER);
+    long requiredLsn = token == null ? 0 : ConsistencyTokens.parse(token);
+    if (available && requiredLsn >= 0) {
+      try {
+        Connection connection = replica.getConnection();
+        if (replayedPast(connection, requiredLsn)) {
+          replicaReads.increment();
+          return connection;
+        }
+        connection.close();
+      } catch (SQLException ex) {
+        markUnavailable(ex);
+      }
+    }
+    primaryReads.increment();
+    return super.getConnection();
+  }
+
+  private static HttpServletRequest replicaReadRequest() {
+    if (PRIMARY_ONLY.get() != null
+        || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+        || !(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes web)) {
+      return null;
+    }
+    HttpServletRequest request = web.getRequest();
+    String method = request.getMethod();
+    return "GET".equals(method) || "HEAD".equals(method) ? request : null;
+  }
+
+  /** Waits up to {@code token-wait} for the replica to replay past a position. */
+  private boolean replayedPast(Connection connection, long requiredLsn) throws SQLException {
+    if (requiredLsn <= replayedLsn.get()) {
+      return true;
+    }
+    long start = System.nanoTime();
+    try (Statement statement = connection.createStatement()) {
+      while (true) {
+        long lsn = lsn(statement, replicaLsnQuery);
+        replayedLsn.accumulateAndGet(lsn, Math::max);
+        long waited = System.nanoTime() - start;
+        if (lsn >= requiredLsn) {
+          tokenWaitsReplica.record(waited, TimeUnit.NANOSECONDS);
+          return true;
+        }
+        if (waited >= tokenWaitNanos) {
+          tokenWaitsPrimary.record(waited, TimeUnit.NANOSECONDS);
+          return false;
+        }
+        LockSupport.parkNanos(Math.min(TOKEN_POLL_NANOS, tokenWaitNanos - waited));
+      }
+    } catch (SQLException | RuntimeException ex) {
+      connection.close();
+      throw ex;
+    }
+  }
+
+  /**
+   * Reads the primary's current WAL position, which covers every transaction committed so far.
+   *
+   * <p>Called as a transaction commits, the read runs on that transaction's connection, which is
+   * still bound to the thread until the transaction is cleaned up. Asking the admission gate for a
+   * second connection while holding the first would let as many committing writers as there are
+   * permits each wait on another. Outside a transaction the read takes a connection of its own.
+   *
+   * @param dataSource the application data source wrapping this one, so a read outside a
+   *     transaction queues at the admission gate like any other instead of going around it
+   * @return the position in bytes
+   * @throws SQLException if the primary cannot be queried
+   */
+  long primaryLsn(DataSource dataSource) throws SQLException {
+    Boolean previous = PRIMARY_ONLY.get();
+    PRIMARY_ONLY.set(Boolean.TRUE);
+    try {
+      Connection connection = DataSourceUtils.getConnection(dataSource);
+      try (Statement statement = connection.createStatement()) {
+        return lsn(statement, primaryLsnQuery);
+      } finally {
+        DataSourceUtils.releaseConnection(connection, dataSource);
+      }
+    } finally {
+      if (previous == null) {
+        PRIMARY_ONLY.remove();
+      }
+    }
+  }
+
+  private void run() {
+    while (running) {
+      LockSupport.parkNanos(checkNanos);
+      if (running) {
+        check();
+      }
+    }
+  }
+
+  /** Measures the replica's lag and decides whether reads may use it. */
+  void check() {
+    try {
+      // Read after the primary, so a replica that keeps up is seen to have caught up
+      long primaryLsn = lsn(getTargetDataSource(), primaryLsnQuery);
+      long now = System.nanoTime();
+      long replicaLsn = lsn(replica, replicaLsnQuery);
+      record(now, primaryLsn, replicaLsn);
+    } catch (SQLException | RuntimeException ex) {
+      markUnavailable(ex);
+    }
+  }
+
+  /**
+   * Records a measurement.
+   *
+   * @param now when the primary's position was read, from {@link System#nanoTime}
+   * @param primaryLsn the primary's position
+   * @param replicaLsn the position the replica has replayed up to
+   */
+  synchronized void record(long now, long primaryLsn, long replicaLsn) {
+    replayedLsn.accumulateAndGet(replicaLsn, Math::max);
+    long[] newest = samples.peekLast();
+    if (newest != null && newest[LSN] >= primaryLsn) {
+      newest[LAST_SEEN] = now;
+    } else {
+      samples.addLast(new long[] {primaryLsn, now, now});
+      if (samples.size() > MAX_SAMPLES) {
+        samples.removeFirst();
+      }
+    }
+    // Drop what the replica is past, keeping the newest position it has reached
+    while (samples.size() > 1 && secondLsn() <= replicaLsn) {
+      samples.removeFirst();
+    }
+
+    long[] oldest = samples.peekFirst();
+    long lagNanos;
+    if (oldest[LSN] > replicaLsn) {
+      // Behind every position seen: missing writes at least as old as the first sighting
+      lagNanos = now - oldest[FIRST_SEEN];
+    } else if (samples.size() == 1) {
+      lagNanos = 0;
+    } else {
+      // Up to date with the primary as it was when last seen at that position
+      lagNanos = now - oldest[LAST_SEEN];
+    }
+
+    lagSeconds = lagNanos / 1e9;
+    boolean wasAvailable = available;
+    available = lagNanos <= maxLagNanos;
+    if (wasAvailable && !available) {
+      log.warn("Read replica is {}s behind the primary; reading from the primary", lagSeconds);
+    } else if (!wasAvailable && available) {
+      log.info("Read replica is {}s behind the primary; reading from the replica", lagSeconds);
+    }
+  }
+
+  private long secondLsn() {
+    Iterator<long[]> it = samples.iterator();
+    it.next();
+    return it.next()[LSN];
+  }
+
+  private void markUnavailable(Exception ex) {
+    if (available) {
+      log.warn("Read replica unavailable, reading from the primary: {}", ex.getMessage());
+    }
+    available = false;
+    lagSeconds = Double.NaN;
+  }
+
+  private static long lsn(DataSource dataSource, String query) throws SQLException {
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement()) {
+      return lsn(statement, query);
+    }
+  }
+
+  private static long lsn(Statement statement, String query) throws SQLException {
+    try (ResultSet rs = statement.executeQuery(query)) {
+      if (!rs.next()) {
+        throw new SQLException("No WAL position returned by: " + query);
+      }
+      return rs.getLong(1);
+    }
+  }
+}
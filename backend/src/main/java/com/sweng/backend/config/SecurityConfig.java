@@ -144,7 +144,10 @@ public class SecurityConfig {
                     .authenticated()
                     .requestMatchers("/api/auth/**")
                     .permitAll()
-                    .requestMatchers("/actuator/**", "/error")
+                    .requestMatchers("/actuator/health", "/actuator/health/**", "/error")
+                    .permitAll()
+                    // Scraped over the mesh; the ingress does not proxy /actuator/prometheus
+                    .requestMatchers(HttpMethod.GET, "/actuator/prometheus")
                     .permitAll()
                     .requestMatchers(HttpMethod.PUT, "/api/restaurants")
                     .permitAll()
@@ -158,10 +161,17 @@ public class SecurityConfig {
                     .permitAll()
                     .requestMatchers(HttpMethod.DELETE, "/api/orders")
                     .permitAll()
+                    .requestMatchers(HttpMethod.POST, "/api/orders/batch")
+                    .authenticated()
                     .requestMatchers(HttpMethod.POST, "/api/orders/{orderId}")
                     .permitAll()
                     .requestMatchers(HttpMethod.PATCH, "/api/orders", "/api/orders/**")
                     .permitAll()
+                    .requestMatchers(
+                        HttpMethod.GET,
+                        "/api/restaurants/*/orders/stream",
+                        "/api/restaurants/*/stats")
+                    .authenticated()
                     .requestMatchers(HttpMethod.GET, "/api/restaurants", "/api/restaurants/**")
                     .permitAll()
                     .requestMatchers(HttpMethod.POST, "/api/restaurants")
@@ -0,0 +1,130 @@
+package com.sweng.backend.menu;
+
+import com.sweng.backend.menu.dto.CreateMenuItemRequest;
+import com.sweng.backend.menu.dto.MenuItemDto;
+import com.sweng.backend.menu.dto.UpdateMenuItemRequest;
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Changes restaurant menus.
+ *
+ * <p>Each change increments the restaurant's menu version before touching items, which locks the
+ * restaurant row, so changes to one menu are serialized and every committed version is one
+ * consistent menu. Once the change commits, {@link MenuPriceIndex} rebuilds the snapshot.
+ */
+@Component
+public class MenuCatalog {
+
+  private final MenuItemRepository items;
+  private final MenuPriceIndex index;
+
+  /**
+   * Constructs the catalog.
+   *
+   * @param items the menu item repository
+   * @param index the price index to rebuild after each change
+   */
+  public MenuCatalog(MenuItemRepository items, MenuPriceIndex index) {
+    this.items = items;
+    this.index = index;
+  }
+
+  /**
+   * Adds an item to a menu.
+   *
+   * @param restaurantId the restaurant
+   * @param body the item
+   * @return the created item, or empty if the restaurant does not exist
+   */
+  @Transactional
+  public Optional<MenuItemDto> create(UUID restaurantId, CreateMenuItemRequest body) {
+    if (!bumpVersion(restaurantId)) {
+      return Optional.empty();
+    }
+    MenuItemEntity e = new MenuItemEntity();
+    e.setRestaurantId(restaurantId);
+    e.setName(body.getName());
+    e.setDescription(body.getDescription());
+    e.setPrice(body.getPrice());
+    e.setAvailable(body.getAvailable() == null || body.getAvailable());
+    return Optional.of(toDto(items.save(e)));
+  }
+
+  /**
+   * Changes a menu item; fields left null in the request are kept.
+   *
+   * @param restaurantId the restaurant
+   * @param itemId the item
+   * @param body the changes
+   * @return the updated item, or empty if the restaurant has no such item
+   */
+  @Transactional
+  public Optional<MenuItemDto> update(UUID restaurantId, UUID itemId, UpdateMenuItemRequest body) {
+    if (!bumpVersion(restaurantId)) {
+      return Optional.empty();
+    }
+    Optional<MenuItemEntity> found =
+        items.findById(itemId).filter(e -> e.getRestaurantId().equals(restaurantId));
+    found.ifPresent(
+        e -> {
+          if (body.getName() != null) e.setName(body.getName());
+          if (body.getDescription() != null) e.setDescription(body.getDescription());
+          if (body.getPrice() != null) e.setPrice(body.getPrice());
+          if (body.getAvailable() != null) e.setAvailable(body.getAvailable());
+        });
+    return found.map(e -> toDto(items.saveAndFlush(e)));
+  }
+
+  /**
+   * Removes an item from a menu. Orders keep the name and price they were created with.
+   *
+   * @param restaurantId the restaurant
+   * @param itemId the item
+   * @return true if the item existed
+   */
+  @Transactional
+  public boolean delete(UUID restaurantId, UUID itemId) {
+    if (!bumpVersion(restaurantId)) {
+      return false;
+    }
+    Optional<MenuItemEntity> found =
+        items.findById(itemId).filter(e -> e.getRestaurantId().equals(restaurantId));
+    found.ifPresent(items::delete);
+    return found.isPresent();
+  }
+
+  /**
+   * Increments the menu version and schedules the snapshot rebuild for after the commit. A change
+   * that finds nothing to change still bumps the version, which costs one harmless rebuild.
+   */
+  private boolean bumpVersion(UUID restaurantId) {
+    if (items.incrementMenuVersion(restaurantId) == 0) {
+      return false;
+    }
+    long version = items.menuVersion(restaurantId).orElseThrow();
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            index.changed(restaurantId, version);
+          }
+        });
+    return true;
+  }
+
+  static MenuItemDto toDto(MenuItemEntity e) {
+    MenuItemDto dto = new MenuItemDto();
+    dto.setId(e.getId().toString());
+    dto.setRestaurantId(e.getRestaurantId().toString());
+    dto.setName(e.getName());
+    dto.setDescription(e.getDescription());
+    dto.setPrice(e.getPrice());
+    dto.setAvailable(e.isAvailable());
+    return dto;
+  }
+}
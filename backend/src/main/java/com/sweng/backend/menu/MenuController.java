@@ -0,0 +1,184 @@
+package com.sweng.backend.menu;
+
+import com.sweng.backend.menu.dto.CreateMenuItemRequest;
+import com.sweng.backend.menu.dto.MenuDto;
+import com.sweng.backend.menu.dto.MenuItemDto;
+import com.sweng.backend.menu.dto.UpdateMenuItemRequest;
+import com.sweng.backend.restaurant.RestaurantCache;
+import jakarta.validation.Valid;
+import java.util.UUID;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * REST controller for a restaurant's menu.
+ *
+ * <p>Reads are served from {@link MenuPriceIndex}, the same snapshot orders are priced from.
+ * Changes require the ADMIN or RESTAURANT_OWNER role.
+ */
+@RestController
+@RequestMapping("/api/restaurants/{restaurantId}/menu")
+public class MenuController {
+
+  private final MenuCatalog catalog;
+  private final MenuPriceIndex index;
+  private final RestaurantCache restaurantCache;
+
+  /**
+   * Creates a controller instance.
+   *
+   * @param catalog changes menus
+   * @param index in-memory menus to serve reads from
+   * @param restaurantCache the read-through restaurant cache
+   */
+  public MenuController(
+      MenuCatalog catalog, MenuPriceIndex index, RestaurantCache restaurantCache) {
+    this.catalog = catalog;
+    this.index = index;
+    this.restaurantCache = restaurantCache;
+  }
+
+  /**
+   * Get a restaurant's menu.
+   *
+   * @param restaurantId the restaurant ID
+   * @return every item on the menu, ordered by name
+   */
+  @GetMapping
+  public ResponseEntity<MenuDto> getMenu(@PathVariable String restaurantId) {
+    UUID id = existingRestaurantOr404(restaurantId);
+    MenuSnapshot menu = index.snapshot(id);
+
+    MenuDto dto = new MenuDto();
+    dto.setRestaurantId(id.toString());
+    dto.setVersion(menu.getVersion());
+    dto.setItems(menu.getItems().stream().map(i -> toDto(id, i)).toList());
+    return ResponseEntity.ok(dto);
+  }
+
+  /**
+   * Get one menu item.
+   *
+   * @param restaurantId the restaurant ID
+   * @param itemId the item ID
+   * @return the item
+   */
+  @GetMapping("/{itemId}")
+  public ResponseEntity<MenuItemDto> getItem(
+      @PathVariable String restaurantId, @PathVariable String itemId) {
+    UUID id = existingRestaurantOr404(restaurantId);
+    return index
+        .snapshot(id)
+        .find(itemId)
+        .map(i -> ResponseEntity.ok(toDto(id, i)))
+        .orElseThrow(
+            () -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Menu item not found"));
+  }
+
+  /**
+   * Add an item to a restaurant's menu.
+   *
+   * @param restaurantId the restaurant ID
+   * @param body the item
+   * @return the created item
+   */
+  @PostMapping
+  public ResponseEntity<MenuItemDto> createItem(
+      @PathVariable String restaurantId, @Valid @RequestBody CreateMenuItemRequest body) {
+    requireMenuEditor();
+    UUID id = parseUuidOr400(restaurantId, "restaurantId");
+    MenuItemDto created =
+        catalog
+            .create(id, body)
+            .orElseThrow(
+                () -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Restaurant not found"));
+    return ResponseEntity.status(HttpStatus.CREATED).body(created);
+  }
+
+  /**
+   * Update a menu item. Orders already placed keep the name and price they were created with.
+   *
+   * @param restaurantId the restaurant ID
+   * @param itemId the item ID
+   * @param body the fields to change
+   * @return the updated item
+   */
+  @PutMapping("/{itemId}")
+  public ResponseEntity<MenuItemDto> updateItem(
+      @PathVariable String restaurantId,
+      @PathVariable String itemId,
+      @Valid @RequestBody UpdateMenuItemRequest body) {
+    requireMenuEditor();
+    UUID id = parseUuidOr400(restaurantId, "restaurantId");
+    UUID item = parseUuidOr400(itemId, "itemId");
+    return catalog
+        .update(id, item, body)
+        .map(ResponseEntity::ok)
+        .orElseThrow(
+            () -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Menu item not found"));
+  }
+
+  /**
+   * Remove an item from a restaurant's menu.
+   *
+   * @param restaurantId the restaurant ID
+   * @param itemId the item ID
+   * @return 204 No Content on success
+   */
+  @DeleteMapping("/{itemId}")
+  public ResponseEntity<Void> deleteItem(
+      @PathVariable String restaurantId, @PathVariable String itemId) {
+    requireMenuEditor();
+    UUID id = parseUuidOr400(restaurantId, "restaurantId");
+    UUID item = parseUuidOr400(itemId, "itemId");
+    if (!catalog.delete(id, item)) {
+      throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Menu item not found");
+    }
+    return ResponseEntity.noContent().build();
+  }
+
+  private UUID existingRestaurantOr404(String restaurantId) {
+    UUID id = parseUuidOr400(restaurantId, "restaurantId");
+    if (!restaurantCache.exists(id)) {
+      throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Restaurant not found");
+    }
+    return id;
+  }
+
+  private static void requireMenuEditor() {
+    var auth = SecurityContextHolder.getContext().getAuthentication();
+    if (auth == null || !auth.isAuthenticated() || auth.getPrincipal() == null) {
+      throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Unauthorized");
+    }
+    for (GrantedAuthority a : auth.getAuthorities()) {
+      if ("ROLE_ADMIN".equals(a.getAuthority())
+          || "ROLE_RESTAURANT_OWNER".equals(a.getAuthority())) {
+        return;
+      }
+    }
+    throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Forbidden");
+  }
+
+  private static UUID parseUuidOr400(String raw, String fieldName) {
+    try {
+      return UUID.fromString(raw);
+    } catch (IllegalArgumentException ex) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid " + fieldName);
+    }
+  }
+
+  private static MenuItemDto toDto(UUID restaurantId, MenuSnapshot.Item i) {
+    MenuItemDto dto = new MenuItemDto();
+    dto.setId(i.getId().toString());
+    dto.setRestaurantId(restaurantId.toString());
+    dto.setName(i.getName());
+    dto.setDescription(i.getDescription());
+    dto.setPrice(i.getPrice());
+    dto.setAvailable(i.isAvailable());
+    return dto;
+  }
+}
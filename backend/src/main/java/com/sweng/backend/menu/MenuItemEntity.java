@@ -0,0 +1,125 @@
+package com.sweng.backend.menu;
+
+import com.sweng.backend.config.UuidV7;
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * JPA entity representing an item on a restaurant's menu.
+ *
+ * <p>The schema is owned by the Flyway migrations in {@code db/migration}; the index declared here
+ * matches it for schemas generated from the mappings (the H2 test profile).
+ */
+@Entity
+@Table(
+    name = "menu_items",
+    indexes = {@Index(name = "idx_menu_items_restaurant", columnList = "restaurant_id")})
+class MenuItemEntity {
+
+  /** Unique identifier of the item; orders refer to items by it. */
+  @Id
+  @Column(nullable = false, updatable = false)
+  private UUID id;
+
+  /** Restaurant whose menu the item is on. */
+  @Column(nullable = false, updatable = false)
+  private UUID restaurantId;
+
+  /** Item name, copied onto orders. */
+  @Column(nullable = false, length = 100)
+  private String name;
+
+  /** Optional description. */
+  @Column(length = 500)
+  private String description;
+
+  /** Current price; orders keep the price they were created with. */
+  @Column(nullable = false, precision = 10, scale = 2)
+  private BigDecimal price;
+
+  /** Whether the item can be ordered. */
+  @Column(nullable = false)
+  private boolean available = true;
+
+  /** Timestamp when the item was created. */
+  @Column(nullable = false, updatable = false)
+  private Instant createdAt;
+
+  /** Timestamp when the item was last updated. */
+  @Column(nullable = false)
+  private Instant updatedAt;
+
+  /** Default constructor for JPA. */
+  MenuItemEntity() {}
+
+  /** Lifecycle callback triggered before first persist. Initializes ID and timestamps. */
+  @PrePersist
+  void onCreate() {
+    if (id == null) {
+      id = UuidV7.generate();
+    }
+    Instant now = Instant.now();
+    createdAt = now;
+    updatedAt = now;
+  }
+
+  /** Lifecycle callback triggered before update. Updates {@code updatedAt}. */
+  @PreUpdate
+  void onUpdate() {
+    updatedAt = Instant.now();
+  }
+
+  UUID getId() {
+    return id;
+  }
+
+  UUID getRestaurantId() {
+    return restaurantId;
+  }
+
+  void setRestaurantId(UUID restaurantId) {
+    this.restaurantId = restaurantId;
+  }
+
+  String getName() {
+    return name;
+  }
+
+  void setName(String name) {
+    this.name = name;
+  }
+
+  String getDescription() {
+    return description;
+  }
+
+  void setDescription(String description) {
+    this.description = description;
+  }
+
+  BigDecimal getPrice() {
+    return price;
+  }
+
+  void setPrice(BigDecimal price) {
+    this.price = price;
+  }
+
+  boolean isAvailable() {
+    return available;
+  }
+
+  void setAvailable(boolean available) {
+    this.available = available;
+  }
+
+  Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  Instant getUpdatedAt() {
+    return updatedAt;
+  }
+}
@@ -0,0 +1,42 @@
+package com.sweng.backend.menu;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+/** Repository for menu items and the menu version kept on each restaurant. */
+interface MenuItemRepository extends JpaRepository<MenuItemEntity, UUID> {
+
+  /**
+   * Finds every item on a restaurant's menu.
+   *
+   * @param restaurantId the restaurant
+   * @return the items, in no particular order
+   */
+  List<MenuItemEntity> findByRestaurantId(UUID restaurantId);
+
+  /**
+   * Reads a restaurant's menu version.
+   *
+   * @param restaurantId the restaurant
+   * @return the version, or empty if the restaurant does not exist
+   */
+  @Query(value = "select menu_version from restaurants where id = :id", nativeQuery = true)
+  Optional<Long> menuVersion(@Param("id") UUID restaurantId);
+
+  /**
+   * Increments a restaurant's menu version, locking the restaurant row until the transaction ends.
+   *
+   * @param restaurantId the restaurant
+   * @return 1 if the restaurant exists, otherwise 0
+   */
+  @Modifying
+  @Query(
+      value = "update restaurants set menu_version = menu_version + 1 where id = :id",
+      nativeQuery = true)
+  int incrementMenuVersion(@Param("id") UUID restaurantId);
+}
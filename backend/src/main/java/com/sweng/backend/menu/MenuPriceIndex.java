@@ -0,0 +1,199 @@
+package com.sweng.backend.menu;
+
+import com.sweng.backend.config.PgNotifications;
+import com.sweng.backend.config.ReplicaRoutingDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * In-memory {@link MenuSnapshot} of each restaurant's menu, used to price orders without querying
+ * menu items.
+ *
+ * <p>A snapshot is loaded with one query for the whole menu the first time a restaurant is priced,
+ * and rebuilt whenever its menu changes: {@link MenuCatalog} calls {@link #changed} after each
+ * commit, which rebuilds the snapshot on this node and publishes the restaurant and new menu
+ * version on the {@value #CHANNEL} channel through {@link PgNotifications}. Other nodes drop their
+ * snapshot if it is older than that version and load the new one on next use. If the listening
+ * connection drops, every snapshot is dropped when listening resumes; {@code ttl} bounds staleness
+ * where notifications are unavailable (the H2 test profile). Snapshots always load from the
+ * primary, never a read replica that may not have the change yet. Lookups are published as the
+ * {@code menu.index.requests} counter tagged {@code result=hit|miss}, and the snapshot count as the
+ * {@code menu.index.size} gauge.
+ */
+@Component
+public class MenuPriceIndex {
+
+  /** Notification channel carrying {@code restaurantId:menuVersion} of changed menus. */
+  static final String CHANNEL = "menu_snapshots";
+
+  private final MenuItemRepository repository;
+  private final TransactionTemplate readTx;
+  private final PgNotifications notifications;
+  private final long ttlNanos;
+  private final int maxEntries;
+  private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+  private final AtomicLong invalidations = new AtomicLong();
+  private final Counter hits;
+  private final Counter misses;
+
+  /**
+   * Constructs the index.
+   *
+   * @param repository the menu item repository snapshots are loaded from
+   * @param transactionManager the transaction manager snapshots are loaded in
+   * @param notifications the notification bus shared between nodes
+   * @param registry the registry for index metrics
+   * @param ttl how long a snapshot is used before it is reloaded
+   * @param maxEntries maximum number of restaurants to hold; zero disables caching
+   * @param listen whether to listen for menu changes on other nodes
+   */
+  public MenuPriceIndex(
+      MenuItemRepository repository,
+      PlatformTransactionManager transactionManager,
+      PgNotifications notifications,
+      MeterRegistry registry,
+      @Value("${menu.index.ttl:5m}") Duration ttl,
+      @Value("${menu.index.max-entries:10000}") int maxEntries,
+      @Value("${menu.index.listen:true}") boolean listen) {
+    this.repository = repository;
+    this.readTx = new TransactionTemplate(transactionManager);
+    this.readTx.setReadOnly(true);
+    // Rebuilds run after a change commits, while its transaction is still bound to the thread
+    this.readTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    this.notifications = notifications;
+    this.ttlNanos = ttl.toNanos();
+    this.maxEntries = maxEntries;
+    this.hits = requests(registry, "hit");
+    this.misses = requests(registry, "miss");
+    Gauge.builder("menu.index.size", entries, Map::size)
+        .description("Restaurant menus held in memory")
+        .register(registry);
+    if (listen) {
+      // Any menu may have changed while we were not listening
+      notifications.listen(CHANNEL, this::onNotification, this::clear);
+    }
+  }
+
+  private static Counter requests(MeterRegistry registry, String result) {
+    return Counter.builder("menu.index.requests")
+        .description("Menu snapshot lookups")
+        .tag("result", result)
+        .register(registry);
+  }
+
+  /**
+   * Gets the current menu of a restaurant, loading it on a miss.
+   *
+   * @param restaurantId the restaurant
+   * @return the menu; empty for a restaurant without items or one that does not exist
+   */
+  public MenuSnapshot snapshot(UUID restaurantId) {
+    long now = System.nanoTime();
+    Entry e = entries.get(restaurantId);
+    if (e != null && now - e.loadedAtNanos < ttlNanos) {
+      hits.increment();
+      return e.snapshot;
+    }
+    misses.increment();
+
+    long generation = invalidations.get();
+    // The version is read first, so a change racing the load leaves the snapshot labelled older
+    // than its items, and the change's notification replaces it
+    MenuSnapshot snapshot =
+        ReplicaRoutingDataSource.onPrimary(
+            () ->
+                readTx.execute(
+                    status -> {
+                      long version = repository.menuVersion(restaurantId).orElse(0L);
+                      return MenuSnapshot.of(
+                          restaurantId,
+                          version,
+                          version == 0 ? List.of() : repository.findByRestaurantId(restaurantId));
+                    }));
+    store(restaurantId, snapshot, now, generation);
+    return snapshot;
+  }
+
+  /**
+   * Rebuilds a restaurant's menu on this node and tells the other nodes. Call after the change
+   * commits.
+   *
+   * @param restaurantId the restaurant whose menu changed
+   * @param version the menu version the change committed
+   */
+  void changed(UUID restaurantId, long version) {
+    evict(restaurantId);
+    // If this fails the change already happened; other nodes fall back to the TTL
+    notifications.publish(CHANNEL, restaurantId + ":" + version);
+    snapshot(restaurantId);
+  }
+
+  private void onNotification(String payload) {
+    try {
+      int sep = payload.indexOf(':');
+      UUID restaurantId = UUID.fromString(payload.substring(0, sep));
+      long version = Long.parseLong(payload.substring(sep + 1));
+      // Evicting when there is no entry still bumps the generation, so a load already running
+      // on another thread, which may have read the previous version, is not kept
+      Entry e = entries.get(restaurantId);
+      if (e == null || e.snapshot.getVersion() < version) {
+        evict(restaurantId);
+      }
+    } catch (RuntimeException ex) {
+      clear();
+    }
+  }
+
+  private void evict(UUID restaurantId) {
+    invalidations.incrementAndGet();
+    entries.remove(restaurantId);
+  }
+
+  private void clear() {
+    invalidations.incrementAndGet();
+    entries.clear();
+  }
+
+  private void store(UUID restaurantId, MenuSnapshot snapshot, long nowNanos, long generation) {
+    // An invalidation that raced the load may mean the snapshot is already stale; serve it to this
+    // caller but do not keep it
+    if (maxEntries > 0 && invalidations.get() == generation) {
+      if (entries.size() >= maxEntries) {
+        evictExpired(nowNanos);
+      }
+      entries.put(restaurantId, new Entry(snapshot, nowNanos));
+    }
+  }
+
+  private void evictExpired(long nowNanos) {
+    entries.values().removeIf(e -> nowNanos - e.loadedAtNanos >= ttlNanos);
+    Iterator<UUID> it = entries.keySet().iterator();
+    while (entries.size() >= maxEntries && it.hasNext()) {
+      it.next();
+      it.remove();
+    }
+  }
+
+  private static final class Entry {
+    private final MenuSnapshot snapshot;
+    private final long loadedAtNanos;
+
+    private Entry(MenuSnapshot snapshot, long loadedAtNanos) {
+      this.snapshot = snapshot;
+      this.loadedAtNanos = loadedAtNanos;
+    }
+  }
+}
@@ -0,0 +1,157 @@
+package com.sweng.backend.menu;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Immutable copy of one restaurant's menu at one menu version, shared between threads.
+ *
+ * <p>Built by {@link MenuPriceIndex}; looking up an item is a map read.
+ */
+public final class MenuSnapshot {
+
+  private final UUID restaurantId;
+  private final long version;
+  private final Map<UUID, Item> items;
+
+  private MenuSnapshot(UUID restaurantId, long version, Map<UUID, Item> items) {
+    this.restaurantId = restaurantId;
+    this.version = version;
+    this.items = items;
+  }
+
+  /**
+   * Copies a restaurant's menu items.
+   *
+   * @param restaurantId the restaurant
+   * @param version the menu version the items were read at
+   * @param entities the items
+   * @return the snapshot
+   */
+  static MenuSnapshot of(UUID restaurantId, long version, Collection<MenuItemEntity> entities) {
+    Map<UUID, Item> items = new LinkedHashMap<>();
+    entities.stream()
+        .sorted(Comparator.comparing(MenuItemEntity::getName).thenComparing(MenuItemEntity::getId))
+        .forEach(e -> items.put(e.getId(), new Item(e)));
+    return new MenuSnapshot(restaurantId, version, Collections.unmodifiableMap(items));
+  }
+
+  /**
+   * Gets the restaurant ID.
+   *
+   * @return the restaurant ID
+   */
+  public UUID getRestaurantId() {
+    return restaurantId;
+  }
+
+  /**
+   * Gets the menu version the snapshot was read at.
+   *
+   * @return the menu version
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Checks whether the restaurant has no menu at all.
+   *
+   * @return true if the menu has no items
+   */
+  public boolean isEmpty() {
+    return items.isEmpty();
+  }
+
+  /**
+   * Gets every item on the menu.
+   *
+   * @return the items, ordered by name
+   */
+  public List<Item> getItems() {
+    return List.copyOf(items.values());
+  }
+
+  /**
+   * Looks up an item.
+   *
+   * @param itemId the item ID as sent by a client
+   * @return the item, or empty if it is not on this menu
+   */
+  public Optional<Item> find(String itemId) {
+    try {
+      return Optional.ofNullable(items.get(UUID.fromString(itemId)));
+    } catch (IllegalArgumentException | NullPointerException ex) {
+      return Optional.empty();
+    }
+  }
+
+  /** One menu item as it was when the snapshot was taken. */
+  public static final class Item {
+    private final UUID id;
+    private final String name;
+    private final String description;
+    private final BigDecimal price;
+    private final boolean available;
+
+    private Item(MenuItemEntity e) {
+      this.id = e.getId();
+      this.name = e.getName();
+      this.description = e.getDescription();
+      this.price = e.getPrice();
+      this.available = e.isAvailable();
+    }
+
+    /**
+     * Gets the item ID.
+     *
+     * @return the item ID
+     */
+    public UUID getId() {
+      return id;
+    }
+
+    /**
+     * Gets the item name.
+     *
+     * @return the name
+     */
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * Gets the item description.
+     *
+     * @return the description, or null
+     */
+    public String getDescription() {
+      return description;
+    }
+
+    /**
+     * Gets the item price.
+     *
+     * @return the price
+     */
+    public BigDecimal getPrice() {
+      return price;
+    }
+
+    /**
+     * Checks whether the item can be ordered.
+     *
+     * @return true if available
+     */
+    public boolean isAvailable() {
+      return available;
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package com.sweng.backend.menu.dto;
+
+import java.util.List;
+
+/**
+ * DTO representing a restaurant's whole menu.
+ *
+ * <p>Menus are small and served from memory, so they are returned in one response without paging.
+ */
+public class MenuDto {
+
+  /** Restaurant ID. */
+  private String restaurantId;
+
+  /** Menu version, incremented by every change to the menu. */
+  private long version;
+
+  /** Items ordered by name. */
+  private List<MenuItemDto> items;
+
+  /** Default constructor for serialization. */
+  public MenuDto() {}
+
+  /**
+   * Gets the restaurant ID.
+   *
+   * @return the restaurant ID
+   */
+  public String getRestaurantId() {
+    return restaurantId;
+  }
+
+  /**
+   * Sets the restaurant ID.
+   *
+   * @param restaurantId the restaurant ID to set
+   */
+  public void setRestaurantId(String restaurantId) {
+    this.restaurantId = restaurantId;
+  }
+
+  /**
+   * Gets the menu version.
+   *
+   * @return the menu version
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Sets the menu version.
+   *
+   * @param version the menu version to set
+   */
+  public void setVersion(long version) {
+    this.version = version;
+  }
+
+  /**
+   * Gets the items.
+   *
+   * @return the items
+   */
+  public List<MenuItemDto> getItems() {
+    return items;
+  }
+
+  /**
+   * Sets the items.
+   *
+   * @param items the items to set
+   */
+  public void setItems(List<MenuItemDto> items) {
+    this.items = items;
+  }
+}
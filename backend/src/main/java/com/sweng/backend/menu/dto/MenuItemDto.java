@@ -0,0 +1,136 @@
+package com.sweng.backend.menu.dto;
+
+import java.math.BigDecimal;
+
+/** DTO representing a menu item in API responses. */
+public class MenuItemDto {
+
+  /** Item ID, sent as {@code itemId} when ordering. */
+  private String id;
+
+  /** Restaurant ID. */
+  private String restaurantId;
+
+  /** Item name. */
+  private String name;
+
+  /** Optional description. */
+  private String description;
+
+  /** Current price. */
+  private BigDecimal price;
+
+  /** Whether the item can be ordered. */
+  private boolean available;
+
+  /** Default constructor for serialization. */
+  public MenuItemDto() {}
+
+  /**
+   * Gets the item ID.
+   *
+   * @return the item ID
+   */
+  public String getId() {
+    return id;
+  }
+
+  /**
+   * Sets the item ID.
+   *
+   * @param id the item ID to set
+   */
+  public void setId(String id) {
+    this.id = id;
+  }
+
+  /**
+   * Gets the restaurant ID.
+   *
+   * @return the restaurant ID
+   */
+  public String getRestaurantId() {
+    return restaurantId;
+  }
+
+  /**
+   * Sets the restaurant ID.
+   *
+   * @param restaurantId the restaurant ID to set
+   */
+  public void setRestaurantId(String restaurantId) {
+    this.restaurantId = restaurantId;
+  }
+
+  /**
+   * Gets the item name.
+   *
+   * @return the item name
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Sets the item name.
+   *
+   * @param name the item name to set
+   */
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Gets the description.
+   *
+   * @return the description
+   */
+  public String getDescription() {
+    return description;
+  }
+
+  /**
+   * Sets the description.
+   *
+   * @param description the description to set
+   */
+  public void setDescription(String description) {
+    this.description = description;
+  }
+
+  /**
+   * Gets the price.
+   *
+   * @return the price
+   */
+  public BigDecimal getPrice() {
+    return price;
+  }
+
+  /**
+   * Sets the price.
+   *
+   * @param price the price to set
+   */
+  public void setPrice(BigDecimal price) {
+    this.price = price;
+  }
+
+  /**
+   * Gets whether the item can be ordered.
+   *
+   * @return whether the item can be ordered
+   */
+  public boolean isAvailable() {
+    return available;
+  }
+
+  /**
+   * Sets whether the item can be ordered.
+   *
+   * @param available whether the item can be ordered
+   */
+  public void setAvailable(boolean available) {
+    this.available = available;
+  }
+}
@@ -0,0 +1,97 @@
+package com.sweng.backend.menu.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.Size;
+import java.math.BigDecimal;
+
+/** Request body for updating a menu item; omitted fields are left unchanged. */
+public class UpdateMenuItemRequest {
+
+  @Size(min = 1, max = 100)
+  private String name;
+
+  @Size(max = 500)
+  private String description;
+
+  @DecimalMin("0.00")
+  @Digits(integer = 8, fraction = 2)
+  private BigDecimal price;
+
+  private Boolean available;
+
+  /** Default constructor for deserialization. */
+  public UpdateMenuItemRequest() {}
+
+  /**
+   * Gets the item name.
+   *
+   * @return the item name
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Sets the item name.
+   *
+   * @param name the item name to set
+   */
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Gets the description.
+   *
+   * @return the description
+   */
+  public String getDescription() {
+    return description;
+  }
+
+  /**
+   * Sets the description.
+   *
+   * @param description the description to set
+   */
+  public void setDescription(String description) {
+    this.description = description;
+  }
+
+  /**
+   * Gets the price.
+   *
+   * @return the price
+   */
+  public BigDecimal getPrice() {
+    return price;
+  }
+
+  /**
+   * Sets the price.
+   *
+   * @param price the price to set
+   */
+  public void setPrice(BigDecimal price) {
+    this.price = price;
+  }
+
+  /**
+   * Gets whether the item can be ordered.
+   *
+   * @return whether the item can be ordered
+   */
+  public Boolean getAvailable() {
+    return available;
+  }
+
+  /**
+   * Sets whether the item can be ordered.
+   *
+   * @param available whether the item can be ordered
+   */
+  public void setAvailable(Boolean available) {
+    this.available = available;
+  }
+}
@@ -0,0 +1,38 @@
+package com.sweng.backend.metrics;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/** Wires Hibernate into the per-request query metrics. */
+@Configuration
+public class MetricsConfig {
+
+  /** Default constructor. */
+  public MetricsConfig() {}
+
+  /**
+   * Provides the shared per-thread query counter.
+   *
+   * @return the counter
+   */
+  @Bean
+  public RequestQueryCounter requestQueryCounter() {
+    return new RequestQueryCounter();
+  }
+
+  /**
+   * Registers the query counter as Hibernate's statement inspector and session factory interceptor.
+   *
+   * @param counter the query counter
+   * @return the Hibernate properties customizer
+   */
+  @Bean
+  public HibernatePropertiesCustomizer requestQueryCounterCustomizer(RequestQueryCounter counter) {
+    return properties -> {
+      properties.put(AvailableSettings.STATEMENT_INSPECTOR, counter);
+      properties.put(AvailableSettings.INTERCEPTOR, counter);
+    };
+  }
+}
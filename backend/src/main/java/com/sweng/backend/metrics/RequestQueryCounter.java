@@ -0,0 +1,99 @@
+package com.sweng.backend.metrics;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+import org.hibernate.Interceptor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.type.Type;
+
+/**
+ * Counts the SQL statements prepared and entities loaded by Hibernate on the current thread.
+ *
+ * <p>Also counts shard fan-outs: statements on the tables Citus distributes by {@code shard_key}
+ * ({@code orders} and {@code order_rollups}) that neither insert rows nor fix {@code shard_key} to
+ * one value, and so have to run on every shard. Reference tables and tables local to the
+ * coordinator are not counted.
+ *
+ * <p>Registered once on the session factory as both statement inspector and interceptor, so it must
+ * be stateless apart from its thread-local counters. {@link RequestQueryMetricsFilter} resets the
+ * counters at the start of each request and records them at the end.
+ */
+public class RequestQueryCounter implements StatementInspector, Interceptor {
+
+  private static final ThreadLocal<long[]> COUNTS = ThreadLocal.withInitial(() -> new long[3]);
+
+  private static final int STATEMENTS = 0;
+  private static final int ENTITY_LOADS = 1;
+  private static final int SHARD_FAN_OUTS = 2;
+
+  private static final Pattern DISTRIBUTED_TABLE = Pattern.compile("\\b(orders|order_rollups)\\b");
+  private static final Pattern SHARD_KEY_FIXED = Pattern.compile("\\bshard_key\\s*=\\s*[?:]");
+
+  /** Creates a new counter. */
+  public RequestQueryCounter() {}
+
+  @Override
+  public String inspect(String sql) {
+    long[] counts = COUNTS.get();
+    counts[STATEMENTS]++;
+    if (fansOut(sql)) {
+      counts[SHARD_FAN_OUTS]++;
+    }
+    return sql;
+  }
+
+  /**
+   * Tells whether a statement would run on every shard of a distributed table.
+   *
+   * @param sql the statement
+   * @return true if it touches a distributed table without a single shard key
+   */
+  static boolean fansOut(String sql) {
+    String s = sql.strip().toLowerCase(Locale.ROOT);
+    return DISTRIBUTED_TABLE.matcher(s).find()
+        && !s.startsWith("insert")
+        && !SHARD_KEY_FIXED.matcher(s).find();
+  }
+
+  @Override
+  public boolean onLoad(
+      Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+    COUNTS.get()[ENTITY_LOADS]++;
+    return false;
+  }
+
+  /** Resets the counters for the current thread. */
+  static void reset() {
+    long[] counts = COUNTS.get();
+    counts[STATEMENTS] = 0;
+    counts[ENTITY_LOADS] = 0;
+    counts[SHARD_FAN_OUTS] = 0;
+  }
+
+  /**
+   * Gets the number of statements prepared on the current thread since the last reset.
+   *
+   * @return the statement count
+   */
+  static long statements() {
+    return COUNTS.get()[STATEMENTS];
+  }
+
+  /**
+   * Gets the number of entities loaded on the current thread since the last reset.
+   *
+   * @return the entity load count
+   */
+  static long entityLoads() {
+    return COUNTS.get()[ENTITY_LOADS];
+  }
+
+  /**
+   * Gets the number of shard fan-outs on the current thread since the last reset.
+   *
+   * @return the fan-out count
+   */
+  static long shardFanOuts() {
+    return COUNTS.get()[SHARD_FAN_OUTS];
+  }
+}
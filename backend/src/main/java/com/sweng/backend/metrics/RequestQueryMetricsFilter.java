@@ -0,0 +1,67 @@
+package com.sweng.backend.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Records how many SQL statements, entity loads and shard fan-outs each request caused, per route.
+ *
+ * <p>Publishes the {@code db.statements.per.request}, {@code db.entity.loads.per.request} and
+ * {@code db.shard.fanouts.per.request} distribution summaries, tagged with the matched route
+ * template so cardinality stays bounded. A route whose fan-out count is above zero sends a query to
+ * every Citus shard (see {@link RequestQueryCounter}).
+ */
+@Component
+public class RequestQueryMetricsFilter extends OncePerRequestFilter {
+
+  private final MeterRegistry registry;
+
+  /**
+   * Constructs the filter.
+   *
+   * @param registry the meter registry
+   */
+  public RequestQueryMetricsFilter(MeterRegistry registry) {
+    this.registry = registry;
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    RequestQueryCounter.reset();
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+      String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+
+      DistributionSummary.builder("db.statements.per.request")
+          .description("SQL statements prepared while serving a request")
+          .tag("method", request.getMethod())
+          .tag("uri", uri)
+          .register(registry)
+          .record(RequestQueryCounter.statements());
+      DistributionSummary.builder("db.entity.loads.per.request")
+          .description("Entities loaded by Hibernate while serving a request")
+          .tag("method", request.getMethod())
+          .tag("uri", uri)
+          .register(registry)
+          .record(RequestQueryCounter.entityLoads());
+      DistributionSummary.builder("db.shard.fanouts.per.request")
+          .description("Statements sent to every shard while serving a request")
+          .tag("method", request.getMethod())
+          .tag("uri", uri)
+          .register(registry)
+          .record(RequestQueryCounter.shardFanOuts());
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package com.sweng.backend.order;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * An {@code Idempotency-Key} sent with {@code POST /api/orders}, with the response it produced.
+ *
+ * <p>Rows are only written through the native statements in {@link IdempotencyKeyRepository}; the
+ * entity exists for reading and so that schemas generated from the mappings (the H2 test profile)
+ * contain the table.
+ */
+@Entity
+@Table(
+    name = "idempotency_keys",
+    indexes = {@Index(name = "idx_idempotency_keys_expires", columnList = "expires_at")})
+@IdClass(IdempotencyKeyEntity.Key.class)
+class IdempotencyKeyEntity {
+
+  /** Client the key belongs to; keys of different clients never collide. */
+  @Id
+  @Column(nullable = false, length = 255)
+  private String scope;
+
+  /** The key sent by the client. */
+  @Id
+  @Column(nullable = false, length = 255)
+  private String idempotencyKey;
+
+  /** SHA-256 of the request body, so a key reused for a different request is detected. */
+  @Column(nullable = false, length = 64)
+  private String fingerprint;
+
+  /** Id reserved for the order the request creates. */
+  @Column(nullable = false)
+  private UUID orderId;
+
+  /** The created order as JSON; null while the request is in progress. */
+  @Column(columnDefinition = "text")
+  private String response;
+
+  /** Until when the node holding the key may finish the request; null once it has. */
+  @Column private Instant lockedUntil;
+
+  /** When the key is forgotten. */
+  @Column(nullable = false)
+  private Instant expiresAt;
+
+  /** Default constructor for JPA. */
+  IdempotencyKeyEntity() {}
+
+  String getFingerprint() {
+    return fingerprint;
+  }
+
+  UUID getOrderId() {
+    return orderId;
+  }
+
+  String getResponse() {
+    return response;
+  }
+
+  Instant getLockedUntil() {
+    return lockedUntil;
+  }
+
+  Instant getExpiresAt() {
+    return expiresAt;
+  }
+
+  /** Primary key of {@link IdempotencyKeyEntity}. */
+  static final class Key implements Serializable {
+    private String scope;
+    private String idempotencyKey;
+
+    /** Default constructor for JPA. */
+    Key() {}
+
+    Key(String scope, String idempotencyKey) {
+      this.scope = scope;
+      this.idempotencyKey = idempotencyKey;
+    }
+
+    String getScope() {
+      return scope;
+    }
+
+    String getIdempotencyKey() {
+      return idempotencyKey;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Key k
+          && Objects.equals(scope, k.scope)
+          && Objects.equals(idempotencyKey, k.idempotencyKey);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(scope, idempotencyKey);
+    }
+  }
+}
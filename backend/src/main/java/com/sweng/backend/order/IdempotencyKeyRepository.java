@@ -0,0 +1,136 @@
+package com.sweng.backend.order;
+
+import java.time.Instant;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+/**
+ * Repository for idempotency keys.
+ *
+ * <p>A key is reserved by inserting it, so of several nodes seeing the same key only one gets to
+ * run the request; the others find the row and replay or wait for its response.
+ */
+interface IdempotencyKeyRepository
+    extends JpaRepository<IdempotencyKeyEntity, IdempotencyKeyEntity.Key> {
+
+  /**
+   * Reserves a key unless it is already taken.
+   *
+   * @param scope the client the key belongs to
+   * @param key the key
+   * @param fingerprint hash of the request body
+   * @param orderId id reserved for the order
+   * @param lockedUntil until when the reservation holds
+   * @param expiresAt when the key is forgotten
+   * @return 1 if reserved, 0 if the key was already taken
+   */
+  @Modifying
+  @Query(
+      value =
+          """
+          insert into idempotency_keys
+            (scope, idempotency_key, fingerprint, order_id, locked_until, expires_at)
+          values (:scope, :key, :fingerprint, :orderId, :lockedUntil, :expiresAt)
+          on conflict do nothing
+          """,
+      nativeQuery = true)
+  int reserve(
+      @Param("scope") String scope,
+      @Param("key") String key,
+      @Param("fingerprint") String fingerprint,
+      @Param("orderId") UUID orderId,
+      @Param("lockedUntil") Instant lockedUntil,
+      @Param("expiresAt") Instant expiresAt);
+
+  /**
+   * Takes over a reservation whose holder did not finish in time.
+   *
+   * @param scope the client the key belongs to
+   * @param key the key
+   * @param lockedUntil until when the new reservation holds
+   * @param now the current time
+   * @return 1 if taken over, 0 if the key was completed or is still held
+   */
+  @Modifying
+  @Query(
+      value =
+          """
+          update idempotency_keys set locked_until = :lockedUntil
+          where scope = :scope and idempotency_key = :key and response is null
+            and locked_until < :now
+          """,
+      nativeQuery = true)
+  int takeOver(
+      @Param("scope") String scope,
+      @Param("key") String key,
+      @Param("lockedUntil") Instant lockedUntil,
+      @Param("now") Instant now);
+
+  /**
+   * Stores the response of a reserved key.
+   *
+   * @param scope the client the key belongs to
+   * @param key the key
+   * @param response the created order as JSON
+   * @return 1 if stored
+   */
+  @Modifying
+  @Query(
+      value =
+          """
+          update idempotency_keys set response = :response, locked_until = null
+          where scope = :scope and idempotency_key = :key
+          """,
+      nativeQuery = true)
+  int complete(
+      @Param("scope") String scope, @Param("key") String key, @Param("response") String response);
+
+  /**
+   * Drops a reservation whose request failed, so that a retry runs it again.
+   *
+   * @param scope the client the key belongs to
+   * @param key the key
+   * @return 1 if dropped, 0 if the key had completed
+   */
+  @Modifying
+  @Query(
+      value =
+          """
+          delete from idempotency_keys
+          where scope = :scope and idempotency_key = :key and response is null
+          """,
+      nativeQuery = true)
+  int release(@Param("scope") String scope, @Param("key") String key);
+
+  /**
+   * Deletes one key if it has expired.
+   *
+   * @param scope the client the key belongs to
+   * @param key the key
+   * @param now the current time
+   * @return 1 if deleted
+   */
+  @Modifying
+  @Query(
+      value =
+          """
+          delete from idempotency_keys
+          where scope = :scope and idempotency_key = :key and expires_at < :now
+          """,
+      nativeQuery = true)
+  int deleteIfExpired(
+      @Param("scope") String scope, @Param("key") String key, @Param("now") Instant now);
+
+  /**
+   * Deletes every expired key.
+   *
+   * @param now the current time
+   * @return the number of keys deleted
+   */
+  @Modifying
+  @Query(value = "delete from idempotency_keys where expires_at < :now", nativeQuery = true)
+  int deleteExpired(@Param("now") Instant now);
+}
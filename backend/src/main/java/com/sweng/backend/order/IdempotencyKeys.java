@@ -0,0 +1,381 @@
+package com.sweng.backend.order;
+
+import com.sweng.backend.order.dto.OrderDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Makes order creation safe to retry by remembering the response to each {@code Idempotency-Key}.
+ *
+ * <p>The first request with a key reserves it in {@code idempotency_keys} together with the id its
+ * order will get, creates the order and stores it as the key's response. Retries are answered with
+ * that response without validating or inserting anything: from memory when they reach the same
+ * node, otherwise from the table, after which the response is kept in memory too. Retries that
+ * arrive on the same node while the first request is still running wait for it instead of racing
+ * it; on another node they are answered with 409 until the first finishes. A key reused with a
+ * different request body is answered with 422. Keys are scoped to the client that sent them and
+ * forgotten after {@code ttl}.
+ *
+ * <p>A request that fails releases its key, so a retry runs it again. If a node dies while holding
+ * a key, the key can be taken over once {@code lease} has passed; the reserved order id tells
+ * whether the order was created before the node died, so it is not created twice. A request that
+ * gave up waiting for its order to be written ({@link OrderWriteTimeoutException}) keeps its key
+ * held in the same way, since the order may still be committed. Lookups are published as the {@code
+ * order.idempotency.requests} counter tagged {@code result=created|replayed|in_progress|mismatch},
+ * and the keys held in memory as the {@code order.idempotency.size} gauge.
+ */
+@Component
+public class IdempotencyKeys {
+
+  /** Request header carrying the key. */
+  public static final String HEADER = "Idempotency-Key";
+
+  /** Response header set on replayed responses. */
+  public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+  private static final Logger log = LoggerFactory.getLogger(IdempotencyKeys.class);
+  private static final int MAX_KEY_LENGTH = 255;
+
+  private final IdempotencyKeyRepository repository;
+  private final TransactionTemplate tx;
+  private final ObjectMapper objectMapper;
+  private final Duration ttl;
+  private final Duration lease;
+  private final int maxEntries;
+  private final long purgeIntervalNanos;
+  private final AtomicLong nextPurgeNanos;
+  private final Map<IdempotencyKeyEntity.Key, Slot> slots = new ConcurrentHashMap<>();
+  private final Counter created;
+  private final Counter replayed;
+  private final Counter inProgress;
+  private final Counter mismatch;
+
+  /**
+   * Constructs the key store.
+   *
+   * @param repository the idempotency key repository
+   * @param transactionManager the transaction manager key changes run in
+   * @param objectMapper serializes requests for fingerprinting and stored responses
+   * @param registry the registry for key metrics
+   * @param ttl how long a key is remembered
+   * @param lease how long a request may hold its key before another node can take it over
+   * @param maxEntries maximum number of answered keys held in memory
+   * @param purgeInterval how often expired keys are deleted
+   */
+  public IdempotencyKeys(
+      IdempotencyKeyRepository repository,
+      PlatformTransactionManager transactionManager,
+      ObjectMapper objectMapper,
+      MeterRegistry registry,
+      @Value("${order.idempotency.ttl:24h}") Duration ttl,
+      @Value("${order.idempotency.lease:30s}") Duration lease,
+      @Value("${order.idempotency.max-entries:10000}") int maxEntries,
+      @Value("${order.idempotency.purge-interval:1m}") Duration purgeInterval) {
+    this.repository = repository;
+    this.tx = new TransactionTemplate(transactionManager);
+    this.objectMapper = objectMapper;
+    this.ttl = ttl;
+    this.lease = lease;
+    this.maxEntries = maxEntries;
+    this.purgeIntervalNanos = purgeInterval.toNanos();
+    this.nextPurgeNanos = new AtomicLong(System.nanoTime());
+    this.created = requests(registry, "created");
+    this.replayed = requests(registry, "replayed");
+    this.inProgress = requests(registry, "in_progress");
+    this.mismatch = requests(registry, "mismatch");
+    Gauge.builder("order.idempotency.size", slots, Map::size)
+        .description("Idempotency keys held in memory")
+        .register(registry);
+  }
+
+  private static Counter requests(MeterRegistry registry, String result) {
+    return Counter.builder("order.idempotency.requests")
+        .description("Order creations sent with an idempotency key")
+        .tag("result", result)
+        .register(registry);
+  }
+
+  /** The order a request created, or the one a retry is answered with. */
+  public static final class Outcome {
+    private final OrderDto order;
+    private final boolean replayed;
+
+    private Outcome(OrderDto order, boolean replayed) {
+      this.order = order;
+      this.replayed = replayed;
+    }
+
+    /**
+     * Gets the order.
+     *
+     * @return the order as it was when first created
+     */
+    public OrderDto getOrder() {
+      return order;
+    }
+
+    /**
+     * Tells whether the order was created by an earlier request with the same key.
+     *
+     * @return true for a replayed response
+     */
+    public boolean isReplayed() {
+      return replayed;
+    }
+  }
+
+  /**
+   * Creates an order once per key.
+   *
+   * @param scope the client that sent the key
+   * @param key the key
+   * @param request the request body; a retry must send the same one
+   * @param orderId id for the order, used if this request gets to create it
+   * @param create creates the order with the given id; called at most once per key unless it fails
+   * @param find finds an order by id, used to recover keys whose holder did not finish
+   * @return the created or replayed order
+   */
+  public Outcome run(
+      String scope,
+      String key,
+      Object request,
+      UUID orderId,
+      Function<UUID, OrderDto> create,
+      Function<UUID, Optional<OrderDto>> find) {
+    if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid " + HEADER);
+    }
+    purgeIfDue();
+
+    IdempotencyKeyEntity.Key id = new IdempotencyKeyEntity.Key(scope, key);
+    String fingerprint = fingerprint(request);
+    while (true) {
+      Slot slot = slots.get(id);
+      if (slot != null && slot.expiresAtNanos - System.nanoTime() < 0) {
+        slots.remove(id, slot);
+        continue;
+      }
+      if (slot != null) {
+        checkFingerprint(slot.fingerprint, fingerprint);
+        OrderDto order = await(slot);
+        replayed.increment();
+        return new Outcome(order, true);
+      }
+
+      Slot mine = new Slot(fingerprint, System.nanoTime() + ttl.toNanos());
+      if (slots.putIfAbsent(id, mine) != null) {
+        continue;
+      }
+      try {
+        Outcome outcome = execute(id, fingerprint, orderId, create, find);
+        mine.result.complete(outcome.order);
+        trim();
+        return outcome;
+      } catch (RuntimeException ex) {
+        // Requests coalesced onto this one get the same answer; the next retry runs it again
+        slots.remove(id, mine);
+        mine.result.completeExceptionally(ex);
+        throw ex;
+      }
+    }
+  }
+
+  private Outcome execute(
+      IdempotencyKeyEntity.Key id,
+      String fingerprint,
+      UUID orderId,
+      Function<UUID, OrderDto> create,
+      Function<UUID, Optional<OrderDto>> find) {
+    while (true) {
+      Instant now = Instant.now();
+      boolean reserved =
+          tx.execute(
+              status -> {
+                int n =
+                    repository.reserve(
+                        id.getScope(),
+                        id.getIdempotencyKey(),
+                        fingerprint,
+                        orderId,
+                        now.plus(lease),
+                        now.plus(ttl));
+                if (n == 0
+                    && repository.deleteIfExpired(id.getScope(), id.getIdempotencyKey(), now)
+                        == 1) {
+                  n =
+                      repository.reserve(
+                          id.getScope(),
+                          id.getIdempotencyKey(),
+                          fingerprint,
+                          orderId,
+                          now.plus(lease),
+                          now.plus(ttl));
+                }
+                return n == 1;
+              });
+      if (reserved) {
+        return new Outcome(createAndStore(id, orderId, create), false);
+      }
+
+      Optional<IdempotencyKeyEntity> held = repository.findById(id);
+      if (held.isEmpty()) {
+        // Released by a request that failed in the meantime
+        continue;
+      }
+      IdempotencyKeyEntity row = held.get();
+      checkFingerprint(row.getFingerprint(), fingerprint);
+      if (row.getResponse() != null) {
+        replayed.increment();
+        return new Outcome(objectMapper.readValue(row.getResponse(), OrderDto.class), true);
+      }
+      if (row.getLockedUntil().isAfter(now)) {
+        inProgress.increment();
+        throw new ResponseStatusException(
+            HttpStatus.CONFLICT, "A request with this " + HEADER + " is in progress");
+      }
+
+      // The holder did not finish in time; its order may exist even though no response was stored
+      Optional<OrderDto> existing = find.apply(row.getOrderId());
+      if (existing.isPresent()) {
+        store(id, existing.get());
+        replayed.increment();
+        return new Outcome(existing.get(), true);
+      }
+      Boolean takenOver =
+          tx.execute(
+              status ->
+                  repository.takeOver(id.getScope(), id.getIdempotencyKey(), now.plus(lease), now)
+                      == 1);
+      if (Boolean.TRUE.equals(takenOver)) {
+        return new Outcome(createAndStore(id, row.getOrderId(), create), false);
+      }
+    }
+  }
+
+  private OrderDto createAndStore(
+      IdempotencyKeyEntity.Key id, UUID orderId, Function<UUID, OrderDto> create) {
+    OrderDto order;
+    try {
+      order = create.apply(orderId);
+    } catch (OrderWriteTimeoutException ex) {
+      // The order may still be committed; a retry after the lease finds it by its reserved id
+      throw ex;
+    } catch (RuntimeException ex) {
+      try {
+        tx.executeWithoutResult(
+            status -> repository.release(id.getScope(), id.getIdempotencyKey()));
+      } catch (RuntimeException releaseFailure) {
+        // The key stays held until its lease runs out, then a retry takes it over
+        log.warn("Could not release idempotency key after a failed request", releaseFailure);
+      }
+      throw ex;
+    }
+    created.increment();
+    store(id, order);
+    return order;
+  }
+
+  private void store(IdempotencyKeyEntity.Key id, OrderDto order) {
+    try {
+      String response = objectMapper.writeValueAsString(order);
+      tx.executeWithoutResult(
+          status -> repository.complete(id.getScope(), id.getIdempotencyKey(), response));
+    } catch (RuntimeException ex) {
+      // The order exists; once the lease runs out a retry finds it by its reserved id
+      log.warn("Could not store idempotency key response", ex);
+    }
+  }
+
+  private void checkFingerprint(String expected, String actual) {
+    if (!expected.equals(actual)) {
+      mismatch.increment();
+      throw new ResponseStatusException(
+          HttpStatus.UNPROCESSABLE_CONTENT, HEADER + " was already used for a different request");
+    }
+  }
+
+  private static OrderDto await(Slot slot) {
+    try {
+      return slot.result.join();
+    } catch (CompletionException ex) {
+      if (ex.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw ex;
+    }
+  }
+
+  private String fingerprint(Object request) {
+    try {
+      MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of().formatHex(sha256.digest(objectMapper.writeValueAsBytes(request)));
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  /** Drops answered keys from memory beyond {@code maxEntries}; they are still in the table. */
+  private void trim() {
+    if (slots.size() <= maxEntries) {
+      return;
+    }
+    Iterator<Slot> it = slots.values().iterator();
+    while (slots.size() > maxEntries && it.hasNext()) {
+      if (it.next().result.isDone()) {
+        it.remove();
+      }
+    }
+  }
+
+  /** Deletes expired keys, at most once per {@code purgeInterval} across request threads. */
+  private void purgeIfDue() {
+    long now = System.nanoTime();
+    long due = nextPurgeNanos.get();
+    if (now - due < 0 || !nextPurgeNanos.compareAndSet(due, now + purgeIntervalNanos)) {
+      return;
+    }
+    slots.values().removeIf(s -> s.result.isDone() && s.expiresAtNanos - now < 0);
+    try {
+      Integer deleted = tx.execute(status -> repository.deleteExpired(Instant.now()));
+      log.debug("Purged {} expired idempotency keys", deleted);
+    } catch (RuntimeException ex) {
+      log.warn("Could not purge expired idempotency keys", ex);
+    }
+  }
+
+  /** A key held in memory: the running request, or the response it produced. */
+  private static final class Slot {
+    private final String fingerprint;
+    private final long expiresAtNanos;
+    private final CompletableFuture<OrderDto> result = new CompletableFuture<>();
+
+    private Slot(String fingerprint, long expiresAtNanos) {
+      this.fingerprint = fingerprint;
+      this.expiresAtNanos = expiresAtNanos;
+    }
+  }
+}
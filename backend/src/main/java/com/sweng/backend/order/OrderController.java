@@ -1,74 +1,160 @@
 package com.sweng.backend.order;
 
+import com.sweng.backend.auth.AuthenticatedUser;
+import com.sweng.backend.config.ConsistencyTokens;
+import com.sweng.backend.config.ForwardedErrorException;
+import com.sweng.backend.config.KeysetCursor;
+import com.sweng.backend.config.RegionForwarder;
+import com.sweng.backend.menu.MenuPriceIndex;
+import com.sweng.backend.menu.MenuSnapshot;
+import com.sweng.backend.order.dto.BatchCreateOrderRequest;
+import com.sweng.backend.order.dto.BatchOrderResponseDto;
+import com.sweng.backend.order.dto.BatchOrderResultDto;
 import com.sweng.backend.order.dto.CreateOrderItemRequest;
 import com.sweng.backend.order.dto.CreateOrderRequest;
 import com.sweng.backend.order.dto.OrderDto;
 import com.sweng.backend.order.dto.OrderItemDto;
+import com.sweng.backend.order.dto.OrderPageDto;
 import com.sweng.backend.order.dto.UpdateOrderRequest;
-import com.sweng.backend.restaurant.RestaurantRepository;
+import com.sweng.backend.restaurant.RestaurantCache;
+import com.sweng.backend.restaurant.RestaurantEntity;
 import com.sweng.backend.user.UserRepository;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /**
  * REST controller for order endpoints.
  *
- * <p>Implements the OpenAPI Orders API using JPA persistence.
+ * <p>Implements the OpenAPI Orders API using JPA persistence. Writes to orders of a restaurant
+ * homed in another region are forwarded to that region's backend (see {@link RegionForwarder});
+ * looking up the home region of an existing order reads it locally first.
  */
 @RestController
 @RequestMapping("/api/orders")
 public class OrderController {
 
+  /** Largest page a client may request from the list endpoint. */
+  private static final int MAX_PAGE_LIMIT = 100;
+
+  /** Keyset order for order listings; id breaks ties between equal timestamps. */
+  private static final Sort KEYSET_ORDER =
+      Sort.by(Sort.Direction.DESC, "createdAt").and(Sort.by(Sort.Direction.DESC, "id"));
+
   private final OrderRepository orderRepository;
-  private final RestaurantRepository restaurantRepository;
+  private final RestaurantCache restaurantCache;
+  private final MenuPriceIndex menus;
   private final UserRepository userRepository;
+  private final OrderOutbox outbox;
+  private final OrderIngestQueue ingestQueue;
+  private final IdempotencyKeys idempotencyKeys;
+  private final ConsistencyTokens consistencyTokens;
+  private final RegionForwarder regions;
+  private final OrderEventHub eventHub;
+  private final Validator validator;
+  private final int maxBatchSize;
 
   /**
    * Constructs the controller.
    *
    * @param orderRepository order repository
-   * @param restaurantRepository restaurant repository (used for existence checks)
-   * @param userRepository user repository (used to resolve authenticated user UUID)
+   * @param restaurantCache restaurant cache (used for existence checks)
+   * @param menus in-memory restaurant menus that order items are priced from
+   * @param userRepository user repository (resolves the UUID when the principal does not carry it)
+   * @param outbox writes orders together with their events
+   * @param ingestQueue group-commit queue used for single-order creation when enabled
+   * @param idempotencyKeys remembers the responses to order creations sent with an idempotency key
+   * @param consistencyTokens issues read-your-writes tokens for commits made off the request thread
+   * @param regions forwards writes to the home region of their restaurant
+   * @param eventHub streams order changes to subscribers
+   * @param validator bean validator for the individual orders of a batch
+   * @param maxBatchSize largest number of orders accepted by the batch endpoint
    */
   public OrderController(
       OrderRepository orderRepository,
-      RestaurantRepository restaurantRepository,
-      UserRepository userRepository) {
+      RestaurantCache restaurantCache,
+      MenuPriceIndex menus,
+      UserRepository userRepository,
+      OrderOutbox outbox,
+      OrderIngestQueue ingestQueue,
+      IdempotencyKeys idempotencyKeys,
+      ConsistencyTokens consistencyTokens,
+      RegionForwarder regions,
+      OrderEventHub eventHub,
+      Validator validator,
+      @Value("${order.batch.max-size:500}") int maxBatchSize) {
     this.orderRepository = orderRepository;
-    this.restaurantRepository = restaurantRepository;
+    this.restaurantCache = restaurantCache;
+    this.menus = menus;
     this.userRepository = userRepository;
+    this.outbox = outbox;
+    this.ingestQueue = ingestQueue;
+    this.idempotencyKeys = idempotencyKeys;
+    this.consistencyTokens = consistencyTokens;
+    this.regions = regions;
+    this.eventHub = eventHub;
+    this.validator = validator;
+    this.maxBatchSize = maxBatchSize;
   }
 
   /**
-   * List orders (optionally filtered by restaurantId, userId, status).
+   * List orders (optionally filtered by restaurantId, userId, status and a createdAt range).
    *
-   * <p>Spec rule: users can only see their own orders unless ADMIN or RESTAURANT_OWNER.
+   * <p>Spec rule: users can only see their own orders unless ADMIN or RESTAURANT_OWNER. All
+   * filters, including the visibility rule, are applied in SQL. Reads from the read replica when
+   * one is configured and keeping up.
    *
    * @param restaurantId optional filter by restaurant ID
    * @param userId optional filter by user ID
    * @param status optional filter by order status
-   * @return list of orders wrapped in a data object
+   * @param from optional inclusive lower bound on createdAt (ISO-8601 date-time)
+   * @param to optional exclusive upper bound on createdAt (ISO-8601 date-time)
+   * @param cursor optional opaque cursor returned as {@code nextCursor} by a previous call
+   * @param limit maximum number of orders to return
+   * @return page of orders wrapped in a data object, with the cursor for the next page
    */
   @GetMapping
-  public ResponseEntity<?> getOrders(
+  @Transactional(readOnly = true)
+  public ResponseEntity<OrderPageDto> getOrders(
       @RequestParam(required = false) String restaurantId,
       @RequestParam(required = false) String userId,
-      @RequestParam(required = false) String status) {
-
-    // For now: simple in-memory filtering after fetching all.
-    // (You can optimize later with repository methods.)
-    List<OrderEntity> all = orderRepository.findAll();
+      @RequestParam(required = false) String status,
+      @RequestParam(required = false) String from,
+      @RequestParam(required = false) String to,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "50") int limit) {
 
     AuthContext auth = requireAuth();
 
@@ -79,55 +165,101 @@ public class OrderController {
         restaurantId != null ? parseUuidOr400(restaurantId, "restaurantId") : null;
     UUID userUuid = userId != null ? parseUuidOr400(userId, "userId") : null;
     OrderStatus st = status != null ? parseStatusOr400(status) : null;
+    Instant fromInstant = from != null ? parseInstantOr400(from, "from") : null;
+    Instant toInstant = to != null ? parseInstantOr400(to, "to") : null;
+    KeysetCursor position = cursor != null ? parseCursorOr400(cursor) : null;
 
-    List<OrderEntity> filtered =
-        all.stream()
-            .filter(
-                o -> {
-                  if (restaurantUuid != null && !restaurantUuid.equals(o.getRestaurantId()))
-                    return false;
-                  if (st != null && st != o.getStatus()) return false;
-
-                  // Visibility rule
-                  if (isAdmin || isOwner) {
-                    // can view all (but still allow explicit userId filter)
-                    if (userUuid != null) {
-                      return userUuid.equals(o.getCustomerId());
-                    }
-                    return true;
-                  }
-
-                  // Normal user: only their own orders
-                  UUID me = auth.userUid;
-                  if (me == null) return false;
-                  if (!me.equals(o.getCustomerId())) return false;
-
-                  // If userId filter present, it must match
-                  return userUuid == null || userUuid.equals(o.getCustomerId());
-                })
-            .toList();
+    if (limit < 1 || limit > MAX_PAGE_LIMIT) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid limit");
+    }
+
+    List<Specification<OrderEntity>> filters = new ArrayList<>();
+    if (restaurantUuid != null) filters.add(OrderSpecifications.hasRestaurant(restaurantUuid));
+    if (st != null) filters.add(OrderSpecifications.hasStatus(st));
+    if (fromInstant != null) filters.add(OrderSpecifications.createdFrom(fromInstant));
+    if (toInstant != null) filters.add(OrderSpecifications.createdBefore(toInstant));
+    if (userUuid != null) filters.add(OrderSpecifications.hasCustomer(userUuid));
+    if (position != null) filters.add(OrderSpecifications.after(position));
+
+    // Visibility rule: ADMIN and RESTAURANT_OWNER can view all orders, everyone else only their own
+    if (!isAdmin && !isOwner) {
+      if (auth.userUid == null) {
+        return ResponseEntity.ok(new OrderPageDto(List.of(), null));
+      }
+      filters.add(OrderSpecifications.hasCustomer(auth.userUid));
+    }
+
+    // Fetch one extra row to learn whether another page exists without counting
+    List<OrderEntity> found =
+        orderRepository.findBy(
+            Specification.allOf(filters), q -> q.sortBy(KEYSET_ORDER).limit(limit + 1).all());
+
+    String nextCursor = null;
+    if (found.size() > limit) {
+      found = found.subList(0, limit);
+      OrderEntity last = found.get(limit - 1);
+      nextCursor = KeysetCursor.after(last.getCreatedAt(), last.getId()).encode();
+    }
 
     // Spec response shape is { data: [...] }
     return ResponseEntity.ok(
-        java.util.Map.of("data", filtered.stream().map(OrderController::toDto).toList()));
+        new OrderPageDto(found.stream().map(OrderController::toDto).toList(), nextCursor));
   }
 
   /**
    * Create a new order.
    *
-   * <p>Spec: customer must be authenticated; must contain at least one item.
+   * <p>Spec: customer must be authenticated; must contain at least one item. With group commit
+   * enabled the order is written by {@link OrderIngestQueue} and the response is sent once its
+   * batch commits; a full queue is answered with 429.
    *
+   * <p>With an {@code Idempotency-Key} the order is created once per key and client: retries get
+   * the first response back, marked with {@code Idempotent-Replayed: true}, without being validated
+   * again (see {@link IdempotencyKeys}).
+   *
+   * @param idempotencyKey optional key making retries of the request safe
    * @param body the order creation request
    * @return the created order
    */
   @PostMapping
-  public ResponseEntity<OrderDto> createOrder(@Valid @RequestBody CreateOrderRequest body) {
+  public ResponseEntity<OrderDto> createOrder(
+      @RequestHeader(value = IdempotencyKeys.HEADER, required = false) String idempotencyKey,
+      @Valid @RequestBody CreateOrderRequest body) {
     AuthContext auth = requireAuth();
 
+    String home = homeRegionOf(parseUuidOr400(body.getRestaurantId(), "restaurantId"));
+    if (regions.isForeign(home)) {
+      // The home region also keeps the idempotency key, so retries through any region agree
+      return regions.forward(home, body, OrderDto.class);
+    }
+
+    if (idempotencyKey == null) {
+      return ResponseEntity.status(HttpStatus.CREATED).body(toDto(create(body, auth, null)));
+    }
+    String scope = auth.userUid != null ? auth.userUid.toString() : auth.auth.getName();
+    UUID restaurantUuid = parseUuidOr400(body.getRestaurantId(), "restaurantId");
+    IdempotencyKeys.Outcome outcome =
+        idempotencyKeys.run(
+            scope,
+            idempotencyKey,
+            body,
+            OrderShards.newOrderId(restaurantUuid),
+            orderId -> toDto(create(body, auth, orderId)),
+            orderId -> orderRepository.findOrder(orderId).map(OrderController::toDto));
+    ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.CREATED);
+    if (outcome.isReplayed()) {
+      response.header(IdempotencyKeys.REPLAYED_HEADER, "true");
+      // The order may have been committed by an earlier request that never got its token
+      consistencyTokens.issue();
+    }
+    return response.body(outcome.getOrder());
+  }
+
+  private OrderEntity create(CreateOrderRequest body, AuthContext auth, UUID orderId) {
     UUID restaurantUuid = parseUuidOr400(body.getRestaurantId(), "restaurantId");
 
     // Validate restaurant exists
-    if (!restaurantRepository.existsById(restaurantUuid)) {
+    if (!restaurantCache.exists(restaurantUuid)) {
       throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid restaurantId");
     }
 
@@ -136,30 +268,127 @@ public class OrderController {
           HttpStatus.BAD_REQUEST, "Order must contain at least one item");
     }
 
-    OrderEntity e = new OrderEntity();
-    e.setRestaurantId(restaurantUuid);
-    e.setCustomerId(auth.userUid); // authenticated user
-    e.setCustomerName(body.getCustomerName());
-    e.setCustomerEmail(body.getCustomerEmail());
-    e.setSpecialInstructions(body.getSpecialInstructions());
-    e.setStatus(OrderStatus.pending);
+    OrderEntity order =
+        newOrder(body, restaurantUuid, auth.userUid, menus.snapshot(restaurantUuid));
+    order.setId(orderId);
+    return persist(order);
+  }
 
-    // Map items
-    List<OrderItemEmbeddable> items =
-        body.getItems().stream().map(OrderController::toEmbeddable).toList();
+  /**
+   * Create several orders in one request.
+   *
+   * <p>Each order is validated as {@code POST /api/orders} would validate it, but a rejected order
+   * does not fail the others. Restaurant ids are checked for the whole batch with one query, and
+   * the accepted orders are inserted in a single transaction using JDBC batching.
+   *
+   * @param body the orders to create
+   * @return one result per requested order, in request order
+   */
+  @PostMapping("/batch")
+  public ResponseEntity<BatchOrderResponseDto> createOrders(
+      @Valid @RequestBody BatchCreateOrderRequest body) {
+    AuthContext auth = requireAuth();
 
-    // Compute totals
-    items.forEach(OrderController::computeSubtotalIfMissing);
-    BigDecimal total =
-        items.stream()
-            .map(OrderItemEmbeddable::getSubtotal)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
+    List<CreateOrderRequest> requests = body.getOrders();
+    if (requests.size() > maxBatchSize) {
+      throw new ResponseStatusException(
+          HttpStatus.BAD_REQUEST, "Batch exceeds " + maxBatchSize + " orders");
+    }
 
-    e.setItems(items);
-    e.setTotalAmount(total);
+    BatchOrderResultDto[] results = new BatchOrderResultDto[requests.size()];
+    UUID[] restaurantUuids = new UUID[requests.size()];
+    for (int i = 0; i < requests.size(); i++) {
+      String error = validationError(requests.get(i));
+      if (error == null) {
+        try {
+          restaurantUuids[i] = UUID.fromString(requests.get(i).getRestaurantId());
+        } catch (IllegalArgumentException ex) {
+          error = "Invalid restaurantId";
+        }
+      }
+      if (error != null) {
+        results[i] = BatchOrderResultDto.rejected(i, error);
+      }
+    }
+
+    Set<UUID> referenced = new HashSet<>();
+    for (UUID id : restaurantUuids) {
+      if (id != null) referenced.add(id);
+    }
+    Set<UUID> known = restaurantCache.existing(referenced);
+
+    // Orders of restaurants homed in other regions are created there, one batch per region
+    Map<String, List<Integer>> foreign = new LinkedHashMap<>();
+    for (int i = 0; i < requests.size(); i++) {
+      if (results[i] == null && known.contains(restaurantUuids[i])) {
+        String home = homeRegionOf(restaurantUuids[i]);
+        if (regions.isForeign(home)) {
+          foreign.computeIfAbsent(home, k -> new ArrayList<>()).add(i);
+        }
+      }
+    }
+    foreign.forEach((home, positions) -> forwardBatch(home, requests, positions, results));
+
+    List<OrderEntity> accepted = new ArrayList<>();
+    List<Integer> positions = new ArrayList<>();
+    for (int i = 0; i < requests.size(); i++) {
+      if (results[i] != null) {
+        continue;
+      }
+      if (!known.contains(restaurantUuids[i])) {
+        results[i] = BatchOrderResultDto.rejected(i, "Invalid restaurantId");
+        continue;
+      }
+      try {
+        MenuSnapshot menu = menus.snapshot(restaurantUuids[i]);
+        accepted.add(newOrder(requests.get(i), restaurantUuids[i], auth.userUid, menu));
+      } catch (ResponseStatusException ex) {
+        results[i] = BatchOrderResultDto.rejected(i, ex.getReason());
+        continue;
+      }
+      positions.add(i);
+    }
+
+    List<OrderEntity> saved = outbox.createAll(accepted);
+    for (int j = 0; j < saved.size(); j++) {
+      int i = positions.get(j);
+      results[i] = BatchOrderResultDto.created(i, toDto(saved.get(j)));
+    }
+
+    return ResponseEntity.ok(new BatchOrderResponseDto(List.of(results)));
+  }
+
+  /** Creates some orders of a batch in their home region and fills in their results. */
+  private void forwardBatch(
+      String home,
+      List<CreateOrderRequest> requests,
+      List<Integer> positions,
+      BatchOrderResultDto[] results) {
+    BatchCreateOrderRequest batch = new BatchCreateOrderRequest();
+    batch.setOrders(positions.stream().map(requests::get).toList());
+    List<BatchOrderResultDto> answered;
+    try {
+      answered = regions.forward(home, batch, BatchOrderResponseDto.class).getBody().getData();
+    } catch (ForwardedErrorException ex) {
+      rejectAll(positions, results, ex.getMessage(), ex.getStatusCode().value());
+      return;
+    } catch (ResponseStatusException ex) {
+      rejectAll(positions, results, ex.getReason(), ex.getStatusCode().value());
+      return;
+    }
+    for (int j = 0; j < positions.size(); j++) {
+      int i = positions.get(j);
+      results[i] = answered.get(j);
+      results[i].setIndex(i);
+    }
+  }
 
-    OrderEntity saved = orderRepository.save(e);
-    return ResponseEntity.status(HttpStatus.CREATED).body(toDto(saved));
+  private static void rejectAll(
+      List<Integer> positions, BatchOrderResultDto[] results, String reason, int status) {
+    for (int i : positions) {
+      results[i] = BatchOrderResultDto.rejected(i, reason);
+      results[i].setStatus(status);
+    }
   }
 
   /**
@@ -175,23 +404,54 @@ public class OrderController {
   /**
    * Get a specific order by ID with visibility rules.
    *
+   * <p>Reads from the read replica when one is configured and keeping up.
+   *
    * @param orderId the order ID
    * @return the order details
    */
   @GetMapping("/{orderId}")
+  @Transactional(readOnly = true)
   public ResponseEntity<OrderDto> getOrder(@PathVariable String orderId) {
     AuthContext auth = requireAuth();
     UUID id = parseUuidOr400(orderId, "orderId");
 
     OrderEntity found =
         orderRepository
-            .findById(id)
+            .findOrder(id)
             .orElseThrow(
                 () -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Order not found"));
 
     enforceVisibility(auth, found);
 
-    return ResponseEntity.ok(toDto(found));
+    return ResponseEntity.ok().eTag(etag(found)).body(toDto(found));
+  }
+
+  /**
+   * Stream changes to an order as Server-Sent Events.
+   *
+   * <p>Visible to the same users as {@code GET /api/orders/{orderId}}. See {@link OrderEventHub}
+   * for the event format, heartbeats and resuming with {@code Last-Event-ID}.
+   *
+   * @param orderId the order ID
+   * @param lastEventId id of the last event received before reconnecting, if any
+   * @return the event stream
+   */
+  @GetMapping(path = "/{orderId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamOrder(
+      @PathVariable String orderId,
+      @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+    AuthContext auth = requireAuth();
+    UUID id = parseUuidOr400(orderId, "orderId");
+
+    OrderEntity found =
+        orderRepository
+            .findOrder(id)
+            .orElseThrow(
+                () -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Order not found"));
+
+    enforceVisibility(auth, found);
+
+    return eventHub.subscribeOrder(id, lastEventId);
   }
 
   /**
@@ -209,32 +469,46 @@ public class OrderController {
   /**
    * Update an order.
    *
-   * <p>Spec: Only allowed for orders in 'pending' status unless user has ADMIN role.
+   * <p>Spec: Only allowed for orders in 'pending' status unless user has ADMIN role. Status changes
+   * must follow {@link OrderStatus}'s state machine (409 otherwise). With {@code If-Match} the
+   * update only applies if the order still has that ETag (412 otherwise). A request that only
+   * changes the status is applied as one conditional {@code UPDATE} without reading the order
+   * first; other updates are checked against the order's version when written.
    *
    * @param orderId the order ID to update
+   * @param ifMatch optional ETag the order must still have
    * @param body the update request body
    * @return the updated order
    */
   @PutMapping("/{orderId}")
   public ResponseEntity<OrderDto> updateOrder(
-      @PathVariable String orderId, @Valid @RequestBody UpdateOrderRequest body) {
+      @PathVariable String orderId,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+      @Valid @RequestBody UpdateOrderRequest body) {
 
     AuthContext auth = requireAuth();
     UUID id = parseUuidOr400(orderId, "orderId");
+    Long requiredVersion = requiredVersion(ifMatch);
+
+    ResponseEntity<OrderDto> forwarded = forwardToHomeOfOrder(id, body, OrderDto.class);
+    if (forwarded != null) {
+      return forwarded;
+    }
+
+    if (isStatusOnly(body)) {
+      return transitionStatus(auth, id, parseStatusOr400(body.getStatus()), requiredVersion);
+    }
 
     OrderEntity found =
         orderRepository
-            .findById(id)
+            .findOrder(id)
             .orElseThrow(
                 () -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Order not found"));
 
-    enforceVisibility(auth, found);
-
-    boolean isAdmin = auth.hasRole("ROLE_ADMIN");
-
-    if (!isAdmin && found.getStatus() != OrderStatus.pending) {
-      throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Only pending orders can be updated");
-    }
+    checkUpdatable(auth, found, requiredVersion);
+    Long versionRead = found.getVersion();
+    OrderStatus statusRead = found.getStatus();
+    BigDecimal totalRead = found.getTotalAmount();
 
     if (body.getCustomerName() != null) found.setCustomerName(body.getCustomerName());
     if (body.getCustomerEmail() != null) found.setCustomerEmail(body.getCustomerEmail());
@@ -246,23 +520,129 @@ public class OrderController {
         throw new ResponseStatusException(
             HttpStatus.BAD_REQUEST, "Order must contain at least one item");
       }
-      List<OrderItemEmbeddable> items =
-          body.getItems().stream().map(OrderController::toEmbeddable).toList();
-      items.forEach(OrderController::computeSubtotalIfMissing);
-      BigDecimal total =
-          items.stream()
-              .map(OrderItemEmbeddable::getSubtotal)
-              .reduce(BigDecimal.ZERO, BigDecimal::add);
+      MenuSnapshot menu = menus.snapshot(found.getRestaurantId());
+      List<OrderItem> items = body.getItems().stream().map(i -> toItem(i, menu)).toList();
       found.setItems(items);
-      found.setTotalAmount(total);
+      found.setTotalAmount(computeTotal(items));
     }
 
     if (body.getStatus() != null) {
-      found.setStatus(parseStatusOr400(body.getStatus()));
+      OrderStatus next = parseStatusOr400(body.getStatus());
+      checkTransition(found.getStatus(), next);
+      found.setStatus(next);
+    }
+
+    OrderEntity saved;
+    try {
+      saved = outbox.update(found, versionRead, statusRead, totalRead);
+    } catch (OptimisticLockingFailureException ex) {
+      throw concurrentUpdate(requiredVersion);
+    }
+    return ResponseEntity.ok().eTag(etag(saved)).body(toDto(saved));
+  }
+
+  private ResponseEntity<OrderDto> transitionStatus(
+      AuthContext auth, UUID id, OrderStatus next, Long requiredVersion) {
+    boolean isAdmin = auth.hasRole("ROLE_ADMIN");
+    boolean isOwner = auth.hasRole("ROLE_RESTAURANT_OWNER");
+
+    // Fold the permission rules into the WHERE clause: non-admins may only move pending orders, and
+    // customers only their own
+    Set<OrderStatus> from = OrderStatus.predecessorsOf(next);
+    if (!isAdmin) from.retainAll(Set.of(OrderStatus.pending));
+    UUID customer = isAdmin || isOwner ? null : auth.userUid;
+    boolean permitted = !from.isEmpty() && (isAdmin || isOwner || customer != null);
+
+    int shardKey = OrderShards.ofOrder(id);
+    if (permitted) {
+      Optional<OrderEntity> updated =
+          outbox.transitionStatus(shardKey, id, from, next, requiredVersion, customer);
+      if (updated.isPresent()) {
+        return ResponseEntity.ok().eTag(etag(updated.get())).body(toDto(updated.get()));
+      }
+    }
+
+    // Nothing changed; read the order only now to explain why
+    OrderEntity found =
+        orderRepository
+            .findOrder(id)
+            .orElseThrow(
+                () -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Order not found"));
+    if (permitted && found.getShardKey() != shardKey) {
+      // An order from before shard keys, whose id does not tell its shard; retry on the right one
+      Optional<OrderEntity> updated =
+          outbox.transitionStatus(found.getShardKey(), id, from, next, requiredVersion, customer);
+      if (updated.isPresent()) {
+        return ResponseEntity.ok().eTag(etag(updated.get())).body(toDto(updated.get()));
+      }
+    }
+    checkUpdatable(auth, found, requiredVersion);
+    if (found.getStatus() == next) {
+      return ResponseEntity.ok().eTag(etag(found)).body(toDto(found));
     }
+    checkTransition(found.getStatus(), next);
+    // The order matched every condition when read, so another update won the race
+    throw concurrentUpdate(requiredVersion);
+  }
 
-    OrderEntity saved = orderRepository.save(found);
-    return ResponseEntity.ok(toDto(saved));
+  private static boolean isStatusOnly(UpdateOrderRequest body) {
+    return body.getStatus() != null
+        && body.getCustomerName() == null
+        && body.getCustomerEmail() == null
+        && body.getSpecialInstructions() == null
+        && body.getItems() == null;
+  }
+
+  private static void checkUpdatable(AuthContext auth, OrderEntity order, Long requiredVersion) {
+    enforceVisibility(auth, order);
+    checkVersion(order, requiredVersion);
+    if (!auth.hasRole("ROLE_ADMIN") && order.getStatus() != OrderStatus.pending) {
+      throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Only pending orders can be updated");
+    }
+  }
+
+  private static void checkTransition(OrderStatus current, OrderStatus next) {
+    if (current != next && !current.canTransitionTo(next)) {
+      throw new ResponseStatusException(
+          HttpStatus.CONFLICT, "Cannot change status from " + current + " to " + next);
+    }
+  }
+
+  private static void checkVersion(OrderEntity order, Long requiredVersion) {
+    if (requiredVersion != null && !requiredVersion.equals(order.getVersion())) {
+      throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Order has been modified");
+    }
+  }
+
+  private static ResponseStatusException concurrentUpdate(Long requiredVersion) {
+    return requiredVersion != null
+        ? new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Order has been modified")
+        : new ResponseStatusException(HttpStatus.CONFLICT, "Order was modified concurrently");
+  }
+
+  /**
+   * Parses an If-Match header into the order version it requires.
+   *
+   * <p>ETags are the quoted version number. If-Match uses strong comparison, so weak or otherwise
+   * foreign tags can never match and map to a version no order has.
+   */
+  private static Long requiredVersion(String ifMatch) {
+    if (ifMatch == null || ifMatch.trim().equals("*")) {
+      return null;
+    }
+    String tag = ifMatch.trim();
+    if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+      try {
+        return Long.parseLong(tag.substring(1, tag.length() - 1));
+      } catch (NumberFormatException ex) {
+        // fall through
+      }
+    }
+    return -1L;
+  }
+
+  private static String etag(OrderEntity order) {
+    return "\"" + order.getVersion() + "\"";
   }
 
   /**
@@ -283,25 +663,150 @@ public class OrderController {
    * <p>Spec: Only the order owner or users with ADMIN/RESTAURANT_OWNER role can delete orders.
    *
    * @param orderId the order ID to delete
+   * @param ifMatch optional ETag the order must still have
    * @return 204 No Content on success
    */
   @DeleteMapping("/{orderId}")
-  public ResponseEntity<Void> deleteOrder(@PathVariable String orderId) {
+  public ResponseEntity<Void> deleteOrder(
+      @PathVariable String orderId,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
     AuthContext auth = requireAuth();
     UUID id = parseUuidOr400(orderId, "orderId");
 
+    ResponseEntity<Void> forwarded = forwardToHomeOfOrder(id, null, Void.class);
+    if (forwarded != null) {
+      return forwarded;
+    }
+
     OrderEntity found =
         orderRepository
-            .findById(id)
+            .findOrder(id)
             .orElseThrow(
                 () -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Order not found"));
 
     enforceVisibility(auth, found);
+    checkVersion(found, requiredVersion(ifMatch));
 
-    orderRepository.deleteById(found.getId());
+    outbox.delete(found);
     return ResponseEntity.noContent().build();
   }
 
+  /**
+   * Merge in the version of an order written by another region.
+   *
+   * <p>For replication between regions that accept writes to the same orders: the body is the order
+   * as the other region serves it, stamps included. Status only moves forward and the contents are
+   * last writer wins by their stamp (see {@link OrderEntity#merge}), so regions exchanging versions
+   * in any order end up with the same order. Only ADMIN may merge.
+   *
+   * @param orderId the order ID
+   * @param body the other region's version of the order
+   * @return 200 with the order as merged here
+   */
+  @PutMapping("/{orderId}/merge")
+  public ResponseEntity<OrderDto> mergeOrder(
+      @PathVariable String orderId, @RequestBody OrderDto body) {
+    AuthContext auth = requireAuth();
+    if (!auth.hasRole("ROLE_ADMIN")) {
+      throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Forbidden");
+    }
+    UUID id = parseUuidOr400(orderId, "orderId");
+    if (body == null || (body.getId() != null && !body.getId().equals(id.toString()))) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid id");
+    }
+
+    OrderEntity saved;
+    try {
+      saved = outbox.merge(fromDto(id, body), parseStampOr400(body.getHlc(), "hlc"));
+    } catch (OptimisticLockingFailureException ex) {
+      throw concurrentUpdate(null);
+    }
+    return ResponseEntity.ok().eTag(etag(saved)).body(toDto(saved));
+  }
+
+  /** Gets a restaurant's home region, or null when the request cannot be forwarded anyway. */
+  private String homeRegionOf(UUID restaurantId) {
+    if (!regions.forwards()) {
+      return null;
+    }
+    return restaurantCache.find(restaurantId).map(RestaurantEntity::getHomeRegion).orElse(null);
+  }
+
+  /**
+   * Forwards a write to an order to its home region, the home region of its restaurant, and returns
+   * the answer; or returns null when the write is handled here. An order this region has no copy
+   * of, typically one created elsewhere and not replicated here yet, is looked for in every other
+   * region.
+   */
+  private <T> ResponseEntity<T> forwardToHomeOfOrder(UUID orderId, Object body, Class<T> type) {
+    if (!regions.forwards()) {
+      return null;
+    }
+    Optional<OrderEntity> local = orderRepository.findOrder(orderId);
+    if (local.isEmpty()) {
+      return regions.forwardToAll(body, type);
+    }
+    String home = homeRegionOf(local.get().getRestaurantId());
+    return regions.isForeign(home) ? regions.forward(home, body, type) : null;
+  }
+
+  private OrderEntity persist(OrderEntity order) {
+    if (!ingestQueue.isEnabled()) {
+      return outbox.create(order);
+    }
+    try {
+      OrderEntity created =
+          ingestQueue
+              .submit(order)
+              .orTimeout(ingestQueue.getTimeout().toMillis(), TimeUnit.MILLISECONDS)
+              .join();
+      // Committed on the writer thread, out of sight of the transaction listener
+      consistencyTokens.issue();
+      return created;
+    } catch (RejectedExecutionException ex) {
+      throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many pending orders");
+    } catch (CompletionException ex) {
+      if (ex.getCause() instanceof TimeoutException) {
+        // The order may still be written; its Idempotency-Key stays held until the lease runs out,
+        // then a retry finds it by its reserved id
+        throw new OrderWriteTimeoutException();
+      }
+      if (ex.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw ex;
+    }
+  }
+
+  private String validationError(CreateOrderRequest req) {
+    if (req == null) {
+      return "Order is required";
+    }
+    return validator.validate(req).stream()
+        .map(v -> v.getPropertyPath().toString())
+        .min(Comparator.naturalOrder())
+        .map(field -> "Invalid " + field)
+        .orElse(null);
+  }
+
+  private static OrderEntity newOrder(
+      CreateOrderRequest body, UUID restaurantUuid, UUID customer, MenuSnapshot menu) {
+    OrderEntity e = new OrderEntity();
+    e.setRestaurantId(restaurantUuid);
+    e.setCustomerId(customer); // authenticated user
+    e.setCustomerName(body.getCustomerName());
+    e.setCustomerEmail(body.getCustomerEmail());
+    e.setSpecialInstructions(body.getSpecialInstructions());
+    e.setStatus(OrderStatus.pending);
+
+    // Map items
+    List<OrderItem> items = body.getItems().stream().map(i -> toItem(i, menu)).toList();
+
+    e.setItems(items);
+    e.setTotalAmount(computeTotal(items));
+    return e;
+  }
+
   private static void enforceVisibility(AuthContext auth, OrderEntity order) {
     boolean isAdmin = auth.hasRole("ROLE_ADMIN");
     boolean isOwner = auth.hasRole("ROLE_RESTAURANT_OWNER");
@@ -325,6 +830,72 @@ public class OrderController {
     }
   }
 
+  private static Instant parseInstantOr400(String raw, String fieldName) {
+    try {
+      return OffsetDateTime.parse(raw).toInstant();
+    } catch (DateTimeParseException ex) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid " + fieldName);
+    }
+  }
+
+  private static KeysetCursor parseCursorOr400(String raw) {
+    try {
+      return KeysetCursor.decode(raw);
+    } catch (IllegalArgumentException ex) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+    }
+  }
+
+  /** Builds an unsaved order from another region's version of it, for {@link #mergeOrder}. */
+  private static OrderEntity fromDto(UUID id, OrderDto body) {
+    if (body.getRestaurantId() == null
+        || body.getStatus() == null
+        || body.getItems() == null
+        || body.getTotalAmount() == null) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Incomplete order");
+    }
+    OrderEntity e = new OrderEntity();
+    e.setId(id);
+    e.setRestaurantId(parseUuidOr400(body.getRestaurantId(), "restaurantId"));
+    e.setCustomerId(
+        body.getCustomerId() != null ? parseUuidOr400(body.getCustomerId(), "customerId") : null);
+    e.setCustomerName(body.getCustomerName());
+    e.setCustomerEmail(body.getCustomerEmail());
+    e.setSpecialInstructions(body.getSpecialInstructions());
+    e.setStatus(parseStatusOr400(body.getStatus()));
+    e.setItems(
+        body.getItems().stream()
+            .map(
+                it -> {
+                  OrderItem item = new OrderItem();
+                  item.setItemId(it.getItemId());
+                  item.setName(it.getName());
+                  item.setQuantity(it.getQuantity());
+                  item.setUnitPrice(it.getUnitPrice());
+                  item.setSubtotal(it.getSubtotal());
+                  return item;
+                })
+            .toList());
+    e.setTotalAmount(body.getTotalAmount());
+    if (body.getCreatedAt() != null) {
+      e.setCreatedAt(body.getCreatedAt().toInstant());
+    }
+    e.setContentsHlc(parseStampOr400(body.getContentsHlc(), "contentsHlc"));
+    return e;
+  }
+
+  private static long parseStampOr400(String raw, String fieldName) {
+    try {
+      long stamp = Long.parseLong(raw);
+      if (stamp > 0) {
+        return stamp;
+      }
+    } catch (NumberFormatException ex) {
+      // fall through
+    }
+    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid " + fieldName);
+  }
+
   private static OrderStatus parseStatusOr400(String raw) {
     try {
       return OrderStatus.valueOf(raw);
@@ -333,20 +904,51 @@ public class OrderController {
     }
   }
 
-  private static OrderItemEmbeddable toEmbeddable(CreateOrderItemRequest req) {
-    OrderItemEmbeddable e = new OrderItemEmbeddable();
-    e.setItemId(req.getItemId());
+  /**
+   * Copies an ordered item's name and current price from the restaurant's menu snapshot, so later
+   * menu changes do not alter the order.
+   *
+   * <p>Restaurants without any menu items keep accepting free-form items, stored with the item id
+   * as name and a zero price.
+   */
+  private static OrderItem toItem(CreateOrderItemRequest req, MenuSnapshot menu) {
+    OrderItem e = new OrderItem();
     e.setQuantity(req.getQuantity());
 
-    // Spec has name/unitPrice/subtotal in OrderItem, but CreateOrder only supplies itemId+quantity.
-    // Until menu items exist, we store placeholders and totals as 0.
-    e.setName(req.getItemId());
-    e.setUnitPrice(BigDecimal.ZERO);
-    e.setSubtotal(BigDecimal.ZERO);
+    if (menu.isEmpty()) {
+      e.setItemId(req.getItemId());
+      e.setName(req.getItemId());
+      e.setUnitPrice(BigDecimal.ZERO);
+      return e;
+    }
+    MenuSnapshot.Item item =
+        menu.find(req.getItemId())
+            .orElseThrow(
+                () ->
+                    new ResponseStatusException(
+                        HttpStatus.BAD_REQUEST, "Unknown menu item " + req.getItemId()));
+    if (!item.isAvailable()) {
+      throw new ResponseStatusException(
+          HttpStatus.BAD_REQUEST, "Menu item " + req.getItemId() + " is not available");
+    }
+    e.setItemId(item.getId().toString());
+    e.setName(item.getName());
+    e.setUnitPrice(item.getPrice());
     return e;
   }
 
-  private static void computeSubtotalIfMissing(OrderItemEmbeddable item) {
+  /**
+   * Fills in missing unit prices and subtotals, then sums the subtotals.
+   *
+   * @param items the order items, updated in place
+   * @return the order total
+   */
+  static BigDecimal computeTotal(List<OrderItem> items) {
+    items.forEach(OrderController::computeSubtotalIfMissing);
+    return items.stream().map(OrderItem::getSubtotal).reduce(BigDecimal.ZERO, BigDecimal::add);
+  }
+
+  private static void computeSubtotalIfMissing(OrderItem item) {
     if (item.getUnitPrice() == null) item.setUnitPrice(BigDecimal.ZERO);
     if (item.getSubtotal() == null) {
       BigDecimal qty = BigDecimal.valueOf(item.getQuantity());
@@ -354,7 +956,13 @@ public class OrderController {
     }
   }
 
-  private static OrderDto toDto(OrderEntity e) {
+  /**
+   * Maps an order entity to its API representation.
+   *
+   * @param e the order entity
+   * @return the order DTO
+   */
+  static OrderDto toDto(OrderEntity e) {
     OrderDto dto = new OrderDto();
     dto.setId(e.getId().toString());
     dto.setRestaurantId(e.getRestaurantId().toString());
@@ -381,6 +989,8 @@ public class OrderController {
 
     dto.setCreatedAt(OffsetDateTime.ofInstant(e.getCreatedAt(), ZoneOffset.UTC));
     dto.setUpdatedAt(OffsetDateTime.ofInstant(e.getUpdatedAt(), ZoneOffset.UTC));
+    dto.setHlc(Long.toString(e.getHlc()));
+    dto.setContentsHlc(Long.toString(e.getContentsHlc()));
     return dto;
   }
 
@@ -395,11 +1005,15 @@ public class OrderController {
       throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Unauthorized");
     }
 
-    UUID uid =
-        userRepository
-            .findByUsername(username)
-            .map(com.sweng.backend.user.User::getUid)
-            .orElse(null);
+    // JWT-authenticated requests carry the UUID in the principal; others resolve it by username
+    UUID uid = AuthenticatedUser.uidOf(auth);
+    if (uid == null) {
+      uid =
+          userRepository
+              .findByUsername(username)
+              .map(com.sweng.backend.user.User::getUid)
+              .orElse(null);
+    }
 
     return new AuthContext(uid, auth);
   }
@@ -1,22 +1,50 @@
 package com.sweng.backend.order;
 
+import com.sweng.backend.config.HybridLogicalClock;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
 import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.PartitionKey;
 import org.hibernate.type.SqlTypes;
 
 /**
  * JPA entity representing a customer order.
  *
- * <p>Stores order header fields and embeds the list of ordered items via {@link
- * OrderItemEmbeddable}.
+ * <p>Stores order header fields and the list of ordered items ({@link OrderItem}) as a JSON
+ * document in the same row.
+ *
+ * <p>Orders are distributed by {@link #getShardKey() shard key} (see {@link OrderShards}), which
+ * Hibernate adds to the {@code WHERE} clause of every update and delete so that they run on the
+ * order's shard only.
+ *
+ * <p>Every write is stamped by {@link OrderStamps} with the node's {@link HybridLogicalClock},
+ * which also sets {@code updatedAt}. Versions of the same order written concurrently in different
+ * regions are reconciled with {@link #merge}.
+ *
+ * <p>The schema is owned by the Flyway migrations in {@code db/migration}; the indexes declared
+ * here mirror them for schemas generated from the mappings (the H2 test profile).
  */
 @Entity
-@Table(name = "orders")
+@Table(
+    name = "orders",
+    indexes = {
+      @Index(
+          name = "idx_orders_restaurant_status_created",
+          columnList = "restaurant_id, status, created_at DESC, id DESC"),
+      @Index(
+          name = "idx_orders_restaurant_created",
+          columnList = "restaurant_id, created_at DESC, id DESC"),
+      @Index(
+          name = "idx_orders_customer_created",
+          columnList = "customer_id, created_at DESC, id DESC"),
+      @Index(name = "idx_orders_created", columnList = "created_at DESC, id DESC")
+    })
+@EntityListeners(OrderStamps.class)
 public class OrderEntity {
 
   /** Default constructor for JPA. */
@@ -24,23 +52,24 @@ public class OrderEntity {
 
   /** Primary key for the order. */
   @Id
-  @JdbcTypeCode(SqlTypes.VARCHAR)
   @Column(nullable = false, updatable = false)
   private UUID id;
 
   /** Restaurant fulfilling this order. */
-  @JdbcTypeCode(SqlTypes.VARCHAR)
   @Column(nullable = false)
   private UUID restaurantId;
 
+  /** Distribution key derived from the restaurant; see {@link OrderShards}. */
+  @PartitionKey
+  @Column(nullable = false, updatable = false)
+  private int shardKey;
+
   /**
    * Authenticated customer who placed the order.
    *
    * <p>May be null for guest orders, per spec.
    */
-  @JdbcTypeCode(SqlTypes.VARCHAR)
-  @Column
-  private UUID customerId;
+  @Column private UUID customerId;
 
   /** Customer display name (optional). */
   @Column(length = 100)
@@ -67,24 +96,57 @@ public class OrderEntity {
   @Column(nullable = false, updatable = false)
   private Instant createdAt;
 
-  /** Last update timestamp. */
+  /** Last update timestamp, the physical part of {@link #hlc}. */
   @Column(nullable = false)
   private Instant updatedAt;
 
-  /** Items in this order. */
-  @ElementCollection(fetch = FetchType.EAGER)
-  @CollectionTable(name = "order_items", joinColumns = @JoinColumn(name = "order_id"))
-  private List<OrderItemEmbeddable> items = new ArrayList<>();
+  /** Hybrid logical clock timestamp of the last write to this order, in this region. */
+  @Column(nullable = false)
+  private long hlc;
+
+  /**
+   * Hybrid logical clock timestamp of the last change to the contents: customer name and email,
+   * special instructions, items and total.
+   *
+   * <p>Carried over as is when the contents are merged from another region, so every region holding
+   * the same contents has the same stamp for them.
+   */
+  @Column(nullable = false)
+  private long contentsHlc;
+
+  /** Whether the contents were changed through a setter since the order was last stamped. */
+  @Transient private boolean contentsChanged;
+
+  /**
+   * Optimistic lock version, incremented by every update.
+   *
+   * <p>Exposed to clients as the order's ETag so that updates can be made conditional with {@code
+   * If-Match}.
+   */
+  @Version
+  @Column(nullable = false)
+  private Long version;
+
+  /**
+   * Items in this order.
+   *
+   * <p>Serialized as a single JSON document on the order row ({@code jsonb} on PostgreSQL), so an
+   * order is read and written as one row and replacing the items never touches another table.
+   */
+  @JdbcTypeCode(SqlTypes.JSON)
+  @Column(nullable = false)
+  private List<OrderItem> items = new ArrayList<>();
 
-  /** Lifecycle callback triggered before first persist. Initializes ID and timestamps. */
+  /**
+   * Lifecycle callback triggered before first persist, after {@link OrderStamps}. Initializes ID
+   * and defaults.
+   */
   @PrePersist
   void onCreate() {
+    shardKey = OrderShards.ofRestaurant(restaurantId);
     if (id == null) {
-      id = UUID.randomUUID();
+      id = OrderShards.newOrderId(restaurantId);
     }
-    Instant now = Instant.now();
-    createdAt = now;
-    updatedAt = now;
     if (status == null) {
       status = OrderStatus.pending;
     }
@@ -96,10 +158,82 @@ public class OrderEntity {
     }
   }
 
-  /** Lifecycle callback triggered before update. Updates {@code updatedAt}. */
-  @PreUpdate
-  void onUpdate() {
-    updatedAt = Instant.now();
+  /**
+   * Stamps a write to this order.
+   *
+   * <p>The contents stamp moves too if the contents changed, or if they have none yet; contents
+   * merged from another region keep theirs. A new order is created at its first stamp unless it
+   * already has a creation time.
+   *
+   * @param timestamp the hybrid logical clock timestamp of the write
+   */
+  void stamp(long timestamp) {
+    hlc = timestamp;
+    if (contentsChanged || contentsHlc == 0) {
+      contentsHlc = timestamp;
+    }
+    contentsChanged = false;
+    updatedAt = HybridLogicalClock.toInstant(timestamp);
+    if (createdAt == null) {
+      createdAt = updatedAt;
+    }
+  }
+
+  /**
+   * Merges in the version of this order written by another region.
+   *
+   * <p>The result does not depend on the order in which versions are merged, or on how often, so
+   * regions that have merged the same versions hold the same order. The status is the later of the
+   * two along the lifecycle ({@link OrderStatus#laterOf}). The contents are taken as a whole from
+   * the version with the greater contents stamp, last writer wins; equal stamps from different
+   * regions are broken by comparing the contents themselves.
+   *
+   * @param other the other version
+   * @return true if this order changed
+   */
+  boolean merge(OrderEntity other) {
+    boolean changed = false;
+    OrderStatus merged = status.laterOf(other.status);
+    if (merged != status) {
+      status = merged;
+      changed = true;
+    }
+    int contents = Long.compare(contentsHlc, other.contentsHlc);
+    if (contents == 0) {
+      contents = contentsKey().compareTo(other.contentsKey());
+    }
+    if (contents < 0) {
+      customerName = other.customerName;
+      customerEmail = other.customerEmail;
+      specialInstructions = other.specialInstructions;
+      items = new ArrayList<>(other.items);
+      totalAmount = other.totalAmount;
+      contentsHlc = other.contentsHlc;
+      changed = true;
+    }
+    return changed;
+  }
+
+  /** Gets the contents as one string, to order versions whose contents stamps are equal. */
+  private String contentsKey() {
+    StringBuilder key =
+        new StringBuilder()
+            .append(customerName)
+            .append('\u0000')
+            .append(customerEmail)
+            .append('\u0000')
+            .append(specialInstructions)
+            .append('\u0000')
+            .append(totalAmount.toPlainString());
+    for (OrderItem item : items) {
+      key.append('\u0000')
+          .append(item.getItemId())
+          .append(':')
+          .append(item.getQuantity())
+          .append(':')
+          .append(item.getUnitPrice());
+    }
+    return key.toString();
   }
 
   /**
@@ -120,6 +254,15 @@ public class OrderEntity {
     this.id = id;
   }
 
+  /**
+   * Gets the shard key, derived from the restaurant when the order is first saved.
+   *
+   * @return the shard key
+   */
+  public int getShardKey() {
+    return shardKey;
+  }
+
   /**
    * Gets the restaurant ID.
    *
@@ -171,6 +314,7 @@ public class OrderEntity {
    * @param customerName the customer name to set
    */
   public void setCustomerName(String customerName) {
+    contentsChanged |= !Objects.equals(this.customerName, customerName);
     this.customerName = customerName;
   }
 
@@ -189,6 +333,7 @@ public class OrderEntity {
    * @param customerEmail the customer email to set
    */
   public void setCustomerEmail(String customerEmail) {
+    contentsChanged |= !Objects.equals(this.customerEmail, customerEmail);
     this.customerEmail = customerEmail;
   }
 
@@ -225,6 +370,7 @@ public class OrderEntity {
    * @param totalAmount the total amount to set
    */
   public void setTotalAmount(BigDecimal totalAmount) {
+    contentsChanged |= !Objects.equals(this.totalAmount, totalAmount);
     this.totalAmount = totalAmount;
   }
 
@@ -243,6 +389,7 @@ public class OrderEntity {
    * @param specialInstructions the special instructions to set
    */
   public void setSpecialInstructions(String specialInstructions) {
+    contentsChanged |= !Objects.equals(this.specialInstructions, specialInstructions);
     this.specialInstructions = specialInstructions;
   }
 
@@ -282,12 +429,60 @@ public class OrderEntity {
     this.updatedAt = updatedAt;
   }
 
+  /**
+   * Gets the hybrid logical clock timestamp of the last write.
+   *
+   * @return the timestamp, or zero if the order has not been persisted
+   */
+  public long getHlc() {
+    return hlc;
+  }
+
+  /**
+   * Gets the hybrid logical clock timestamp of the last change to the contents.
+   *
+   * @return the timestamp, or zero if the order has not been persisted
+   */
+  public long getContentsHlc() {
+    return contentsHlc;
+  }
+
+  /**
+   * Sets the hybrid logical clock timestamp of the last change to the contents, for a version of
+   * the order received from another region. The contents as they are now keep this stamp when the
+   * order is written.
+   *
+   * @param contentsHlc the timestamp
+   */
+  public void setContentsHlc(long contentsHlc) {
+    this.contentsHlc = contentsHlc;
+    contentsChanged = false;
+  }
+
+  /**
+   * Gets the optimistic lock version.
+   *
+   * @return the version, or null if the order has not been persisted
+   */
+  public Long getVersion() {
+    return version;
+  }
+
+  /**
+   * Sets the optimistic lock version.
+   *
+   * @param version the version to set
+   */
+  public void setVersion(Long version) {
+    this.version = version;
+  }
+
   /**
    * Gets the list of order items.
    *
    * @return the list of items
    */
-  public List<OrderItemEmbeddable> getItems() {
+  public List<OrderItem> getItems() {
     return items;
   }
 
@@ -296,7 +491,8 @@ public class OrderEntity {
    *
    * @param items the list of items to set
    */
-  public void setItems(List<OrderItemEmbeddable> items) {
+  public void setItems(List<OrderItem> items) {
+    contentsChanged |= !Objects.equals(this.items, items);
     this.items = items;
   }
 }
@@ -0,0 +1,164 @@
+package com.sweng.backend.order;
+
+import com.sweng.backend.order.dto.OrderEventDto;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+/**
+ * A change to an order as pushed to event stream subscribers.
+ *
+ * <p>Carries only what a subscriber needs to decide whether to refetch the order, so that it fits a
+ * PostgreSQL notification payload. Event ids are the UUIDv7 ids of the outbox rows, so they also
+ * order events in time.
+ */
+final class OrderEvent {
+
+  /** Kind of change. */
+  enum Type {
+    /** The order was placed. */
+    created,
+    /** The order's status or contents changed. */
+    updated,
+    /** The order was deleted. */
+    deleted
+  }
+
+  private final String id;
+  private final Type type;
+  private final UUID orderId;
+  private final UUID restaurantId;
+  private final UUID customerId;
+  private final OrderStatus status;
+  private final Long version;
+  private final Instant at;
+
+  private OrderEvent(
+      String id,
+      Type type,
+      UUID orderId,
+      UUID restaurantId,
+      UUID customerId,
+      OrderStatus status,
+      Long version,
+      Instant at) {
+    this.id = id;
+    this.type = type;
+    this.orderId = orderId;
+    this.restaurantId = restaurantId;
+    this.customerId = customerId;
+    this.status = status;
+    this.version = version;
+    this.at = at;
+  }
+
+  /**
+   * Builds the event recorded by an outbox row.
+   *
+   * @param row the outbox row
+   * @return the event, with the row's id
+   */
+  static OrderEvent of(OrderOutboxEntity row) {
+    return new OrderEvent(
+        row.getId().toString(),
+        row.getType(),
+        row.getOrderId(),
+        row.getRestaurantId(),
+        row.getCustomerId(),
+        row.getStatus(),
+        row.getVersion(),
+        row.getCreatedAt());
+  }
+
+  /**
+   * Maps the event to its API representation.
+   *
+   * @return the event DTO
+   */
+  OrderEventDto toDto() {
+    OrderEventDto dto = new OrderEventDto();
+    dto.setId(id);
+    dto.setType(type.name());
+    dto.setOrderId(orderId.toString());
+    dto.setRestaurantId(restaurantId.toString());
+    dto.setCustomerId(customerId != null ? customerId.toString() : null);
+    dto.setStatus(status.name());
+    dto.setVersion(version);
+    dto.setOccurredAt(OffsetDateTime.ofInstant(at, ZoneOffset.UTC));
+    return dto;
+  }
+
+  /**
+   * Encodes the event as a notification payload.
+   *
+   * @return the fields separated by {@code |}
+   */
+  String encode() {
+    return String.join(
+        "|",
+        id,
+        type.name(),
+        orderId.toString(),
+        restaurantId.toString(),
+        customerId != null ? customerId.toString() : "",
+        status.name(),
+        version != null ? version.toString() : "",
+        Long.toString(at.toEpochMilli()));
+  }
+
+  /**
+   * Decodes a notification payload produced by {@link #encode}.
+   *
+   * @param payload the payload
+   * @return the event
+   * @throws IllegalArgumentException if the payload is malformed
+   */
+  static OrderEvent decode(String payload) {
+    String[] f = payload.split("\\|", -1);
+    if (f.length != 8) {
+      throw new IllegalArgumentException("Malformed order event: " + payload);
+    }
+    return new OrderEvent(
+        f[0],
+        Type.valueOf(f[1]),
+        UUID.fromString(f[2]),
+        UUID.fromString(f[3]),
+        f[4].isEmpty() ? null : UUID.fromString(f[4]),
+        OrderStatus.valueOf(f[5]),
+        f[6].isEmpty() ? null : Long.valueOf(f[6]),
+        Instant.ofEpochMilli(Long.parseLong(f[7])));
+  }
+
+  String getId() {
+    return id;
+  }
+
+  Type getType() {
+    return type;
+  }
+
+  UUID getOrderId() {
+    return orderId;
+  }
+
+  UUID getRestaurantId() {
+    return restaurantId;
+  }
+
+  UUID getCustomerId() {
+    return customerId;
+  }
+
+  OrderStatus getStatus() {
+    return status;
+  }
+
+  Long getVersion() {
+    return version;
+  }
+
+  Instant getAt() {
+    return at;
+  }
+}
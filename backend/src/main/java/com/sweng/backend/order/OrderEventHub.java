@@ -0,0 +1,315 @@
+package com.sweng.backend.order;
+
+import com.sweng.backend.config.PgNotifications;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Fans order changes out to Server-Sent Events subscribers.
+ *
+ * <p>{@link OrderOutboxRelay} publishes each committed change once, on the {@value #CHANNEL}
+ * channel through {@link PgNotifications}, so every node delivers every change to its own
+ * subscribers; on other databases (the H2 test profile) they are delivered locally only. Each
+ * subscriber has a bounded queue drained by its own virtual thread, so a slow client never blocks
+ * the publisher or other subscribers: when its queue is full the subscriber is evicted and its
+ * stream completed, and the client is expected to reconnect. One scheduler thread queues a comment
+ * heartbeat for every subscriber so that idle streams survive proxies and dead clients are noticed.
+ *
+ * <p>The last {@code replay-size} events are kept so that a client reconnecting with {@code
+ * Last-Event-ID} receives what it missed. If that id is no longer buffered, or this node may have
+ * missed notifications, the client gets a {@code resync} event and should reload the orders it
+ * shows.
+ *
+ * <p>Publishes {@code order.events.subscribers} and {@code order.events.evicted}.
+ */
+@Component
+public class OrderEventHub {
+
+  /** Notification channel carrying encoded {@link OrderEvent}s. */
+  static final String CHANNEL = "order_events";
+
+  private static final Logger log = LoggerFactory.getLogger(OrderEventHub.class);
+  private static final Object HEARTBEAT = new Object();
+  private static final Object RESYNC = new Object();
+  private static final Object CLOSE = new Object();
+
+  /** PostgreSQL limits notification payloads to 8000 bytes; encoded events are ASCII. */
+  private static final int MAX_PAYLOAD = 7900;
+
+  private final PgNotifications notifications;
+  private final int replaySize;
+  private final int queueCapacity;
+  private final long timeoutMillis;
+  private final Counter evicted;
+  private final ScheduledExecutorService heartbeats;
+
+  /** Guards the replay buffer and subscriber registration so that no event is missed or doubled. */
+  private final Object lock = new Object();
+
+  private final Deque<OrderEvent> replay = new ArrayDeque<>();
+  private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Constructs the hub.
+   *
+   * @param notifications the notification bus shared between nodes
+   * @param registry the registry for stream metrics
+   * @param replaySize number of recent events kept for clients resuming with Last-Event-ID
+   * @param queueCapacity events a subscriber may fall behind by before it is evicted
+   * @param heartbeat interval between heartbeat comments
+   * @param timeout how long a stream stays open before the client has to reconnect
+   */
+  public OrderEventHub(
+      PgNotifications notifications,
+      MeterRegistry registry,
+      @Value("${order.events.replay-size:1000}") int replaySize,
+      @Value("${order.events.queue-capacity:256}") int queueCapacity,
+      @Value("${order.events.heartbeat:15s}") Duration heartbeat,
+      @Value("${order.events.timeout:30m}") Duration timeout) {
+    this.notifications = notifications;
+    this.replaySize = replaySize;
+    this.queueCapacity = queueCapacity;
+    this.timeoutMillis = timeout.toMillis();
+    this.evicted =
+        Counter.builder("order.events.evicted")
+            .description("Event stream subscribers dropped for falling behind")
+            .register(registry);
+    Gauge.builder("order.events.subscribers", subscribers, Set::size)
+        .description("Open order event streams")
+        .register(registry);
+
+    this.heartbeats =
+        Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("order-events-heartbeat").daemon().factory());
+    long period = heartbeat.toMillis();
+    heartbeats.scheduleAtFixedRate(this::heartbeat, period, period, TimeUnit.MILLISECONDS);
+
+    notifications.listen(CHANNEL, this::onNotification, this::resync);
+  }
+
+  /**
+   * Publishes events to every subscriber interested in them, on every node.
+   *
+   * <p>Events are packed several to a notification, one per line, to keep the number of
+   * notifications down when the outbox relay publishes a large batch.
+   *
+   * @param events the events, oldest first
+   */
+  void publish(List<OrderEvent> events) {
+    StringBuilder payload = new StringBuilder();
+    for (OrderEvent e : events) {
+      String encoded = e.encode();
+      if (!payload.isEmpty() && payload.length() + 1 + encoded.length() > MAX_PAYLOAD) {
+        send(payload.toString());
+        payload.setLength(0);
+      }
+      if (!payload.isEmpty()) {
+        payload.append('\n');
+      }
+      payload.append(encoded);
+    }
+    if (!payload.isEmpty()) {
+      send(payload.toString());
+    }
+  }
+
+  private void send(String payload) {
+    if (!notifications.publish(CHANNEL, payload)) {
+      onNotification(payload);
+    }
+  }
+
+  /**
+   * Opens a stream of the changes to a restaurant's orders.
+   *
+   * @param restaurantId the restaurant
+   * @param lastEventId the Last-Event-ID sent by a reconnecting client, or null
+   * @return the emitter to return from the controller
+   */
+  public SseEmitter subscribeRestaurant(UUID restaurantId, String lastEventId) {
+    return subscribe(
+        new SseEmitter(timeoutMillis), e -> restaurantId.equals(e.getRestaurantId()), lastEventId);
+  }
+
+  /**
+   * Opens a stream of the changes to one order.
+   *
+   * @param orderId the order
+   * @param lastEventId the Last-Event-ID sent by a reconnecting client, or null
+   * @return the emitter to return from the controller
+   */
+  public SseEmitter subscribeOrder(UUID orderId, String lastEventId) {
+    return subscribe(
+        new SseEmitter(timeoutMillis), e -> orderId.equals(e.getOrderId()), lastEventId);
+  }
+
+  /**
+   * Registers a subscriber on the given emitter and starts its writer.
+   *
+   * @param emitter the emitter events are sent to
+   * @param filter selects the events the subscriber receives
+   * @param lastEventId the last event the client received, or null
+   * @return the emitter
+   */
+  SseEmitter subscribe(SseEmitter emitter, Predicate<OrderEvent> filter, String lastEventId) {
+    Subscriber s = new Subscriber(emitter, filter);
+    synchronized (lock) {
+      if (lastEventId != null && !lastEventId.isBlank()) {
+        s.backlog.addAll(missedSince(lastEventId.trim(), filter));
+      }
+      subscribers.add(s);
+    }
+    emitter.onCompletion(() -> close(s));
+    emitter.onTimeout(() -> close(s));
+    emitter.onError(ex -> close(s));
+    Thread.ofVirtual().name("order-events-subscriber").start(s::run);
+    return emitter;
+  }
+
+  /** Completes every open stream. */
+  @PreDestroy
+  public void stop() {
+    heartbeats.shutdownNow();
+    subscribers.forEach(this::close);
+  }
+
+  /** Returns the buffered events after the given one, or a resync marker if it is not buffered. */
+  private List<Object> missedSince(String lastEventId, Predicate<OrderEvent> filter) {
+    List<Object> missed = new ArrayList<>();
+    Iterator<OrderEvent> it = replay.descendingIterator();
+    while (it.hasNext()) {
+      OrderEvent e = it.next();
+      if (e.getId().equals(lastEventId)) {
+        return missed.reversed();
+      }
+      if (filter.test(e)) {
+        missed.add(e);
+      }
+    }
+    return List.of(RESYNC);
+  }
+
+  private void onNotification(String payload) {
+    payload.lines().map(OrderEvent::decode).forEach(this::dispatch);
+  }
+
+  private void dispatch(OrderEvent event) {
+    synchronized (lock) {
+      replay.addLast(event);
+      if (replay.size() > replaySize) {
+        replay.removeFirst();
+      }
+      for (Subscriber s : subscribers) {
+        if (s.filter.test(event)) {
+          offer(s, event);
+        }
+      }
+    }
+  }
+
+  /**
+   * Called when notifications may have been missed: nothing buffered can be trusted to be whole.
+   */
+  private void resync() {
+    synchronized (lock) {
+      replay.clear();
+      subscribers.forEach(s -> offer(s, RESYNC));
+    }
+  }
+
+  private void heartbeat() {
+    subscribers.forEach(s -> offer(s, HEARTBEAT));
+  }
+
+  private void offer(Subscriber s, Object item) {
+    if (!s.queue.offer(item)) {
+      evicted.increment();
+      close(s);
+    }
+  }
+
+  private void close(Subscriber s) {
+    if (subscribers.remove(s)) {
+      s.queue.clear();
+      s.queue.offer(CLOSE);
+    }
+  }
+
+  private static SseEmitter.SseEventBuilder toSse(Object item) {
+    if (item == HEARTBEAT) {
+      return SseEmitter.event().comment("heartbeat");
+    }
+    if (item == RESYNC) {
+      return SseEmitter.event().name("resync").data(Map.of(), MediaType.APPLICATION_JSON);
+    }
+    OrderEvent e = (OrderEvent) item;
+    return SseEmitter.event()
+        .id(e.getId())
+        .name(e.getType().name())
+        .data(e.toDto(), MediaType.APPLICATION_JSON);
+  }
+
+  /** One open stream. Only its writer thread touches the emitter. */
+  private final class Subscriber {
+    private final SseEmitter emitter;
+    private final Predicate<OrderEvent> filter;
+    private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(queueCapacity);
+    private final List<Object> backlog = new ArrayList<>();
+
+    private Subscriber(SseEmitter emitter, Predicate<OrderEvent> filter) {
+      this.emitter = emitter;
+      this.filter = filter;
+    }
+
+    private void run() {
+      try {
+        // Flush the response headers right away, then anything missed since Last-Event-ID
+        emitter.send(SseEmitter.event().comment("connected"));
+        for (Object item : backlog) {
+          emitter.send(toSse(item));
+        }
+        backlog.clear();
+        while (true) {
+          Object item = queue.take();
+          if (item == CLOSE) {
+            break;
+          }
+          emitter.send(toSse(item));
+        }
+        emitter.complete();
+      } catch (IOException | IllegalStateException ex) {
+        // The client went away or the stream already completed
+        log.debug("Order event stream closed: {}", ex.getMessage());
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      } finally {
+        close(this);
+      }
+    }
+  }
+}
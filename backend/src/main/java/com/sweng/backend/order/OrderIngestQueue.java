@@ -0,0 +1,252 @@
+package com.sweng.backend.order;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Group-commit pipeline for order creation, enabled with {@code order.ingest.enabled}.
+ *
+ * <p>Request threads hand validated orders to a bounded queue and wait on the returned future. A
+ * single writer thread takes up to {@code max-batch} queued orders, waiting at most {@code linger}
+ * for a batch to fill, and inserts them in one transaction, so a burst of requests costs one commit
+ * instead of one each. If the batch fails, its orders are retried one by one so that a single bad
+ * order only fails its own request. When the queue is full {@link #submit} rejects the order
+ * immediately rather than letting waits grow without bound, and callers wait at most {@code
+ * timeout} for their batch to commit.
+ *
+ * <p>Publishes {@code order.ingest.batch.size}, {@code order.ingest.flush} (commit latency), {@code
+ * order.ingest.wait} (enqueue to commit), {@code order.ingest.queue.depth} and {@code
+ * order.ingest.rejected}.
+ */
+@Component
+public class OrderIngestQueue {
+
+  private static final Logger log = LoggerFactory.getLogger(OrderIngestQueue.class);
+  private static final long POLL_MILLIS = 100;
+
+  private final OrderOutbox outbox;
+  private final boolean enabled;
+  private final int maxBatch;
+  private final long lingerNanos;
+  private final Duration timeout;
+  private final BlockingQueue<Pending> queue;
+  private final DistributionSummary batchSize;
+  private final Timer flushTime;
+  private final Timer waitTime;
+  private final Counter rejected;
+
+  private volatile boolean running;
+  private volatile boolean stopped;
+  private Thread writer;
+
+  /**
+   * Constructs the queue.
+   *
+   * @param outbox writes each batch of orders together with their events
+   * @param registry the registry for ingestion metrics
+   * @param enabled whether order creation goes through the queue
+   * @param capacity maximum number of orders waiting to be written
+   * @param maxBatch maximum number of orders written in one transaction
+   * @param linger how long the writer waits for more orders before committing a partial batch
+   * @param timeout how long a caller waits for its order to be written
+   */
+  public OrderIngestQueue(
+      OrderOutbox outbox,
+      MeterRegistry registry,
+      @Value("${order.ingest.enabled:false}") boolean enabled,
+      @Value("${order.ingest.capacity:10000}") int capacity,
+      @Value("${order.ingest.max-batch:200}") int maxBatch,
+      @Value("${order.ingest.linger:5ms}") Duration linger,
+      @Value("${order.ingest.timeout:10s}") Duration timeout) {
+    this.outbox = outbox;
+    this.enabled = enabled;
+    this.maxBatch = maxBatch;
+    this.lingerNanos = linger.toNanos();
+    this.timeout = timeout;
+    this.queue = new ArrayBlockingQueue<>(capacity);
+    this.batchSize =
+        DistributionSummary.builder("order.ingest.batch.size")
+            .description("Orders committed per group commit")
+            .register(registry);
+    this.flushTime =
+        Timer.builder("order.ingest.flush")
+            .description("Time to insert and commit one batch of orders")
+            .register(registry);
+    this.waitTime =
+        Timer.builder("order.ingest.wait")
+            .description("Time from enqueueing an order until its batch committed")
+            .register(registry);
+    this.rejected =
+        Counter.builder("order.ingest.rejected")
+            .description("Orders rejected because the ingestion queue was full")
+            .register(registry);
+    Gauge.builder("order.ingest.queue.depth", queue, BlockingQueue::size)
+        .description("Orders waiting to be written")
+        .register(registry);
+  }
+
+  /**
+   * Checks whether order creation should go through the queue.
+   *
+   * @return true if group commit is enabled
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Gets how long a caller should wait for a submitted order.
+   *
+   * @return the wait timeout
+   */
+  public Duration getTimeout() {
+    return timeout;
+  }
+
+  /**
+   * Queues an order for the next group commit.
+   *
+   * @param order a new, validated order
+   * @return a future completed with the saved order once its batch commits, or exceptionally if it
+   *     could not be saved
+   * @throws RejectedExecutionException if the queue is full or shutting down
+   */
+  public CompletableFuture<OrderEntity> submit(OrderEntity order) {
+    if (stopped) {
+      throw new RejectedExecutionException("Order ingestion is shutting down");
+    }
+    Pending p = new Pending(order, System.nanoTime());
+    if (!queue.offer(p)) {
+      rejected.increment();
+      throw new RejectedExecutionException("Order ingestion queue is full");
+    }
+    return p.result;
+  }
+
+  /** Starts the writer once the application is ready. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    if (!enabled || running) {
+      return;
+    }
+    running = true;
+    writer = Thread.ofPlatform().name("order-ingest-writer").daemon().start(this::drain);
+  }
+
+  /**
+   * Stops accepting orders and waits for the queued ones to be written. Orders still queued once
+   * the writer has exited, such as ones that raced past the check in {@link #submit}, are failed.
+   *
+   * @throws InterruptedException if interrupted while waiting for the writer to exit
+   */
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    stopped = true;
+    running = false;
+    if (writer != null) {
+      writer.join(Duration.ofSeconds(30));
+    }
+    failQueued();
+  }
+
+  private void drain() {
+    List<Pending> batch = new ArrayList<>(maxBatch);
+    while (running || !queue.isEmpty()) {
+      try {
+        Pending first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + lingerNanos;
+        while (batch.size() < maxBatch) {
+          queue.drainTo(batch, maxBatch - batch.size());
+          long remaining = deadline - System.nanoTime();
+          if (batch.size() >= maxBatch || remaining <= 0) {
+            break;
+          }
+          Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+          if (next == null) {
+            break;
+          }
+          batch.add(next);
+        }
+        flush(batch);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        break;
+      } catch (RuntimeException ex) {
+        // Never let the writer die with callers still waiting on it
+        log.error("Order ingestion writer failed", ex);
+        batch.forEach(p -> p.result.completeExceptionally(ex));
+      } finally {
+        batch.clear();
+      }
+    }
+    // Only reached early if interrupted; fail whatever is left rather than leave callers hanging
+    failQueued();
+  }
+
+  private void failQueued() {
+    Pending p;
+    while ((p = queue.poll()) != null) {
+      p.result.completeExceptionally(new RejectedExecutionException("Order ingestion stopped"));
+    }
+  }
+
+  private void flush(List<Pending> batch) {
+    long start = System.nanoTime();
+    try {
+      List<OrderEntity> saved = outbox.createAll(batch.stream().map(p -> p.order).toList());
+      for (int i = 0; i < batch.size(); i++) {
+        batch.get(i).result.complete(saved.get(i));
+      }
+    } catch (RuntimeException ex) {
+      log.warn("Group commit of {} orders failed, retrying individually", batch.size(), ex);
+      for (Pending p : batch) {
+        try {
+          // The failed persist already seeded the version; clear it so save() inserts again
+          p.order.setVersion(null);
+          p.result.complete(outbox.create(p.order));
+        } catch (RuntimeException e) {
+          p.result.completeExceptionally(e);
+        }
+      }
+    }
+    long end = System.nanoTime();
+    flushTime.record(end - start, TimeUnit.NANOSECONDS);
+    batchSize.record(batch.size());
+    for (Pending p : batch) {
+      waitTime.record(end - p.enqueuedAtNanos, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private static final class Pending {
+    private final OrderEntity order;
+    private final long enqueuedAtNanos;
+    private final CompletableFuture<OrderEntity> result = new CompletableFuture<>();
+
+    private Pending(OrderEntity order, long enqueuedAtNanos) {
+      this.order = order;
+      this.enqueuedAtNanos = enqueuedAtNanos;
+    }
+  }
+}
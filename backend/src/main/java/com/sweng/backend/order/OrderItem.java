@@ -1,38 +1,33 @@
 package com.sweng.backend.order;
 
-import jakarta.persistence.Column;
-import jakarta.persistence.Embeddable;
 import java.math.BigDecimal;
+import java.util.Objects;
 
 /**
- * Embeddable representation of a single item within an order.
+ * Value representation of a single item within an order.
  *
- * <p>Stored in the {@code order_items} collection table.
+ * <p>Stored as one element of the JSON {@code items} document on the {@code orders} row. Items
+ * compare by value: Hibernate dirty-checks the document against a deep copy, so without value
+ * equality every flushed order would be rewritten with an UPDATE.
  */
-@Embeddable
-public class OrderItemEmbeddable {
+public class OrderItem {
 
-  /** Default constructor for JPA. */
-  public OrderItemEmbeddable() {}
+  /** Default constructor for JSON deserialization. */
+  public OrderItem() {}
 
   /** Identifier of the menu item. */
-  @Column(nullable = false)
   private String itemId;
 
   /** Display name of the item. */
-  @Column(nullable = false, length = 200)
   private String name;
 
   /** Quantity ordered (minimum 1). */
-  @Column(nullable = false)
   private int quantity;
 
   /** Price per unit. */
-  @Column(nullable = false, precision = 12, scale = 2)
   private BigDecimal unitPrice;
 
   /** Subtotal for this item (quantity × unitPrice). */
-  @Column(nullable = false, precision = 12, scale = 2)
   private BigDecimal subtotal;
 
   /**
@@ -124,4 +119,20 @@ public class OrderItemEmbeddable {
   public void setSubtotal(BigDecimal subtotal) {
     this.subtotal = subtotal;
   }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (!(o instanceof OrderItem other)) return false;
+    return quantity == other.quantity
+        && Objects.equals(itemId, other.itemId)
+        && Objects.equals(name, other.name)
+        && Objects.equals(unitPrice, other.unitPrice)
+        && Objects.equals(subtotal, other.subtotal);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(itemId, name, quantity, unitPrice, subtotal);
+  }
 }
@@ -0,0 +1,206 @@
+package com.sweng.backend.order;
+
+import com.sweng.backend.config.HybridLogicalClock;
+import jakarta.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Writes orders together with their events and rollups.
+ *
+ * <p>Every method changes orders, inserts one {@code order_outbox} row per changed order and
+ * adjusts {@link OrderRollups} in the same transaction, so an event exists and is counted exactly
+ * when its change committed. {@link OrderOutboxRelay} delivers the events and is woken as soon as
+ * the transaction commits. Orders are flushed before their events are recorded so that events carry
+ * the version being committed.
+ *
+ * <p>Writes are stamped with the node's {@link HybridLogicalClock}, through {@link OrderStamps} or
+ * here for bulk updates. Versions of an order written in other regions are reconciled with {@link
+ * #merge}.
+ */
+@Component
+public class OrderOutbox {
+
+  private final OrderRepository orders;
+  private final EntityManager entityManager;
+  private final OrderOutboxRelay relay;
+  private final OrderRollups rollups;
+  private final HybridLogicalClock clock;
+
+  /**
+   * Constructs the outbox.
+   *
+   * @param orders the order repository
+   * @param entityManager the shared entity manager outbox rows are persisted with
+   * @param relay the relay to wake after each commit
+   * @param rollups the per-restaurant rollups to keep up to date
+   * @param clock the clock bulk updates are stamped with
+   */
+  public OrderOutbox(
+      OrderRepository orders,
+      EntityManager entityManager,
+      OrderOutboxRelay relay,
+      OrderRollups rollups,
+      HybridLogicalClock clock) {
+    this.orders = orders;
+    this.entityManager = entityManager;
+    this.relay = relay;
+    this.rollups = rollups;
+    this.clock = clock;
+  }
+
+  /**
+   * Inserts a new order.
+   *
+   * @param order the order
+   * @return the saved order
+   */
+  @Transactional
+  public OrderEntity create(OrderEntity order) {
+    OrderEntity saved = orders.saveAndFlush(order);
+    append(OrderEvent.Type.created, saved);
+    rollups.created(List.of(saved));
+    return saved;
+  }
+
+  /**
+   * Inserts new orders in one batch.
+   *
+   * @param batch the orders
+   * @return the saved orders, in the same order
+   */
+  @Transactional
+  public List<OrderEntity> createAll(List<OrderEntity> batch) {
+    List<OrderEntity> saved = orders.saveAll(batch);
+    orders.flush();
+    saved.forEach(o -> append(OrderEvent.Type.created, o));
+    rollups.created(saved);
+    return saved;
+  }
+
+  /**
+   * Writes changes to an existing order, checking its version.
+   *
+   * @param order the changed order
+   * @param versionRead the version the order had when it was read
+   * @param statusRead the status the order had when it was read
+   * @param totalRead the total amount the order had when it was read
+   * @return the saved order; an order with no actual change is not written and keeps its version
+   */
+  @Transactional
+  public OrderEntity update(
+      OrderEntity order, Long versionRead, OrderStatus statusRead, BigDecimal totalRead) {
+    OrderEntity saved = orders.saveAndFlush(order);
+    if (!saved.getVersion().equals(versionRead)) {
+      append(OrderEvent.Type.updated, saved);
+      rollups.changed(saved, statusRead, totalRead);
+    }
+    return saved;
+  }
+
+  /**
+   * Moves an order to a new status with {@link OrderRepository#transitionStatus}.
+   *
+   * <p>The rollups need the status the order left, which the conditional update does not return.
+   * When the order may be in several statuses they are tried one at a time, so the status that
+   * matched is known; each try is the same single-row update.
+   *
+   * @param shardKey the order's shard key
+   * @param id the order id
+   * @param from statuses the order may currently be in
+   * @param next the new status
+   * @param version the version the order must have, or null to accept any
+   * @param customerId the customer the order must belong to, or null to accept any
+   * @return the updated order, or empty if no row matched
+   */
+  @Transactional
+  public Optional<OrderEntity> transitionStatus(
+      int shardKey,
+      UUID id,
+      Collection<OrderStatus> from,
+      OrderStatus next,
+      Long version,
+      UUID customerId) {
+    long hlc = clock.now();
+    for (OrderStatus previous : from) {
+      if (orders.transitionStatus(
+              shardKey,
+              id,
+              List.of(previous),
+              next,
+              version,
+              customerId,
+              hlc,
+              HybridLogicalClock.toInstant(hlc))
+          == 0) {
+        continue;
+      }
+      Optional<OrderEntity> updated = orders.findByShardKeyAndId(shardKey, id);
+      updated.ifPresent(
+          o -> {
+            append(OrderEvent.Type.updated, o);
+            rollups.changed(o, previous, o.getTotalAmount());
+          });
+      return updated;
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Merges in the version of an order written by another region, inserting it if it is not here.
+   *
+   * <p>The other region's clock is observed first, so the merge is stamped after the write it
+   * merges. How versions are reconciled is described at {@link OrderEntity#merge}; a version that
+   * changes nothing here is not written.
+   *
+   * @param remote the other region's version, with its contents stamp
+   * @param remoteHlc the other region's timestamp of its last write to the order
+   * @return the order as it is here after the merge
+   */
+  @Transactional
+  public OrderEntity merge(OrderEntity remote, long remoteHlc) {
+    clock.update(remoteHlc);
+    Optional<OrderEntity> found = orders.findOrder(remote.getId());
+    if (found.isEmpty()) {
+      return create(remote);
+    }
+    OrderEntity local = found.get();
+    Long versionRead = local.getVersion();
+    OrderStatus statusRead = local.getStatus();
+    BigDecimal totalRead = local.getTotalAmount();
+    if (!local.merge(remote)) {
+      return local;
+    }
+    return update(local, versionRead, statusRead, totalRead);
+  }
+
+  /**
+   * Deletes an order.
+   *
+   * @param order the order as last read
+   */
+  @Transactional
+  public void delete(OrderEntity order) {
+    orders.deleteOrder(order.getShardKey(), order.getId());
+    append(OrderEvent.Type.deleted, order);
+    rollups.deleted(order);
+  }
+
+  private void append(OrderEvent.Type type, OrderEntity order) {
+    entityManager.persist(OrderOutboxEntity.of(type, order));
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            relay.wake();
+          }
+        });
+  }
+}
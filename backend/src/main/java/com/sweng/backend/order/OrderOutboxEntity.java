@@ -0,0 +1,129 @@
+package com.sweng.backend.order;
+
+import com.sweng.backend.config.UuidV7;
+import jakarta.persistence.*;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * An order event waiting in the outbox, written in the same transaction as the order change.
+ *
+ * <p>The schema is owned by the Flyway migrations in {@code db/migration}; its partial indexes
+ * cannot be declared here, so schemas generated from the mappings (the H2 test profile) scan the
+ * table instead.
+ */
+@Entity
+@Table(name = "order_outbox")
+class OrderOutboxEntity {
+
+  /** Event id; UUIDv7, so ordering by id is ordering by time of writing. */
+  @Id
+  @Column(nullable = false, updatable = false)
+  private UUID id;
+
+  /** Kind of change. */
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, updatable = false, length = 16)
+  private OrderEvent.Type type;
+
+  /** Order that changed. */
+  @Column(nullable = false, updatable = false)
+  private UUID orderId;
+
+  /** Restaurant of the order. */
+  @Column(nullable = false, updatable = false)
+  private UUID restaurantId;
+
+  /** Customer of the order, if any. */
+  @Column(updatable = false)
+  private UUID customerId;
+
+  /** Order status after the change. */
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, updatable = false, length = 20)
+  private OrderStatus status;
+
+  /** Order version after the change. */
+  @Column(updatable = false)
+  private Long version;
+
+  /** When the change was written. */
+  @Column(nullable = false, updatable = false)
+  private Instant createdAt;
+
+  /** When the event was handed to the event streams, or null. */
+  @Column private Instant publishedAt;
+
+  /** When the event was delivered to the webhook, or null. */
+  @Column private Instant forwardedAt;
+
+  /** Until when a relay delivering the event to the webhook holds it, or null. */
+  @Column private Instant forwardLeaseUntil;
+
+  /** Default constructor for JPA. */
+  OrderOutboxEntity() {}
+
+  /**
+   * Describes a change to an order as it is now.
+   *
+   * @param type the kind of change
+   * @param order the order after the change (or before it, for a deletion)
+   * @return a new outbox row
+   */
+  static OrderOutboxEntity of(OrderEvent.Type type, OrderEntity order) {
+    OrderOutboxEntity e = new OrderOutboxEntity();
+    e.id = UuidV7.generate();
+    e.type = type;
+    e.orderId = order.getId();
+    e.restaurantId = order.getRestaurantId();
+    e.customerId = order.getCustomerId();
+    e.status = order.getStatus();
+    e.version = order.getVersion();
+    e.createdAt = Instant.now();
+    return e;
+  }
+
+  UUID getId() {
+    return id;
+  }
+
+  OrderEvent.Type getType() {
+    return type;
+  }
+
+  UUID getOrderId() {
+    return orderId;
+  }
+
+  UUID getRestaurantId() {
+    return restaurantId;
+  }
+
+  UUID getCustomerId() {
+    return customerId;
+  }
+
+  OrderStatus getStatus() {
+    return status;
+  }
+
+  Long getVersion() {
+    return version;
+  }
+
+  Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  Instant getPublishedAt() {
+    return publishedAt;
+  }
+
+  Instant getForwardedAt() {
+    return forwardedAt;
+  }
+
+  Instant getForwardLeaseUntil() {
+    return forwardLeaseUntil;
+  }
+}
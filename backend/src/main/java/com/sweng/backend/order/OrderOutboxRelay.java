@@ -0,0 +1,277 @@
+package com.sweng.backend.order;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Delivers the events written by {@link OrderOutbox}.
+ *
+ * <p>One thread per node claims batches of undelivered events with {@code FOR UPDATE SKIP LOCKED},
+ * so relays on several nodes share the work without blocking each other, and hands them to {@link
+ * OrderEventHub}. When {@code order.outbox.webhook-url} is set, published events are also POSTed
+ * there as {@code {"data": [...]}}; that delivery is tracked separately, so a failing webhook is
+ * retried with backoff without holding up the event streams. A webhook batch is leased to the relay
+ * in a short transaction and POSTed with no transaction open, so a slow webhook holds neither a
+ * connection nor row locks; other relays skip leased events until the lease, twice {@code
+ * webhook-timeout}, runs out. Delivery is at least once: a consumer may see an event again if a
+ * relay fails between delivering it and recording that, and should deduplicate by event id.
+ * Delivered events are deleted once {@code retention} has passed.
+ *
+ * <p>The relay sleeps for {@code poll-interval} when idle and is woken early by every commit on
+ * this node, so only events written by other nodes wait for the poll. Publishes {@code
+ * order.outbox.published}, {@code order.outbox.forwarded}, {@code order.outbox.webhook.failures}
+ * and {@code order.outbox.lag} (write to publish).
+ */
+@Component
+public class OrderOutboxRelay {
+
+  private static final Logger log = LoggerFactory.getLogger(OrderOutboxRelay.class);
+  private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+
+  private final OrderOutboxRepository outbox;
+  private final OrderEventHub hub;
+  private final TransactionTemplate tx;
+  private final ObjectMapper objectMapper;
+  private final int batchSize;
+  private final long pollNanos;
+  private final Duration retention;
+  private final URI webhook;
+  private final Duration webhookTimeout;
+  private final Duration webhookLease;
+  private final HttpClient http;
+  private final Counter published;
+  private final Counter forwarded;
+  private final Counter webhookFailures;
+  private final Timer lag;
+
+  private volatile boolean running;
+  private Thread relay;
+  private Duration backoff = Duration.ZERO;
+  private long webhookRetryAt;
+
+  /**
+   * Constructs the relay.
+   *
+   * @param outbox the outbox repository
+   * @param hub the event streams events are published to
+   * @param transactionManager the transaction manager claims run in
+   * @param objectMapper serializes webhook payloads
+   * @param registry the registry for relay metrics
+   * @param batchSize maximum number of events claimed at once
+   * @param pollInterval how long an idle relay waits before looking for events from other nodes
+   * @param retention how long delivered events are kept
+   * @param webhookUrl URL events are POSTed to, or blank for none
+   * @param webhookTimeout timeout for one webhook request
+   */
+  public OrderOutboxRelay(
+      OrderOutboxRepository outbox,
+      OrderEventHub hub,
+      PlatformTransactionManager transactionManager,
+      ObjectMapper objectMapper,
+      MeterRegistry registry,
+      @Value("${order.outbox.batch-size:200}") int batchSize,
+      @Value("${order.outbox.poll-interval:500ms}") Duration pollInterval,
+      @Value("${order.outbox.retention:1h}") Duration retention,
+      @Value("${order.outbox.webhook-url:}") String webhookUrl,
+      @Value("${order.outbox.webhook-timeout:5s}") Duration webhookTimeout) {
+    this.outbox = outbox;
+    this.hub = hub;
+    this.tx = new TransactionTemplate(transactionManager);
+    this.objectMapper = objectMapper;
+    this.batchSize = batchSize;
+    this.pollNanos = pollInterval.toNanos();
+    this.retention = retention;
+    this.webhook = webhookUrl.isBlank() ? null : URI.create(webhookUrl);
+    this.webhookTimeout = webhookTimeout;
+    // Connecting and answering are each bounded by the timeout
+    this.webhookLease = webhookTimeout.multipliedBy(2);
+    this.http =
+        webhook == null ? null : HttpClient.newBuilder().connectTimeout(webhookTimeout).build();
+    this.published =
+        Counter.builder("order.outbox.published")
+            .description("Order events handed to the event streams")
+            .register(registry);
+    this.forwarded =
+        Counter.builder("order.outbox.forwarded")
+            .description("Order events delivered to the webhook")
+            .register(registry);
+    this.webhookFailures =
+        Counter.builder("order.outbox.webhook.failures")
+            .description("Failed webhook deliveries")
+            .register(registry);
+    this.lag =
+        Timer.builder("order.outbox.lag")
+            .description("Time from writing an order event until it was published")
+            .register(registry);
+  }
+
+  /** Starts the relay once the application is ready. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    if (running) {
+      return;
+    }
+    running = true;
+    relay = Thread.ofPlatform().name("order-outbox-relay").daemon().start(this::run);
+  }
+
+  /**
+   * Stops the relay. Undelivered events stay in the outbox for the next relay to pick up.
+   *
+   * @throws InterruptedException if interrupted while waiting for the relay to exit
+   */
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    running = false;
+    if (relay != null) {
+      LockSupport.unpark(relay);
+      relay.join(webhookTimeout.plusSeconds(5));
+    }
+  }
+
+  /** Makes the relay look for events now rather than at its next poll. */
+  public void wake() {
+    Thread t = relay;
+    if (t != null) {
+      LockSupport.unpark(t);
+    }
+  }
+
+  private void run() {
+    while (running) {
+      try {
+        boolean more = publishBatch() == batchSize;
+        if (webhook != null && System.nanoTime() - webhookRetryAt >= 0) {
+          more |= forwardBatch() == batchSize;
+        }
+        if (!more) {
+          prune();
+          LockSupport.parkNanos(pollNanos);
+        }
+      } catch (RuntimeException ex) {
+        log.warn("Order outbox relay failed: {}", ex.getMessage());
+        LockSupport.parkNanos(pollNanos);
+      }
+    }
+  }
+
+  private int publishBatch() {
+    Integer count =
+        tx.execute(
+            status -> {
+              List<OrderOutboxEntity> rows = outbox.claimUnpublished(batchSize);
+              if (rows.isEmpty()) {
+                return 0;
+              }
+              hub.publish(rows.stream().map(OrderEvent::of).toList());
+
+              Instant now = Instant.now();
+              List<UUID> ids = ids(rows);
+              outbox.markPublished(ids, now);
+              if (webhook == null) {
+                outbox.markForwarded(ids, now);
+              }
+              for (OrderOutboxEntity row : rows) {
+                lag.record(Duration.between(row.getCreatedAt(), now));
+              }
+              return rows.size();
+            });
+    published.increment(count);
+    return count;
+  }
+
+  private int forwardBatch() {
+    Instant now = Instant.now();
+    List<OrderOutboxEntity> rows =
+        tx.execute(
+            status -> {
+              List<OrderOutboxEntity> claimed = outbox.claimUnforwarded(now, batchSize);
+              if (!claimed.isEmpty()) {
+                outbox.leaseForwarding(ids(claimed), now.plus(webhookLease));
+              }
+              return claimed;
+            });
+    if (rows.isEmpty()) {
+      return 0;
+    }
+    List<UUID> ids = ids(rows);
+    try {
+      post(rows);
+    } catch (WebhookException ex) {
+      tx.executeWithoutResult(status -> outbox.leaseForwarding(ids, null));
+      webhookFailures.increment();
+      backoff = backoff.isZero() ? Duration.ofSeconds(1) : min(backoff.multipliedBy(2));
+      webhookRetryAt = System.nanoTime() + backoff.toNanos();
+      log.warn("Order webhook delivery failed, retrying in {}: {}", backoff, ex.getMessage());
+      return 0;
+    }
+    tx.executeWithoutResult(status -> outbox.markForwarded(ids, Instant.now()));
+    forwarded.increment(rows.size());
+    backoff = Duration.ZERO;
+    return rows.size();
+  }
+
+  private static List<UUID> ids(List<OrderOutboxEntity> rows) {
+    return rows.stream().map(OrderOutboxEntity::getId).toList();
+  }
+
+  private void post(List<OrderOutboxEntity> rows) {
+    String body =
+        objectMapper.writeValueAsString(
+            Map.of("data", rows.stream().map(r -> OrderEvent.of(r).toDto()).toList()));
+    HttpRequest request =
+        HttpRequest.newBuilder(webhook)
+            .timeout(webhookTimeout)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build();
+    try {
+      HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+      if (response.statusCode() / 100 != 2) {
+        throw new WebhookException("HTTP " + response.statusCode());
+      }
+    } catch (IOException ex) {
+      throw new WebhookException(ex.toString());
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new WebhookException("interrupted");
+    }
+  }
+
+  private void prune() {
+    tx.executeWithoutResult(status -> outbox.prune(Instant.now().minus(retention), batchSize));
+  }
+
+  private static Duration min(Duration backoff) {
+    return backoff.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : backoff;
+  }
+
+  /** Fails a webhook delivery, so that its events are retried. */
+  private static final class WebhookException extends RuntimeException {
+    private WebhookException(String message) {
+      super(message);
+    }
+  }
+}
@@ -0,0 +1,113 @@
+package com.sweng.backend.order;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+/**
+ * Repository for the order event outbox.
+ *
+ * <p>The claim queries lock the rows they return and skip rows locked by another relay, so they
+ * must run inside the transaction that marks the rows delivered, or leased for delivery.
+ */
+interface OrderOutboxRepository extends JpaRepository<OrderOutboxEntity, UUID> {
+
+  /**
+   * Claims the oldest events not yet handed to the event streams.
+   *
+   * @param limit maximum number of events
+   * @return the claimed events, oldest first
+   */
+  @Query(
+      value =
+          """
+          select * from order_outbox
+          where published_at is null
+          order by id
+          limit :limit
+          for update skip locked
+          """,
+      nativeQuery = true)
+  List<OrderOutboxEntity> claimUnpublished(@Param("limit") int limit);
+
+  /**
+   * Claims the oldest events handed to the event streams but not yet delivered to the webhook,
+   * skipping events another relay holds a lease on.
+   *
+   * @param now the current time; leases ending before it have run out
+   * @param limit maximum number of events
+   * @return the claimed events, oldest first
+   */
+  @Query(
+      value =
+          """
+          select * from order_outbox
+          where forwarded_at is null
+            and published_at is not null
+            and (forward_lease_until is null or forward_lease_until < :now)
+          order by id
+          limit :limit
+          for update skip locked
+          """,
+      nativeQuery = true)
+  List<OrderOutboxEntity> claimUnforwarded(@Param("now") Instant now, @Param("limit") int limit);
+
+  /**
+   * Leases events to a relay delivering them to the webhook, or gives the lease up.
+   *
+   * @param ids the event ids
+   * @param until when the lease runs out, or null to give it up
+   * @return the number of events updated
+   */
+  @Modifying
+  @Query("update OrderOutboxEntity e set e.forwardLeaseUntil = :until where e.id in :ids")
+  int leaseForwarding(@Param("ids") Collection<UUID> ids, @Param("until") Instant until);
+
+  /**
+   * Records that events were handed to the event streams.
+   *
+   * @param ids the event ids
+   * @param now the delivery time
+   * @return the number of events updated
+   */
+  @Modifying
+  @Query("update OrderOutboxEntity e set e.publishedAt = :now where e.id in :ids")
+  int markPublished(@Param("ids") Collection<UUID> ids, @Param("now") Instant now);
+
+  /**
+   * Records that events were delivered to the webhook.
+   *
+   * @param ids the event ids
+   * @param now the delivery time
+   * @return the number of events updated
+   */
+  @Modifying
+  @Query("update OrderOutboxEntity e set e.forwardedAt = :now where e.id in :ids")
+  int markForwarded(@Param("ids") Collection<UUID> ids, @Param("now") Instant now);
+
+  /**
+   * Deletes delivered events published before the cutoff.
+   *
+   * @param cutoff events published earlier than this are deleted
+   * @param limit maximum number of events to delete
+   * @return the number of events deleted
+   */
+  @Modifying
+  @Query(
+      value =
+          """
+          delete from order_outbox
+          where id in (
+            select id from order_outbox
+            where published_at < :cutoff and forwarded_at is not null
+            order by published_at
+            limit :limit)
+          """,
+      nativeQuery = true)
+  int prune(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
+}
@@ -1,9 +1,96 @@
 package com.sweng.backend.order;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Optional;
 import java.util.UUID;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
-/** Repository for managing {@link OrderEntity} persistence. */
+/**
+ * Repository for managing {@link OrderEntity} persistence.
+ *
+ * <p>List queries are composed from {@link OrderSpecifications} so that filtering happens in SQL.
+ * Single orders are looked up with {@link #findOrder}, which includes the shard key so that on
+ * Citus the query runs on one shard; {@code findById} searches all of them.
+ */
 @Repository
-public interface OrderRepository extends JpaRepository<OrderEntity, UUID> {}
+public interface OrderRepository
+    extends JpaRepository<OrderEntity, UUID>, JpaSpecificationExecutor<OrderEntity> {
+
+  /**
+   * Moves an order to a new status with a single conditional {@code UPDATE}, bumping its version.
+   *
+   * <p>The row only changes if it is still in one of the {@code from} statuses and, when given,
+   * still has the expected version and customer; otherwise nothing is written and zero is returned.
+   * No row is read or locked beforehand.
+   *
+   * @param shardKey the order's shard key
+   * @param id the order id
+   * @param from statuses the order may currently be in
+   * @param next the new status
+   * @param version the version the order must have, or null to accept any
+   * @param customerId the customer the order must belong to, or null to accept any
+   * @param hlc the hybrid logical clock timestamp of the update
+   * @param now the new update timestamp, the physical part of {@code hlc}
+   * @return the number of rows updated, zero or one
+   */
+  @Transactional
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query(
+      """
+      update OrderEntity o
+      set o.status = :next, o.version = o.version + 1, o.hlc = :hlc, o.updatedAt = :now
+      where o.shardKey = :shardKey and o.id = :id
+        and o.status in :from
+        and (:version is null or o.version = :version)
+        and (:customerId is null or o.customerId = :customerId)
+      """)
+  int transitionStatus(
+      @Param("shardKey") int shardKey,
+      @Param("id") UUID id,
+      @Param("from") Collection<OrderStatus> from,
+      @Param("next") OrderStatus next,
+      @Param("version") Long version,
+      @Param("customerId") UUID customerId,
+      @Param("hlc") long hlc,
+      @Param("now") Instant now);
+
+  /**
+   * Finds an order on a given shard.
+   *
+   * @param shardKey the order's shard key
+   * @param id the order id
+   * @return the order, if it is on that shard
+   */
+  Optional<OrderEntity> findByShardKeyAndId(int shardKey, UUID id);
+
+  /**
+   * Finds an order by id, on the shard its id encodes.
+   *
+   * <p>Orders created before shard keys existed have ids that encode none; when the routed lookup
+   * misses, all shards are searched.
+   *
+   * @param id the order id
+   * @return the order, if it exists
+   */
+  default Optional<OrderEntity> findOrder(UUID id) {
+    return findByShardKeyAndId(OrderShards.ofOrder(id), id).or(() -> findById(id));
+  }
+
+  /**
+   * Deletes an order on its shard.
+   *
+   * @param shardKey the order's shard key
+   * @param id the order id
+   * @return the number of rows deleted, zero or one
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("delete from OrderEntity o where o.shardKey = :shardKey and o.id = :id")
+  int deleteOrder(@Param("shardKey") int shardKey, @Param("id") UUID id);
+}
@@ -0,0 +1,85 @@
+package com.sweng.backend.order;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * One stripe of the order count and total amount of a restaurant's orders created on one day that
+ * are now in one status.
+ *
+ * <p>Rows are only written through the native upserts in {@link OrderRollupRepository}; the entity
+ * exists for reading and so that schemas generated from the mappings (the H2 test profile) contain
+ * the table.
+ */
+@Entity
+@Table(name = "order_rollups")
+@IdClass(OrderRollupEntity.Key.class)
+class OrderRollupEntity {
+
+  /** Restaurant of the orders. */
+  @Id
+  @Column(nullable = false)
+  private UUID restaurantId;
+
+  /**
+   * Distribution key derived from the restaurant, shared with its orders; see {@link OrderShards}.
+   */
+  @Column(nullable = false)
+  private int shardKey;
+
+  /** UTC day the orders were created. */
+  @Id
+  @Column(nullable = false)
+  private LocalDate orderDay;
+
+  /** Current status of the orders. */
+  @Id
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, length = 20)
+  private OrderStatus status;
+
+  /** Stripe of the counter. */
+  @Id
+  @Column(nullable = false)
+  private short stripe;
+
+  /** Number of orders. */
+  @Column(nullable = false)
+  private long orderCount;
+
+  /** Sum of the orders' total amounts. */
+  @Column(nullable = false, precision = 14, scale = 2)
+  private BigDecimal totalAmount;
+
+  /** Default constructor for JPA. */
+  OrderRollupEntity() {}
+
+  /** Primary key of {@link OrderRollupEntity}. */
+  static final class Key implements Serializable {
+    private UUID restaurantId;
+    private LocalDate orderDay;
+    private OrderStatus status;
+    private short stripe;
+
+    /** Default constructor for JPA. */
+    Key() {}
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Key k
+          && Objects.equals(restaurantId, k.restaurantId)
+          && Objects.equals(orderDay, k.orderDay)
+          && status == k.status
+          && stripe == k.stripe;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(restaurantId, orderDay, status, stripe);
+    }
+  }
+}
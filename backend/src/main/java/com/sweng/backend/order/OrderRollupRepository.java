@@ -0,0 +1,127 @@
+package com.sweng.backend.order;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+/**
+ * Repository for the per-restaurant order rollups.
+ *
+ * <p>Rollups are adjusted by adding deltas in place, so concurrent writers never read a counter and
+ * write it back. A stripe that does not exist yet is inserted first with {@link #insertIfAbsent}.
+ * Every statement includes the restaurant's shard key, so on Citus it runs on the shard holding the
+ * restaurant's orders.
+ */
+interface OrderRollupRepository extends JpaRepository<OrderRollupEntity, OrderRollupEntity.Key> {
+
+  /** Order count and total amount of a restaurant's orders in one status. */
+  interface StatusTotal {
+    /**
+     * Gets the status.
+     *
+     * @return the status
+     */
+    OrderStatus getStatus();
+
+    /**
+     * Gets the number of orders.
+     *
+     * @return the number of orders
+     */
+    Long getOrderCount();
+
+    /**
+     * Gets the sum of the orders' total amounts.
+     *
+     * @return the sum of the total amounts
+     */
+    BigDecimal getTotalAmount();
+  }
+
+  /**
+   * Adds to an existing rollup stripe.
+   *
+   * @param shardKey the restaurant's shard key
+   * @param restaurantId the restaurant
+   * @param day the UTC day the orders were created
+   * @param status the status name
+   * @param stripe the stripe
+   * @param count orders to add, negative to subtract
+   * @param amount amount to add, negative to subtract
+   * @return 1 if the stripe exists, otherwise 0
+   */
+  @Modifying
+  @Query(
+      value =
+          """
+          update order_rollups
+          set order_count = order_count + :count, total_amount = total_amount + :amount
+          where shard_key = :shardKey and restaurant_id = :restaurantId and order_day = :day
+            and status = :status and stripe = :stripe
+          """,
+      nativeQuery = true)
+  int add(
+      @Param("shardKey") int shardKey,
+      @Param("restaurantId") UUID restaurantId,
+      @Param("day") LocalDate day,
+      @Param("status") String status,
+      @Param("stripe") short stripe,
+      @Param("count") long count,
+      @Param("amount") BigDecimal amount);
+
+  /**
+   * Inserts a rollup stripe unless it already exists.
+   *
+   * @param shardKey the restaurant's shard key
+   * @param restaurantId the restaurant
+   * @param day the UTC day the orders were created
+   * @param status the status name
+   * @param stripe the stripe
+   * @param count initial number of orders
+   * @param amount initial total amount
+   * @return 1 if inserted, 0 if the stripe already existed
+   */
+  @Modifying
+  @Query(
+      value =
+          """
+          insert into order_rollups
+            (shard_key, restaurant_id, order_day, status, stripe, order_count, total_amount)
+          values (:shardKey, :restaurantId, :day, :status, :stripe, :count, :amount)
+          on conflict do nothing
+          """,
+      nativeQuery = true)
+  int insertIfAbsent(
+      @Param("shardKey") int shardKey,
+      @Param("restaurantId") UUID restaurantId,
+      @Param("day") LocalDate day,
+      @Param("status") String status,
+      @Param("stripe") short stripe,
+      @Param("count") long count,
+      @Param("amount") BigDecimal amount);
+
+  /**
+   * Sums the stripes of a restaurant's rollups for one day.
+   *
+   * @param shardKey the restaurant's shard key
+   * @param restaurantId the restaurant
+   * @param day the UTC day the orders were created
+   * @return one total per status that has rollups
+   */
+  @Query(
+      """
+      select r.status as status, sum(r.orderCount) as orderCount, sum(r.totalAmount) as totalAmount
+      from OrderRollupEntity r
+      where r.shardKey = :shardKey and r.restaurantId = :restaurantId and r.orderDay = :day
+      group by r.status
+      """)
+  List<StatusTotal> totals(
+      @Param("shardKey") int shardKey,
+      @Param("restaurantId") UUID restaurantId,
+      @Param("day") LocalDate day);
+}
@@ -0,0 +1,178 @@
+package com.sweng.backend.order;
+
+import com.sweng.backend.order.dto.OrderStatsDto;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-restaurant order counts and amounts by UTC day of creation and status, kept up to date by
+ * {@link OrderOutbox} in the transaction of every order write.
+ *
+ * <p>A write adds its deltas to one of {@code order.rollups.stripes} stripes of each affected
+ * rollup, picked at random per transaction, so a busy restaurant's orders spread their row locks
+ * over several rows instead of serializing on one. Deltas are applied in key order so that
+ * transactions touching several rollups cannot deadlock each other. Reading a restaurant's stats
+ * for a day sums at most {@code statuses × stripes} rows, however many orders there are.
+ */
+@Component
+public class OrderRollups {
+
+  private static final Comparator<Bucket> BUCKET_ORDER =
+      Comparator.comparing((Bucket b) -> b.restaurantId)
+          .thenComparing(b -> b.day)
+          .thenComparing(b -> b.status);
+
+  private final OrderRollupRepository rollups;
+  private final int stripes;
+
+  /**
+   * Constructs the rollups.
+   *
+   * @param rollups the rollup repository
+   * @param stripes number of stripes each rollup is split into
+   */
+  public OrderRollups(
+      OrderRollupRepository rollups, @Value("${order.rollups.stripes:8}") int stripes) {
+    this.rollups = rollups;
+    this.stripes = stripes;
+  }
+
+  /**
+   * Counts new orders. Must run in the transaction that inserts them.
+   *
+   * @param orders the inserted orders
+   */
+  void created(Collection<OrderEntity> orders) {
+    Map<Bucket, Delta> deltas = new TreeMap<>(BUCKET_ORDER);
+    for (OrderEntity o : orders) {
+      add(deltas, o, o.getStatus(), 1, o.getTotalAmount());
+    }
+    apply(deltas);
+  }
+
+  /**
+   * Moves an order between rollups after its status or amount changed. Must run in the transaction
+   * that changes it.
+   *
+   * @param order the order after the change
+   * @param statusBefore the status before the change
+   * @param totalBefore the total amount before the change
+   */
+  void changed(OrderEntity order, OrderStatus statusBefore, BigDecimal totalBefore) {
+    Map<Bucket, Delta> deltas = new TreeMap<>(BUCKET_ORDER);
+    add(deltas, order, statusBefore, -1, totalBefore.negate());
+    add(deltas, order, order.getStatus(), 1, order.getTotalAmount());
+    apply(deltas);
+  }
+
+  /**
+   * Uncounts a deleted order. Must run in the transaction that deletes it.
+   *
+   * @param order the order as deleted
+   */
+  void deleted(OrderEntity order) {
+    Map<Bucket, Delta> deltas = new TreeMap<>(BUCKET_ORDER);
+    add(deltas, order, order.getStatus(), -1, order.getTotalAmount().negate());
+    apply(deltas);
+  }
+
+  /**
+   * Reads a restaurant's order statistics for one day.
+   *
+   * @param restaurantId the restaurant
+   * @param day the UTC day the orders were created
+   * @return the statistics
+   */
+  public OrderStatsDto stats(UUID restaurantId, LocalDate day) {
+    Map<String, Long> byStatus = new LinkedHashMap<>();
+    for (OrderStatus s : OrderStatus.values()) {
+      byStatus.put(s.name(), 0L);
+    }
+    long count = 0;
+    BigDecimal revenue = BigDecimal.ZERO;
+    for (OrderRollupRepository.StatusTotal t :
+        rollups.totals(OrderShards.ofRestaurant(restaurantId), restaurantId, day)) {
+      byStatus.put(t.getStatus().name(), t.getOrderCount());
+      if (t.getStatus() != OrderStatus.cancelled) {
+        count += t.getOrderCount();
+        revenue = revenue.add(t.getTotalAmount());
+      }
+    }
+
+    OrderStatsDto dto = new OrderStatsDto();
+    dto.setRestaurantId(restaurantId.toString());
+    dto.setDate(day.toString());
+    dto.setOrdersByStatus(byStatus);
+    dto.setOrderCount(count);
+    dto.setRevenue(revenue.setScale(2, RoundingMode.HALF_UP));
+    dto.setAverageTicket(
+        count == 0 ? null : revenue.divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP));
+    return dto;
+  }
+
+  private static void add(
+      Map<Bucket, Delta> deltas,
+      OrderEntity order,
+      OrderStatus status,
+      long count,
+      BigDecimal amt) {
+    Bucket b =
+        new Bucket(
+            order.getRestaurantId(),
+            LocalDate.ofInstant(order.getCreatedAt(), ZoneOffset.UTC),
+            status);
+    Delta d = deltas.computeIfAbsent(b, k -> new Delta());
+    d.count += count;
+    d.amount = d.amount.add(amt);
+  }
+
+  private void apply(Map<Bucket, Delta> deltas) {
+    short stripe = (short) ThreadLocalRandom.current().nextInt(stripes);
+    deltas.forEach(
+        (b, d) -> {
+          if (d.count == 0 && d.amount.signum() == 0) {
+            return;
+          }
+          String status = b.status.name();
+          int shardKey = OrderShards.ofRestaurant(b.restaurantId);
+          // Another transaction may insert the stripe between the update and the insert; the
+          // insert then waits for it and does nothing, and the second update finds its row
+          if (rollups.add(shardKey, b.restaurantId, b.day, status, stripe, d.count, d.amount) == 0
+              && rollups.insertIfAbsent(
+                      shardKey, b.restaurantId, b.day, status, stripe, d.count, d.amount)
+                  == 0) {
+            rollups.add(shardKey, b.restaurantId, b.day, status, stripe, d.count, d.amount);
+          }
+        });
+  }
+
+  /** Rollup a delta applies to. */
+  private static final class Bucket {
+    private final UUID restaurantId;
+    private final LocalDate day;
+    private final OrderStatus status;
+
+    private Bucket(UUID restaurantId, LocalDate day, OrderStatus status) {
+      this.restaurantId = restaurantId;
+      this.day = day;
+      this.status = status;
+    }
+  }
+
+  /** Change to one rollup. */
+  private static final class Delta {
+    private long count;
+    private BigDecimal amount = BigDecimal.ZERO;
+  }
+}
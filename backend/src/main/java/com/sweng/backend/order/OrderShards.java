@@ -0,0 +1,64 @@
+package com.sweng.backend.order;
+
+import com.sweng.backend.config.UuidV7;
+import java.util.UUID;
+
+/**
+ * Shard keys that co-locate a restaurant's orders and rollups.
+ *
+ * <p>On Citus, {@code orders} and {@code order_rollups} are distributed by {@code shard_key}, one
+ * of {@value #SHARD_KEYS} buckets taken from the low bits of the restaurant id, so every order and
+ * rollup of a restaurant lives on one shard. Order ids carry the shard key of their restaurant in
+ * the top bits of the random part of the UUIDv7, so a single order can be routed to its shard from
+ * its id alone. Orders created before the shard key was introduced have ids without it; lookups by
+ * id fall back to searching every shard when the routed lookup finds nothing.
+ */
+final class OrderShards {
+
+  /** Number of distinct shard keys. */
+  static final int SHARD_KEYS = 4096;
+
+  private static final long MASK = SHARD_KEYS - 1;
+
+  /** Position of the shard key in the low 64 bits of an order id, just below the variant. */
+  private static final int ID_SHIFT = 50;
+
+  private OrderShards() {}
+
+  /**
+   * Gets the shard key of a restaurant's orders.
+   *
+   * <p>Matches the backfill in {@code V11__order_shard_key.sql}: the last three hex digits of the
+   * restaurant id.
+   *
+   * @param restaurantId the restaurant
+   * @return the shard key
+   */
+  static int ofRestaurant(UUID restaurantId) {
+    return (int) (restaurantId.getLeastSignificantBits() & MASK);
+  }
+
+  /**
+   * Gets the shard key encoded in an order id.
+   *
+   * @param orderId the order id
+   * @return the shard key of the order's restaurant, for ids issued by {@link #newOrderId}
+   */
+  static int ofOrder(UUID orderId) {
+    return (int) ((orderId.getLeastSignificantBits() >>> ID_SHIFT) & MASK);
+  }
+
+  /**
+   * Issues an id for a new order of a restaurant.
+   *
+   * @param restaurantId the restaurant
+   * @return a UUIDv7 whose random part starts with the restaurant's shard key
+   */
+  static UUID newOrderId(UUID restaurantId) {
+    UUID id = UuidV7.generate();
+    long lsb =
+        (id.getLeastSignificantBits() & ~(MASK << ID_SHIFT))
+            | ((long) ofRestaurant(restaurantId) << ID_SHIFT);
+    return new UUID(id.getMostSignificantBits(), lsb);
+  }
+}
@@ -0,0 +1,92 @@
+package com.sweng.backend.order;
+
+import com.sweng.backend.config.KeysetCursor;
+import java.time.Instant;
+import java.util.UUID;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Query building blocks for {@link OrderEntity} list lookups.
+ *
+ * <p>Each factory returns a single predicate so that {@link OrderController} can compose only the
+ * filters a request actually supplies, letting the database use the composite indexes declared on
+ * {@link OrderEntity} instead of filtering in memory.
+ */
+final class OrderSpecifications {
+
+  private OrderSpecifications() {}
+
+  /**
+   * Matches orders placed with the given restaurant.
+   *
+   * <p>Also matches the restaurant's shard key, which selects the same orders but lets Citus run
+   * the query on one shard.
+   *
+   * @param restaurantId restaurant UUID
+   * @return the specification
+   */
+  static Specification<OrderEntity> hasRestaurant(UUID restaurantId) {
+    return (root, query, cb) ->
+        cb.and(
+            cb.equal(root.get("shardKey"), OrderShards.ofRestaurant(restaurantId)),
+            cb.equal(root.get("restaurantId"), restaurantId));
+  }
+
+  /**
+   * Matches orders placed by the given customer.
+   *
+   * @param customerId customer UUID
+   * @return the specification
+   */
+  static Specification<OrderEntity> hasCustomer(UUID customerId) {
+    return (root, query, cb) -> cb.equal(root.get("customerId"), customerId);
+  }
+
+  /**
+   * Matches orders in the given status.
+   *
+   * @param status order status
+   * @return the specification
+   */
+  static Specification<OrderEntity> hasStatus(OrderStatus status) {
+    return (root, query, cb) -> cb.equal(root.get("status"), status);
+  }
+
+  /**
+   * Matches orders created at or after the given instant.
+   *
+   * @param from inclusive lower bound
+   * @return the specification
+   */
+  static Specification<OrderEntity> createdFrom(Instant from) {
+    return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("createdAt"), from);
+  }
+
+  /**
+   * Matches orders created strictly before the given instant.
+   *
+   * @param to exclusive upper bound
+   * @return the specification
+   */
+  static Specification<OrderEntity> createdBefore(Instant to) {
+    return (root, query, cb) -> cb.lessThan(root.get("createdAt"), to);
+  }
+
+  /**
+   * Matches orders strictly after the cursor position in {@code (createdAt DESC, id DESC)} order.
+   *
+   * <p>Expanded form of the row comparison {@code (created_at, id) < (?, ?)} so that it can use the
+   * leading createdAt column of the composite indexes.
+   *
+   * @param cursor last position seen by the client
+   * @return the specification
+   */
+  static Specification<OrderEntity> after(KeysetCursor cursor) {
+    return (root, query, cb) ->
+        cb.or(
+            cb.lessThan(root.get("createdAt"), cursor.getCreatedAt()),
+            cb.and(
+                cb.equal(root.get("createdAt"), cursor.getCreatedAt()),
+                cb.lessThan(root.get("id"), cursor.getId())));
+  }
+}
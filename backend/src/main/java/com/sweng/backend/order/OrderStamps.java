@@ -0,0 +1,37 @@
+package com.sweng.backend.order;
+
+import com.sweng.backend.config.HybridLogicalClock;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+
+/**
+ * Stamps every insert and update of an {@link OrderEntity} with the node's {@link
+ * HybridLogicalClock}.
+ *
+ * <p>Created by Hibernate through Spring, so the clock is injected. Bulk updates bypass entity
+ * callbacks and stamp orders themselves ({@link OrderRepository#transitionStatus}).
+ */
+public class OrderStamps {
+
+  private final HybridLogicalClock clock;
+
+  /**
+   * Constructs the listener.
+   *
+   * @param clock the clock stamps are taken from
+   */
+  public OrderStamps(HybridLogicalClock clock) {
+    this.clock = clock;
+  }
+
+  /**
+   * Stamps an order about to be written.
+   *
+   * @param order the order
+   */
+  @PrePersist
+  @PreUpdate
+  public void stamp(OrderEntity order) {
+    order.stamp(clock.now());
+  }
+}
@@ -1,9 +1,14 @@
 package com.sweng.backend.order;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 /**
  * Status values for an order.
  *
  * <p>Matches the OpenAPI enum for order status: pending, preparing, ready, completed, cancelled.
+ * Orders advance pending → preparing → ready → completed and can be cancelled until they are
+ * completed; completed and cancelled are final.
  */
 public enum OrderStatus {
   /** Order has been created but not yet started. */
@@ -19,5 +24,55 @@ public enum OrderStatus {
   completed,
 
   /** Order has been cancelled. */
-  cancelled
+  cancelled;
+
+  /**
+   * Gets the statuses an order may move to the given status from.
+   *
+   * @param next the target status
+   * @return the allowed previous statuses; empty for {@code pending}, which is only ever initial
+   */
+  public static Set<OrderStatus> predecessorsOf(OrderStatus next) {
+    return switch (next) {
+      case pending -> EnumSet.noneOf(OrderStatus.class);
+      case preparing -> EnumSet.of(pending);
+      case ready -> EnumSet.of(preparing);
+      case completed -> EnumSet.of(ready);
+      case cancelled -> EnumSet.of(pending, preparing, ready);
+    };
+  }
+
+  /**
+   * Checks whether an order in this status may move to another.
+   *
+   * @param next the target status
+   * @return true if the transition is allowed
+   */
+  public boolean canTransitionTo(OrderStatus next) {
+    return predecessorsOf(next).contains(this);
+  }
+
+  /**
+   * Gets the later of two statuses the same order was given in different regions.
+   *
+   * <p>Each region only ever moves an order forward, so the later status along the lifecycle is the
+   * one that happened last. An order one region completed while another cancelled it stays
+   * completed: it was handed over. The result does not depend on the order of the arguments.
+   *
+   * @param other the other status
+   * @return whichever of the two comes later
+   */
+  public OrderStatus laterOf(OrderStatus other) {
+    return stage(other) > stage(this) ? other : this;
+  }
+
+  private static int stage(OrderStatus status) {
+    return switch (status) {
+      case pending -> 0;
+      case preparing -> 1;
+      case ready -> 2;
+      case cancelled -> 3;
+      case completed -> 4;
+    };
+  }
 }
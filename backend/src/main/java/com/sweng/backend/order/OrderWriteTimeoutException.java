@@ -0,0 +1,17 @@
+package com.sweng.backend.order;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Answered with 503 when a caller stops waiting for its order to be written while the order is
+ * still queued for a group commit. The order may yet be committed, so {@link IdempotencyKeys} keeps
+ * the key held rather than releasing it.
+ */
+class OrderWriteTimeoutException extends ResponseStatusException {
+
+  /** Constructs the exception. */
+  OrderWriteTimeoutException() {
+    super(HttpStatus.SERVICE_UNAVAILABLE, "Timed out waiting for the order to be written");
+  }
+}
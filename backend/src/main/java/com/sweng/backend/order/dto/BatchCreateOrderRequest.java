@@ -0,0 +1,37 @@
+package com.sweng.backend.order.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import java.util.List;
+
+/**
+ * Request body for creating several orders in one call.
+ *
+ * <p>Each entry is a {@link CreateOrderRequest} and is validated on its own, so one bad order does
+ * not reject the others.
+ */
+public class BatchCreateOrderRequest {
+
+  /** Orders to create, in the order their results are reported. */
+  @NotEmpty private List<CreateOrderRequest> orders;
+
+  /** Default constructor for deserialization. */
+  public BatchCreateOrderRequest() {}
+
+  /**
+   * Gets the orders to create.
+   *
+   * @return the orders
+   */
+  public List<CreateOrderRequest> getOrders() {
+    return orders;
+  }
+
+  /**
+   * Sets the orders to create.
+   *
+   * @param orders the orders to set
+   */
+  public void setOrders(List<CreateOrderRequest> orders) {
+    this.orders = orders;
+  }
+}
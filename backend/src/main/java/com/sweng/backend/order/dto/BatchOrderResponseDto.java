@@ -0,0 +1,45 @@
+package com.sweng.backend.order.dto;
+
+import java.util.List;
+
+/**
+ * DTO returned by batch order creation.
+ *
+ * <p>Uses the same {@code { data: [...] }} envelope as the list responses, with one result per
+ * requested order in request order.
+ */
+public class BatchOrderResponseDto {
+
+  /** Per-order results. */
+  private List<BatchOrderResultDto> data;
+
+  /** Default constructor for serialization. */
+  public BatchOrderResponseDto() {}
+
+  /**
+   * Constructs a response with its results.
+   *
+   * @param data the per-order results
+   */
+  public BatchOrderResponseDto(List<BatchOrderResultDto> data) {
+    this.data = data;
+  }
+
+  /**
+   * Gets the per-order results.
+   *
+   * @return the results
+   */
+  public List<BatchOrderResultDto> getData() {
+    return data;
+  }
+
+  /**
+   * Sets the per-order results.
+   *
+   * @param data the results to set
+   */
+  public void setData(List<BatchOrderResultDto> data) {
+    this.data = data;
+  }
+}
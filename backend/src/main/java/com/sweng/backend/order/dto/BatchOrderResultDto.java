@@ -0,0 +1,127 @@
+package com.sweng.backend.order.dto;
+
+/**
+ * DTO reporting the outcome of one order in a batch creation.
+ *
+ * <p>{@code status} is the HTTP status the order would have received from {@code POST /api/orders}:
+ * 201 with the created {@code order}, or 400 with an {@code error} message.
+ */
+public class BatchOrderResultDto {
+
+  /** Position of the order in the request. */
+  private int index;
+
+  /** HTTP status for this order. */
+  private int status;
+
+  /** The created order, or null if it was rejected. */
+  private OrderDto order;
+
+  /** Why the order was rejected, or null if it was created. */
+  private String error;
+
+  /** Default constructor for serialization. */
+  public BatchOrderResultDto() {}
+
+  /**
+   * Constructs a result for a created order.
+   *
+   * @param index position of the order in the request
+   * @param order the created order
+   * @return the result
+   */
+  public static BatchOrderResultDto created(int index, OrderDto order) {
+    BatchOrderResultDto r = new BatchOrderResultDto();
+    r.index = index;
+    r.status = 201;
+    r.order = order;
+    return r;
+  }
+
+  /**
+   * Constructs a result for a rejected order.
+   *
+   * @param index position of the order in the request
+   * @param error why the order was rejected
+   * @return the result
+   */
+  public static BatchOrderResultDto rejected(int index, String error) {
+    BatchOrderResultDto r = new BatchOrderResultDto();
+    r.index = index;
+    r.status = 400;
+    r.error = error;
+    return r;
+  }
+
+  /**
+   * Gets the position of the order in the request.
+   *
+   * @return the index
+   */
+  public int getIndex() {
+    return index;
+  }
+
+  /**
+   * Sets the position of the order in the request.
+   *
+   * @param index the index to set
+   */
+  public void setIndex(int index) {
+    this.index = index;
+  }
+
+  /**
+   * Gets the HTTP status for this order.
+   *
+   * @return the status
+   */
+  public int getStatus() {
+    return status;
+  }
+
+  /**
+   * Sets the HTTP status for this order.
+   *
+   * @param status the status to set
+   */
+  public void setStatus(int status) {
+    this.status = status;
+  }
+
+  /**
+   * Gets the created order.
+   *
+   * @return the order, or null if it was rejected
+   */
+  public OrderDto getOrder() {
+    return order;
+  }
+
+  /**
+   * Sets the created order.
+   *
+   * @param order the order to set
+   */
+  public void setOrder(OrderDto order) {
+    this.order = order;
+  }
+
+  /**
+   * Gets why the order was rejected.
+   *
+   * @return the error message, or null if it was created
+   */
+  public String getError() {
+    return error;
+  }
+
+  /**
+   * Sets why the order was rejected.
+   *
+   * @param error the error message to set
+   */
+  public void setError(String error) {
+    this.error = error;
+  }
+}
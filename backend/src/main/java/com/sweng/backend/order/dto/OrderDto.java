@@ -44,6 +44,15 @@ public class OrderDto {
   /** Last update timestamp. */
   private OffsetDateTime updatedAt;
 
+  /**
+   * Hybrid logical clock timestamp of the last write, as a decimal string since it does not fit a
+   * JSON number exactly.
+   */
+  private String hlc;
+
+  /** Hybrid logical clock timestamp of the last change to the contents, as a decimal string. */
+  private String contentsHlc;
+
   /** Default constructor for serialization. */
   public OrderDto() {}
 
@@ -244,4 +253,40 @@ public class OrderDto {
   public void setUpdatedAt(OffsetDateTime updatedAt) {
     this.updatedAt = updatedAt;
   }
+
+  /**
+   * Gets the hybrid logical clock timestamp of the last write.
+   *
+   * @return the timestamp as a decimal string
+   */
+  public String getHlc() {
+    return hlc;
+  }
+
+  /**
+   * Sets the hybrid logical clock timestamp of the last write.
+   *
+   * @param hlc the timestamp as a decimal string
+   */
+  public void setHlc(String hlc) {
+    this.hlc = hlc;
+  }
+
+  /**
+   * Gets the hybrid logical clock timestamp of the last change to the contents.
+   *
+   * @return the timestamp as a decimal string
+   */
+  public String getContentsHlc() {
+    return contentsHlc;
+  }
+
+  /**
+   * Sets the hybrid logical clock timestamp of the last change to the contents.
+   *
+   * @param contentsHlc the timestamp as a decimal string
+   */
+  public void setContentsHlc(String contentsHlc) {
+    this.contentsHlc = contentsHlc;
+  }
 }
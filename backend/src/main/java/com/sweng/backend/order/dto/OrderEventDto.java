@@ -0,0 +1,183 @@
+package com.sweng.backend.order.dto;
+
+import java.time.OffsetDateTime;
+
+/**
+ * DTO sent as the data of an order event on the event streams.
+ *
+ * <p>Events only identify the order and its new status and version; clients fetch the order itself
+ * when they need its contents.
+ */
+public class OrderEventDto {
+
+  /** Event ID, also sent as the event stream id. */
+  private String id;
+
+  /** Kind of change: created, updated or deleted. */
+  private String type;
+
+  /** Order ID. */
+  private String orderId;
+
+  /** Restaurant ID. */
+  private String restaurantId;
+
+  /** Customer ID, if the order has one. */
+  private String customerId;
+
+  /** Order status after the change. */
+  private String status;
+
+  /** Order version after the change, as used in its ETag. */
+  private Long version;
+
+  /** When the change happened. */
+  private OffsetDateTime occurredAt;
+
+  /** Default constructor for serialization. */
+  public OrderEventDto() {}
+
+  /**
+   * Gets the event ID.
+   *
+   * @return the event ID
+   */
+  public String getId() {
+    return id;
+  }
+
+  /**
+   * Sets the event ID.
+   *
+   * @param id the event ID to set
+   */
+  public void setId(String id) {
+    this.id = id;
+  }
+
+  /**
+   * Gets the kind of change.
+   *
+   * @return created, updated or deleted
+   */
+  public String getType() {
+    return type;
+  }
+
+  /**
+   * Sets the kind of change.
+   *
+   * @param type the type to set
+   */
+  public void setType(String type) {
+    this.type = type;
+  }
+
+  /**
+   * Gets the order ID.
+   *
+   * @return the order ID
+   */
+  public String getOrderId() {
+    return orderId;
+  }
+
+  /**
+   * Sets the order ID.
+   *
+   * @param orderId the order ID to set
+   */
+  public void setOrderId(String orderId) {
+    this.orderId = orderId;
+  }
+
+  /**
+   * Gets the restaurant ID.
+   *
+   * @return the restaurant ID
+   */
+  public String getRestaurantId() {
+    return restaurantId;
+  }
+
+  /**
+   * Sets the restaurant ID.
+   *
+   * @param restaurantId the restaurant ID to set
+   */
+  public void setRestaurantId(String restaurantId) {
+    this.restaurantId = restaurantId;
+  }
+
+  /**
+   * Gets the customer ID.
+   *
+   * @return the customer ID, or null
+   */
+  public String getCustomerId() {
+    return customerId;
+  }
+
+  /**
+   * Sets the customer ID.
+   *
+   * @param customerId the customer ID to set
+   */
+  public void setCustomerId(String customerId) {
+    this.customerId = customerId;
+  }
+
+  /**
+   * Gets the order status after the change.
+   *
+   * @return the status
+   */
+  public String getStatus() {
+    return status;
+  }
+
+  /**
+   * Sets the order status after the change.
+   *
+   * @param status the status to set
+   */
+  public void setStatus(String status) {
+    this.status = status;
+  }
+
+  /**
+   * Gets the order version after the change.
+   *
+   * @return the version
+   */
+  public Long getVersion() {
+    return version;
+  }
+
+  /**
+   * Sets the order version after the change.
+   *
+   * @param version the version to set
+   */
+  public void setVersion(Long version) {
+    this.version = version;
+  }
+
+  /**
+   * Gets when the change happened.
+   *
+   * @return the timestamp
+   */
+  public OffsetDateTime getOccurredAt() {
+    return occurredAt;
+  }
+
+  /**
+   * Sets when the change happened.
+   *
+   * @param occurredAt the timestamp to set
+   */
+  public void setOccurredAt(OffsetDateTime occurredAt) {
+    this.occurredAt = occurredAt;
+  }
+}
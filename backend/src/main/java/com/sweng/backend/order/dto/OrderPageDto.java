@@ -0,0 +1,68 @@
+package com.sweng.backend.order.dto;
+
+import java.util.List;
+
+/**
+ * DTO representing one page of orders in API responses.
+ *
+ * <p>Keeps the {@code { data: [...] }} envelope of the OpenAPI list response and adds an opaque
+ * {@code nextCursor}, which is null when there are no further orders.
+ */
+public class OrderPageDto {
+
+  /** Orders on this page. */
+  private List<OrderDto> data;
+
+  /** Cursor to pass back to fetch the next page, or null on the last page. */
+  private String nextCursor;
+
+  /** Default constructor for serialization. */
+  public OrderPageDto() {}
+
+  /**
+   * Constructs a page DTO with all fields.
+   *
+   * @param data the orders on this page
+   * @param nextCursor the cursor for the next page, or null
+   */
+  public OrderPageDto(List<OrderDto> data, String nextCursor) {
+    this.data = data;
+    this.nextCursor = nextCursor;
+  }
+
+  /**
+   * Gets the orders on this page.
+   *
+   * @return the orders
+   */
+  public List<OrderDto> getData() {
+    return data;
+  }
+
+  /**
+   * Sets the orders on this page.
+   *
+   * @param data the orders to set
+   */
+  public void setData(List<OrderDto> data) {
+    this.data = data;
+  }
+
+  /**
+   * Gets the cursor for the next page.
+   *
+   * @return the next cursor, or null on the last page
+   */
+  public String getNextCursor() {
+    return nextCursor;
+  }
+
+  /**
+   * Sets the cursor for the next page.
+   *
+   * @param nextCursor the next cursor to set
+   */
+  public void setNextCursor(String nextCursor) {
+    this.nextCursor = nextCursor;
+  }
+}
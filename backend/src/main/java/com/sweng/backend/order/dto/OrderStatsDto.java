@@ -0,0 +1,142 @@
+package com.sweng.backend.order.dto;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * DTO returned by the restaurant order statistics endpoint.
+ *
+ * <p>Covers the orders a restaurant received on one UTC day. Revenue counts every order that was
+ * not cancelled.
+ */
+public class OrderStatsDto {
+
+  /** Restaurant ID. */
+  private String restaurantId;
+
+  /** UTC day the orders were created, as an ISO date. */
+  private String date;
+
+  /** Number of orders in each status, including statuses with none. */
+  private Map<String, Long> ordersByStatus;
+
+  /** Number of orders that were not cancelled. */
+  private long orderCount;
+
+  /** Sum of the total amounts of the orders that were not cancelled. */
+  private BigDecimal revenue;
+
+  /** Revenue divided by order count, or null when there are no orders. */
+  private BigDecimal averageTicket;
+
+  /** Default constructor for serialization. */
+  public OrderStatsDto() {}
+
+  /**
+   * Gets the restaurant ID.
+   *
+   * @return the restaurant ID
+   */
+  public String getRestaurantId() {
+    return restaurantId;
+  }
+
+  /**
+   * Sets the restaurant ID.
+   *
+   * @param restaurantId the restaurant ID to set
+   */
+  public void setRestaurantId(String restaurantId) {
+    this.restaurantId = restaurantId;
+  }
+
+  /**
+   * Gets the day.
+   *
+   * @return the UTC day as an ISO date
+   */
+  public String getDate() {
+    return date;
+  }
+
+  /**
+   * Sets the day.
+   *
+   * @param date the UTC day as an ISO date
+   */
+  public void setDate(String date) {
+    this.date = date;
+  }
+
+  /**
+   * Gets the number of orders in each status.
+   *
+   * @return order counts by status name
+   */
+  public Map<String, Long> getOrdersByStatus() {
+    return ordersByStatus;
+  }
+
+  /**
+   * Sets the number of orders in each status.
+   *
+   * @param ordersByStatus order counts by status name
+   */
+  public void setOrdersByStatus(Map<String, Long> ordersByStatus) {
+    this.ordersByStatus = ordersByStatus;
+  }
+
+  /**
+   * Gets the number of orders that were not cancelled.
+   *
+   * @return the order count
+   */
+  public long getOrderCount() {
+    return orderCount;
+  }
+
+  /**
+   * Sets the number of orders that were not cancelled.
+   *
+   * @param orderCount the order count to set
+   */
+  public void setOrderCount(long orderCount) {
+    this.orderCount = orderCount;
+  }
+
+  /**
+   * Gets the revenue.
+   *
+   * @return the revenue
+   */
+  public BigDecimal getRevenue() {
+    return revenue;
+  }
+
+  /**
+   * Sets the revenue.
+   *
+   * @param revenue the revenue to set
+   */
+  public void setRevenue(BigDecimal revenue) {
+    this.revenue = revenue;
+  }
+
+  /**
+   * Gets the average ticket size.
+   *
+   * @return the average ticket size, or null when there are no orders
+   */
+  public BigDecimal getAverageTicket() {
+    return averageTicket;
+  }
+
+  /**
+   * Sets the average ticket size.
+   *
+   * @param averageTicket the average ticket size to set
+   */
+  public void setAverageTicket(BigDecimal averageTicket) {
+    this.averageTicket = averageTicket;
+  }
+}
@@ -0,0 +1,221 @@
+package com.sweng.backend.restaurant;
+
+import com.sweng.backend.config.ReplicaRoutingDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded, TTL-evicting read-through cache of restaurant snapshots in front of {@link
+ * RestaurantRepository}.
+ *
+ * <p>Absence is cached too, so existence checks for unknown ids are also served from memory.
+ * Snapshots are detached copies: callers may read them but must not modify or save them. Writes go
+ * through {@link RestaurantCacheInvalidator}, which evicts the entry here and on the other nodes.
+ * Misses load from the primary, since an entry read from a lagging replica would outlive its lag.
+ * Lookups are published as the {@code restaurant.cache.requests} counter tagged {@code
+ * result=hit|miss}, and the entry count as the {@code restaurant.cache.size} gauge.
+ */
+@Component
+public class RestaurantCache {
+
+  private final RestaurantRepository repository;
+  private final long ttlNanos;
+  private final int maxEntries;
+  private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+  private final AtomicLong invalidations = new AtomicLong();
+  private final Counter hits;
+  private final Counter misses;
+
+  /**
+   * Constructs a cache.
+   *
+   * @param repository the restaurant repository to read through to
+   * @param registry the registry for hit/miss metrics
+   * @param ttl how long a snapshot is served before it is reloaded
+   * @param maxEntries maximum number of restaurants to hold; zero disables caching
+   */
+  public RestaurantCache(
+      RestaurantRepository repository,
+      MeterRegistry registry,
+      @Value("${restaurant.cache.ttl:30s}") Duration ttl,
+      @Value("${restaurant.cache.max-entries:10000}") int maxEntries) {
+    this.repository = repository;
+    this.ttlNanos = ttl.toNanos();
+    this.maxEntries = maxEntries;
+    this.hits = requests(registry, "hit");
+    this.misses = requests(registry, "miss");
+    Gauge.builder("restaurant.cache.size", entries, Map::size)
+        .description("Restaurants held in the read-through cache")
+        .register(registry);
+  }
+
+  private static Counter requests(MeterRegistry registry, String result) {
+    return Counter.builder("restaurant.cache.requests")
+        .description("Restaurant cache lookups")
+        .tag("result", result)
+        .register(registry);
+  }
+
+  /**
+   * Finds a restaurant by id, loading and caching it on a miss.
+   *
+   * @param id the restaurant id
+   * @return a read-only snapshot of the restaurant, or empty if it does not exist
+   */
+  public Optional<RestaurantEntity> find(UUID id) {
+    long now = System.nanoTime();
+    Entry e = entries.get(id);
+    if (e != null && now - e.loadedAtNanos < ttlNanos) {
+      hits.increment();
+      return Optional.ofNullable(e.snapshot);
+    }
+    misses.increment();
+
+    long generation = invalidations.get();
+    RestaurantEntity snapshot =
+        ReplicaRoutingDataSource.onPrimary(
+            () -> repository.findById(id).map(RestaurantCache::copy).orElse(null));
+    store(id, snapshot, now, generation);
+    return Optional.ofNullable(snapshot);
+  }
+
+  /**
+   * Checks whether a restaurant exists.
+   *
+   * @param id the restaurant id
+   * @return true if the restaurant exists
+   */
+  public boolean exists(UUID id) {
+    return find(id).isPresent();
+  }
+
+  /**
+   * Checks which of several restaurants exist.
+   *
+   * <p>Ids with a fresh entry are answered from memory; the rest are loaded with a single {@code
+   * IN} query and cached like {@link #find(UUID)} would.
+   *
+   * @param ids the restaurant ids
+   * @return the subset of {@code ids} that exist
+   */
+  public Set<UUID> existing(Collection<UUID> ids) {
+    long now = System.nanoTime();
+    Set<UUID> found = new HashSet<>();
+    Set<UUID> missing = new HashSet<>();
+    for (UUID id : ids) {
+      Entry e = entries.get(id);
+      if (e != null && now - e.loadedAtNanos < ttlNanos) {
+        hits.increment();
+        if (e.snapshot != null) {
+          found.add(id);
+        }
+      } else if (missing.add(id)) {
+        misses.increment();
+      }
+    }
+    if (missing.isEmpty()) {
+      return found;
+    }
+
+    long generation = invalidations.get();
+    Map<UUID, RestaurantEntity> loaded = new HashMap<>();
+    for (RestaurantEntity r :
+        ReplicaRoutingDataSource.onPrimary(() -> repository.findAllById(missing))) {
+      loaded.put(r.getId(), copy(r));
+    }
+    for (UUID id : missing) {
+      store(id, loaded.get(id), now, generation);
+    }
+    found.addAll(loaded.keySet());
+    return found;
+  }
+
+  /**
+   * Drops the cached entry for one restaurant on this node only.
+   *
+   * @param id the restaurant id
+   */
+  void evict(UUID id) {
+    invalidations.incrementAndGet();
+    entries.remove(id);
+  }
+
+  /** Drops every cached entry on this node. */
+  void clear() {
+    invalidations.incrementAndGet();
+    entries.clear();
+  }
+
+  /**
+   * Gets the number of cached restaurants.
+   *
+   * @return the number of entries
+   */
+  int size() {
+    return entries.size();
+  }
+
+  private void store(UUID id, RestaurantEntity snapshot, long nowNanos, long generation) {
+    // An invalidation that raced the load may mean the snapshot is already stale; serve it to this
+    // caller but do not cache it
+    if (maxEntries > 0 && invalidations.get() == generation) {
+      if (entries.size() >= maxEntries) {
+        evictExpired(nowNanos);
+      }
+      entries.put(id, new Entry(snapshot, nowNanos));
+    }
+  }
+
+  private void evictExpired(long nowNanos) {
+    entries.values().removeIf(e -> nowNanos - e.loadedAtNanos >= ttlNanos);
+    Iterator<UUID> it = entries.keySet().iterator();
+    while (entries.size() >= maxEntries && it.hasNext()) {
+      it.next();
+      it.remove();
+    }
+  }
+
+  // Entities returned by the repository may still be attached to the request's persistence
+  // context, so only a copy is safe to share between threads
+  private static RestaurantEntity copy(RestaurantEntity e) {
+    RestaurantEntity c = new RestaurantEntity();
+    c.setId(e.getId());
+    c.setName(e.getName());
+    c.setDescription(e.getDescription());
+    c.setAddress(e.getAddress());
+    c.setPhone(e.getPhone());
+    c.setEmail(e.getEmail());
+    c.setCuisineType(e.getCuisineType());
+    c.setOpeningHours(e.getOpeningHours());
+    c.setOwnerId(e.getOwnerId());
+    c.setActive(e.isActive());
+    c.setHomeRegion(e.getHomeRegion());
+    c.setCreatedAt(e.getCreatedAt());
+    c.setUpdatedAt(e.getUpdatedAt());
+    return c;
+  }
+
+  private static final class Entry {
+    private final RestaurantEntity snapshot;
+    private final long loadedAtNanos;
+
+    private Entry(RestaurantEntity snapshot, long loadedAtNanos) {
+      this.snapshot = snapshot;
+      this.loadedAtNanos = loadedAtNanos;
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package com.sweng.backend.restaurant;
+
+import com.sweng.backend.config.PgNotifications;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps {@link RestaurantCache} coherent across backend nodes using PostgreSQL LISTEN/NOTIFY.
+ *
+ * <p>A write evicts the restaurant locally and publishes its id on the {@value #CHANNEL} channel
+ * through {@link PgNotifications}. Every node, including the writer, evicts the ids it receives. If
+ * the listening connection drops, notifications may have been missed, so the whole cache is cleared
+ * when listening resumes. Invalidations are counted as {@code restaurant.cache.invalidations},
+ * tagged {@code source=local} for writes on this node and {@code source=notify} for notifications
+ * received. On other databases (the H2 test profile) only local eviction happens.
+ */
+@Component
+public class RestaurantCacheInvalidator {
+
+  /** Notification channel carrying invalidated restaurant ids. */
+  static final String CHANNEL = "restaurant_cache";
+
+  private final RestaurantCache cache;
+  private final PgNotifications notifications;
+  private final Counter localInvalidations;
+  private final Counter notifiedInvalidations;
+
+  /**
+   * Constructs the invalidator.
+   *
+   * @param cache the cache to keep coherent
+   * @param notifications the notification bus shared between nodes
+   * @param registry the registry for invalidation metrics
+   * @param listen whether to listen for invalidations from other nodes
+   */
+  public RestaurantCacheInvalidator(
+      RestaurantCache cache,
+      PgNotifications notifications,
+      MeterRegistry registry,
+      @Value("${restaurant.cache.listen:true}") boolean listen) {
+    this.cache = cache;
+    this.notifications = notifications;
+    this.localInvalidations = invalidations(registry, "local");
+    this.notifiedInvalidations = invalidations(registry, "notify");
+    if (listen) {
+      // Anything may have changed while we were not listening
+      notifications.listen(CHANNEL, this::onNotification, cache::clear);
+    }
+  }
+
+  private static Counter invalidations(MeterRegistry registry, String source) {
+    return Counter.builder("restaurant.cache.invalidations")
+        .description("Restaurant cache entries invalidated")
+        .tag("source", source)
+        .register(registry);
+  }
+
+  /**
+   * Evicts a restaurant on this node and notifies the other nodes. Call after the write commits.
+   *
+   * @param id the id of the restaurant that changed
+   */
+  public void invalidate(UUID id) {
+    cache.evict(id);
+    localInvalidations.increment();
+    // If this fails the write already happened; other nodes fall back to the TTL
+    notifications.publish(CHANNEL, id.toString());
+  }
+
+  private void onNotification(String payload) {
+    try {
+      cache.evict(UUID.fromString(payload));
+    } catch (IllegalArgumentException ex) {
+      cache.clear();
+    }
+    notifiedInvalidations.increment();
+  }
+}
@@ -1,5 +1,11 @@
 package com.sweng.backend.restaurant;
 
+import com.sweng.backend.auth.AuthenticatedUser;
+import com.sweng.backend.config.KeysetCursor;
+import com.sweng.backend.config.RegionForwarder;
+import com.sweng.backend.order.OrderEventHub;
+import com.sweng.backend.order.OrderRollups;
+import com.sweng.backend.order.dto.OrderStatsDto;
 import com.sweng.backend.restaurant.dto.CreateRestaurantRequest;
 import com.sweng.backend.restaurant.dto.RestaurantDto;
 import com.sweng.backend.restaurant.dto.RestaurantPageDto;
@@ -7,18 +13,25 @@ import com.sweng.backend.restaurant.dto.UpdateRestaurantRequest;
 import com.sweng.backend.user.UserRepository;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /** REST controller for restaurant CRUD endpoints. */
 @RestController
@@ -26,33 +39,70 @@ import org.springframework.web.server.ResponseStatusException;
 public class RestaurantController {
 
   private final RestaurantRepository repository;
+  private final RestaurantCache cache;
+  private final RestaurantCacheInvalidator invalidator;
   private final UserRepository userRepository;
+  private final OrderEventHub eventHub;
+  private final OrderRollups rollups;
+  private final RegionForwarder regions;
 
   /**
    * Creates a controller instance.
    *
    * @param repository the restaurant repository
+   * @param cache the read-through restaurant cache
+   * @param invalidator propagates restaurant changes to the caches on every node
    * @param userRepository the user repository
+   * @param eventHub streams order changes to subscribers
+   * @param rollups per-restaurant order counts and amounts
+   * @param regions this node's region and the regions restaurants may be homed in
    */
-  public RestaurantController(RestaurantRepository repository, UserRepository userRepository) {
+  public RestaurantController(
+      RestaurantRepository repository,
+      RestaurantCache cache,
+      RestaurantCacheInvalidator invalidator,
+      UserRepository userRepository,
+      OrderEventHub eventHub,
+      OrderRollups rollups,
+      RegionForwarder regions) {
     this.repository = repository;
+    this.cache = cache;
+    this.invalidator = invalidator;
     this.userRepository = userRepository;
+    this.eventHub = eventHub;
+    this.rollups = rollups;
+    this.regions = regions;
   }
 
-  private static final Set<String> ALLOWED_RESTAURANT_LIST_PARAMS = Set.of("page", "size");
+  private static final Set<String> ALLOWED_RESTAURANT_LIST_PARAMS =
+      Set.of("page", "size", "cursor", "includeTotal");
+
+  /** Keyset order for restaurant listings; id breaks ties between equal timestamps. */
+  private static final Sort KEYSET_ORDER =
+      Sort.by(Sort.Direction.DESC, "createdAt").and(Sort.by(Sort.Direction.DESC, "id"));
 
   /**
    * List restaurants with pagination.
    *
+   * <p>Supports both page-number paging and keyset paging: every response carries a {@code
+   * nextCursor} that can be passed back as {@code cursor} to seek directly to the following page.
+   * Counting the total is optional and off by default in cursor mode, so a cursor page is a single
+   * indexed range read. Reads from the read replica when one is configured and keeping up.
+   *
    * @param page the page number (0-indexed)
    * @param size the page size
+   * @param cursor optional opaque cursor returned as {@code nextCursor} by a previous call
+   * @param includeTotal whether to count the total; defaults to true without a cursor
    * @param request the HTTP request for parameter validation
    * @return paginated list of restaurants
    */
   @GetMapping
+  @Transactional(readOnly = true)
   public ResponseEntity<RestaurantPageDto> getRestaurants(
       @RequestParam(defaultValue = "0") int page,
       @RequestParam(defaultValue = "20") int size,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) Boolean includeTotal,
       HttpServletRequest request) {
 
     // Reject unknown query parameters and empty values
@@ -75,14 +125,50 @@ public class RestaurantController {
       throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid page/size");
     }
 
-    var pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt"));
-    var p = repository.findByIsActiveTrue(pageable);
+    KeysetCursor position = cursor != null ? parseCursorOr400(cursor) : null;
+    if (position != null && page != 0) {
+      throw new ResponseStatusException(
+          HttpStatus.BAD_REQUEST, "cursor cannot be combined with page");
+    }
+    boolean countTotal = includeTotal != null ? includeTotal : position == null;
+
+    List<RestaurantEntity> rows;
+    boolean hasNext;
+    Long totalElements = null;
+    Integer totalPages = null;
+
+    if (position != null) {
+      var s =
+          repository.findActiveAfter(
+              position.getCreatedAt(), position.getId(), PageRequest.of(0, size));
+      rows = s.getContent();
+      hasNext = s.hasNext();
+      if (countTotal) {
+        totalElements = repository.countByIsActiveTrue();
+        totalPages = (int) ((totalElements + size - 1) / size);
+      }
+    } else if (countTotal) {
+      var p = repository.findByIsActiveTrue(PageRequest.of(page, size, KEYSET_ORDER));
+      rows = p.getContent();
+      hasNext = p.hasNext();
+      totalElements = p.getTotalElements();
+      totalPages = p.getTotalPages();
+    } else {
+      var s = repository.findSliceByIsActiveTrue(PageRequest.of(page, size, KEYSET_ORDER));
+      rows = s.getContent();
+      hasNext = s.hasNext();
+    }
+
+    String nextCursor = null;
+    if (hasNext && !rows.isEmpty()) {
+      RestaurantEntity last = rows.get(rows.size() - 1);
+      nextCursor = KeysetCursor.after(last.getCreatedAt(), last.getId()).encode();
+    }
 
-    var content = p.getContent().stream().map(RestaurantController::toDto).toList();
+    var content = rows.stream().map(RestaurantController::toDto).toList();
 
     RestaurantPageDto dto =
-        new RestaurantPageDto(
-            content, p.getTotalElements(), p.getTotalPages(), p.getNumber(), p.getSize());
+        new RestaurantPageDto(content, totalElements, totalPages, page, size, nextCursor);
 
     return ResponseEntity.ok(dto);
   }
@@ -90,6 +176,9 @@ public class RestaurantController {
   /**
    * Create a new restaurant.
    *
+   * <p>Its orders are written in its home region, this node's unless the request names another
+   * region this node forwards to.
+   *
    * @param body the restaurant creation request
    * @return the created restaurant
    */
@@ -98,11 +187,20 @@ public class RestaurantController {
       @Valid @RequestBody CreateRestaurantRequest body) {
     String username = currentUsernameOr401();
 
-    var owner =
-        userRepository
-            .findByUsername(username)
-            .orElseThrow(
-                () -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User not found"));
+    UUID ownerId = AuthenticatedUser.uidOf(SecurityContextHolder.getContext().getAuthentication());
+    if (ownerId == null) {
+      ownerId =
+          userRepository
+              .findByUsername(username)
+              .orElseThrow(
+                  () -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User not found"))
+              .getUid();
+    }
+
+    String homeRegion = body.getHomeRegion() != null ? body.getHomeRegion() : regions.region();
+    if (!regions.isKnown(homeRegion)) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown homeRegion");
+    }
 
     RestaurantEntity e = new RestaurantEntity();
     e.setName(body.getName());
@@ -112,8 +210,9 @@ public class RestaurantController {
     e.setEmail(body.getEmail());
     e.setCuisineType(body.getCuisineType());
     e.setOpeningHours(body.getOpeningHours());
-    e.setOwnerId(owner.getUid());
+    e.setOwnerId(ownerId);
     e.setActive(true);
+    e.setHomeRegion(homeRegion);
 
     RestaurantEntity saved = repository.save(e);
     return ResponseEntity.status(HttpStatus.CREATED).body(toDto(saved));
@@ -132,6 +231,9 @@ public class RestaurantController {
   /**
    * Get a specific restaurant by ID.
    *
+   * <p>Served from the read-through cache, so a change made on another node is visible once its
+   * invalidation arrives, or at the latest after the cache TTL.
+   *
    * @param restaurantId the restaurant ID
    * @return the restaurant details
    */
@@ -139,13 +241,70 @@ public class RestaurantController {
   public ResponseEntity<RestaurantDto> getRestaurant(@PathVariable String restaurantId) {
     UUID id = parseUuidOr400(restaurantId);
     RestaurantEntity found =
-        repository
-            .findById(id)
+        cache
+            .find(id)
             .orElseThrow(
                 () -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Restaurant not found"));
     return ResponseEntity.ok(toDto(found));
   }
 
+  /**
+   * Stream changes to a restaurant's orders as Server-Sent Events.
+   *
+   * <p>Only ADMIN and RESTAURANT_OWNER users, who may view every order, can subscribe. See {@link
+   * OrderEventHub} for the event format, heartbeats and resuming with {@code Last-Event-ID}.
+   *
+   * @param restaurantId the restaurant ID
+   * @param lastEventId id of the last event received before reconnecting, if any
+   * @return the event stream
+   */
+  @GetMapping(path = "/{restaurantId}/orders/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamOrders(
+      @PathVariable String restaurantId,
+      @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+    currentUsernameOr401();
+    if (!hasAnyRole("ROLE_ADMIN", "ROLE_RESTAURANT_OWNER")) {
+      throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Forbidden");
+    }
+
+    UUID id = parseUuidOr400(restaurantId);
+    if (!cache.exists(id)) {
+      throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Restaurant not found");
+    }
+    return eventHub.subscribeRestaurant(id, lastEventId);
+  }
+
+  /**
+   * Get a restaurant's order statistics for one day.
+   *
+   * <p>Only ADMIN and RESTAURANT_OWNER users can read them. Served from {@link OrderRollups}, which
+   * are updated with every order write, so the cost does not grow with the number of orders.
+   *
+   * @param restaurantId the restaurant ID
+   * @param date optional UTC day as an ISO date; defaults to today
+   * @return order counts by status, revenue and average ticket size
+   */
+  @GetMapping("/{restaurantId}/stats")
+  public ResponseEntity<OrderStatsDto> getStats(
+      @PathVariable String restaurantId, @RequestParam(required = false) String date) {
+    currentUsernameOr401();
+    if (!hasAnyRole("ROLE_ADMIN", "ROLE_RESTAURANT_OWNER")) {
+      throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Forbidden");
+    }
+
+    UUID id = parseUuidOr400(restaurantId);
+    LocalDate day;
+    try {
+      day = date == null ? LocalDate.now(ZoneOffset.UTC) : LocalDate.parse(date);
+    } catch (DateTimeParseException ex) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid date");
+    }
+    if (!cache.exists(id)) {
+      throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Restaurant not found");
+    }
+    return ResponseEntity.ok(rollups.stats(id, day));
+  }
+
   /**
    * Handle PUT with empty restaurantId - return 405.
    *
@@ -186,6 +345,7 @@ public class RestaurantController {
     if (body.getIsActive() != null) found.setActive(body.getIsActive());
 
     RestaurantEntity saved = repository.save(found);
+    invalidator.invalidate(id);
     return ResponseEntity.ok(toDto(saved));
   }
 
@@ -216,6 +376,7 @@ public class RestaurantController {
     }
 
     repository.deleteById(id);
+    invalidator.invalidate(id);
     return ResponseEntity.noContent().build();
   }
 
@@ -227,6 +388,14 @@ public class RestaurantController {
     }
   }
 
+  private static KeysetCursor parseCursorOr400(String raw) {
+    try {
+      return KeysetCursor.decode(raw);
+    } catch (IllegalArgumentException ex) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+    }
+  }
+
   private static String currentUsernameOr401() {
     var auth = SecurityContextHolder.getContext().getAuthentication();
     if (auth == null || !auth.isAuthenticated() || auth.getPrincipal() == null) {
@@ -241,7 +410,23 @@ public class RestaurantController {
     return username;
   }
 
-  private static RestaurantDto toDto(RestaurantEntity e) {
+  private static boolean hasAnyRole(String... roles) {
+    var auth = SecurityContextHolder.getContext().getAuthentication();
+    for (GrantedAuthority a : auth.getAuthorities()) {
+      for (String role : roles) {
+        if (role.equals(a.getAuthority())) return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Maps a restaurant entity to its API representation.
+   *
+   * @param e the restaurant entity
+   * @return the restaurant DTO
+   */
+  static RestaurantDto toDto(RestaurantEntity e) {
     RestaurantDto dto = new RestaurantDto();
     dto.setId(e.getId().toString());
     dto.setName(e.getName());
@@ -253,6 +438,7 @@ public class RestaurantController {
     dto.setOpeningHours(e.getOpeningHours());
     dto.setOwnerId(e.getOwnerId().toString());
     dto.setIsActive(e.isActive());
+    dto.setHomeRegion(e.getHomeRegion());
     dto.setCreatedAt(OffsetDateTime.ofInstant(e.getCreatedAt(), ZoneOffset.UTC));
     dto.setUpdatedAt(OffsetDateTime.ofInstant(e.getUpdatedAt(), ZoneOffset.UTC));
     return dto;
@@ -1,19 +1,28 @@
 package com.sweng.backend.restaurant;
 
+import com.sweng.backend.config.UuidV7;
 import jakarta.persistence.*;
 import java.time.Instant;
 import java.util.UUID;
-import org.hibernate.annotations.JdbcTypeCode;
-import org.hibernate.type.SqlTypes;
 
 /**
  * JPA entity representing a restaurant in the system.
  *
  * <p>This entity maps to the {@code restaurants} table and stores business information such as
  * name, address, contact details, ownership, and lifecycle timestamps.
+ *
+ * <p>The schema is owned by the Flyway migrations in {@code db/migration}, where the listing index
+ * is partial on {@code is_active}. The index declared here is its closest equivalent for schemas
+ * generated from the mappings (the H2 test profile).
  */
 @Entity
-@Table(name = "restaurants")
+@Table(
+    name = "restaurants",
+    indexes = {
+      @Index(
+          name = "idx_restaurants_active_created",
+          columnList = "is_active, created_at DESC, id DESC")
+    })
 public class RestaurantEntity {
 
   /** Default constructor for JPA. */
@@ -21,7 +30,6 @@ public class RestaurantEntity {
 
   /** Unique identifier for the restaurant (UUID primary key). */
   @Id
-  @JdbcTypeCode(SqlTypes.VARCHAR)
   @Column(nullable = false, updatable = false)
   private UUID id;
 
@@ -54,7 +62,6 @@ public class RestaurantEntity {
   private String openingHours;
 
   /** UUID of the user who owns the restaurant. */
-  @JdbcTypeCode(SqlTypes.VARCHAR)
   @Column(nullable = false)
   private UUID ownerId;
 
@@ -62,6 +69,13 @@ public class RestaurantEntity {
   @Column(nullable = false)
   private boolean isActive = true;
 
+  /**
+   * Region whose database the restaurant's orders are written to, or null to write them wherever
+   * they are received (restaurants from before home regions).
+   */
+  @Column(length = 64, updatable = false)
+  private String homeRegion;
+
   /** Timestamp when the restaurant was created. */
   @Column(nullable = false, updatable = false)
   private Instant createdAt;
@@ -70,6 +84,14 @@ public class RestaurantEntity {
   @Column(nullable = false)
   private Instant updatedAt;
 
+  /**
+   * Version of the restaurant's menu, incremented by every menu change.
+   *
+   * <p>Only ever changed by the menu's own update query, never by saving the restaurant.
+   */
+  @Column(nullable = false, updatable = false)
+  private long menuVersion;
+
   /**
    * Lifecycle callback triggered before the entity is first persisted. Initializes ID and
    * timestamps.
@@ -77,7 +99,7 @@ public class RestaurantEntity {
   @PrePersist
   void onCreate() {
     if (id == null) {
-      id = UUID.randomUUID();
+      id = UuidV7.generate();
     }
     Instant now = Instant.now();
     createdAt = now;
@@ -273,6 +295,24 @@ public class RestaurantEntity {
     isActive = active;
   }
 
+  /**
+   * Gets the home region.
+   *
+   * @return the region the restaurant's orders are written in, or null if it has none
+   */
+  public String getHomeRegion() {
+    return homeRegion;
+  }
+
+  /**
+   * Sets the home region. Only takes effect when the restaurant is first saved.
+   *
+   * @param homeRegion the region the restaurant's orders are written in
+   */
+  public void setHomeRegion(String homeRegion) {
+    this.homeRegion = homeRegion;
+  }
+
   /**
    * Gets the creation timestamp.
    *
@@ -308,4 +348,13 @@ public class RestaurantEntity {
   public void setUpdatedAt(Instant updatedAt) {
     this.updatedAt = updatedAt;
   }
+
+  /**
+   * Gets the menu version.
+   *
+   * @return the menu version
+   */
+  public long getMenuVersion() {
+    return menuVersion;
+  }
 }
@@ -1,9 +1,13 @@
 package com.sweng.backend.restaurant;
 
+import java.time.Instant;
 import java.util.UUID;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 /** Spring Data JPA repository for {@link RestaurantEntity}. */
 public interface RestaurantRepository extends JpaRepository<RestaurantEntity, UUID> {
@@ -15,4 +19,38 @@ public interface RestaurantRepository extends JpaRepository<RestaurantEntity, UU
    * @return page of active restaurants
    */
   Page<RestaurantEntity> findByIsActiveTrue(Pageable pageable);
+
+  /**
+   * Finds active restaurants using pagination without counting the total.
+   *
+   * @param pageable paging + sorting configuration
+   * @return slice of active restaurants
+   */
+  Slice<RestaurantEntity> findSliceByIsActiveTrue(Pageable pageable);
+
+  /**
+   * Finds active restaurants strictly after a keyset position in {@code (createdAt DESC, id DESC)}
+   * order.
+   *
+   * @param createdAt creation timestamp of the last restaurant seen
+   * @param id ID of the last restaurant seen
+   * @param pageable page size; the offset is always zero
+   * @return slice of active restaurants following the position
+   */
+  @Query(
+      """
+      select r from RestaurantEntity r
+      where r.isActive = true
+        and (r.createdAt < :createdAt or (r.createdAt = :createdAt and r.id < :id))
+      order by r.createdAt desc, r.id desc
+      """)
+  Slice<RestaurantEntity> findActiveAfter(
+      @Param("createdAt") Instant createdAt, @Param("id") UUID id, Pageable pageable);
+
+  /**
+   * Counts active restaurants.
+   *
+   * @return number of active restaurants
+   */
+  long countByIsActiveTrue();
 }
@@ -29,6 +29,9 @@ public class CreateRestaurantRequest {
   @Size(max = 100)
   private String openingHours;
 
+  @Size(max = 64)
+  private String homeRegion;
+
   /** Default constructor for deserialization. */
   public CreateRestaurantRequest() {}
 
@@ -157,4 +160,22 @@ public class CreateRestaurantRequest {
   public void setOpeningHours(String openingHours) {
     this.openingHours = openingHours;
   }
+
+  /**
+   * Gets the home region.
+   *
+   * @return the region the restaurant's orders are written in, or null for the receiving node's
+   */
+  public String getHomeRegion() {
+    return homeRegion;
+  }
+
+  /**
+   * Sets the home region.
+   *
+   * @param homeRegion the region the restaurant's orders are written in
+   */
+  public void setHomeRegion(String homeRegion) {
+    this.homeRegion = homeRegion;
+  }
 }
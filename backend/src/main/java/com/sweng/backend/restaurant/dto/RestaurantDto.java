@@ -14,6 +14,7 @@ public class RestaurantDto {
   private String openingHours;
   private String ownerId;
   private Boolean isActive;
+  private String homeRegion;
   private OffsetDateTime createdAt;
   private OffsetDateTime updatedAt;
 
@@ -200,6 +201,24 @@ public class RestaurantDto {
     isActive = active;
   }
 
+  /**
+   * Gets the home region.
+   *
+   * @return the region the restaurant's orders are written in, or null if it has none
+   */
+  public String getHomeRegion() {
+    return homeRegion;
+  }
+
+  /**
+   * Sets the home region.
+   *
+   * @param homeRegion the region the restaurant's orders are written in
+   */
+  public void setHomeRegion(String homeRegion) {
+    this.homeRegion = homeRegion;
+  }
+
   /**
    * Gets the creation timestamp.
    *
@@ -2,14 +2,20 @@ package com.sweng.backend.restaurant.dto;
 
 import java.util.List;
 
-/** DTO representing a paginated list of restaurants. */
+/**
+ * DTO representing a paginated list of restaurants.
+ *
+ * <p>{@code totalElements} and {@code totalPages} are null when the caller opted out of counting.
+ * {@code nextCursor} is null on the last page.
+ */
 public class RestaurantPageDto {
 
   private List<RestaurantDto> content;
-  private long totalElements;
-  private int totalPages;
+  private Long totalElements;
+  private Integer totalPages;
   private int number;
   private int size;
+  private String nextCursor;
 
   /** Default constructor for serialization. */
   public RestaurantPageDto() {}
@@ -18,18 +24,25 @@ public class RestaurantPageDto {
    * Constructs a page DTO with all fields.
    *
    * @param content the list of restaurants
-   * @param totalElements the total number of elements
-   * @param totalPages the total number of pages
+   * @param totalElements the total number of elements, or null if not counted
+   * @param totalPages the total number of pages, or null if not counted
    * @param number the current page number
    * @param size the page size
+   * @param nextCursor the cursor for the next page, or null on the last page
    */
   public RestaurantPageDto(
-      List<RestaurantDto> content, long totalElements, int totalPages, int number, int size) {
+      List<RestaurantDto> content,
+      Long totalElements,
+      Integer totalPages,
+      int number,
+      int size,
+      String nextCursor) {
     this.content = content;
     this.totalElements = totalElements;
     this.totalPages = totalPages;
     this.number = number;
     this.size = size;
+    this.nextCursor = nextCursor;
   }
 
   /**
@@ -53,9 +66,9 @@ public class RestaurantPageDto {
   /**
    * Gets the total number of elements.
    *
-   * @return the total number of elements
+   * @return the total number of elements, or null if not counted
    */
-  public long getTotalElements() {
+  public Long getTotalElements() {
     return totalElements;
   }
 
@@ -64,16 +77,16 @@ public class RestaurantPageDto {
    *
    * @param totalElements the total number of elements to set
    */
-  public void setTotalElements(long totalElements) {
+  public void setTotalElements(Long totalElements) {
     this.totalElements = totalElements;
   }
 
   /**
    * Gets the total number of pages.
    *
-   * @return the total number of pages
+   * @return the total number of pages, or null if not counted
    */
-  public int getTotalPages() {
+  public Integer getTotalPages() {
     return totalPages;
   }
 
@@ -82,7 +95,7 @@ public class RestaurantPageDto {
    *
    * @param totalPages the total number of pages to set
    */
-  public void setTotalPages(int totalPages) {
+  public void setTotalPages(Integer totalPages) {
     this.totalPages = totalPages;
   }
 
@@ -121,4 +134,22 @@ public class RestaurantPageDto {
   public void setSize(int size) {
     this.size = size;
   }
+
+  /**
+   * Gets the cursor for the next page.
+   *
+   * @return the next cursor, or null on the last page
+   */
+  public String getNextCursor() {
+    return nextCursor;
+  }
+
+  /**
+   * Sets the cursor for the next page.
+   *
+   * @param nextCursor the next cursor to set
+   */
+  public void setNextCursor(String nextCursor) {
+    this.nextCursor = nextCursor;
+  }
 }
@@ -3,8 +3,6 @@ package com.sweng.backend.user;
 import jakarta.persistence.*;
 import java.time.OffsetDateTime;
 import java.util.UUID;
-import org.hibernate.annotations.JdbcTypeCode;
-import org.hibernate.type.SqlTypes;
 
 /** Entity representing a user in the system. */
 @Entity
@@ -12,7 +10,6 @@ import org.hibernate.type.SqlTypes;
 public class User {
 
   @Id
-  @JdbcTypeCode(SqlTypes.VARCHAR)
   @Column(nullable = false, updatable = false)
   private UUID uid;
 
@@ -1,7 +1,7 @@
 package com.sweng.backend.user;
 
+import com.sweng.backend.config.UuidV7;
 import java.time.OffsetDateTime;
-import java.util.UUID;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -41,7 +41,7 @@ public class UserService {
 
     String hashedPassword = passwordEncoder.encode(password);
 
-    User user = new User(UUID.randomUUID(), username, email, hashedPassword, OffsetDateTime.now());
+    User user = new User(UuidV7.generate(), username, email, hashedPassword, OffsetDateTime.now());
 
     // Default role per OpenAPI spec: CUSTOMER
     user.getRoles().add(Role.CUSTOMER);
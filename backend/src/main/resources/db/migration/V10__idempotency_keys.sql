@@ -0,0 +1,21 @@
+-- Idempotency keys for order creation.
+--
+-- POST /api/orders with an Idempotency-Key header reserves the key here, together with the id the
+-- order will get, before creating the order, and stores the created order as the key's response.
+-- Retries find the row and get that response back. locked_until is the reservation's lease: a key
+-- still unanswered after it can be taken over, and the reserved order_id tells whether the order
+-- had been created. Keys are deleted once expires_at has passed. On Citus the table stays local to
+-- the coordinator.
+
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    scope           varchar(255) NOT NULL,
+    idempotency_key varchar(255) NOT NULL,
+    fingerprint     varchar(64)  NOT NULL,
+    order_id        uuid         NOT NULL,
+    response        text,
+    locked_until    timestamptz,
+    expires_at      timestamptz  NOT NULL,
+    PRIMARY KEY (scope, idempotency_key)
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_expires ON idempotency_keys (expires_at);
@@ -0,0 +1,52 @@
+-- Distributes orders and their rollups by a shard key derived from the restaurant.
+--
+-- V4 distributed orders by id, so every query for a restaurant's orders, and every order write
+-- with its rollup update, spanned several shards. Both tables now carry shard_key, one of 4096
+-- buckets taken from the last three hex digits of restaurant_id (OrderShards), and are distributed
+-- by it and co-located: a restaurant's orders and rollups live on one shard, and an order write
+-- and its rollup update run there in one local transaction. Order items are stored on the order
+-- row (V2), so they move with it. New order ids carry their shard key, which lets a single order be
+-- routed from its id; orders created before this migration are found by searching every shard.
+-- users, user_roles, restaurants and menu_items stay reference tables (V4, V9).
+--
+-- Citus requires the distribution column in every unique constraint, so it joins the primary
+-- keys. id stays the leading column, so lookups by id alone still use the index.
+
+DO $$
+DECLARE
+    citus boolean := EXISTS (SELECT 1 FROM pg_extension WHERE extname = 'citus');
+    orders_pk name;
+BEGIN
+    -- Nested so that pg_dist_partition is only referenced when Citus is installed
+    IF citus THEN
+        IF EXISTS (SELECT 1 FROM pg_dist_partition WHERE logicalrelid = 'order_rollups'::regclass) THEN
+            PERFORM undistribute_table('order_rollups');
+        END IF;
+        IF EXISTS (SELECT 1 FROM pg_dist_partition WHERE logicalrelid = 'orders'::regclass) THEN
+            PERFORM undistribute_table('orders');
+        END IF;
+    END IF;
+
+    ALTER TABLE orders ADD COLUMN IF NOT EXISTS shard_key integer;
+    UPDATE orders SET shard_key = ('x' || right(restaurant_id::text, 3))::bit(12)::integer;
+    ALTER TABLE orders ALTER COLUMN shard_key SET NOT NULL;
+    -- V1 names it pk_orders, but databases that ddl-auto created before V1 keep orders_pkey
+    SELECT conname INTO orders_pk
+    FROM pg_constraint WHERE conrelid = 'orders'::regclass AND contype = 'p';
+    EXECUTE format('ALTER TABLE orders DROP CONSTRAINT %I', orders_pk);
+    ALTER TABLE orders ADD CONSTRAINT pk_orders PRIMARY KEY (id, shard_key);
+
+    ALTER TABLE order_rollups ADD COLUMN IF NOT EXISTS shard_key integer;
+    UPDATE order_rollups SET shard_key = ('x' || right(restaurant_id::text, 3))::bit(12)::integer;
+    ALTER TABLE order_rollups ALTER COLUMN shard_key SET NOT NULL;
+    ALTER TABLE order_rollups DROP CONSTRAINT order_rollups_pkey;
+    ALTER TABLE order_rollups
+        ADD CONSTRAINT order_rollups_pkey
+        PRIMARY KEY (restaurant_id, order_day, status, stripe, shard_key);
+
+    IF citus THEN
+        PERFORM create_distributed_table('orders', 'shard_key');
+        PERFORM create_distributed_table('order_rollups', 'shard_key', colocate_with => 'orders');
+    END IF;
+END
+$$;
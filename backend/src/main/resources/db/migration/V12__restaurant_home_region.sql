@@ -0,0 +1,6 @@
+-- Gives restaurants a home region: the region whose backends write the restaurant's orders, into
+-- that region's database. Other regions forward those writes to it (RegionForwarder). Existing
+-- restaurants have none and keep having their orders written wherever they are received.
+-- restaurants stays a reference table, so every region can look up where to send a write.
+
+ALTER TABLE restaurants ADD COLUMN IF NOT EXISTS home_region varchar(64);
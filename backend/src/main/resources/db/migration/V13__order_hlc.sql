@@ -0,0 +1,8 @@
+-- Stamps order writes with a hybrid logical clock (HybridLogicalClock): hlc is the timestamp of the
+-- last write to the order, contents_hlc that of the last change to its contents (customer name and
+-- email, special instructions, items and total). Versions of an order written in different regions
+-- are merged with them: status only moves forward, contents are last writer wins by contents_hlc.
+-- Existing orders start at zero and are stamped by their next write.
+
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS hlc bigint NOT NULL DEFAULT 0;
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS contents_hlc bigint NOT NULL DEFAULT 0;
@@ -0,0 +1,7 @@
+-- Webhook deliveries of order_outbox events are claimed with a lease instead of a row lock held
+-- for the whole POST: OrderOutboxRelay sets forward_lease_until in one short transaction, POSTs
+-- the events with no transaction open, and sets forwarded_at in another. Other relays skip leased
+-- events until the lease runs out, so the events of a relay that died mid-delivery are picked up
+-- again.
+
+ALTER TABLE order_outbox ADD COLUMN IF NOT EXISTS forward_lease_until timestamptz;
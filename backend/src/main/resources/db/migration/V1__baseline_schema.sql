@@ -0,0 +1,53 @@
+-- Baseline schema, matching the JPA mappings.
+--
+-- Uses IF NOT EXISTS throughout so that it also applies cleanly to databases that were created by
+-- Hibernate's ddl-auto before migrations existed.
+
+CREATE TABLE IF NOT EXISTS users (
+    uid           varchar(36)              NOT NULL,
+    username      varchar(50)              NOT NULL,
+    email         varchar(120)             NOT NULL,
+    password_hash varchar(255)             NOT NULL,
+    created_at    timestamp(6) with time zone NOT NULL,
+    CONSTRAINT pk_users PRIMARY KEY (uid),
+    CONSTRAINT uk_users_username UNIQUE (username),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE IF NOT EXISTS user_roles (
+    user_id varchar(36)  NOT NULL,
+    role    varchar(255) CHECK (role IN ('CUSTOMER', 'RESTAURANT_OWNER', 'ADMIN')),
+    CONSTRAINT fk_user_roles_user FOREIGN KEY (user_id) REFERENCES users (uid)
+);
+
+CREATE TABLE IF NOT EXISTS restaurants (
+    id            varchar(36)  NOT NULL,
+    name          varchar(100) NOT NULL,
+    description   varchar(500),
+    address       varchar(200) NOT NULL,
+    phone         varchar(255),
+    email         varchar(255),
+    cuisine_type  varchar(255),
+    opening_hours varchar(255),
+    owner_id      varchar(36)  NOT NULL,
+    is_active     boolean,
+    created_at    timestamp(6) with time zone,
+    updated_at    timestamp(6) with time zone,
+    CONSTRAINT pk_restaurants PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS orders (
+    id                   varchar(36)   NOT NULL,
+    restaurant_id        varchar(36)   NOT NULL,
+    customer_id          varchar(36),
+    customer_name        varchar(100),
+    customer_email       varchar(255),
+    status               varchar(20)   NOT NULL
+        CHECK (status IN ('pending', 'preparing', 'ready', 'completed', 'cancelled')),
+    total_amount         numeric(12, 2) NOT NULL,
+    special_instructions varchar(500),
+    items                jsonb         NOT NULL,
+    created_at           timestamp(6) with time zone NOT NULL,
+    updated_at           timestamp(6) with time zone NOT NULL,
+    CONSTRAINT pk_orders PRIMARY KEY (id)
+);
@@ -0,0 +1,32 @@
+-- Moves the order_items collection table into the orders.items JSONB document.
+--
+-- Only databases created before items moved onto the orders row still have order_items; on
+-- anything newer this is a no-op. Orders that already carry a non-empty document are left alone.
+
+DO $$
+BEGIN
+    IF to_regclass('order_items') IS NULL THEN
+        RETURN;
+    END IF;
+
+    ALTER TABLE orders ADD COLUMN IF NOT EXISTS items jsonb;
+
+    UPDATE orders o
+    SET items = coalesce(
+        (SELECT jsonb_agg(
+                    jsonb_build_object(
+                        'itemId', i.item_id,
+                        'name', i.name,
+                        'quantity', i.quantity,
+                        'unitPrice', i.unit_price,
+                        'subtotal', i.subtotal))
+         FROM order_items i
+         WHERE i.order_id = o.id),
+        '[]'::jsonb)
+    WHERE o.items IS NULL OR o.items = '[]'::jsonb;
+
+    ALTER TABLE orders ALTER COLUMN items SET NOT NULL;
+
+    DROP TABLE order_items;
+END
+$$;
@@ -0,0 +1,32 @@
+-- Secondary indexes for the hot queries.
+--
+-- Order and restaurant listings page by (created_at DESC, id DESC), so every listing index ends
+-- in those columns and a page is a single index range scan whatever the filter. Indexes that
+-- Hibernate's ddl-auto created under the same names with other definitions are replaced.
+
+-- GET /api/orders?restaurantId=...&status=...
+DROP INDEX IF EXISTS idx_orders_restaurant_status_created;
+CREATE INDEX idx_orders_restaurant_status_created
+    ON orders (restaurant_id, status, created_at DESC, id DESC);
+
+-- GET /api/orders?restaurantId=... (restaurant owners without a status filter)
+CREATE INDEX IF NOT EXISTS idx_orders_restaurant_created
+    ON orders (restaurant_id, created_at DESC, id DESC);
+
+-- GET /api/orders as a customer (always filtered to their own orders)
+DROP INDEX IF EXISTS idx_orders_customer_created;
+CREATE INDEX idx_orders_customer_created
+    ON orders (customer_id, created_at DESC, id DESC);
+
+-- GET /api/orders as an admin without filters
+CREATE INDEX IF NOT EXISTS idx_orders_created
+    ON orders (created_at DESC, id DESC);
+
+-- GET /api/restaurants only ever lists active restaurants
+DROP INDEX IF EXISTS idx_restaurants_active_created;
+CREATE INDEX idx_restaurants_active_created
+    ON restaurants (created_at DESC, id DESC)
+    WHERE is_active;
+
+-- Role lookups on login and in CustomUserDetailsService
+CREATE INDEX IF NOT EXISTS idx_user_roles_user ON user_roles (user_id);
@@ -0,0 +1,29 @@
+-- Citus table distribution.
+--
+-- Skipped on plain PostgreSQL (local development). On the cluster:
+--   * users, user_roles and restaurants are small, read on almost every request and joined
+--     against, so they become reference tables replicated to every worker.
+--   * orders is the only table that grows with traffic and is hash-distributed. Its primary key is
+--     id alone, and Citus requires the distribution column in every unique constraint, so it is
+--     distributed by id.
+
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_extension WHERE extname = 'citus') THEN
+        RETURN;
+    END IF;
+
+    IF NOT EXISTS (SELECT 1 FROM pg_dist_partition WHERE logicalrelid = 'users'::regclass) THEN
+        PERFORM create_reference_table('users');
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM pg_dist_partition WHERE logicalrelid = 'user_roles'::regclass) THEN
+        PERFORM create_reference_table('user_roles');
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM pg_dist_partition WHERE logicalrelid = 'restaurants'::regclass) THEN
+        PERFORM create_reference_table('restaurants');
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM pg_dist_partition WHERE logicalrelid = 'orders'::regclass) THEN
+        PERFORM create_distributed_table('orders', 'id');
+    END IF;
+END
+$$;
@@ -0,0 +1,38 @@
+-- Stores every key as a native 16-byte uuid instead of a 36-character string.
+--
+-- Existing values are canonical lowercase UUID text, so they cast losslessly, and uuid sorts in the
+-- same order as that text, which keeps keyset cursors issued before the change valid. Indexes are
+-- rebuilt by the type change. On Citus the distribution column cannot change type in place, so
+-- orders is undistributed for the conversion and distributed again afterwards.
+
+DO $$
+DECLARE
+    citus boolean := EXISTS (SELECT 1 FROM pg_extension WHERE extname = 'citus');
+BEGIN
+    -- Nested so that pg_dist_partition is only referenced when Citus is installed
+    IF citus THEN
+        IF EXISTS (SELECT 1 FROM pg_dist_partition WHERE logicalrelid = 'orders'::regclass) THEN
+            PERFORM undistribute_table('orders');
+        END IF;
+    END IF;
+
+    ALTER TABLE user_roles DROP CONSTRAINT IF EXISTS fk_user_roles_user;
+
+    ALTER TABLE users ALTER COLUMN uid TYPE uuid USING uid::uuid;
+    ALTER TABLE user_roles ALTER COLUMN user_id TYPE uuid USING user_id::uuid;
+
+    ALTER TABLE restaurants ALTER COLUMN id TYPE uuid USING id::uuid;
+    ALTER TABLE restaurants ALTER COLUMN owner_id TYPE uuid USING owner_id::uuid;
+
+    ALTER TABLE orders ALTER COLUMN id TYPE uuid USING id::uuid;
+    ALTER TABLE orders ALTER COLUMN restaurant_id TYPE uuid USING restaurant_id::uuid;
+    ALTER TABLE orders ALTER COLUMN customer_id TYPE uuid USING customer_id::uuid;
+
+    ALTER TABLE user_roles
+        ADD CONSTRAINT fk_user_roles_user FOREIGN KEY (user_id) REFERENCES users (uid);
+
+    IF citus THEN
+        PERFORM create_distributed_table('orders', 'id');
+    END IF;
+END
+$$;
@@ -0,0 +1,4 @@
+-- Optimistic lock version for orders. Status changes bump it with a conditional UPDATE and clients
+-- send it back in If-Match, so concurrent updates no longer overwrite each other. Adding a column
+-- with a constant default does not rewrite the table, and Citus propagates it to the shards.
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS version bigint NOT NULL DEFAULT 0;
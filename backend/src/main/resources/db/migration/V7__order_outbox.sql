@@ -0,0 +1,33 @@
+-- Transactional outbox for order events.
+--
+-- Every order write inserts its event here in the same transaction, and OrderOutboxRelay hands
+-- the events to the event streams (published_at) and, when configured, to the webhook
+-- (forwarded_at). Relays on every backend claim rows with FOR UPDATE SKIP LOCKED, so they share
+-- the work without waiting on each other, and delete rows once both deliveries are done and the
+-- retention has passed. The partial indexes only hold undelivered rows, so they stay small however
+-- many events go through. On Citus the table stays local to the coordinator.
+
+CREATE TABLE IF NOT EXISTS order_outbox (
+    id            uuid         PRIMARY KEY,
+    type          varchar(16)  NOT NULL,
+    order_id      uuid         NOT NULL,
+    restaurant_id uuid         NOT NULL,
+    customer_id   uuid,
+    status        varchar(20)  NOT NULL,
+    version       bigint,
+    created_at    timestamptz  NOT NULL,
+    published_at  timestamptz,
+    forwarded_at  timestamptz
+);
+
+CREATE INDEX IF NOT EXISTS idx_order_outbox_unpublished
+    ON order_outbox (id)
+    WHERE published_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_order_outbox_unforwarded
+    ON order_outbox (id)
+    WHERE forwarded_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_order_outbox_published
+    ON order_outbox (published_at)
+    WHERE published_at IS NOT NULL;
@@ -0,0 +1,37 @@
+-- Per-restaurant order rollups: order count and total amount by restaurant, UTC day of order
+-- creation and status.
+--
+-- Order writes adjust these rows in the same transaction (OrderRollups), so restaurant stats are
+-- read from a handful of rows instead of scanning orders. Each (restaurant, day, status) is split
+-- into stripes and a transaction adds to one stripe picked at random, so concurrent orders for one
+-- busy restaurant do not all queue on the same row lock; readers sum the stripes. On Citus the
+-- table is distributed by restaurant_id, so a restaurant's rollups live on one shard.
+
+CREATE TABLE IF NOT EXISTS order_rollups (
+    restaurant_id uuid           NOT NULL,
+    order_day     date           NOT NULL,
+    status        varchar(20)    NOT NULL,
+    stripe        smallint       NOT NULL,
+    order_count   bigint         NOT NULL,
+    total_amount  numeric(14, 2) NOT NULL,
+    PRIMARY KEY (restaurant_id, order_day, status, stripe)
+);
+
+-- Existing orders start out in stripe 0
+INSERT INTO order_rollups (restaurant_id, order_day, status, stripe, order_count, total_amount)
+SELECT restaurant_id, (created_at AT TIME ZONE 'UTC')::date, status, 0, count(*), sum(total_amount)
+FROM orders
+GROUP BY restaurant_id, (created_at AT TIME ZONE 'UTC')::date, status
+ON CONFLICT DO NOTHING;
+
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_extension WHERE extname = 'citus') THEN
+        RETURN;
+    END IF;
+
+    IF NOT EXISTS (SELECT 1 FROM pg_dist_partition WHERE logicalrelid = 'order_rollups'::regclass) THEN
+        PERFORM create_distributed_table('order_rollups', 'restaurant_id');
+    END IF;
+END
+$$;
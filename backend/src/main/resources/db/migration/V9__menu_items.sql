@@ -0,0 +1,34 @@
+-- Menu items, priced from when orders are created.
+--
+-- Orders are priced from an in-memory snapshot of each restaurant's menu (MenuPriceIndex), so the
+-- table is only read when a snapshot is rebuilt. Every menu change increments the restaurant's
+-- menu_version in the same transaction; the version labels snapshots, so nodes can tell a stale one
+-- apart, and serializes concurrent changes to one menu. Like restaurants, menus are small and read
+-- everywhere, so on Citus they become a reference table.
+
+ALTER TABLE restaurants ADD COLUMN IF NOT EXISTS menu_version bigint NOT NULL DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS menu_items (
+    id            uuid           PRIMARY KEY,
+    restaurant_id uuid           NOT NULL REFERENCES restaurants (id) ON DELETE CASCADE,
+    name          varchar(100)   NOT NULL,
+    description   varchar(500),
+    price         numeric(10, 2) NOT NULL CHECK (price >= 0),
+    available     boolean        NOT NULL DEFAULT true,
+    created_at    timestamptz    NOT NULL,
+    updated_at    timestamptz    NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_menu_items_restaurant ON menu_items (restaurant_id);
+
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_extension WHERE extname = 'citus') THEN
+        RETURN;
+    END IF;
+
+    IF NOT EXISTS (SELECT 1 FROM pg_dist_partition WHERE logicalrelid = 'menu_items'::regclass) THEN
+        PERFORM create_reference_table('menu_items');
+    END IF;
+END
+$$;
@@ -0,0 +1,134 @@
+package com.sweng.backend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.sweng.backend.restaurant.RestaurantEntity;
+import com.sweng.backend.restaurant.RestaurantRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Throughput of a database-backed endpoint at increasing client concurrency.
+ *
+ * <p>Tagged {@code load} and run with {@code gradle loadTest}, once with requests on the platform
+ * thread pool and once on virtual threads, so the two modes can be compared.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+abstract class ConcurrencyLoadIT {
+
+  @TestPropertySource(properties = "spring.threads.virtual.enabled=false")
+  static class PlatformThreadsIT extends ConcurrencyLoadIT {}
+
+  @TestPropertySource(properties = "spring.threads.virtual.enabled=true")
+  static class VirtualThreadsIT extends ConcurrencyLoadIT {}
+
+  private static final int REQUESTS_PER_LEVEL = 20_000;
+
+  @LocalServerPort int port;
+
+  @Value("${spring.threads.virtual.enabled}")
+  boolean virtualThreads;
+
+  @Autowired RestaurantRepository restaurantRepository;
+  @Autowired MeterRegistry meterRegistry;
+
+  private final HttpClient client = HttpClient.newBuilder().build();
+
+  @BeforeEach
+  void seed() {
+    if (restaurantRepository.count() > 0) {
+      return;
+    }
+    List<RestaurantEntity> rows = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      RestaurantEntity r = new RestaurantEntity();
+      r.setName("Load " + i);
+      r.setAddress(i + " Load Street");
+      r.setOwnerId(UUID.randomUUID());
+      r.setActive(true);
+      rows.add(r);
+    }
+    restaurantRepository.saveAll(rows);
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {16, 256, 2048})
+  void listRestaurants_underConcurrency(int concurrency) throws Exception {
+    URI uri =
+        URI.create("http://localhost:" + port + "/api/restaurants?size=20&includeTotal=false");
+    HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+    int perClient = REQUESTS_PER_LEVEL / concurrency;
+    AtomicInteger failures = new AtomicInteger();
+
+    Timer gateWait = meterRegistry.get("db.admission.wait").timer();
+    long gateCountBefore = gateWait.count();
+    double gateTotalBefore = gateWait.totalTime(TimeUnit.MILLISECONDS);
+
+    long start = System.nanoTime();
+    try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int c = 0; c < concurrency; c++) {
+        futures.add(
+            clients.submit(
+                () -> {
+                  for (int i = 0; i < perClient; i++) {
+                    try {
+                      if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode()
+                          != 200) {
+                        failures.incrementAndGet();
+                      }
+                    } catch (Exception ex) {
+                      failures.incrementAndGet();
+                    }
+                  }
+                  return null;
+                }));
+      }
+      for (Future<?> f : futures) {
+        f.get();
+      }
+    }
+    double seconds = (System.nanoTime() - start) / 1e9;
+
+    long gateCount = gateWait.count() - gateCountBefore;
+    double gateMeanMillis =
+        gateCount == 0
+            ? 0
+            : (gateWait.totalTime(TimeUnit.MILLISECONDS) - gateTotalBefore) / gateCount;
+    System.out.printf(
+        "concurrency=%d virtualThreads=%s requests=%d throughput=%.0f req/s"
+            + " gateMeanWait=%.3f ms gateRejected=%.0f%n",
+        concurrency,
+        virtualThreads,
+        perClient * concurrency,
+        perClient * concurrency / seconds,
+        gateMeanMillis,
+        meterRegistry.get("db.admission.rejected").counter().count());
+
+    assertEquals(0, failures.get());
+  }
+}
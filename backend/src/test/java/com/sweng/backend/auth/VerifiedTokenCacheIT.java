@@ -0,0 +1,83 @@
+package com.sweng.backend.auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class VerifiedTokenCacheIT {
+
+  private static final long T = 1_700_000_000_000L;
+
+  private final VerifiedTokenCache cache = new VerifiedTokenCache(100);
+
+  @Test
+  void verifiedTokens_areHitsUntilTheyExpire() {
+    AuthenticatedUser alice = user("alice");
+    cache.put("token-a", alice, T + 1_000, T);
+
+    assertSame(alice, cache.get("token-a", T + 999));
+    assertNull(cache.get("token-b", T));
+
+    // Past exp: a miss, and the entry is dropped
+    assertNull(cache.get("token-a", T + 1_000));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  void tokensDifferingOnlyInNonAsciiCharacters_areDistinctKeys() {
+    cache.put("token-\u00e9", user("alice"), T + 1_000, T);
+    assertNull(cache.get("token-\u00fc", T));
+    assertNull(cache.get("token-?", T));
+  }
+
+  @Test
+  void aFullCache_evictsDownToNinetyPercent() {
+    for (int i = 0; i < 100; i++) {
+      cache.put("token-" + i, user("u" + i), T + 60_000, T);
+    }
+    assertEquals(100, cache.size());
+
+    cache.put("token-100", user("u100"), T + 60_000, T);
+    assertEquals(91, cache.size());
+    assertNotNull(cache.get("token-100", T));
+
+    // Not evicted again until it fills back up
+    for (int i = 101; i < 110; i++) {
+      cache.put("token-" + i, user("u" + i), T + 60_000, T);
+    }
+    assertEquals(100, cache.size());
+  }
+
+  @Test
+  void expiredTokens_areEvictedFirst() {
+    for (int i = 0; i < 50; i++) {
+      cache.put("old-" + i, user("o" + i), T + 1_000, T);
+    }
+    for (int i = 0; i < 50; i++) {
+      cache.put("new-" + i, user("n" + i), T + 60_000, T);
+    }
+
+    cache.put("latest", user("latest"), T + 60_000, T + 2_000);
+    assertEquals(51, cache.size());
+    for (int i = 0; i < 50; i++) {
+      assertNotNull(cache.get("new-" + i, T + 2_000));
+    }
+  }
+
+  @Test
+  void aZeroBound_cachesNothing() {
+    VerifiedTokenCache disabled = new VerifiedTokenCache(0);
+    disabled.put("token-a", user("alice"), T + 1_000, T);
+    assertNull(disabled.get("token-a", T));
+    assertEquals(0, disabled.size());
+  }
+
+  private static AuthenticatedUser user(String username) {
+    return new AuthenticatedUser(username, UUID.randomUUID(), List.of());
+  }
+}
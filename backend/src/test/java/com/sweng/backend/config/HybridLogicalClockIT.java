@@ -0,0 +1,64 @@
+package com.sweng.backend.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class HybridLogicalClockIT {
+
+  private static final long T = 1_700_000_000_000L;
+
+  private final AtomicLong wall = new AtomicLong(T);
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final HybridLogicalClock clock =
+      new HybridLogicalClock(wall::get, Duration.ofMillis(500), registry);
+
+  @Test
+  void timestamps_followTheWallClockAndNeverGoBack() {
+    long first = clock.now();
+    assertEquals(Instant.ofEpochMilli(T), HybridLogicalClock.toInstant(first));
+
+    // Same millisecond, then a wall clock stepping back: the logical counter moves on
+    long second = clock.now();
+    wall.set(T - 1_000);
+    long third = clock.now();
+    assertEquals(first + 1, second);
+    assertEquals(second + 1, third);
+    assertEquals(Instant.ofEpochMilli(T), HybridLogicalClock.toInstant(third));
+
+    // Back on the wall clock once it passes the last timestamp
+    wall.set(T + 5);
+    long fourth = clock.now();
+    assertEquals(Instant.ofEpochMilli(T + 5), HybridLogicalClock.toInstant(fourth));
+    assertTrue(fourth > third);
+  }
+
+  @Test
+  void remoteTimestamps_areFollowedWithinTheMaximumOffset() {
+    long local = clock.now();
+
+    // A region 200ms ahead: later local timestamps follow it
+    long remote = at(T + 200);
+    long observed = clock.update(remote);
+    assertTrue(observed > remote);
+    assertTrue(clock.now() > observed);
+
+    // An older remote timestamp changes nothing but the counter
+    assertEquals(clock.now() + 1, clock.update(local));
+
+    // A region an hour ahead is not followed
+    long now = clock.now();
+    long bad = clock.update(at(T + 3_600_000));
+    assertEquals(now + 1, bad);
+    assertEquals(1, registry.get("hlc.remote.rejected").counter().count());
+  }
+
+  private static long at(long millis) {
+    return millis << 16;
+  }
+}
@@ -0,0 +1,301 @@
+package com.sweng.backend.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+class ReplicaRoutingIT {
+
+  private static final long SECOND = 1_000_000_000L;
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  private JdbcTemplate primary;
+  private JdbcTemplate replica;
+  private volatile boolean replicaDown;
+  private ReplicaRoutingDataSource routing;
+  private LazyConnectionDataSourceProxy lazy;
+  private DataSourceTransactionManager transactionManager;
+  private JdbcTemplate jdbc;
+  private TransactionTemplate readTx;
+  private TransactionTemplate writeTx;
+
+  @BeforeEach
+  void setup() {
+    primary = database("replica_routing_primary", "primary");
+    replica = database("replica_routing_replica", "replica");
+    routing =
+        new ReplicaRoutingDataSource(
+            primary.getDataSource(),
+            new DelegatingDataSource(replica.getDataSource()) {
+              @Override
+              public Connection getConnection() throws SQLException {
+                if (replicaDown) {
+                  throw new SQLException("Connection refused");
+                }
+                return super.getConnection();
+              }
+            },
+            "select lsn from wal",
+            "select lsn from wal",
+            Duration.ofSeconds(1),
+            Duration.ofHours(1),
+            Duration.ofSeconds(1),
+            registry);
+
+    lazy = new LazyConnectionDataSourceProxy();
+    lazy.setTargetDataSource(routing);
+    lazy.setDefaultAutoCommit(true);
+    lazy.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+    lazy.afterPropertiesSet();
+    jdbc = new JdbcTemplate(lazy);
+    transactionManager = new DataSourceTransactionManager(lazy);
+    writeTx = new TransactionTemplate(transactionManager);
+    readTx = new TransactionTemplate(transactionManager);
+    readTx.setReadOnly(true);
+  }
+
+  @AfterEach
+  void clearRequest() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @Test
+  void readOnlyTransactionsOfGetRequests_readFromTheReplica() {
+    routing.check();
+
+    request("GET");
+    assertEquals("replica", readTx.execute(status -> whoami()));
+    assertEquals("primary", writeTx.execute(status -> whoami()));
+    assertEquals("primary", whoami());
+    assertEquals(
+        "primary", ReplicaRoutingDataSource.onPrimary(() -> readTx.execute(status -> whoami())));
+
+    request("POST");
+    assertEquals("primary", readTx.execute(status -> whoami()));
+
+    RequestContextHolder.resetRequestAttributes();
+    assertEquals("primary", readTx.execute(status -> whoami()));
+
+    assertEquals(1, registry.get("db.replica.reads").tag("target", "replica").counter().count());
+  }
+
+  @Test
+  void replicaTooFarBehind_failsOverToThePrimaryUntilItCatchesUp() {
+    request("GET");
+    routing.record(0, 100, 100);
+    assertEquals("replica", readTx.execute(status -> whoami()));
+
+    // Lag is the time since the primary was last seen where the replica is now
+    routing.record(SECOND / 2, 200, 100);
+    assertEquals(0.5, registry.get("db.replica.lag").gauge().value());
+    assertEquals("replica", readTx.execute(status -> whoami()));
+
+    routing.record(2 * SECOND, 300, 100);
+    assertEquals(2.0, registry.get("db.replica.lag").gauge().value());
+    assertEquals("primary", readTx.execute(status -> whoami()));
+
+    // Up to date with the primary as of 0.5s, when it was last seen at 200
+    routing.record(3 * SECOND, 300, 200);
+    assertEquals(2.5, registry.get("db.replica.lag").gauge().value());
+    assertEquals("primary", readTx.execute(status -> whoami()));
+
+    // Caught up, then an idle primary is no lag at all
+    routing.record(4 * SECOND, 300, 300);
+    routing.record(60 * SECOND, 300, 300);
+    assertEquals(0.0, registry.get("db.replica.lag").gauge().value());
+    assertEquals("replica", readTx.execute(status -> whoami()));
+
+    // A replica that stops replaying falls behind even while the primary is idle
+    routing.record(61 * SECOND, 400, 300);
+    routing.record(70 * SECOND, 400, 300);
+    assertEquals(10.0, registry.get("db.replica.lag").gauge().value());
+    assertEquals("primary", readTx.execute(status -> whoami()));
+
+    assertEquals(3, registry.get("db.replica.reads").tag("target", "replica").counter().count());
+    assertEquals(3, registry.get("db.replica.reads").tag("target", "primary").counter().count());
+  }
+
+  @Test
+  void unreachableReplica_failsOverToThePrimary() {
+    request("GET");
+    routing.check();
+    assertEquals(1, registry.get("db.replica.available").gauge().value());
+
+    // Fails before the next check: the read itself goes to the primary
+    replicaDown = true;
+    assertEquals("primary", readTx.execute(status -> whoami()));
+    assertEquals(0, registry.get("db.replica.available").gauge().value());
+
+    routing.check();
+    assertEquals(0, registry.get("db.replica.available").gauge().value());
+    assertEquals("primary", readTx.execute(status -> whoami()));
+  }
+
+  @Test
+  void writes_issueATokenThatReadsWaitForTheReplicaToReach() throws Exception {
+    transactionManager.addListener(new ConsistencyTokens(lazy));
+    routing.check();
+
+    MockHttpServletResponse response = request("POST", null);
+    readTx.executeWithoutResult(status -> whoami());
+    assertNull(response.getHeader(ConsistencyTokens.HEADER));
+    writeTx.executeWithoutResult(status -> jdbc.update("update wal set lsn = 300"));
+    String token = response.getHeader(ConsistencyTokens.HEADER);
+    assertEquals("0/12C", token);
+
+    // Replica still at 100: waits for it, then reads from the primary
+    request("GET", token);
+    long start = System.nanoTime();
+    assertEquals("primary", readTx.execute(status -> whoami()));
+    assertTrue(System.nanoTime() - start >= SECOND);
+    assertEquals(1, tokenWaits("primary"));
+
+    // Replica catches up while the read waits
+    CompletableFuture<Void> replay =
+        CompletableFuture.runAsync(
+            () -> replica.update("update wal set lsn = 300"),
+            CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS));
+    assertEquals("replica", readTx.execute(status -> whoami()));
+    replay.join();
+    assertEquals(1, tokenWaits("replica"));
+
+    // Known to be replayed, and older tokens: no wait at all
+    assertEquals("replica", readTx.execute(status -> whoami()));
+    request("GET", "0/64");
+    assertEquals("replica", readTx.execute(status -> whoami()));
+    assertEquals(1, tokenWaits("replica"));
+
+    request("GET", "not-a-token");
+    assertEquals("primary", readTx.execute(status -> whoami()));
+    assertEquals(1, tokenWaits("primary"));
+  }
+
+  @Test
+  void tokens_areReadThroughTheAdmissionGate() throws Exception {
+    JdbcAdmissionGate gate = new JdbcAdmissionGate(lazy, 1, Duration.ofMillis(50), registry);
+    ConsistencyTokens tokens = new ConsistencyTokens(gate);
+
+    try (Connection held = gate.getConnection()) {
+      MockHttpServletResponse response = request("POST", null);
+      tokens.issue();
+      assertNull(response.getHeader(ConsistencyTokens.HEADER));
+      assertEquals(1, registry.get("db.admission.rejected").counter().count());
+    }
+
+    MockHttpServletResponse response = request("POST", null);
+    tokens.issue();
+    assertEquals("0/64", response.getHeader(ConsistencyTokens.HEADER));
+  }
+
+  @Test
+  void writersSaturatingTheGate_readTokensOnTheirOwnConnections() throws Exception {
+    int writers = 2;
+    JdbcAdmissionGate gate = new JdbcAdmissionGate(lazy, writers, Duration.ofSeconds(5), registry);
+    DataSourceTransactionManager gated = new DataSourceTransactionManager(gate);
+    gated.addListener(new ConsistencyTokens(gate));
+    TransactionTemplate tx = new TransactionTemplate(gated);
+    JdbcTemplate gatedJdbc = new JdbcTemplate(gate);
+    CyclicBarrier allHoldingPermits = new CyclicBarrier(writers);
+    primary.execute("create table writes (n int)");
+
+    List<CompletableFuture<String>> tokens = new ArrayList<>();
+    long start = System.nanoTime();
+    for (int i = 0; i < writers; i++) {
+      tokens.add(
+          CompletableFuture.supplyAsync(
+              () -> {
+                MockHttpServletResponse response = request("POST", null);
+                tx.executeWithoutResult(
+                    status -> {
+                      gatedJdbc.update("insert into writes values (1)");
+                      await(allHoldingPermits);
+                    });
+                RequestContextHolder.resetRequestAttributes();
+                return response.getHeader(ConsistencyTokens.HEADER);
+              }));
+    }
+
+    for (CompletableFuture<String> token : tokens) {
+      assertEquals("0/64", token.get(10, TimeUnit.SECONDS));
+    }
+    assertTrue(System.nanoTime() - start < SECOND);
+    assertEquals(0, registry.get("db.admission.rejected").counter().count());
+  }
+
+  @Test
+  void tokens_usePgLsnTextForm() {
+    assertEquals("16/B374D848", ConsistencyTokens.format(0x16B374D848L));
+    assertEquals(0x16B374D848L, ConsistencyTokens.parse("16/B374D848"));
+    assertEquals(0, ConsistencyTokens.parse("0/0"));
+    assertTrue(ConsistencyTokens.parse("16/") < 0);
+    assertTrue(ConsistencyTokens.parse("123456789/0") < 0);
+    assertTrue(ConsistencyTokens.parse("-1/0") < 0);
+  }
+
+  private static void await(CyclicBarrier barrier) {
+    try {
+      barrier.await(5, TimeUnit.SECONDS);
+    } catch (Exception ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  private long tokenWaits(String outcome) {
+    return registry.get("db.replica.token.waits").tag("outcome", outcome).timer().count();
+  }
+
+  private String whoami() {
+    return jdbc.queryForObject("select name from whoami", String.class);
+  }
+
+  private static void request(String method) {
+    request(method, null);
+  }
+
+  private static MockHttpServletResponse request(String method, String token) {
+    MockHttpServletRequest request = new MockHttpServletRequest(method, "/");
+    if (token != null) {
+      request.addHeader(ConsistencyTokens.HEADER, token);
+    }
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+    return response;
+  }
+
+  private static JdbcTemplate database(String name, String whoami) {
+    DataSource ds =
+        new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+    JdbcTemplate jdbc = new JdbcTemplate(ds);
+    jdbc.execute("drop all objects");
+    jdbc.execute("create table whoami (name varchar(16))");
+    jdbc.update("insert into whoami values (?)", whoami);
+    jdbc.execute("create table wal (lsn bigint)");
+    jdbc.update("insert into wal values (100)");
+    return jdbc;
+  }
+}
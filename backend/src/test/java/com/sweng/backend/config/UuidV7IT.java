@@ -0,0 +1,66 @@
+package com.sweng.backend.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class UuidV7IT {
+
+  private static final long T = 1_700_000_000_000L;
+
+  private final AtomicLong wall = new AtomicLong(T);
+  private final UuidV7 generator = new UuidV7(wall::get);
+
+  @Test
+  void ids_areVersion7WithTheRfcVariantAndTheirMillisecond() {
+    UUID id = generator.next();
+    assertEquals(7, id.version());
+    assertEquals(2, id.variant());
+    assertEquals(T, id.getMostSignificantBits() >>> 16);
+    assertEquals(0, counter(id));
+  }
+
+  @Test
+  void idsWithinOneMillisecond_areStrictlyIncreasing() {
+    UUID previous = generator.next();
+    for (int i = 1; i < 4096; i++) {
+      UUID id = generator.next();
+      assertTrue(id.compareTo(previous) > 0);
+      assertEquals(T, id.getMostSignificantBits() >>> 16);
+      assertEquals(i, counter(id));
+      previous = id;
+    }
+  }
+
+  @Test
+  void counterOverflowAndBackwardSteps_carryOnFromTheLastId() {
+    for (int i = 0; i < 4096; i++) {
+      generator.next();
+    }
+
+    // Counter exhausted: rolls into the next millisecond
+    UUID overflow = generator.next();
+    assertEquals(T + 1, overflow.getMostSignificantBits() >>> 16);
+    assertEquals(0, counter(overflow));
+
+    // Wall clock steps back: keeps counting after the last id
+    wall.set(T - 1_000);
+    UUID back = generator.next();
+    assertEquals(T + 1, back.getMostSignificantBits() >>> 16);
+    assertEquals(1, counter(back));
+    assertEquals(7, back.version());
+
+    // A new millisecond starts the counter again
+    wall.set(T + 5);
+    UUID later = generator.next();
+    assertEquals(T + 5, later.getMostSignificantBits() >>> 16);
+    assertEquals(0, counter(later));
+  }
+
+  private static long counter(UUID id) {
+    return id.getMostSignificantBits() & 0xFFF;
+  }
+}
@@ -0,0 +1,240 @@
+package com.sweng.backend.menu;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.sweng.backend.order.OrderRepository;
+import com.sweng.backend.restaurant.RestaurantEntity;
+import com.sweng.backend.restaurant.RestaurantRepository;
+import com.sweng.backend.user.Role;
+import com.sweng.backend.user.User;
+import com.sweng.backend.user.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import tools.jackson.databind.ObjectMapper;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class MenuApiIT {
+
+  private static final RequestPostProcessor OWNER = user("ownerA").roles("RESTAURANT_OWNER");
+  private static final RequestPostProcessor CUSTOMER = user("customerA").roles("CUSTOMER");
+
+  @Autowired WebApplicationContext context;
+  @Autowired UserRepository userRepository;
+  @Autowired RestaurantRepository restaurantRepository;
+  @Autowired OrderRepository orderRepository;
+  @Autowired MenuItemRepository menuItemRepository;
+  @Autowired MeterRegistry meterRegistry;
+
+  private MockMvc mockMvc;
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private UUID restaurantId;
+  private String menuPath;
+
+  @BeforeEach
+  void setup() {
+    this.mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+
+    orderRepository.deleteAll();
+    menuItemRepository.deleteAll();
+    restaurantRepository.deleteAll();
+
+    if (userRepository.findByUsername("customerA").isEmpty()) {
+      User u =
+          new User(
+              UUID.randomUUID(),
+              "customerA",
+              "customerA@test.com",
+              "bcrypt-stub",
+              OffsetDateTime.now());
+      u.getRoles().add(Role.CUSTOMER);
+      userRepository.save(u);
+    }
+
+    RestaurantEntity r = new RestaurantEntity();
+    r.setName("Test Resto");
+    r.setAddress("1 Test Street");
+    r.setActive(true);
+    r.setOwnerId(UUID.randomUUID());
+    restaurantId = restaurantRepository.save(r).getId();
+    menuPath = "/api/restaurants/" + restaurantId + "/menu";
+  }
+
+  @Test
+  void menuItems_canBeCreatedReadUpdatedAndDeleted() throws Exception {
+    String pizza = createItem("Pizza", "12.50", null);
+    createItem("Antipasti", "7.00", null);
+
+    mockMvc
+        .perform(get(menuPath))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.restaurantId").value(restaurantId.toString()))
+        .andExpect(jsonPath("$.version").value(2))
+        .andExpect(jsonPath("$.items.length()").value(2))
+        .andExpect(jsonPath("$.items[0].name").value("Antipasti"))
+        .andExpect(jsonPath("$.items[1].price").value(12.50));
+
+    mockMvc
+        .perform(
+            put(menuPath + "/" + pizza)
+                .with(OWNER)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"price\":13.00,\"available\":false}"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.name").value("Pizza"))
+        .andExpect(jsonPath("$.price").value(13.00))
+        .andExpect(jsonPath("$.available").value(false));
+    mockMvc
+        .perform(get(menuPath + "/" + pizza))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.price").value(13.00));
+
+    mockMvc.perform(delete(menuPath + "/" + pizza).with(OWNER)).andExpect(status().isNoContent());
+    mockMvc.perform(get(menuPath + "/" + pizza)).andExpect(status().isNotFound());
+    mockMvc.perform(delete(menuPath + "/" + pizza).with(OWNER)).andExpect(status().isNotFound());
+  }
+
+  @Test
+  void orders_arePricedFromTheMenuWithoutReloadingIt() throws Exception {
+    String pizza = createItem("Pizza", "12.50", null);
+    String soda = createItem("Soda", "2.25", null);
+    // Warm the snapshot, then count misses while pricing
+    mockMvc.perform(get(menuPath)).andExpect(status().isOk());
+    double misses =
+        meterRegistry.get("menu.index.requests").tag("result", "miss").counter().count();
+
+    String order =
+        createOrder(
+                "[{\"itemId\":\""
+                    + pizza
+                    + "\",\"quantity\":2},{\"itemId\":\""
+                    + soda
+                    + "\",\"quantity\":3}]")
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.items[0].name").value("Pizza"))
+            .andExpect(jsonPath("$.items[0].unitPrice").value(12.50))
+            .andExpect(jsonPath("$.items[0].subtotal").value(25.00))
+            .andExpect(jsonPath("$.items[1].subtotal").value(6.75))
+            .andExpect(jsonPath("$.totalAmount").value(31.75))
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    assertEquals(
+        misses, meterRegistry.get("menu.index.requests").tag("result", "miss").counter().count());
+
+    // A price change is used by new orders and leaves placed ones alone
+    mockMvc
+        .perform(
+            put(menuPath + "/" + pizza)
+                .with(OWNER)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"price\":14.00}"))
+        .andExpect(status().isOk());
+    createOrder("[{\"itemId\":\"" + pizza + "\",\"quantity\":1}]")
+        .andExpect(status().isCreated())
+        .andExpect(jsonPath("$.totalAmount").value(14.00));
+    mockMvc
+        .perform(
+            get("/api/orders/" + objectMapper.readTree(order).get("id").asString()).with(CUSTOMER))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.totalAmount").value(31.75));
+  }
+
+  @Test
+  void orders_withUnknownOrUnavailableItems_areRejected() throws Exception {
+    createItem("Pizza", "12.50", null);
+    String sold = createItem("Special", "20.00", false);
+
+    createOrder("[{\"itemId\":\"item-1\",\"quantity\":1}]").andExpect(status().isBadRequest());
+    createOrder("[{\"itemId\":\"" + UUID.randomUUID() + "\",\"quantity\":1}]")
+        .andExpect(status().isBadRequest());
+    createOrder("[{\"itemId\":\"" + sold + "\",\"quantity\":1}]")
+        .andExpect(status().isBadRequest());
+
+    mockMvc
+        .perform(
+            post("/api/orders/batch")
+                .with(CUSTOMER)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    "{\"orders\":[{\"restaurantId\":\""
+                        + restaurantId
+                        + "\",\"items\":[{\"itemId\":\""
+                        + sold
+                        + "\",\"quantity\":1}]}]}"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.data[0].status").value(400))
+        .andExpect(jsonPath("$.data[0].error").value("Menu item " + sold + " is not available"));
+  }
+
+  @Test
+  void menuChanges_requireOwnerOrAdmin_andValidInput() throws Exception {
+    String body = "{\"name\":\"Pizza\",\"price\":12.50}";
+    mockMvc
+        .perform(post(menuPath).contentType(MediaType.APPLICATION_JSON).content(body))
+        .andExpect(status().isUnauthorized());
+    mockMvc
+        .perform(
+            post(menuPath).with(CUSTOMER).contentType(MediaType.APPLICATION_JSON).content(body))
+        .andExpect(status().isForbidden());
+    mockMvc
+        .perform(
+            post(menuPath)
+                .with(OWNER)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Pizza\",\"price\":-1}"))
+        .andExpect(status().isBadRequest());
+    mockMvc
+        .perform(
+            post("/api/restaurants/" + UUID.randomUUID() + "/menu")
+                .with(OWNER)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+        .andExpect(status().isNotFound());
+    mockMvc.perform(get("/api/restaurants/not-a-uuid/menu")).andExpect(status().isBadRequest());
+  }
+
+  private String createItem(String name, String price, Boolean available) throws Exception {
+    String body =
+        "{\"name\":\""
+            + name
+            + "\",\"price\":"
+            + price
+            + (available == null ? "" : ",\"available\":" + available)
+            + "}";
+    String created =
+        mockMvc
+            .perform(
+                post(menuPath).with(OWNER).contentType(MediaType.APPLICATION_JSON).content(body))
+            .andExpect(status().isCreated())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    return objectMapper.readTree(created).get("id").asString();
+  }
+
+  private ResultActions createOrder(String items) throws Exception {
+    return mockMvc.perform(
+        post("/api/orders")
+            .with(CUSTOMER)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"restaurantId\":\"" + restaurantId + "\",\"items\":" + items + "}"));
+  }
+}
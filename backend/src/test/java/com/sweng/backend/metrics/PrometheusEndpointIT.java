@@ -0,0 +1,57 @@
+package com.sweng.backend.metrics;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest(properties = "management.defaults.metrics.export.enabled=true")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PrometheusEndpointIT {
+
+  @Autowired MockMvc mockMvc;
+
+  @Test
+  void prometheus_exposesRouteLatencyPoolHibernateJvmAndJwtMetrics() throws Exception {
+    mockMvc.perform(get("/api/restaurants")).andExpect(status().isOk());
+    mockMvc
+        .perform(get("/api/orders").header("Authorization", "Bearer not-a-jwt"))
+        .andExpect(status().isUnauthorized());
+
+    mockMvc
+        .perform(get("/actuator/prometheus"))
+        .andExpect(status().isOk())
+        .andExpect(
+            content()
+                .string(
+                    containsString(
+                        "http_server_requests_seconds_bucket{error=\"none\",exception=\"none\","
+                            + "method=\"GET\",outcome=\"SUCCESS\",region=\"local\",status=\"200\","
+                            + "uri=\"/api/restaurants\",le=\"0.05\"}")))
+        .andExpect(content().string(containsString("hikaricp_connections_active")))
+        .andExpect(content().string(containsString("hibernate_statements_total")))
+        .andExpect(content().string(containsString("jvm_gc_memory_allocated_bytes_total")))
+        .andExpect(
+            content()
+                .string(
+                    containsString(
+                        "db_statements_per_request_count{method=\"GET\",region=\"local\","
+                            + "uri=\"/api/restaurants\"}")))
+        .andExpect(
+            content().string(containsString("jwt_verification_seconds_count{outcome=\"invalid\"")));
+  }
+
+  @Test
+  void actuator_isClosedExceptForHealthAndTheScrapeEndpoint() throws Exception {
+    mockMvc.perform(get("/actuator/health")).andExpect(status().isOk());
+    mockMvc.perform(get("/actuator/mappings")).andExpect(status().isUnauthorized());
+    mockMvc.perform(get("/actuator/info")).andExpect(status().isUnauthorized());
+  }
+}
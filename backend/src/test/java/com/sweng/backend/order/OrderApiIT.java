@@ -1,9 +1,11 @@
 package com.sweng.backend.order;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import com.sweng.backend.order.dto.BatchCreateOrderRequest;
 import com.sweng.backend.order.dto.CreateOrderItemRequest;
 import com.sweng.backend.order.dto.CreateOrderRequest;
 import com.sweng.backend.order.dto.UpdateOrderRequest;
@@ -12,7 +14,9 @@ import com.sweng.backend.restaurant.RestaurantRepository;
 import com.sweng.backend.user.Role;
 import com.sweng.backend.user.User;
 import com.sweng.backend.user.UserRepository;
+import java.math.BigDecimal;
 import java.time.OffsetDateTime;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 import org.junit.jupiter.api.BeforeEach;
@@ -191,4 +195,363 @@ class OrderApiIT {
         .andExpect(status().isOk())
         .andExpect(jsonPath("$.specialInstructions").value("No onions"));
   }
+
+  @Test
+  @WithMockUser(username = "customerA", roles = "CUSTOMER")
+  void getOrders_filtersByStatusAndCreatedRangeInQuery() throws Exception {
+    CreateOrderRequest req = new CreateOrderRequest();
+    req.setRestaurantId(restaurantId.toString());
+    req.setItems(List.of(buildItem("item-1", 1)));
+
+    mockMvc
+        .perform(
+            post("/api/orders")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(req)))
+        .andExpect(status().isCreated());
+
+    mockMvc
+        .perform(get("/api/orders").param("status", "pending"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.data.length()").value(1));
+
+    mockMvc
+        .perform(get("/api/orders").param("status", "completed"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.data.length()").value(0));
+
+    mockMvc
+        .perform(get("/api/orders").param("from", OffsetDateTime.now().plusHours(1).toString()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.data.length()").value(0));
+
+    mockMvc
+        .perform(get("/api/orders").param("to", OffsetDateTime.now().plusHours(1).toString()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.data.length()").value(1));
+
+    mockMvc
+        .perform(get("/api/orders").param("from", "yesterday"))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  @WithMockUser(username = "customerB", roles = "CUSTOMER")
+  void getOrders_onlyReturnsCallersOwnOrders() throws Exception {
+    UUID customerA = userRepository.findByUsername("customerA").orElseThrow().getUid();
+
+    OrderEntity other = new OrderEntity();
+    other.setRestaurantId(restaurantId);
+    other.setCustomerId(customerA);
+    orderRepository.save(other);
+
+    mockMvc
+        .perform(get("/api/orders"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.data.length()").value(0));
+
+    mockMvc
+        .perform(get("/api/orders").param("userId", customerA.toString()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.data.length()").value(0));
+  }
+
+  @Test
+  @WithMockUser(username = "customerA", roles = "CUSTOMER")
+  void getOrders_pagesWithKeysetCursor() throws Exception {
+    CreateOrderRequest req = new CreateOrderRequest();
+    req.setRestaurantId(restaurantId.toString());
+    req.setItems(List.of(buildItem("item-1", 1)));
+
+    for (int i = 0; i < 3; i++) {
+      mockMvc
+          .perform(
+              post("/api/orders")
+                  .contentType(MediaType.APPLICATION_JSON)
+                  .content(objectMapper.writeValueAsString(req)))
+          .andExpect(status().isCreated());
+    }
+
+    String first =
+        mockMvc
+            .perform(get("/api/orders").param("limit", "2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.data.length()").value(2))
+            .andExpect(jsonPath("$.nextCursor").isString())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+    String cursor = objectMapper.readTree(first).get("nextCursor").asText();
+
+    mockMvc
+        .perform(get("/api/orders").param("limit", "2").param("cursor", cursor))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.data.length()").value(1))
+        .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+    mockMvc
+        .perform(get("/api/orders").param("cursor", "not-a-cursor"))
+        .andExpect(status().isBadRequest());
+
+    mockMvc.perform(get("/api/orders").param("limit", "0")).andExpect(status().isBadRequest());
+  }
+
+  @Test
+  @WithMockUser(username = "customerA", roles = "CUSTOMER")
+  void createOrders_batch_reportsPerOrderResults() throws Exception {
+    CreateOrderRequest ok = new CreateOrderRequest();
+    ok.setRestaurantId(restaurantId.toString());
+    ok.setItems(List.of(buildItem("item-1", 2)));
+
+    CreateOrderRequest unknownRestaurant = new CreateOrderRequest();
+    unknownRestaurant.setRestaurantId(UUID.randomUUID().toString());
+    unknownRestaurant.setItems(List.of(buildItem("item-1", 1)));
+
+    CreateOrderRequest malformedRestaurant = new CreateOrderRequest();
+    malformedRestaurant.setRestaurantId("not-a-uuid");
+    malformedRestaurant.setItems(List.of(buildItem("item-1", 1)));
+
+    CreateOrderRequest noItems = new CreateOrderRequest();
+    noItems.setRestaurantId(restaurantId.toString());
+    noItems.setItems(List.of());
+
+    BatchCreateOrderRequest batch = new BatchCreateOrderRequest();
+    batch.setOrders(List.of(ok, unknownRestaurant, malformedRestaurant, noItems, ok));
+
+    mockMvc
+        .perform(
+            post("/api/orders/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(batch)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.data.length()").value(5))
+        .andExpect(jsonPath("$.data[0].status").value(201))
+        .andExpect(jsonPath("$.data[0].order.restaurantId").value(restaurantId.toString()))
+        .andExpect(jsonPath("$.data[0].order.status").value("pending"))
+        .andExpect(jsonPath("$.data[1].status").value(400))
+        .andExpect(jsonPath("$.data[1].error").value("Invalid restaurantId"))
+        .andExpect(jsonPath("$.data[2].status").value(400))
+        .andExpect(jsonPath("$.data[2].error").value("Invalid restaurantId"))
+        .andExpect(jsonPath("$.data[3].status").value(400))
+        .andExpect(jsonPath("$.data[3].error").value("Invalid items"))
+        .andExpect(jsonPath("$.data[4].index").value(4))
+        .andExpect(jsonPath("$.data[4].status").value(201));
+
+    assertEquals(2, orderRepository.count());
+  }
+
+  @Test
+  @WithMockUser(username = "customerA", roles = "CUSTOMER")
+  void createOrders_batchOverLimit_returns400() throws Exception {
+    CreateOrderRequest ok = new CreateOrderRequest();
+    ok.setRestaurantId(restaurantId.toString());
+    ok.setItems(List.of(buildItem("item-1", 1)));
+
+    BatchCreateOrderRequest batch = new BatchCreateOrderRequest();
+    batch.setOrders(Collections.nCopies(501, ok));
+
+    mockMvc
+        .perform(
+            post("/api/orders/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(batch)))
+        .andExpect(status().isBadRequest());
+
+    assertEquals(0, orderRepository.count());
+  }
+
+  @Test
+  void createOrders_batchWithoutAuth_isRejected() throws Exception {
+    BatchCreateOrderRequest batch = new BatchCreateOrderRequest();
+    batch.setOrders(List.of(new CreateOrderRequest()));
+
+    mockMvc
+        .perform(
+            post("/api/orders/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(batch)))
+        .andExpect(status().isUnauthorized());
+  }
+
+  @Test
+  @WithMockUser(username = "admin", roles = "ADMIN")
+  void updateOrder_statusFollowsStateMachine_withVersionedETags() throws Exception {
+    UUID orderId = orderRepository.save(pendingOrder()).getId();
+
+    String etag =
+        mockMvc
+            .perform(get("/api/orders/" + orderId))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "\"0\""))
+            .andReturn()
+            .getResponse()
+            .getHeader("ETag");
+
+    // Skipping preparing is not a valid transition
+    mockMvc
+        .perform(
+            put("/api/orders/" + orderId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"status\":\"ready\"}"))
+        .andExpect(status().isConflict());
+
+    mockMvc
+        .perform(
+            put("/api/orders/" + orderId)
+                .header("If-Match", etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"status\":\"preparing\"}"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", "\"1\""))
+        .andExpect(jsonPath("$.status").value("preparing"));
+
+    // The first ETag is stale now
+    mockMvc
+        .perform(
+            put("/api/orders/" + orderId)
+                .header("If-Match", etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"status\":\"ready\"}"))
+        .andExpect(status().isPreconditionFailed());
+
+    mockMvc
+        .perform(
+            put("/api/orders/" + orderId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"status\":\"ready\"}"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", "\"2\""));
+
+    mockMvc
+        .perform(
+            put("/api/orders/" + orderId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"status\":\"completed\"}"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.status").value("completed"));
+
+    // Completed is final
+    mockMvc
+        .perform(
+            put("/api/orders/" + orderId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"status\":\"cancelled\"}"))
+        .andExpect(status().isConflict());
+
+    assertEquals(3L, orderRepository.findById(orderId).orElseThrow().getVersion());
+  }
+
+  @Test
+  @WithMockUser(username = "customerA", roles = "CUSTOMER")
+  void updateOrder_customerCanCancelOwnPendingOrderOnly() throws Exception {
+    UUID customerA = userRepository.findByUsername("customerA").orElseThrow().getUid();
+    UUID customerB = userRepository.findByUsername("customerB").orElseThrow().getUid();
+
+    OrderEntity other = pendingOrder();
+    other.setCustomerId(customerB);
+    UUID otherId = orderRepository.save(other).getId();
+
+    OrderEntity own = pendingOrder();
+    own.setCustomerId(customerA);
+    UUID ownId = orderRepository.save(own).getId();
+
+    mockMvc
+        .perform(
+            put("/api/orders/" + otherId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"status\":\"cancelled\"}"))
+        .andExpect(status().isForbidden());
+
+    mockMvc
+        .perform(
+            put("/api/orders/" + ownId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"status\":\"cancelled\"}"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.status").value("cancelled"));
+
+    // No longer pending, so customers cannot touch it
+    mockMvc
+        .perform(
+            put("/api/orders/" + ownId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"status\":\"preparing\"}"))
+        .andExpect(status().isForbidden());
+
+    assertEquals(OrderStatus.pending, orderRepository.findById(otherId).orElseThrow().getStatus());
+  }
+
+  @Test
+  @WithMockUser(username = "admin", roles = "ADMIN")
+  void updateOrder_withStaleIfMatch_isRejected() throws Exception {
+    UUID orderId = orderRepository.save(pendingOrder()).getId();
+
+    mockMvc
+        .perform(
+            put("/api/orders/" + orderId)
+                .header("If-Match", "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"specialInstructions\":\"first\"}"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", "\"1\""));
+
+    mockMvc
+        .perform(
+            put("/api/orders/" + orderId)
+                .header("If-Match", "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"specialInstructions\":\"second\"}"))
+        .andExpect(status().isPreconditionFailed());
+
+    mockMvc
+        .perform(delete("/api/orders/" + orderId).header("If-Match", "\"0\""))
+        .andExpect(status().isPreconditionFailed());
+
+    assertEquals("first", orderRepository.findById(orderId).orElseThrow().getSpecialInstructions());
+
+    mockMvc
+        .perform(delete("/api/orders/" + orderId).header("If-Match", "\"1\""))
+        .andExpect(status().isNoContent());
+  }
+
+  @Test
+  void items_roundTripThroughTheJsonColumnWithTheirScale() {
+    OrderItem pizza = item("pizza", 2, "4.50", "9.00");
+    OrderItem water = item("water", 3, "1.2", "3.600");
+    OrderEntity order = pendingOrder();
+    order.setItems(List.of(pizza, water));
+    UUID orderId = orderRepository.save(order).getId();
+
+    List<OrderItem> stored = orderRepository.findById(orderId).orElseThrow().getItems();
+    assertEquals(List.of(pizza, water), stored);
+    assertEquals("4.50", stored.get(0).getUnitPrice().toPlainString());
+    assertEquals("9.00", stored.get(0).getSubtotal().toPlainString());
+    assertEquals("1.2", stored.get(1).getUnitPrice().toPlainString());
+    assertEquals("3.600", stored.get(1).getSubtotal().toPlainString());
+  }
+
+  private static OrderItem item(String id, int quantity, String unitPrice, String subtotal) {
+    OrderItem item = new OrderItem();
+    item.setItemId(id);
+    item.setName(id);
+    item.setQuantity(quantity);
+    item.setUnitPrice(new BigDecimal(unitPrice));
+    item.setSubtotal(new BigDecimal(subtotal));
+    return item;
+  }
+
+  private OrderEntity pendingOrder() {
+    OrderItem item = new OrderItem();
+    item.setItemId("item-1");
+    item.setName("item-1");
+    item.setQuantity(1);
+    item.setUnitPrice(BigDecimal.ZERO);
+    item.setSubtotal(BigDecimal.ZERO);
+
+    OrderEntity e = new OrderEntity();
+    e.setRestaurantId(restaurantId);
+    e.setItems(List.of(item));
+    return e;
+  }
 }
@@ -0,0 +1,290 @@
+package com.sweng.backend.order;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.sweng.backend.config.PgNotifications;
+import com.sweng.backend.order.dto.CreateOrderItemRequest;
+import com.sweng.backend.order.dto.CreateOrderRequest;
+import com.sweng.backend.restaurant.RestaurantEntity;
+import com.sweng.backend.restaurant.RestaurantRepository;
+import com.sweng.backend.user.Role;
+import com.sweng.backend.user.User;
+import com.sweng.backend.user.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.ObjectMapper;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderEventStreamIT {
+
+  private static final Pattern EVENT_ID = Pattern.compile("id:(\\S+)");
+
+  @Autowired WebApplicationContext context;
+  @Autowired UserRepository userRepository;
+  @Autowired RestaurantRepository restaurantRepository;
+  @Autowired OrderRepository orderRepository;
+  @Autowired DataSource dataSource;
+
+  @Value("${spring.datasource.url}")
+  String databaseUrl;
+
+  private MockMvc mockMvc;
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private UUID restaurantId;
+
+  @BeforeEach
+  void setup() {
+    this.mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+
+    orderRepository.deleteAll();
+    restaurantRepository.deleteAll();
+
+    if (userRepository.findByUsername("customerA").isEmpty()) {
+      User u =
+          new User(
+              UUID.randomUUID(),
+              "customerA",
+              "customerA@test.com",
+              "bcrypt-stub",
+              OffsetDateTime.now());
+      u.getRoles().add(Role.CUSTOMER);
+      userRepository.save(u);
+    }
+
+    RestaurantEntity r = new RestaurantEntity();
+    r.setName("Test Resto");
+    r.setAddress("1 Test Street");
+    r.setActive(true);
+    r.setOwnerId(UUID.randomUUID());
+    restaurantId = restaurantRepository.save(r).getId();
+  }
+
+  @Test
+  void restaurantStream_receivesCreatedAndStatusEvents() throws Exception {
+    MvcResult stream = openStream("/api/restaurants/" + restaurantId + "/orders/stream", null);
+
+    String orderId = createOrder();
+    awaitContent(stream, "event:created");
+
+    mockMvc
+        .perform(
+            put("/api/orders/" + orderId)
+                .with(owner())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"status\":\"preparing\"}"))
+        .andExpect(status().isOk());
+
+    String content = awaitContent(stream, "event:updated");
+    assertTrue(content.contains("\"orderId\":\"" + orderId + "\""));
+    assertTrue(content.contains("\"status\":\"preparing\""));
+  }
+
+  @Test
+  void orderStream_onlyCarriesThatOrder() throws Exception {
+    String orderId = createOrder();
+    MvcResult stream = openStream("/api/orders/" + orderId + "/stream", null);
+
+    String otherId = createOrder();
+    mockMvc
+        .perform(delete("/api/orders/" + orderId).with(customer()))
+        .andExpect(status().isNoContent());
+
+    String content = awaitContent(stream, "event:deleted");
+    assertFalse(content.contains(otherId));
+  }
+
+  @Test
+  void lastEventId_replaysMissedEvents_orAsksForResync() throws Exception {
+    MvcResult first = openStream("/api/restaurants/" + restaurantId + "/orders/stream", null);
+    createOrder();
+    String secondOrder = createOrder();
+    List<String> ids = eventIds(awaitContent(first, secondOrder));
+    assertEquals(2, ids.size());
+
+    MvcResult resumed =
+        openStream("/api/restaurants/" + restaurantId + "/orders/stream", ids.get(0));
+    String content = awaitContent(resumed, "id:" + ids.get(1));
+    assertEquals(List.of(ids.get(1)), eventIds(content));
+
+    MvcResult stale =
+        openStream(
+            "/api/restaurants/" + restaurantId + "/orders/stream", UUID.randomUUID().toString());
+    awaitContent(stale, "event:resync");
+  }
+
+  @Test
+  void restaurantStream_requiresOwnerOrAdmin() throws Exception {
+    mockMvc
+        .perform(get("/api/restaurants/" + restaurantId + "/orders/stream"))
+        .andExpect(status().isUnauthorized());
+    mockMvc
+        .perform(get("/api/restaurants/" + restaurantId + "/orders/stream").with(customer()))
+        .andExpect(status().isForbidden());
+    mockMvc
+        .perform(get("/api/restaurants/" + UUID.randomUUID() + "/orders/stream").with(owner()))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  void slowSubscriber_isEvicted() throws Exception {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    OrderEventHub hub =
+        new OrderEventHub(
+            new PgNotifications(dataSource, databaseUrl, "sa", ""),
+            registry,
+            10,
+            2,
+            Duration.ofHours(1),
+            Duration.ofMinutes(1));
+
+    // The writer blocks on its first send, as it would on a client that stopped reading
+    CountDownLatch release = new CountDownLatch(1);
+    SseEmitter stuck =
+        new SseEmitter() {
+          @Override
+          public void send(SseEventBuilder builder) {
+            try {
+              release.await();
+            } catch (InterruptedException ex) {
+              Thread.currentThread().interrupt();
+            }
+          }
+        };
+    hub.subscribe(stuck, e -> true, null);
+    assertEquals(1, registry.get("order.events.subscribers").gauge().value());
+
+    OrderEntity order = new OrderEntity();
+    order.setId(UUID.randomUUID());
+    order.setRestaurantId(restaurantId);
+    order.setStatus(OrderStatus.pending);
+    for (int i = 0; i < 3; i++) {
+      hub.publish(List.of(OrderEvent.of(OrderOutboxEntity.of(OrderEvent.Type.created, order))));
+    }
+
+    assertEquals(1, registry.get("order.events.evicted").counter().count());
+    assertEquals(0, registry.get("order.events.subscribers").gauge().value());
+    release.countDown();
+    hub.stop();
+  }
+
+  @Test
+  void idleSubscriber_getsHeartbeats() throws Exception {
+    OrderEventHub hub =
+        new OrderEventHub(
+            new PgNotifications(dataSource, databaseUrl, "sa", ""),
+            new SimpleMeterRegistry(),
+            10,
+            10,
+            Duration.ofMillis(20),
+            Duration.ofMinutes(1));
+
+    CountDownLatch heartbeats = new CountDownLatch(3);
+    SseEmitter recording =
+        new SseEmitter() {
+          @Override
+          public void send(SseEventBuilder builder) {
+            if (builder.build().stream()
+                .anyMatch(d -> d.getData().toString().startsWith(":heartbeat"))) {
+              heartbeats.countDown();
+            }
+          }
+        };
+    hub.subscribe(recording, e -> true, null);
+
+    assertTrue(heartbeats.await(10, TimeUnit.SECONDS));
+    hub.stop();
+  }
+
+  private MvcResult openStream(String path, String lastEventId) throws Exception {
+    MockHttpServletRequestBuilder builder =
+        get(path)
+            .with(path.startsWith("/api/orders/") ? customer() : owner())
+            .accept(MediaType.TEXT_EVENT_STREAM);
+    if (lastEventId != null) {
+      builder.header("Last-Event-ID", lastEventId);
+    }
+    return mockMvc.perform(builder).andExpect(request().asyncStarted()).andReturn();
+  }
+
+  private String createOrder() throws Exception {
+    CreateOrderItemRequest item = new CreateOrderItemRequest();
+    item.setItemId("item-1");
+    item.setQuantity(1);
+    CreateOrderRequest req = new CreateOrderRequest();
+    req.setRestaurantId(restaurantId.toString());
+    req.setItems(List.of(item));
+
+    String body =
+        mockMvc
+            .perform(
+                post("/api/orders")
+                    .with(customer())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(req)))
+            .andExpect(status().isCreated())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    return objectMapper.readTree(body).get("id").asString();
+  }
+
+  /** Waits for the writer thread to have sent something containing the expected text. */
+  private static String awaitContent(MvcResult stream, String expected) throws Exception {
+    long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+    String content = stream.getResponse().getContentAsString();
+    while (!content.contains(expected) && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+      content = stream.getResponse().getContentAsString();
+    }
+    assertTrue(content.contains(expected), () -> "Stream never sent " + expected);
+    return content;
+  }
+
+  private static List<String> eventIds(String content) {
+    List<String> ids = new ArrayList<>();
+    Matcher m = EVENT_ID.matcher(content);
+    while (m.find()) {
+      ids.add(m.group(1));
+    }
+    return ids;
+  }
+
+  private static RequestPostProcessor owner() {
+    return user("ownerA").roles("RESTAURANT_OWNER");
+  }
+
+  private static RequestPostProcessor customer() {
+    return user("customerA").roles("CUSTOMER");
+  }
+}
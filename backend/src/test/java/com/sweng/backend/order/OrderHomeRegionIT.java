@@ -0,0 +1,394 @@
+package com.sweng.backend.order;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.net.httpserver.HttpServer;
+import com.sweng.backend.BackendApplication;
+import com.sweng.backend.auth.JwtUtil;
+import com.sweng.backend.restaurant.RestaurantEntity;
+import com.sweng.backend.restaurant.RestaurantRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Two backends, each with its own embedded database, standing in for two regions.
+ *
+ * <p>Restaurants are inserted into both databases, as replication of the reference tables would do;
+ * orders are only copied where a test says so.
+ */
+class OrderHomeRegionIT {
+
+  private static final HttpClient HTTP = HttpClient.newHttpClient();
+  private static final ObjectMapper JSON = new ObjectMapper();
+
+  private static Region regionA;
+  private static Region regionB;
+  private static HttpServer regionD;
+
+  private String customer;
+  private String admin;
+  private UUID homedInA;
+  private UUID homedInB;
+
+  @BeforeAll
+  static void startRegions() throws IOException {
+    int portA = freePort();
+    int portB = freePort();
+    // region-c is configured on region-a but nothing listens there
+    int portC = freePort();
+    // region-d answers new orders with a status HttpStatus does not know, and nothing else
+    regionD = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    regionD.createContext(
+        "/",
+        exchange -> {
+          boolean create =
+              exchange.getRequestMethod().equals("POST")
+                  && exchange.getRequestURI().getPath().startsWith("/api/orders");
+          byte[] body =
+              (create ? "{\"message\":\"Client closed request\"}" : "{}")
+                  .getBytes(StandardCharsets.UTF_8);
+          exchange.getResponseHeaders().add("Content-Type", "application/json");
+          exchange.getResponseHeaders().add("Retry-After", "7");
+          exchange.sendResponseHeaders(create ? 499 : 404, body.length);
+          exchange.getResponseBody().write(body);
+          exchange.close();
+        });
+    regionD.start();
+    regionA =
+        new Region(
+            "region-a",
+            portA,
+            "region-b=http://localhost:"
+                + portB
+                + ",region-c=http://localhost:"
+                + portC
+                + ",region-d=http://localhost:"
+                + regionD.getAddress().getPort());
+    regionB = new Region("region-b", portB, "region-a=http://localhost:" + portA);
+  }
+
+  @AfterAll
+  static void stopRegions() {
+    regionA.context.close();
+    regionB.context.close();
+    regionD.stop(0);
+  }
+
+  @BeforeEach
+  void setup() {
+    JwtUtil jwt = regionA.context.getBean(JwtUtil.class);
+    customer = jwt.generateToken("customerA", UUID.randomUUID(), List.of("CUSTOMER"));
+    admin = jwt.generateToken("admin", UUID.randomUUID(), List.of("ADMIN"));
+    homedInA = restaurant("region-a");
+    homedInB = restaurant("region-b");
+  }
+
+  @Test
+  void ordersOfAForeignRestaurant_areWrittenInItsHomeRegion() throws Exception {
+    long relayed = regionA.forwards("region-b", "relayed");
+    String forwarded = id(send(regionA, "POST", "/api/orders", customer, order(homedInB), 201));
+    String local = id(send(regionA, "POST", "/api/orders", customer, order(homedInA), 201));
+
+    assertTrue(regionB.hasOrder(forwarded));
+    assertFalse(regionA.hasOrder(forwarded));
+    assertTrue(regionA.hasOrder(local));
+    assertFalse(regionB.hasOrder(local));
+    assertEquals(relayed + 1, regionA.forwards("region-b", "relayed"));
+
+    // Retries through either region reach the key kept in the home region
+    String key = UUID.randomUUID().toString();
+    HttpResponse<String> first =
+        send(regionA, "POST", "/api/orders", customer, order(homedInB), 201, key);
+    HttpResponse<String> retry =
+        send(regionB, "POST", "/api/orders", customer, order(homedInB), 201, key);
+    assertEquals(id(first), id(retry));
+    assertEquals("true", retry.headers().firstValue("Idempotent-Replayed").orElse(null));
+
+    // A batch is split by home region and answered in request order
+    JsonNode results =
+        JSON.readTree(
+                send(
+                        regionA,
+                        "POST",
+                        "/api/orders/batch",
+                        customer,
+                        "{\"orders\":["
+                            + String.join(",", order(homedInB), order(homedInA), order(homedInB))
+                            + "]}",
+                        200)
+                    .body())
+            .get("data");
+    for (int i = 0; i < 3; i++) {
+      assertEquals(i, results.get(i).get("index").asInt());
+      assertEquals(201, results.get(i).get("status").asInt());
+    }
+    assertTrue(regionB.hasOrder(results.get(0).get("order").get("id").asString()));
+    assertTrue(regionA.hasOrder(results.get(1).get("order").get("id").asString()));
+    assertTrue(regionB.hasOrder(results.get(2).get("order").get("id").asString()));
+  }
+
+  @Test
+  void updatesAndDeletes_areWrittenInTheHomeRegionOfTheOrdersRestaurant() throws Exception {
+    String id = id(send(regionA, "POST", "/api/orders", customer, order(homedInB), 201));
+    regionA.copyOrderFrom(regionB, id);
+
+    HttpResponse<String> updated =
+        send(regionA, "PUT", "/api/orders/" + id, admin, "{\"status\":\"preparing\"}", 200);
+    assertEquals("preparing", JSON.readTree(updated.body()).get("status").asString());
+    assertTrue(updated.headers().firstValue("ETag").isPresent());
+    assertEquals("preparing", regionB.status(id));
+    // Until replication catches up, region-a still has the order as it was
+    assertEquals("pending", regionA.status(id));
+
+    // The home region decides, and its answer is relayed
+    send(regionA, "PUT", "/api/orders/" + id, admin, "{\"status\":\"pending\"}", 409);
+
+    send(regionA, "DELETE", "/api/orders/" + id, admin, null, 204);
+    assertFalse(regionB.hasOrder(id));
+    assertTrue(regionA.hasOrder(id));
+  }
+
+  @Test
+  void writesToOrdersNotCopiedHere_areForwardedToTheRegionThatHasThem() throws Exception {
+    String id = id(send(regionA, "POST", "/api/orders", customer, order(homedInB), 201));
+    assertFalse(regionA.hasOrder(id));
+
+    HttpResponse<String> updated =
+        send(regionA, "PUT", "/api/orders/" + id, admin, "{\"status\":\"preparing\"}", 200);
+    assertEquals("preparing", JSON.readTree(updated.body()).get("status").asString());
+    assertTrue(updated.headers().firstValue("ETag").isPresent());
+    assertEquals("preparing", regionB.status(id));
+    send(regionA, "PUT", "/api/orders/" + id, admin, "{\"status\":\"pending\"}", 409);
+
+    send(regionA, "DELETE", "/api/orders/" + id, admin, null, 204);
+    assertFalse(regionB.hasOrder(id));
+
+    // Gone everywhere: region-b asks region-a, which answers for itself
+    send(regionB, "PUT", "/api/orders/" + id, admin, "{\"status\":\"preparing\"}", 404);
+    // region-a cannot rule out region-c, which it cannot reach
+    send(regionA, "DELETE", "/api/orders/" + id, admin, null, 503);
+  }
+
+  @Test
+  void forwardedRequests_areHandledWhereTheyArrive() throws Exception {
+    // The regions disagree about where this restaurant lives; the request must not bounce
+    UUID disputed = UUID.randomUUID();
+    regionA.insertRestaurant(disputed, "region-b");
+    regionB.insertRestaurant(disputed, "region-a");
+
+    String id = id(send(regionA, "POST", "/api/orders", customer, order(disputed), 201));
+    assertTrue(regionB.hasOrder(id));
+    assertFalse(regionA.hasOrder(id));
+  }
+
+  @Test
+  void unreachableHomeRegion_failsTheWrite() throws Exception {
+    UUID homedInC = restaurant("region-c");
+    long unavailable = regionA.forwards("region-c", "unavailable");
+
+    send(regionA, "POST", "/api/orders", customer, order(homedInC), 503);
+    assertEquals(unavailable + 1, regionA.forwards("region-c", "unavailable"));
+
+    JsonNode results =
+        JSON.readTree(
+                send(
+                        regionA,
+                        "POST",
+                        "/api/orders/batch",
+                        customer,
+                        "{\"orders\":[" + order(homedInC) + "," + order(homedInA) + "]}",
+                        200)
+                    .body())
+            .get("data");
+    assertEquals(503, results.get(0).get("status").asInt());
+    assertEquals(201, results.get(1).get("status").asInt());
+  }
+
+  @Test
+  void errorAnswers_areRelayedAsGiven() throws Exception {
+    UUID homedInD = restaurant("region-d");
+
+    HttpResponse<String> answer =
+        send(regionA, "POST", "/api/orders", customer, order(homedInD), 499);
+    assertEquals("7", answer.headers().firstValue("Retry-After").orElse(null));
+    assertEquals("Client closed request", JSON.readTree(answer.body()).get("message").asString());
+
+    JsonNode results =
+        JSON.readTree(
+                send(
+                        regionA,
+                        "POST",
+                        "/api/orders/batch",
+                        customer,
+                        "{\"orders\":[" + order(homedInD) + "]}",
+                        200)
+                    .body())
+            .get("data");
+    assertEquals(499, results.get(0).get("status").asInt());
+    assertEquals("Client closed request", results.get(0).get("error").asString());
+  }
+
+  @Test
+  void restaurants_areHomedInAKnownRegion() throws Exception {
+    String body = "{\"name\":\"Resto\",\"address\":\"1 Street\"";
+    JsonNode created =
+        JSON.readTree(send(regionA, "POST", "/api/restaurants", admin, body + "}", 201).body());
+    assertEquals("region-a", created.get("homeRegion").asString());
+
+    created =
+        JSON.readTree(
+            send(
+                    regionA,
+                    "POST",
+                    "/api/restaurants",
+                    admin,
+                    body + ",\"homeRegion\":\"region-b\"}",
+                    201)
+                .body());
+    assertEquals("region-b", created.get("homeRegion").asString());
+
+    send(regionA, "POST", "/api/restaurants", admin, body + ",\"homeRegion\":\"mars\"}", 400);
+  }
+
+  private static UUID restaurant(String homeRegion) {
+    UUID id = UUID.randomUUID();
+    regionA.insertRestaurant(id, homeRegion);
+    regionB.insertRestaurant(id, homeRegion);
+    return id;
+  }
+
+  private static String order(UUID restaurantId) {
+    return "{\"restaurantId\":\""
+        + restaurantId
+        + "\",\"items\":[{\"itemId\":\"item-1\",\"quantity\":2}]}";
+  }
+
+  private static String id(HttpResponse<String> response) {
+    return JSON.readTree(response.body()).get("id").asString();
+  }
+
+  private static HttpResponse<String> send(
+      Region region, String method, String path, String token, String body, int status)
+      throws Exception {
+    return send(region, method, path, token, body, status, null);
+  }
+
+  private static HttpResponse<String> send(
+      Region region,
+      String method,
+      String path,
+      String token,
+      String body,
+      int status,
+      String idempotencyKey)
+      throws Exception {
+    HttpRequest.Builder request =
+        HttpRequest.newBuilder(URI.create("http://localhost:" + region.port + path))
+            .header("Authorization", "Bearer " + token)
+            .method(
+                method,
+                body == null
+                    ? HttpRequest.BodyPublishers.noBody()
+                    : HttpRequest.BodyPublishers.ofString(body));
+    if (body != null) {
+      request.header("Content-Type", "application/json");
+    }
+    if (idempotencyKey != null) {
+      request.header("Idempotency-Key", idempotencyKey);
+    }
+    HttpResponse<String> response =
+        HTTP.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    assertEquals(status, response.statusCode(), method + " " + path + ": " + response.body());
+    return response;
+  }
+
+  private static int freePort() throws IOException {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    }
+  }
+
+  private static final class Region {
+    private final int port;
+    private final ConfigurableApplicationContext context;
+    private final JdbcTemplate jdbc;
+
+    private Region(String name, int port, String peers) {
+      this.port = port;
+      this.context =
+          new SpringApplicationBuilder(BackendApplication.class)
+              .profiles("test")
+              .run(
+                  "--server.port=" + port,
+                  "--spring.datasource.url=jdbc:h2:mem:"
+                      + name
+                      + ";DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+                  "--region.name=" + name,
+                  "--region.peers=" + peers,
+                  "--region.forward-timeout=5s");
+      this.jdbc = new JdbcTemplate(context.getBean(DataSource.class));
+    }
+
+    void insertRestaurant(UUID id, String homeRegion) {
+      RestaurantEntity r = new RestaurantEntity();
+      r.setId(id);
+      r.setName("Resto " + homeRegion);
+      r.setAddress("1 Test Street");
+      r.setActive(true);
+      r.setOwnerId(UUID.randomUUID());
+      r.setHomeRegion(homeRegion);
+      context.getBean(RestaurantRepository.class).save(r);
+    }
+
+    boolean hasOrder(String id) {
+      return context.getBean(OrderRepository.class).existsById(UUID.fromString(id));
+    }
+
+    String status(String id) {
+      return jdbc.queryForObject(
+          "select status from orders where id = ?", String.class, UUID.fromString(id));
+    }
+
+    /** Copies an order as replication from its home region would. */
+    void copyOrderFrom(Region home, String id) {
+      Map<String, Object> row =
+          home.jdbc.queryForMap("select * from orders where id = ?", UUID.fromString(id));
+      new SimpleJdbcInsert(jdbc).withTableName("orders").execute(row);
+    }
+
+    long forwards(String region, String outcome) {
+      Timer timer =
+          context
+              .getBean(MeterRegistry.class)
+              .find("region.forwards")
+              .tag("home", region)
+              .tag("outcome", outcome)
+              .timer();
+      return timer == null ? 0 : timer.count();
+    }
+  }
+}
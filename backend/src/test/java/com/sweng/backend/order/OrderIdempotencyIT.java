@@ -0,0 +1,240 @@
+package com.sweng.backend.order;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.sweng.backend.order.dto.CreateOrderRequest;
+import com.sweng.backend.restaurant.RestaurantEntity;
+import com.sweng.backend.restaurant.RestaurantRepository;
+import com.sweng.backend.user.Role;
+import com.sweng.backend.user.User;
+import com.sweng.backend.user.UserRepository;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.WebApplicationContext;
+import tools.jackson.databind.ObjectMapper;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderIdempotencyIT {
+
+  private static final RequestPostProcessor CUSTOMER = user("customerA").roles("CUSTOMER");
+
+  @Autowired WebApplicationContext context;
+  @Autowired UserRepository userRepository;
+  @Autowired RestaurantRepository restaurantRepository;
+  @Autowired OrderRepository orderRepository;
+  @Autowired IdempotencyKeyRepository keyRepository;
+  @Autowired TransactionTemplate tx;
+  @Autowired ObjectMapper objectMapper;
+
+  private MockMvc mockMvc;
+
+  private UUID customerId;
+  private UUID restaurantId;
+  // Answered keys stay in memory across tests, so every test uses its own
+  private String keyPrefix;
+
+  @BeforeEach
+  void setup() {
+    this.mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+
+    orderRepository.deleteAll();
+    keyRepository.deleteAll();
+    restaurantRepository.deleteAll();
+
+    customerId =
+        userRepository
+            .findByUsername("customerA")
+            .orElseGet(
+                () -> {
+                  User u =
+                      new User(
+                          UUID.randomUUID(),
+                          "customerA",
+                          "customerA@test.com",
+                          "bcrypt-stub",
+                          OffsetDateTime.now());
+                  u.getRoles().add(Role.CUSTOMER);
+                  return userRepository.save(u);
+                })
+            .getUid();
+
+    RestaurantEntity r = new RestaurantEntity();
+    r.setName("Test Resto");
+    r.setAddress("1 Test Street");
+    r.setActive(true);
+    r.setOwnerId(UUID.randomUUID());
+    restaurantId = restaurantRepository.save(r).getId();
+    keyPrefix = UUID.randomUUID() + "-";
+  }
+
+  @Test
+  void retryWithSameKey_replaysTheFirstResponse() throws Exception {
+    String first =
+        createOrder(keyPrefix + "key-1", body(restaurantId, 2))
+            .andExpect(status().isCreated())
+            .andExpect(header().doesNotExist(IdempotencyKeys.REPLAYED_HEADER))
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+    createOrder(keyPrefix + "key-1", body(restaurantId, 2))
+        .andExpect(status().isCreated())
+        .andExpect(header().string(IdempotencyKeys.REPLAYED_HEADER, "true"))
+        .andExpect(content().json(first));
+    assertEquals(1, orderRepository.count());
+
+    // Another key, or no key, creates another order
+    createOrder(keyPrefix + "key-2", body(restaurantId, 2)).andExpect(status().isCreated());
+    mockMvc
+        .perform(
+            post("/api/orders")
+                .with(CUSTOMER)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body(restaurantId, 2)))
+        .andExpect(status().isCreated());
+    assertEquals(3, orderRepository.count());
+  }
+
+  @Test
+  void keyReusedForDifferentRequest_isRejected() throws Exception {
+    createOrder(keyPrefix + "key-1", body(restaurantId, 2)).andExpect(status().isCreated());
+    createOrder(keyPrefix + "key-1", body(restaurantId, 3))
+        .andExpect(status().isUnprocessableContent());
+    createOrder(" ", body(restaurantId, 2)).andExpect(status().isBadRequest());
+    createOrder("k".repeat(256), body(restaurantId, 2)).andExpect(status().isBadRequest());
+    assertEquals(1, orderRepository.count());
+  }
+
+  @Test
+  void failedRequest_releasesItsKey() throws Exception {
+    createOrder(keyPrefix + "key-1", body(UUID.randomUUID(), 2)).andExpect(status().isBadRequest());
+    assertEquals(0, keyRepository.count());
+
+    createOrder(keyPrefix + "key-1", body(restaurantId, 2))
+        .andExpect(status().isCreated())
+        .andExpect(header().doesNotExist(IdempotencyKeys.REPLAYED_HEADER));
+    assertEquals(1, orderRepository.count());
+  }
+
+  @Test
+  void concurrentRetries_createOneOrder() throws Exception {
+    int requests = 8;
+    CountDownLatch start = new CountDownLatch(1);
+    List<CompletableFuture<MockHttpServletResponse>> responses = new ArrayList<>();
+    for (int i = 0; i < requests; i++) {
+      responses.add(
+          CompletableFuture.supplyAsync(
+              () -> {
+                try {
+                  start.await();
+                  return createOrder(keyPrefix + "key-1", body(restaurantId, 2))
+                      .andReturn()
+                      .getResponse();
+                } catch (Exception ex) {
+                  throw new IllegalStateException(ex);
+                }
+              }));
+    }
+    start.countDown();
+
+    Set<String> ids = new HashSet<>();
+    int replayed = 0;
+    for (CompletableFuture<MockHttpServletResponse> f : responses) {
+      MockHttpServletResponse response = f.join();
+      assertEquals(201, response.getStatus());
+      ids.add(objectMapper.readTree(response.getContentAsString()).get("id").asString());
+      if (response.getHeader(IdempotencyKeys.REPLAYED_HEADER) != null) replayed++;
+    }
+    assertEquals(1, ids.size());
+    assertEquals(requests - 1, replayed);
+    assertEquals(1, orderRepository.count());
+  }
+
+  @Test
+  void keyHeldByAnotherNode_isInProgressUntilItsLeaseRunsOut() throws Exception {
+    String body = body(restaurantId, 2);
+    Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+
+    // Held and still within its lease
+    reserve(keyPrefix + "held", body, UUID.randomUUID(), now.plusSeconds(60));
+    createOrder(keyPrefix + "held", body).andExpect(status().isConflict());
+
+    // Lease ran out before the order was created: the request takes the key over
+    UUID lost = UUID.randomUUID();
+    reserve(keyPrefix + "lost", body, lost, now.minusSeconds(1));
+    createOrder(keyPrefix + "lost", body)
+        .andExpect(status().isCreated())
+        .andExpect(jsonPath("$.id").value(lost.toString()))
+        .andExpect(header().doesNotExist(IdempotencyKeys.REPLAYED_HEADER));
+
+    // Lease ran out after the order was created: the order is found and replayed
+    reserve(keyPrefix + "done", body, lost, now.minusSeconds(1));
+    createOrder(keyPrefix + "done", body)
+        .andExpect(status().isCreated())
+        .andExpect(jsonPath("$.id").value(lost.toString()))
+        .andExpect(header().string(IdempotencyKeys.REPLAYED_HEADER, "true"));
+
+    assertEquals(1, orderRepository.count());
+  }
+
+  private void reserve(String key, String body, UUID orderId, Instant lockedUntil)
+      throws Exception {
+    byte[] canonical =
+        objectMapper.writeValueAsBytes(objectMapper.readValue(body, CreateOrderRequest.class));
+    String fingerprint =
+        HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(canonical));
+    tx.executeWithoutResult(
+        status ->
+            keyRepository.reserve(
+                customerId.toString(),
+                key,
+                fingerprint,
+                orderId,
+                lockedUntil,
+                Instant.now().plusSeconds(3600)));
+  }
+
+  private ResultActions createOrder(String key, String body) throws Exception {
+    return mockMvc.perform(
+        post("/api/orders")
+            .with(CUSTOMER)
+            .header(IdempotencyKeys.HEADER, key)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(body));
+  }
+
+  private static String body(UUID restaurantId, int quantity) {
+    return "{\"restaurantId\":\""
+        + restaurantId
+        + "\",\"items\":[{\"itemId\":\"item-1\",\"quantity\":"
+        + quantity
+        + "}]}";
+  }
+}
@@ -0,0 +1,168 @@
+package com.sweng.backend.order;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.sweng.backend.order.dto.CreateOrderItemRequest;
+import com.sweng.backend.order.dto.CreateOrderRequest;
+import com.sweng.backend.restaurant.RestaurantEntity;
+import com.sweng.backend.restaurant.RestaurantRepository;
+import com.sweng.backend.user.Role;
+import com.sweng.backend.user.User;
+import com.sweng.backend.user.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import tools.jackson.databind.ObjectMapper;
+
+@SpringBootTest(properties = "order.ingest.enabled=true")
+@ActiveProfiles("test")
+class OrderIngestIT {
+
+  @Autowired WebApplicationContext context;
+  @Autowired UserRepository userRepository;
+  @Autowired RestaurantRepository restaurantRepository;
+  @Autowired OrderRepository orderRepository;
+  @Autowired OrderOutbox outbox;
+  @Autowired MeterRegistry meterRegistry;
+
+  private MockMvc mockMvc;
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private UUID restaurantId;
+
+  @BeforeEach
+  void setup() {
+    this.mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+
+    orderRepository.deleteAll();
+    restaurantRepository.deleteAll();
+
+    if (userRepository.findByUsername("customerA").isEmpty()) {
+      User u =
+          new User(
+              UUID.randomUUID(),
+              "customerA",
+              "customerA@test.com",
+              "bcrypt-stub",
+              OffsetDateTime.now());
+      u.getRoles().add(Role.CUSTOMER);
+      userRepository.save(u);
+    }
+
+    RestaurantEntity r = new RestaurantEntity();
+    r.setName("Test Resto");
+    r.setAddress("1 Test Street");
+    r.setActive(true);
+    r.setOwnerId(UUID.randomUUID());
+    restaurantId = restaurantRepository.save(r).getId();
+  }
+
+  @Test
+  @WithMockUser(username = "customerA", roles = "CUSTOMER")
+  void createOrder_isWrittenByGroupCommit() throws Exception {
+    CreateOrderItemRequest item = new CreateOrderItemRequest();
+    item.setItemId("item-1");
+    item.setQuantity(2);
+    CreateOrderRequest req = new CreateOrderRequest();
+    req.setRestaurantId(restaurantId.toString());
+    req.setItems(List.of(item));
+
+    double batchesBefore = meterRegistry.get("order.ingest.batch.size").summary().count();
+
+    mockMvc
+        .perform(
+            post("/api/orders")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(req)))
+        .andExpect(status().isCreated())
+        .andExpect(jsonPath("$.id").isString())
+        .andExpect(jsonPath("$.status").value("pending"));
+
+    assertEquals(1, orderRepository.count());
+    assertEquals(batchesBefore + 1, meterRegistry.get("order.ingest.batch.size").summary().count());
+  }
+
+  @Test
+  void submit_rejectsWhenFull_andCommitsQueuedOrdersTogether() throws Exception {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    OrderIngestQueue queue =
+        new OrderIngestQueue(
+            outbox, registry, true, 2, 50, Duration.ofMillis(5), Duration.ofSeconds(10));
+
+    // The writer is not started yet, so the queue fills up
+    CompletableFuture<OrderEntity> first = queue.submit(newOrder());
+    CompletableFuture<OrderEntity> second = queue.submit(newOrder());
+    assertThrows(RejectedExecutionException.class, () -> queue.submit(newOrder()));
+    assertEquals(2, registry.get("order.ingest.queue.depth").gauge().value());
+
+    queue.start();
+    assertNotNull(first.get(10, TimeUnit.SECONDS).getId());
+    assertNotNull(second.get(10, TimeUnit.SECONDS).getId());
+    queue.stop();
+
+    assertEquals(2, orderRepository.count());
+    assertEquals(1, registry.get("order.ingest.batch.size").summary().count());
+    assertEquals(2, registry.get("order.ingest.batch.size").summary().totalAmount());
+    assertEquals(1, registry.get("order.ingest.rejected").counter().count());
+    assertThrows(RejectedExecutionException.class, () -> queue.submit(newOrder()));
+  }
+
+  @Test
+  void stop_failsOrdersLeftInTheQueue() throws Exception {
+    OrderIngestQueue queue =
+        new OrderIngestQueue(
+            outbox,
+            new SimpleMeterRegistry(),
+            true,
+            2,
+            50,
+            Duration.ofMillis(5),
+            Duration.ofSeconds(10));
+
+    // Queued while the writer is not running, as an order racing past a stop would be
+    CompletableFuture<OrderEntity> queued = queue.submit(newOrder());
+    queue.stop();
+
+    ExecutionException ex =
+        assertThrows(ExecutionException.class, () -> queued.get(1, TimeUnit.SECONDS));
+    assertInstanceOf(RejectedExecutionException.class, ex.getCause());
+  }
+
+  private OrderEntity newOrder() {
+    OrderItem item = new OrderItem();
+    item.setItemId("item-1");
+    item.setName("item-1");
+    item.setQuantity(1);
+    item.setUnitPrice(BigDecimal.ZERO);
+    item.setSubtotal(BigDecimal.ZERO);
+
+    OrderEntity e = new OrderEntity();
+    e.setRestaurantId(restaurantId);
+    e.setItems(List.of(item));
+    return e;
+  }
+}
@@ -0,0 +1,114 @@
+package com.sweng.backend.order;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.sweng.backend.restaurant.RestaurantEntity;
+import com.sweng.backend.restaurant.RestaurantRepository;
+import com.sweng.backend.user.Role;
+import com.sweng.backend.user.User;
+import com.sweng.backend.user.UserRepository;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+/** Group commit slower than callers wait for it: each batch lingers well past the timeout. */
+@SpringBootTest(
+    properties = {
+      "order.ingest.enabled=true",
+      "order.ingest.timeout=100ms",
+      "order.ingest.linger=1s",
+      "order.idempotency.lease=2s"
+    })
+@ActiveProfiles("test")
+class OrderIngestTimeoutIT {
+
+  private static final RequestPostProcessor CUSTOMER = user("customerA").roles("CUSTOMER");
+
+  @Autowired WebApplicationContext context;
+  @Autowired UserRepository userRepository;
+  @Autowired RestaurantRepository restaurantRepository;
+  @Autowired OrderRepository orderRepository;
+  @Autowired IdempotencyKeyRepository keyRepository;
+
+  private MockMvc mockMvc;
+
+  private UUID restaurantId;
+
+  @BeforeEach
+  void setup() {
+    this.mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+
+    orderRepository.deleteAll();
+    keyRepository.deleteAll();
+    restaurantRepository.deleteAll();
+
+    if (userRepository.findByUsername("customerA").isEmpty()) {
+      User u =
+          new User(
+              UUID.randomUUID(),
+              "customerA",
+              "customerA@test.com",
+              "bcrypt-stub",
+              OffsetDateTime.now());
+      u.getRoles().add(Role.CUSTOMER);
+      userRepository.save(u);
+    }
+
+    RestaurantEntity r = new RestaurantEntity();
+    r.setName("Test Resto");
+    r.setAddress("1 Test Street");
+    r.setActive(true);
+    r.setOwnerId(UUID.randomUUID());
+    restaurantId = restaurantRepository.save(r).getId();
+  }
+
+  @Test
+  void retryAfterATimedOutWrite_findsTheFirstOrder() throws Exception {
+    String key = UUID.randomUUID().toString();
+    long start = System.nanoTime();
+
+    createOrder(key).andExpect(status().isServiceUnavailable());
+
+    // The key stays held while the first order may still be committed
+    createOrder(key).andExpect(status().isConflict());
+
+    // The lingering batch commits the first order; once the lease has run out, the retry finds it
+    while (orderRepository.count() == 0 && System.nanoTime() - start < 10_000_000_000L) {
+      Thread.sleep(50);
+    }
+    UUID first = orderRepository.findAll().get(0).getId();
+    Thread.sleep(Math.max(0, 2_500 - (System.nanoTime() - start) / 1_000_000));
+
+    createOrder(key)
+        .andExpect(status().isCreated())
+        .andExpect(jsonPath("$.id").value(first.toString()))
+        .andExpect(header().string(IdempotencyKeys.REPLAYED_HEADER, "true"));
+    assertEquals(1, orderRepository.count());
+  }
+
+  private ResultActions createOrder(String key) throws Exception {
+    return mockMvc.perform(
+        post("/api/orders")
+            .with(CUSTOMER)
+            .header(IdempotencyKeys.HEADER, key)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(
+                "{\"restaurantId\":\""
+                    + restaurantId
+                    + "\",\"items\":[{\"itemId\":\"item-1\",\"quantity\":1}]}"));
+  }
+}
@@ -0,0 +1,256 @@
+package com.sweng.backend.order;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.sweng.backend.config.HybridLogicalClock;
+import com.sweng.backend.order.dto.OrderDto;
+import com.sweng.backend.restaurant.RestaurantEntity;
+import com.sweng.backend.restaurant.RestaurantRepository;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import tools.jackson.databind.ObjectMapper;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderMergeIT {
+
+  private static final RequestPostProcessor ADMIN = user("admin").roles("ADMIN");
+
+  @Autowired WebApplicationContext context;
+  @Autowired RestaurantRepository restaurantRepository;
+  @Autowired OrderRepository orderRepository;
+  @Autowired OrderOutbox outbox;
+  @Autowired ObjectMapper objectMapper;
+
+  private MockMvc mockMvc;
+
+  private UUID restaurantId;
+
+  @BeforeEach
+  void setup() {
+    this.mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+
+    orderRepository.deleteAll();
+    restaurantRepository.deleteAll();
+
+    RestaurantEntity r = new RestaurantEntity();
+    r.setName("Test Resto");
+    r.setAddress("1 Test Street");
+    r.setActive(true);
+    r.setOwnerId(UUID.randomUUID());
+    restaurantId = restaurantRepository.save(r).getId();
+  }
+
+  @Test
+  void writes_areStampedWithTheHybridLogicalClock() throws Exception {
+    OrderEntity created = outbox.create(order("Local", "10.00"));
+    assertTrue(created.getHlc() > 0);
+    assertEquals(created.getHlc(), created.getContentsHlc());
+    assertEquals(HybridLogicalClock.toInstant(created.getHlc()), created.getCreatedAt());
+    assertEquals(created.getCreatedAt(), created.getUpdatedAt());
+
+    // A status change moves the write stamp only
+    OrderDto moved = update(created.getId(), "{\"status\":\"preparing\"}");
+    assertTrue(Long.parseLong(moved.getHlc()) > created.getHlc());
+    assertEquals(Long.toString(created.getContentsHlc()), moved.getContentsHlc());
+    OrderEntity stored = orderRepository.findById(created.getId()).orElseThrow();
+    assertEquals(moved.getHlc(), Long.toString(stored.getHlc()));
+    assertEquals(HybridLogicalClock.toInstant(stored.getHlc()), stored.getUpdatedAt());
+
+    // A change to the contents moves both
+    OrderDto edited = update(created.getId(), "{\"specialInstructions\":\"No onions\"}");
+    assertTrue(Long.parseLong(edited.getHlc()) > Long.parseLong(moved.getHlc()));
+    assertEquals(edited.getHlc(), edited.getContentsHlc());
+  }
+
+  @Test
+  void versions_mergeToTheSameOrderInAnyOrder() {
+    List<OrderEntity> versions =
+        List.of(
+            version(OrderStatus.completed, 100, "a"),
+            version(OrderStatus.cancelled, 300, "b"),
+            version(OrderStatus.preparing, 300, "c"),
+            version(OrderStatus.pending, 200, "d"));
+
+    Set<String> results = new HashSet<>();
+    for (List<OrderEntity> sequence : permutations(versions)) {
+      OrderEntity merged = copy(sequence.get(0));
+      for (OrderEntity next : sequence.subList(1, sequence.size())) {
+        merged.merge(next);
+      }
+      // Merging any version again changes nothing
+      for (OrderEntity again : versions) {
+        assertFalse(merged.merge(again));
+      }
+      results.add(
+          merged.getStatus() + " " + merged.getCustomerName() + " " + merged.getContentsHlc());
+    }
+    // Completed beats cancelled; equal contents stamps are broken by the contents
+    assertEquals(Set.of("completed c 300"), results);
+  }
+
+  @Test
+  void mergeEndpoint_reconcilesAnotherRegionsVersion() throws Exception {
+    OrderEntity local = outbox.create(order("Local", "10.00"));
+    long contents = local.getContentsHlc();
+
+    // Older contents from a region 100ms ahead that has moved the order on
+    OrderDto remote = OrderController.toDto(local);
+    remote.setStatus("ready");
+    remote.setCustomerName("Remote");
+    remote.setContentsHlc(Long.toString(contents - 1));
+    long remoteHlc = (System.currentTimeMillis() + 100) << 16;
+    remote.setHlc(Long.toString(remoteHlc));
+    MockHttpServletResponse response = merge(local.getId(), remote);
+    OrderDto merged = read(response);
+    assertEquals("ready", merged.getStatus());
+    assertEquals("Local", merged.getCustomerName());
+    assertEquals(Long.toString(contents), merged.getContentsHlc());
+    assertTrue(Long.parseLong(merged.getHlc()) > remoteHlc);
+
+    // Newer contents, older status
+    remote.setStatus("preparing");
+    remote.setContentsHlc(Long.toString(remoteHlc));
+    merged = read(merge(local.getId(), remote));
+    assertEquals("ready", merged.getStatus());
+    assertEquals("Remote", merged.getCustomerName());
+    assertEquals(Long.toString(remoteHlc), merged.getContentsHlc());
+
+    // Nothing new: not written again
+    String etag = merge(local.getId(), remote).getHeader("ETag");
+    assertEquals(etag, merge(local.getId(), remote).getHeader("ETag"));
+
+    // An order this region has not seen yet is inserted as it was created there
+    UUID unknown = OrderShards.newOrderId(restaurantId);
+    remote.setId(unknown.toString());
+    OffsetDateTime createdAt = OffsetDateTime.of(2026, 1, 2, 3, 4, 5, 0, ZoneOffset.UTC);
+    remote.setCreatedAt(createdAt);
+    merged = read(merge(unknown, remote));
+    assertEquals("preparing", merged.getStatus());
+    assertEquals(createdAt, merged.getCreatedAt());
+    assertEquals(Long.toString(remoteHlc), merged.getContentsHlc());
+    assertEquals("Remote", orderRepository.findById(unknown).orElseThrow().getCustomerName());
+  }
+
+  @Test
+  void mergeEndpoint_isForAdminsWithStampedVersions() throws Exception {
+    OrderEntity local = outbox.create(order("Local", "10.00"));
+    OrderDto remote = OrderController.toDto(local);
+
+    mockMvc
+        .perform(
+            put("/api/orders/{id}/merge", local.getId())
+                .with(user("customerA").roles("CUSTOMER"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(remote)))
+        .andExpect(status().isForbidden());
+
+    mockMvc
+        .perform(
+            put("/api/orders/{id}/merge", UUID.randomUUID())
+                .with(ADMIN)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(remote)))
+        .andExpect(status().isBadRequest());
+
+    remote.setContentsHlc(null);
+    mockMvc
+        .perform(
+            put("/api/orders/{id}/merge", local.getId())
+                .with(ADMIN)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(remote)))
+        .andExpect(status().isBadRequest());
+  }
+
+  private OrderDto update(UUID id, String body) throws Exception {
+    return read(
+        mockMvc
+            .perform(
+                put("/api/orders/{id}", id)
+                    .with(ADMIN)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(body))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse());
+  }
+
+  private MockHttpServletResponse merge(UUID id, OrderDto version) throws Exception {
+    return mockMvc
+        .perform(
+            put("/api/orders/{id}/merge", id)
+                .with(ADMIN)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(version)))
+        .andExpect(status().isOk())
+        .andReturn()
+        .getResponse();
+  }
+
+  private OrderDto read(MockHttpServletResponse response) throws Exception {
+    return objectMapper.readValue(response.getContentAsString(), OrderDto.class);
+  }
+
+  private OrderEntity order(String customerName, String total) {
+    OrderEntity o = new OrderEntity();
+    o.setRestaurantId(restaurantId);
+    o.setCustomerName(customerName);
+    o.setTotalAmount(new BigDecimal(total));
+    return o;
+  }
+
+  private OrderEntity version(OrderStatus status, long contentsHlc, String customerName) {
+    OrderEntity o = order(customerName, "10.00");
+    o.setStatus(status);
+    o.setContentsHlc(contentsHlc);
+    return o;
+  }
+
+  private static OrderEntity copy(OrderEntity version) {
+    OrderEntity o = new OrderEntity();
+    o.merge(version);
+    return o;
+  }
+
+  private static List<List<OrderEntity>> permutations(List<OrderEntity> items) {
+    if (items.size() <= 1) {
+      return List.of(items);
+    }
+    List<List<OrderEntity>> result = new ArrayList<>();
+    for (OrderEntity first : items) {
+      List<OrderEntity> rest = new ArrayList<>(items);
+      rest.remove(first);
+      for (List<OrderEntity> tail : permutations(rest)) {
+        List<OrderEntity> sequence = new ArrayList<>();
+        sequence.add(first);
+        sequence.addAll(tail);
+        result.add(sequence);
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,227 @@
+package com.sweng.backend.order;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.sun.net.httpserver.HttpServer;
+import com.sweng.backend.order.dto.CreateOrderItemRequest;
+import com.sweng.backend.order.dto.CreateOrderRequest;
+import com.sweng.backend.restaurant.RestaurantEntity;
+import com.sweng.backend.restaurant.RestaurantRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import tools.jackson.databind.ObjectMapper;
+
+// Own database: relays of other cached test contexts would otherwise claim these events
+@SpringBootTest(
+    properties = {
+      "spring.datasource.url=jdbc:h2:mem:outbox;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+      "order.outbox.poll-interval=50ms",
+      "order.outbox.retention=0s"
+    })
+@ActiveProfiles("test")
+class OrderOutboxIT {
+
+  private static final HttpServer webhook;
+  private static final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+  private static final AtomicInteger failuresLeft = new AtomicInteger();
+  private static volatile CountDownLatch answerWhen;
+
+  static {
+    try {
+      webhook = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    } catch (IOException ex) {
+      throw new IllegalStateException(ex);
+    }
+    webhook.createContext(
+        "/events",
+        exchange -> {
+          String body =
+              new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+          CountDownLatch latch = answerWhen;
+          if (latch != null) {
+            try {
+              latch.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+              Thread.currentThread().interrupt();
+            }
+          }
+          int status = failuresLeft.getAndUpdate(n -> Math.max(0, n - 1)) > 0 ? 503 : 204;
+          if (status == 204) {
+            received.add(body);
+          }
+          exchange.sendResponseHeaders(status, -1);
+          exchange.close();
+        });
+    webhook.start();
+  }
+
+  @DynamicPropertySource
+  static void webhookUrl(DynamicPropertyRegistry registry) {
+    registry.add(
+        "order.outbox.webhook-url",
+        () -> "http://localhost:" + webhook.getAddress().getPort() + "/events");
+  }
+
+  @AfterAll
+  static void stopWebhook() {
+    webhook.stop(0);
+  }
+
+  @Autowired WebApplicationContext context;
+  @Autowired RestaurantRepository restaurantRepository;
+  @Autowired OrderRepository orderRepository;
+  @Autowired OrderOutboxRepository outboxRepository;
+  @Autowired MeterRegistry meterRegistry;
+
+  private MockMvc mockMvc;
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private UUID restaurantId;
+
+  @BeforeEach
+  void setup() {
+    this.mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+
+    orderRepository.deleteAll();
+    restaurantRepository.deleteAll();
+    received.clear();
+
+    RestaurantEntity r = new RestaurantEntity();
+    r.setName("Test Resto");
+    r.setAddress("1 Test Street");
+    r.setActive(true);
+    r.setOwnerId(UUID.randomUUID());
+    restaurantId = restaurantRepository.save(r).getId();
+  }
+
+  @Test
+  @WithMockUser(username = "ownerA", roles = "RESTAURANT_OWNER")
+  void orderChanges_areForwardedInOrder_thenPruned() throws Exception {
+    String orderId = createOrder();
+    mockMvc
+        .perform(
+            put("/api/orders/" + orderId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"status\":\"preparing\"}"))
+        .andExpect(status().isOk());
+    // Rejected transitions write nothing
+    mockMvc
+        .perform(
+            put("/api/orders/" + orderId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"status\":\"pending\"}"))
+        .andExpect(status().isForbidden());
+
+    StringBuilder delivered = new StringBuilder();
+    long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+    while (countOf(delivered, orderId) < 2 && System.nanoTime() < deadline) {
+      String body = received.poll(100, TimeUnit.MILLISECONDS);
+      if (body != null) delivered.append(body);
+    }
+    String events = delivered.toString();
+    assertEquals(2, countOf(delivered, orderId), events);
+    assertTrue(events.indexOf("\"type\":\"created\"") < events.indexOf("\"type\":\"updated\""));
+
+    await(() -> outboxRepository.count() == 0, Duration.ofSeconds(10));
+  }
+
+  @Test
+  @WithMockUser(username = "ownerA", roles = "RESTAURANT_OWNER")
+  void failingWebhook_isRetried() throws Exception {
+    double failuresBefore = meterRegistry.get("order.outbox.webhook.failures").counter().count();
+    failuresLeft.set(1);
+
+    String orderId = createOrder();
+
+    String body = received.poll(15, TimeUnit.SECONDS);
+    assertTrue(body != null && body.contains(orderId), "webhook never received the order");
+    assertEquals(
+        failuresBefore + 1, meterRegistry.get("order.outbox.webhook.failures").counter().count());
+  }
+
+  @Test
+  @WithMockUser(username = "ownerA", roles = "RESTAURANT_OWNER")
+  void slowWebhook_holdsNoTransactionWhileDelivering() throws Exception {
+    CountDownLatch answer = new CountDownLatch(1);
+    answerWhen = answer;
+    try {
+      String orderId = createOrder();
+
+      // The lease is committed before the POST: visible here while the webhook has not answered
+      await(
+          () ->
+              outboxRepository.findAll().stream()
+                  .anyMatch(e -> e.getForwardLeaseUntil() != null && e.getForwardedAt() == null),
+          Duration.ofSeconds(10));
+      assertTrue(received.isEmpty());
+
+      answer.countDown();
+      String body = received.poll(10, TimeUnit.SECONDS);
+      assertTrue(body != null && body.contains(orderId), "webhook never received the order");
+    } finally {
+      answerWhen = null;
+      answer.countDown();
+    }
+  }
+
+  private String createOrder() throws Exception {
+    CreateOrderItemRequest item = new CreateOrderItemRequest();
+    item.setItemId("item-1");
+    item.setQuantity(1);
+    CreateOrderRequest req = new CreateOrderRequest();
+    req.setRestaurantId(restaurantId.toString());
+    req.setItems(List.of(item));
+
+    String body =
+        mockMvc
+            .perform(
+                post("/api/orders")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(req)))
+            .andExpect(status().isCreated())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    return objectMapper.readTree(body).get("id").asString();
+  }
+
+  private static int countOf(CharSequence text, String needle) {
+    return text.toString().split(needle, -1).length - 1;
+  }
+
+  private static void await(BooleanSupplier condition, Duration timeout) throws Exception {
+    long deadline = System.nanoTime() + timeout.toNanos();
+    while (!condition.getAsBoolean()) {
+      assertTrue(System.nanoTime() < deadline, "condition not met in time");
+      Thread.sleep(20);
+    }
+  }
+}
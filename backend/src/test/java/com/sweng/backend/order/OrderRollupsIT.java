@@ -0,0 +1,215 @@
+package com.sweng.backend.order;
+
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.sweng.backend.order.dto.OrderStatsDto;
+import com.sweng.backend.restaurant.RestaurantEntity;
+import com.sweng.backend.restaurant.RestaurantRepository;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderRollupsIT {
+
+  @Autowired WebApplicationContext context;
+  @Autowired RestaurantRepository restaurantRepository;
+  @Autowired OrderRepository orderRepository;
+  @Autowired OrderRollupRepository rollupRepository;
+  @Autowired OrderOutbox outbox;
+  @Autowired OrderRollups rollups;
+
+  private MockMvc mockMvc;
+
+  private UUID restaurantId;
+  private LocalDate today;
+
+  @BeforeEach
+  void setup() {
+    this.mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+
+    orderRepository.deleteAll();
+    rollupRepository.deleteAll();
+    restaurantRepository.deleteAll();
+
+    RestaurantEntity r = new RestaurantEntity();
+    r.setName("Test Resto");
+    r.setAddress("1 Test Street");
+    r.setActive(true);
+    r.setOwnerId(UUID.randomUUID());
+    restaurantId = restaurantRepository.save(r).getId();
+    today = LocalDate.now(ZoneOffset.UTC);
+  }
+
+  @Test
+  @WithMockUser(username = "ownerA", roles = "RESTAURANT_OWNER")
+  void stats_followCreatesUpdatesTransitionsAndDeletes() throws Exception {
+    OrderEntity a = outbox.create(order("10.00"));
+    OrderEntity b = outbox.create(order("20.00"));
+    OrderEntity c = outbox.create(order("30.50"));
+    outbox.createAll(List.of(order("1.25"), order("2.25")));
+
+    // Multi-status transition, as an admin would make
+    outbox.transitionStatus(
+        a.getShardKey(),
+        a.getId(),
+        EnumSet.of(OrderStatus.pending, OrderStatus.preparing, OrderStatus.ready),
+        OrderStatus.cancelled,
+        null,
+        null);
+    outbox.transitionStatus(
+        b.getShardKey(),
+        b.getId(),
+        EnumSet.of(OrderStatus.pending),
+        OrderStatus.preparing,
+        null,
+        null);
+
+    OrderEntity found = orderRepository.findById(c.getId()).orElseThrow();
+    Long versionRead = found.getVersion();
+    OrderStatus statusRead = found.getStatus();
+    BigDecimal totalRead = found.getTotalAmount();
+    found.setTotalAmount(new BigDecimal("40.00"));
+    found.setStatus(OrderStatus.preparing);
+    outbox.update(found, versionRead, statusRead, totalRead);
+
+    outbox.delete(orderRepository.findById(b.getId()).orElseThrow());
+
+    mockMvc
+        .perform(get("/api/restaurants/" + restaurantId + "/stats"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.restaurantId").value(restaurantId.toString()))
+        .andExpect(jsonPath("$.date").value(today.toString()))
+        .andExpect(jsonPath("$.ordersByStatus.pending").value(2))
+        .andExpect(jsonPath("$.ordersByStatus.preparing").value(1))
+        .andExpect(jsonPath("$.ordersByStatus.ready").value(0))
+        .andExpect(jsonPath("$.ordersByStatus.cancelled").value(1))
+        .andExpect(jsonPath("$.orderCount").value(3))
+        .andExpect(jsonPath("$.revenue").value(43.50))
+        .andExpect(jsonPath("$.averageTicket").value(14.50));
+    assertMatchesOrders();
+  }
+
+  @Test
+  @WithMockUser(username = "ownerA", roles = "RESTAURANT_OWNER")
+  void concurrentWrites_addUpAcrossStripes() throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        futures.add(
+            pool.submit(
+                () -> {
+                  for (int i = 0; i < 25; i++) {
+                    OrderEntity o = outbox.create(order("3.00"));
+                    if (i % 5 == 0) {
+                      outbox.transitionStatus(
+                          o.getShardKey(),
+                          o.getId(),
+                          EnumSet.of(OrderStatus.pending),
+                          OrderStatus.preparing,
+                          null,
+                          null);
+                    }
+                  }
+                }));
+      }
+      for (Future<?> f : futures) {
+        f.get();
+      }
+    } finally {
+      pool.shutdown();
+    }
+
+    OrderStatsDto stats = rollups.stats(restaurantId, today);
+    assertEquals(200, stats.getOrderCount());
+    assertEquals(40L, stats.getOrdersByStatus().get("preparing"));
+    assertEquals(new BigDecimal("600.00"), stats.getRevenue());
+    assertMatchesOrders();
+  }
+
+  @Test
+  @WithMockUser(username = "ownerA", roles = "RESTAURANT_OWNER")
+  void stats_forDayWithoutOrders_areEmpty() throws Exception {
+    mockMvc
+        .perform(get("/api/restaurants/" + restaurantId + "/stats").param("date", "2001-02-03"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.date").value("2001-02-03"))
+        .andExpect(jsonPath("$.ordersByStatus.pending").value(0))
+        .andExpect(jsonPath("$.orderCount").value(0))
+        .andExpect(jsonPath("$.revenue").value(0))
+        .andExpect(jsonPath("$.averageTicket").value(nullValue()));
+  }
+
+  @Test
+  void stats_requireOwnerOrAdmin() throws Exception {
+    mockMvc
+        .perform(get("/api/restaurants/" + restaurantId + "/stats"))
+        .andExpect(status().isUnauthorized());
+    mockMvc
+        .perform(
+            get("/api/restaurants/" + restaurantId + "/stats")
+                .with(user("customerA").roles("CUSTOMER")))
+        .andExpect(status().isForbidden());
+  }
+
+  @Test
+  @WithMockUser(username = "admin", roles = "ADMIN")
+  void stats_rejectBadInput() throws Exception {
+    mockMvc
+        .perform(get("/api/restaurants/" + restaurantId + "/stats").param("date", "yesterday"))
+        .andExpect(status().isBadRequest());
+    mockMvc
+        .perform(get("/api/restaurants/" + UUID.randomUUID() + "/stats"))
+        .andExpect(status().isNotFound());
+  }
+
+  private OrderEntity order(String total) {
+    OrderEntity o = new OrderEntity();
+    o.setRestaurantId(restaurantId);
+    o.setCustomerName("Test Customer");
+    o.setTotalAmount(new BigDecimal(total));
+    return o;
+  }
+
+  /** Checks the rollups against counting the orders themselves. */
+  private void assertMatchesOrders() {
+    Map<String, Long> counts = new TreeMap<>();
+    BigDecimal revenue = BigDecimal.ZERO;
+    for (OrderEntity o : orderRepository.findAll()) {
+      if (!o.getRestaurantId().equals(restaurantId)) continue;
+      counts.merge(o.getStatus().name(), 1L, Long::sum);
+      if (o.getStatus() != OrderStatus.cancelled) revenue = revenue.add(o.getTotalAmount());
+    }
+
+    OrderStatsDto stats = rollups.stats(restaurantId, today);
+    Map<String, Long> rolled = new TreeMap<>(stats.getOrdersByStatus());
+    rolled.values().removeIf(n -> n == 0);
+    assertEquals(counts, rolled);
+    assertEquals(0, revenue.compareTo(stats.getRevenue()));
+  }
+}
@@ -4,6 +4,7 @@ import static org.springframework.security.test.web.servlet.setup.SecurityMockMv
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import com.sweng.backend.auth.JwtUtil;
 import com.sweng.backend.order.dto.CreateOrderItemRequest;
 import com.sweng.backend.order.dto.CreateOrderRequest;
 import com.sweng.backend.order.dto.UpdateOrderRequest;
@@ -36,6 +37,7 @@ class OrderSecurityIT {
   @Autowired UserRepository userRepository;
   @Autowired RestaurantRepository restaurantRepository;
   @Autowired OrderRepository orderRepository;
+  @Autowired JwtUtil jwtUtil;
 
   private MockMvc mockMvc;
   private final ObjectMapper objectMapper = new ObjectMapper();
@@ -220,4 +222,28 @@ class OrderSecurityIT {
   void deleteOrder_ownerRole_canDeleteAny() throws Exception {
     mockMvc.perform(delete("/api/orders/" + orderIdOfCustomerB)).andExpect(status().isNoContent());
   }
+
+  @Test
+  void bearerToken_authenticatesFromClaimsWithoutUserLookup() throws Exception {
+    // No users row exists for this identity, so only the token claims can supply the UUID
+    UUID uid = UUID.randomUUID();
+    String token = jwtUtil.generateToken("ghost", uid, List.of("CUSTOMER"));
+
+    CreateOrderRequest req = new CreateOrderRequest();
+    req.setRestaurantId(restaurantId.toString());
+    req.setItems(List.of(buildItem("item-c", 1)));
+
+    mockMvc
+        .perform(
+            post("/api/orders")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(req)))
+        .andExpect(status().isCreated())
+        .andExpect(jsonPath("$.customerId").value(uid.toString()));
+
+    mockMvc
+        .perform(get("/api/orders").header("Authorization", "Bearer " + token + "x"))
+        .andExpect(status().isUnauthorized());
+  }
 }
@@ -0,0 +1,241 @@
+package com.sweng.backend.order;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.sweng.backend.restaurant.RestaurantEntity;
+import com.sweng.backend.restaurant.RestaurantRepository;
+import com.sweng.backend.user.Role;
+import com.sweng.backend.user.User;
+import com.sweng.backend.user.UserRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.OffsetDateTime;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import tools.jackson.databind.ObjectMapper;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class OrderShardingIT {
+
+  private static final RequestPostProcessor CUSTOMER = user("customerA").roles("CUSTOMER");
+  private static final RequestPostProcessor ADMIN = user("admin").roles("ADMIN");
+
+  @Autowired MockMvc mockMvc;
+  @Autowired MeterRegistry meterRegistry;
+  @Autowired UserRepository userRepository;
+  @Autowired RestaurantRepository restaurantRepository;
+  @Autowired OrderRepository orderRepository;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private UUID customerId;
+  private UUID restaurantId;
+
+  @BeforeEach
+  void setup() {
+    orderRepository.deleteAll();
+    restaurantRepository.deleteAll();
+
+    customerId =
+        userRepository
+            .findByUsername("customerA")
+            .orElseGet(
+                () -> {
+                  User u =
+                      new User(
+                          UUID.randomUUID(),
+                          "customerA",
+                          "customerA@test.com",
+                          "bcrypt-stub",
+                          OffsetDateTime.now());
+                  u.getRoles().add(Role.CUSTOMER);
+                  return userRepository.save(u);
+                })
+            .getUid();
+
+    RestaurantEntity r = new RestaurantEntity();
+    r.setName("Test Resto");
+    r.setAddress("1 Test Street");
+    r.setActive(true);
+    r.setOwnerId(UUID.randomUUID());
+    restaurantId = restaurantRepository.save(r).getId();
+  }
+
+  @Test
+  void orderIds_carryTheirRestaurantsShardKey() throws Exception {
+    String id = createOrder();
+
+    OrderEntity saved = orderRepository.findById(UUID.fromString(id)).orElseThrow();
+    assertEquals(OrderShards.ofRestaurant(restaurantId), saved.getShardKey());
+    assertEquals(saved.getShardKey(), OrderShards.ofOrder(saved.getId()));
+    assertEquals(7, saved.getId().version());
+  }
+
+  @Test
+  void orderIds_stayUniqueAndOrderedWithTheShardKeyInPlace() {
+    Set<UUID> ids = new HashSet<>();
+    UUID previous = OrderShards.newOrderId(restaurantId);
+    for (int i = 0; i < 100_000; i++) {
+      UUID id = OrderShards.newOrderId(restaurantId);
+      assertTrue(id.compareTo(previous) > 0);
+      assertEquals(7, id.version());
+      assertEquals(2, id.variant());
+      assertEquals(OrderShards.ofRestaurant(restaurantId), OrderShards.ofOrder(id));
+      ids.add(id);
+      previous = id;
+    }
+    assertEquals(100_000, ids.size());
+  }
+
+  @Test
+  void singleOrderAndRestaurantEndpoints_runOnOneShard() throws Exception {
+    Map<String, Long> fanOuts = new LinkedHashMap<>();
+    long before = fanOuts("POST", "/api/orders");
+    String id = createOrder();
+    fanOuts.put("POST /api/orders", fanOuts("POST", "/api/orders") - before);
+    fanOuts.put(
+        "POST /api/orders/batch",
+        fanOuts(
+            "/api/orders/batch",
+            post("/api/orders/batch")
+                .with(CUSTOMER)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"orders\":[" + orderBody() + "," + orderBody() + "]}"),
+            jsonPath("$.data[1].status").value(201)));
+    fanOuts.put(
+        "GET /api/orders/{orderId}",
+        fanOuts("/api/orders/{orderId}", get("/api/orders/" + id).with(CUSTOMER)));
+    fanOuts.put(
+        "PUT /api/orders/{orderId}",
+        fanOuts(
+            "/api/orders/{orderId}",
+            put("/api/orders/" + id)
+                .with(CUSTOMER)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"items\":[{\"itemId\":\"item-2\",\"quantity\":1}]}")));
+    fanOuts.put(
+        "PUT /api/orders/{orderId} status",
+        fanOuts(
+            "/api/orders/{orderId}",
+            put("/api/orders/" + id)
+                .with(ADMIN)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"status\":\"preparing\"}")));
+    fanOuts.put(
+        "GET /api/orders?restaurantId=",
+        fanOuts(
+            "/api/orders",
+            get("/api/orders").with(ADMIN).param("restaurantId", restaurantId.toString()),
+            jsonPath("$.data.length()").value(3)));
+    fanOuts.put(
+        "GET /api/restaurants/{restaurantId}/stats",
+        fanOuts(
+            "/api/restaurants/{restaurantId}/stats",
+            get("/api/restaurants/" + restaurantId + "/stats").with(ADMIN),
+            jsonPath("$.orderCount").value(3)));
+    fanOuts.put(
+        "DELETE /api/orders/{orderId}",
+        fanOuts("/api/orders/{orderId}", delete("/api/orders/" + id).with(CUSTOMER)));
+
+    Map<String, Long> expected = new LinkedHashMap<>();
+    fanOuts.keySet().forEach(endpoint -> expected.put(endpoint, 0L));
+    assertEquals(expected, fanOuts);
+  }
+
+  @Test
+  void lookupsWithoutARoutingKey_fanOut() throws Exception {
+    // A customer's orders are spread over the shards of the restaurants they ordered from
+    createOrder();
+    assertEquals(
+        1,
+        fanOuts(
+            "/api/orders",
+            get("/api/orders").with(CUSTOMER),
+            jsonPath("$.data.length()").value(1)));
+
+    // Orders from before shard keys have ids that do not encode one; they are still found
+    UUID legacyId;
+    do {
+      legacyId = UUID.randomUUID();
+    } while (OrderShards.ofOrder(legacyId) == OrderShards.ofRestaurant(restaurantId));
+    OrderEntity legacy = new OrderEntity();
+    legacy.setId(legacyId);
+    legacy.setRestaurantId(restaurantId);
+    legacy.setCustomerId(customerId);
+    orderRepository.save(legacy);
+
+    String legacyPath = "/api/orders/" + legacyId;
+    assertEquals(1, fanOuts("/api/orders/{orderId}", get(legacyPath).with(CUSTOMER)));
+    mockMvc
+        .perform(
+            put(legacyPath)
+                .with(CUSTOMER)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"status\":\"cancelled\"}"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.status").value("cancelled"));
+    mockMvc.perform(delete(legacyPath).with(ADMIN)).andExpect(status().isNoContent());
+    mockMvc.perform(get(legacyPath).with(CUSTOMER)).andExpect(status().isNotFound());
+  }
+
+  /** Performs a successful request and returns the shard fan-outs it recorded for its route. */
+  private long fanOuts(String uri, MockHttpServletRequestBuilder request, ResultMatcher... matchers)
+      throws Exception {
+    String method = request.buildRequest(new MockServletContext()).getMethod();
+    long before = fanOuts(method, uri);
+    mockMvc.perform(request).andExpect(status().is2xxSuccessful()).andExpectAll(matchers);
+    return fanOuts(method, uri) - before;
+  }
+
+  private long fanOuts(String method, String uri) {
+    DistributionSummary summary =
+        meterRegistry
+            .find("db.shard.fanouts.per.request")
+            .tag("method", method)
+            .tag("uri", uri)
+            .summary();
+    return summary == null ? 0 : (long) summary.totalAmount();
+  }
+
+  private String createOrder() throws Exception {
+    String created =
+        mockMvc
+            .perform(
+                post("/api/orders")
+                    .with(CUSTOMER)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(orderBody()))
+            .andExpect(status().isCreated())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    return objectMapper.readTree(created).get("id").asString();
+  }
+
+  private String orderBody() {
+    return "{\"restaurantId\":\""
+        + restaurantId
+        + "\",\"items\":[{\"itemId\":\"item-1\",\"quantity\":2}]}";
+  }
+}
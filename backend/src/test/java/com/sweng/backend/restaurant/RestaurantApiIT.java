@@ -9,8 +9,10 @@ import com.sweng.backend.restaurant.dto.UpdateRestaurantRequest;
 import com.sweng.backend.user.Role;
 import com.sweng.backend.user.User;
 import com.sweng.backend.user.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.time.OffsetDateTime;
 import java.util.UUID;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -29,6 +31,7 @@ class RestaurantApiIT {
 
   @Autowired WebApplicationContext context;
   @Autowired UserRepository userRepository;
+  @Autowired MeterRegistry meterRegistry;
 
   private MockMvc mockMvc;
   private final ObjectMapper objectMapper = new ObjectMapper();
@@ -157,6 +160,52 @@ class RestaurantApiIT {
         .andExpect(jsonPath("$.name").value("After"));
   }
 
+  @Test
+  @WithMockUser(username = "admin", roles = "ADMIN")
+  void getRestaurant_servedFromCache_andInvalidatedByUpdate() throws Exception {
+    CreateRestaurantRequest create = new CreateRestaurantRequest();
+    create.setName("Cached");
+    create.setAddress("Addr");
+
+    String createResponse =
+        mockMvc
+            .perform(
+                post("/api/restaurants")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(create)))
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+    String id = objectMapper.readTree(createResponse).get("id").asText();
+
+    mockMvc.perform(get("/api/restaurants/" + id)).andExpect(status().isOk());
+    double hitsBefore = cacheRequests("hit");
+    mockMvc
+        .perform(get("/api/restaurants/" + id))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.name").value("Cached"));
+    Assertions.assertEquals(hitsBefore + 1, cacheRequests("hit"));
+
+    UpdateRestaurantRequest update = new UpdateRestaurantRequest();
+    update.setName("Renamed");
+    mockMvc
+        .perform(
+            put("/api/restaurants/" + id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(update)))
+        .andExpect(status().isOk());
+
+    mockMvc
+        .perform(get("/api/restaurants/" + id))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.name").value("Renamed"));
+  }
+
+  private double cacheRequests(String result) {
+    return meterRegistry.get("restaurant.cache.requests").tag("result", result).counter().count();
+  }
+
   @Test
   @WithMockUser(username = "admin", roles = "ADMIN")
   void deleteRestaurant_thenGetReturns404() throws Exception {
@@ -180,4 +229,54 @@ class RestaurantApiIT {
 
     mockMvc.perform(get("/api/restaurants/" + id)).andExpect(status().isNotFound());
   }
+
+  @Test
+  @WithMockUser(username = "admin", roles = "ADMIN")
+  void listRestaurants_keysetCursorWithoutTotal() throws Exception {
+    for (String name : new String[] {"Keyset One", "Keyset Two"}) {
+      CreateRestaurantRequest create = new CreateRestaurantRequest();
+      create.setName(name);
+      create.setAddress("Addr");
+      mockMvc
+          .perform(
+              post("/api/restaurants")
+                  .contentType(MediaType.APPLICATION_JSON)
+                  .content(objectMapper.writeValueAsString(create)))
+          .andExpect(status().isCreated());
+    }
+
+    String first =
+        mockMvc
+            .perform(get("/api/restaurants").param("size", "1").param("includeTotal", "false"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.content.length()").value(1))
+            .andExpect(jsonPath("$.totalElements").doesNotExist())
+            .andExpect(jsonPath("$.nextCursor").isString())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+    String firstId = objectMapper.readTree(first).get("content").get(0).get("id").asText();
+    String cursor = objectMapper.readTree(first).get("nextCursor").asText();
+
+    String second =
+        mockMvc
+            .perform(get("/api/restaurants").param("size", "1").param("cursor", cursor))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.content.length()").value(1))
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+    String secondId = objectMapper.readTree(second).get("content").get(0).get("id").asText();
+    Assertions.assertNotEquals(firstId, secondId);
+
+    mockMvc
+        .perform(get("/api/restaurants").param("cursor", "bogus"))
+        .andExpect(status().isBadRequest());
+
+    mockMvc
+        .perform(get("/api/restaurants").param("cursor", cursor).param("page", "1"))
+        .andExpect(status().isBadRequest());
+  }
 }
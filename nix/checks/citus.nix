@@ -1,5 +1,6 @@
 # Integration test for Citus distributed PostgreSQL
-# Tests that Citus extension loads and basic functionality works
+# Tests that Citus extension loads, basic functionality works and the
+# backend's schema migrations apply on top of it
 { self, inputs, ... }:
 {
   perSystem =
@@ -59,6 +60,47 @@
               "sudo -u postgres psql -t -c \"SELECT count(*) FROM test_table;\""
           )
           assert "2" in result, f"Expected 2 rows, got: {result}"
+
+          # Apply the Flyway migrations in version order, each in its own
+          # transaction as Flyway would, so the Citus branches of the DDL
+          # (reference tables, re-distribution by shard_key) actually run
+          postgres.succeed("sudo -u postgres createdb migrations")
+          postgres.succeed(
+              "sudo -u postgres psql -d migrations -c \"CREATE EXTENSION citus;\""
+          )
+          postgres.succeed(
+              "sudo -u postgres psql -d migrations -c \"SELECT citus_set_coordinator_host('localhost', 5432);\""
+          )
+          postgres.succeed(
+              "for f in $(ls ${../../backend/src/main/resources/db/migration}/*.sql | sort -V); do "
+              "sudo -u postgres psql -d migrations -v ON_ERROR_STOP=1 -1 -f \"$f\" || exit 1; "
+              "done"
+          )
+
+          def query(sql):
+              return postgres.succeed(
+                  f"sudo -u postgres psql -d migrations -tA -c \"{sql}\""
+              ).strip()
+
+          distributed = query(
+              "SELECT logicalrelid || ':' || column_to_column_name(logicalrelid, partkey) "
+              "FROM pg_dist_partition WHERE partmethod = 'h';"
+          )
+          assert sorted(distributed.split()) == ["order_rollups:shard_key", "orders:shard_key"], (
+              f"Unexpected distribution: {distributed}"
+          )
+
+          reference = query(
+              "SELECT logicalrelid FROM pg_dist_partition WHERE partmethod = 'n';"
+          )
+          for table in ["menu_items", "restaurants", "user_roles", "users"]:
+              assert table in reference.split(), f"{table} is not a reference table: {reference}"
+
+          nullable = query(
+              "SELECT is_nullable FROM information_schema.columns "
+              "WHERE table_name = 'restaurants' AND column_name = 'owner_id';"
+          )
+          assert nullable == "NO", f"restaurants.owner_id should be NOT NULL, got: {nullable}"
         '';
       };
     };
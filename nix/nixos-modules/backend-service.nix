@@ -34,6 +34,53 @@
       options.services.backend = {
         enable = mkEnableOption "Last minute trip planning service";
 
+        region = mkOption {
+          description = ''
+            region this instance runs in, attached as the `region` tag on every exported metric.
+          '';
+          type = types.str;
+          default = "local";
+        };
+
+        regionPeers = mkOption {
+          description = ''
+            backends of the other regions, by region name, reachable over the mesh. Order writes for
+            restaurants homed in one of these regions are forwarded to its backend, so they are
+            written in that region's database.
+          '';
+          type = types.attrsOf types.str;
+          default = { };
+          example = {
+            region-b = "http://backend-b.toast.internal:8080";
+          };
+        };
+
+        groupCommit = mkOption {
+          description = ''
+            whether `POST /api/orders` queues orders and commits them in groups instead of one
+            transaction per request.
+          '';
+          type = types.bool;
+          default = false;
+        };
+
+        replicaUrl = mkOption {
+          description = ''
+            JDBC URL of the read replica closest to this instance, or null to read from the primary.
+            Read-only requests fail over to the primary while the replica lags or is unreachable.
+          '';
+          type = types.nullOr types.str;
+          default = null;
+        };
+
+        orderWebhookUrl = mkOption {
+          description = ''
+            URL order events are POSTed to from the order outbox, or null to only stream them.
+          '';
+          type = types.nullOr types.str;
+          default = null;
+        };
+
         database = mkOption {
           description = ''
             backend database configuration.
@@ -119,6 +166,17 @@
             DB_NAME = cfg.database.name;
             DB_USER = cfg.database.user;
             DB_PASSWORD = cfg.database.password;
+            REGION = cfg.region;
+            REGION_PEERS = lib.concatStringsSep "," (
+              lib.mapAttrsToList (name: url: "${name}=${url}") cfg.regionPeers
+            );
+            ORDER_GROUP_COMMIT = lib.boolToString cfg.groupCommit;
+          }
+          // lib.optionalAttrs (cfg.replicaUrl != null) {
+            DB_REPLICA_URL = cfg.replicaUrl;
+          }
+          // lib.optionalAttrs (cfg.orderWebhookUrl != null) {
+            ORDER_WEBHOOK_URL = cfg.orderWebhookUrl;
           };
 
           serviceConfig = {
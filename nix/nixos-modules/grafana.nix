@@ -57,6 +57,14 @@ _: {
                 url = cfg.lokiUrl;
               }
             ];
+
+            # backend latency, database and JVM panels, one series per region
+            dashboards.settings.providers = [
+              {
+                name = "toast";
+                options.path = ./grafana-dashboards;
+              }
+            ];
           };
         };
       };
@@ -4,9 +4,11 @@
     # enable all monitoring services
     services.toast-prometheus = {
       enable = true;
-      scrapeTargets = [
+      backendTargets = [
         "backend-a.toast.internal:8080"
         "backend-b.toast.internal:8080"
+      ];
+      scrapeTargets = [
         "db-coordinator.toast.internal:9100"
         "db-worker-1.toast.internal:9100"
         "db-worker-2.toast.internal:9100"
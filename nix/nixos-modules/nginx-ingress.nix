@@ -52,12 +52,39 @@ _: {
               proxyPass = "http://backend";
               proxyWebsockets = true;
               extraConfig = ''
+                # Only backends mark requests as forwarded from another region
+                proxy_set_header Forwarded-From-Region "";
                 proxy_next_upstream error timeout http_502 http_503;
                 proxy_connect_timeout 5s;
                 proxy_read_timeout 60s;
               '';
             };
 
+            # Server-Sent Events: pass each event through as soon as it is written; the backend's
+            # heartbeats keep idle streams inside proxy_read_timeout
+            locations."~ ^/api/.*/stream$" = {
+              proxyPass = "http://backend";
+              extraConfig = ''
+                proxy_buffering off;
+                proxy_cache off;
+                gzip off;
+                proxy_read_timeout 60s;
+              '';
+            };
+
+            # Actuator endpoints (metrics, route mappings) are for the monitoring node, which scrapes
+            # backends over the mesh; only the health check is public
+            locations."/actuator/" = {
+              return = "404";
+            };
+
+            locations."= /actuator/health" = {
+              proxyPass = "http://backend";
+              extraConfig = ''
+                access_log off;
+              '';
+            };
+
             locations."/health" = {
               proxyPass = "http://backend";
               extraConfig = ''
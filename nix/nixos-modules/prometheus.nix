@@ -10,7 +10,17 @@ _: {
         enable = lib.mkEnableOption "Prometheus metrics collection";
 
         scrapeTargets = lib.mkOption {
-          description = "List of targets to scrape metrics from";
+          description = "List of node exporter targets to scrape metrics from";
+          type = lib.types.listOf lib.types.str;
+          default = [ ];
+          example = [
+            "db-coordinator:9100"
+            "db-worker-1:9100"
+          ];
+        };
+
+        backendTargets = lib.mkOption {
+          description = "List of backend instances to scrape the actuator Prometheus endpoint of";
           type = lib.types.listOf lib.types.str;
           default = [ ];
           example = [
@@ -28,6 +38,16 @@ _: {
           scrapeConfigs = [
             {
               job_name = "backend";
+              metrics_path = "/actuator/prometheus";
+              scrape_interval = "15s";
+              static_configs = [
+                {
+                  targets = cfg.backendTargets;
+                }
+              ];
+            }
+            {
+              job_name = "nodes";
               static_configs = [
                 {
                   targets = cfg.scrapeTargets;
@@ -19,12 +19,18 @@ in
     # backend servers
     backend-a = mkSystem [
       self.nixosModules.backendNode
-      { networking.hostName = "backend-a"; }
+      {
+        networking.hostName = "backend-a";
+        services.backend.region = "region-a";
+      }
     ];
 
     backend-b = mkSystem [
       self.nixosModules.backendNode
-      { networking.hostName = "backend-b"; }
+      {
+        networking.hostName = "backend-b";
+        services.backend.region = "region-b";
+      }
     ];
 
     # database nodes